@@ -97,6 +97,10 @@ public class VespaMetricSet {
         metrics.add(new Metric("configserver.cacheChecksumElems.last"));
         metrics.add(new Metric("configserver.hosts.last"));
         metrics.add(new Metric("configserver.delayedResponses.count"));
+        metrics.add(new Metric("configserver.delayedResponseFanOut.max"));
+        metrics.add(new Metric("configserver.delayedResponseFanOutLatency.max"));
+        metrics.add(new Metric("configserver.delayedResponseFanOutLatency.sum"));
+        metrics.add(new Metric("configserver.delayedResponseFanOutLatency.count"));
         metrics.add(new Metric("configserver.sessionChangeErrors.count"));
 
         metrics.add(new Metric("configserver.zkZNodes.last"));
@@ -40,6 +40,9 @@ public final class ErrorCode {
 
     public static final int INCOMPATIBLE_VESPA_VERSION = UNKNOWN_CONFIG + 500;
 
+    // The payload in the response is a delta which could not be applied to the payload the client has
+    public static final int INVALID_PAYLOAD_DELTA = UNKNOWN_CONFIG + 600;
+
     private ErrorCode() {
     }
 
@@ -65,6 +68,7 @@ public final class ErrorCode {
             case INCONSISTENT_CONFIG_MD5:    return "INCONSISTENT_CONFIG_MD5";
             case UNKNOWN_VESPA_VERSION:      return "UNKNOWN_VESPA_VERSION";
             case INCOMPATIBLE_VESPA_VERSION: return "INCOMPATIBLE_VESPA_VERSION";
+            case INVALID_PAYLOAD_DELTA:      return "INVALID_PAYLOAD_DELTA";
             default:                         return "Unknown error";
         }
     }
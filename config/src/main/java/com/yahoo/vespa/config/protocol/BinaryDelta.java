@@ -0,0 +1,185 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Encodes and applies binary deltas, which transform one byte array into another.
+ * <p>
+ * A delta is a sequence of instructions to either copy a range of the base array, or add literal bytes.
+ * Copies are found by indexing each block of the base array by a hash of its content, and looking up the
+ * rolling hash of each block-sized window of the target array in this index. Matches are extended in both
+ * directions, so long unchanged regions become single copy instructions regardless of block alignment.
+ * <p>
+ * The format is a version byte, the lengths of the base and target arrays, and then the instructions, where
+ * all integers are variable length encoded.
+ */
+final class BinaryDelta {
+
+    private static final byte version = 1;
+    private static final byte copy = 0;
+    private static final byte add = 1;
+
+    private static final int blockSize = 32;
+    private static final int multiplier = 0x01000193;
+    private static final int outgoingMultiplier = power(multiplier, blockSize - 1);
+
+    private BinaryDelta() { }
+
+    /** Returns a delta which transforms the given base into the given target */
+    static byte[] encode(byte[] base, byte[] target) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, target.length / 16));
+        out.write(version);
+        writeInt(base.length, out);
+        writeInt(target.length, out);
+
+        int blocks = base.length / blockSize;
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, blocks * 2 - 1));
+        int[] index = new int[1 << bits];
+        Arrays.fill(index, -1);
+        for (int block = blocks - 1; block >= 0; block--) // Earlier blocks win collisions
+            index[slot(hash(base, block * blockSize), bits)] = block * blockSize;
+
+        int literalStart = 0;
+        int position = 0;
+        int hash = target.length >= blockSize ? hash(target, 0) : 0;
+        while (position + blockSize <= target.length) {
+            int candidate = blocks > 0 ? index[slot(hash, bits)] : -1;
+            if (candidate >= 0 && Arrays.equals(base, candidate, candidate + blockSize, target, position, position + blockSize)) {
+                int start = position, from = candidate;
+                while (start > literalStart && from > 0 && base[from - 1] == target[start - 1]) {
+                    start--;
+                    from--;
+                }
+                int end = position + blockSize, fromEnd = candidate + blockSize;
+                while (end < target.length && fromEnd < base.length && base[fromEnd] == target[end]) {
+                    end++;
+                    fromEnd++;
+                }
+                writeAdd(target, literalStart, start, out);
+                out.write(copy);
+                writeInt(from, out);
+                writeInt(end - start, out);
+                literalStart = position = end;
+                if (position + blockSize <= target.length)
+                    hash = hash(target, position);
+            }
+            else {
+                if (position + blockSize < target.length)
+                    hash = (hash - target[position] * outgoingMultiplier) * multiplier + target[position + blockSize];
+                position++;
+            }
+        }
+        writeAdd(target, literalStart, target.length, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the target produced by applying the given delta to the given base.
+     *
+     * @throws IllegalArgumentException if the delta is invalid, or was not made for a base of this length
+     */
+    static byte[] apply(byte[] base, byte[] delta) {
+        Input in = new Input(delta);
+        if (in.readByte() != version)
+            throw new IllegalArgumentException("Unknown delta version " + delta[0]);
+        int baseLength = in.readInt();
+        if (baseLength != base.length)
+            throw new IllegalArgumentException("Delta is for a base of length " + baseLength + ", but base has length " + base.length);
+
+        byte[] target = new byte[in.readInt()];
+        int position = 0;
+        while (in.hasMore()) {
+            byte instruction = in.readByte();
+            if (instruction == copy) {
+                int from = in.readInt();
+                int length = in.readInt();
+                if (from > base.length || length > base.length - from || length > target.length - position)
+                    throw new IllegalArgumentException("Copy of " + length + " bytes from " + from + " is out of bounds");
+                System.arraycopy(base, from, target, position, length);
+                position += length;
+            }
+            else if (instruction == add) {
+                int length = in.readInt();
+                if (length > delta.length - in.position || length > target.length - position)
+                    throw new IllegalArgumentException("Add of " + length + " bytes is out of bounds");
+                System.arraycopy(delta, in.position, target, position, length);
+                in.position += length;
+                position += length;
+            }
+            else {
+                throw new IllegalArgumentException("Unknown delta instruction " + instruction);
+            }
+        }
+        if (position != target.length)
+            throw new IllegalArgumentException("Delta produced " + position + " bytes, but should produce " + target.length);
+        return target;
+    }
+
+    private static void writeAdd(byte[] target, int start, int end, ByteArrayOutputStream out) {
+        if (start == end) return;
+        out.write(add);
+        writeInt(end - start, out);
+        out.write(target, start, end - start);
+    }
+
+    private static void writeInt(int value, ByteArrayOutputStream out) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int hash(byte[] data, int offset) {
+        int hash = 0;
+        for (int i = offset; i < offset + blockSize; i++)
+            hash = hash * multiplier + data[i];
+        return hash;
+    }
+
+    private static int slot(int hash, int bits) {
+        return (hash * 0x9e3779b9) >>> (32 - bits);
+    }
+
+    private static int power(int base, int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++)
+            result *= base;
+        return result;
+    }
+
+    private static class Input {
+
+        private final byte[] data;
+        private int position = 0;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        boolean hasMore() { return position < data.length; }
+
+        byte readByte() {
+            if (position >= data.length)
+                throw new IllegalArgumentException("Delta is truncated");
+            return data[position++];
+        }
+
+        int readInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) throw new IllegalArgumentException("Negative length in delta");
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Invalid integer in delta");
+        }
+
+    }
+
+}
@@ -3,6 +3,7 @@ package com.yahoo.vespa.config.protocol;
 
 import com.yahoo.config.ConfigInstance;
 import com.yahoo.config.subscription.impl.ConfigSubscription;
+import com.yahoo.config.subscription.impl.GenericJRTConfigSubscription;
 import com.yahoo.config.subscription.impl.JRTConfigSubscription;
 import com.yahoo.jrt.Request;
 import com.yahoo.jrt.StringValue;
@@ -11,6 +12,7 @@ import com.yahoo.slime.Slime;
 import com.yahoo.text.Utf8;
 import com.yahoo.text.Utf8Array;
 import com.yahoo.vespa.config.ConfigKey;
+import com.yahoo.vespa.config.ErrorCode;
 import com.yahoo.vespa.config.JRTMethods;
 import com.yahoo.vespa.config.PayloadChecksum;
 import com.yahoo.vespa.config.PayloadChecksums;
@@ -32,6 +34,9 @@ import static com.yahoo.vespa.config.PayloadChecksum.Type.XXHASH64;
  *
  * See {@link JRTServerConfigRequestV3} for protocol details.
  *
+ * A request which accepts payload deltas keeps the payload the client has, and applies deltas in responses to it.
+ * The payload of each response becomes the base of the next request.
+ *
  * @author Ulf Lilleengen
  */
 public class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
@@ -40,6 +45,10 @@ public class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
     protected final SlimeRequestData requestData;
     protected final Request request;
     private final SlimeResponseData responseData;
+    private final boolean acceptsPayloadDelta;
+    /** The payload with the checksums in this request, if this accepts payload deltas and the client has it */
+    private final Optional<Payload> basePayload;
+    private Payload newPayload = null;
 
     protected JRTClientConfigRequestV3(ConfigKey<?> key,
                                        String hostname,
@@ -50,6 +59,20 @@ public class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
                                        Trace trace,
                                        CompressionType compressionType,
                                        Optional<VespaVersion> vespaVersion) {
+        this(key, hostname, defSchema, payloadChecksums, generation, timeout, trace, compressionType, vespaVersion, false, Optional.empty());
+    }
+
+    protected JRTClientConfigRequestV3(ConfigKey<?> key,
+                                       String hostname,
+                                       DefContent defSchema,
+                                       PayloadChecksums payloadChecksums,
+                                       long generation,
+                                       long timeout,
+                                       Trace trace,
+                                       CompressionType compressionType,
+                                       Optional<VespaVersion> vespaVersion,
+                                       boolean acceptsPayloadDelta,
+                                       Optional<Payload> basePayload) {
         Slime data = SlimeRequestData.encodeRequest(key,
                                                     hostname,
                                                     defSchema,
@@ -59,13 +82,16 @@ public class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
                                                     trace,
                                                     getProtocolVersion(),
                                                     compressionType,
-                                                    vespaVersion);
+                                                    vespaVersion,
+                                                    acceptsPayloadDelta && basePayload.isPresent());
         Request jrtReq = new Request(getJRTMethodName());
         jrtReq.parameters().add(new StringValue(encodeAsUtf8String(data)));
 
         this.requestData = new SlimeRequestData(jrtReq, data);
         this.responseData = new SlimeResponseData(jrtReq);
         this.request = jrtReq;
+        this.acceptsPayloadDelta = acceptsPayloadDelta;
+        this.basePayload = acceptsPayloadDelta ? basePayload : Optional.empty();
     }
 
     protected static String encodeAsUtf8String(Slime data) {
@@ -88,9 +114,30 @@ public class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
 
     @Override
     public Payload getNewPayload() {
-        CompressionInfo compressionInfo = getResponseData().getCompressionInfo();
-        Utf8Array payload = new Utf8Array(request.returnValues().get(1).asData());
-        return Payload.from(payload, compressionInfo);
+        if (newPayload == null) {
+            CompressionInfo compressionInfo = getResponseData().getCompressionInfo();
+            Utf8Array payload = new Utf8Array(request.returnValues().get(1).asData());
+            PayloadChecksum deltaBase = getResponseData().getResponsePayloadDeltaBase();
+            newPayload = deltaBase.isEmpty() ? Payload.from(payload, compressionInfo)
+                                             : applyDelta(deltaBase, Payload.from(payload, compressionInfo));
+        }
+        return newPayload;
+    }
+
+    /** Returns the payload produced by applying the given delta to the base payload of this */
+    private Payload applyDelta(PayloadChecksum deltaBase, Payload delta) {
+        if (basePayload.isEmpty() || ! deltaBase.equals(getRequestConfigChecksums().getForType(XXHASH64)))
+            throw new IllegalArgumentException("Got a delta to payload " + deltaBase + ", which this client does not have");
+
+        byte[] base = PayloadDeltas.bytesOf(basePayload.get().withCompression(CompressionType.UNCOMPRESSED).getData());
+        byte[] deltaBytes = PayloadDeltas.bytesOf(delta.withCompression(CompressionType.UNCOMPRESSED).getData());
+        Utf8Array payload = new Utf8Array(BinaryDelta.apply(base, deltaBytes));
+        String xxhash64 = ConfigUtils.getXxhash64(payload);
+        PayloadChecksum expected = getNewChecksums().getForType(XXHASH64);
+        if (expected == null || ! expected.asString().equals(xxhash64))
+            throw new IllegalArgumentException("Payload delta produced a payload with checksum " + xxhash64 + ", expected " + expected);
+        return Payload.from(payload, CompressionInfo.create(CompressionType.UNCOMPRESSED, payload.getByteLength()))
+                      .withCompression(requestData.getCompressionType());
     }
 
     @Override
@@ -108,23 +155,52 @@ public class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
                 timeout,
                 Trace.createNew(),
                 requestData.getCompressionType(),
-                requestData.getVespaVersion());
+                requestData.getVespaVersion(),
+                acceptsPayloadDelta,
+                nextBasePayload());
+    }
+
+    /** Returns the payload the client has after this request, if this accepts payload deltas */
+    private Optional<Payload> nextBasePayload() {
+        if ( ! acceptsPayloadDelta) return Optional.empty();
+        if (isError()) // Ask for a full payload if a delta could not be applied
+            return errorCode() == ErrorCode.INVALID_PAYLOAD_DELTA ? Optional.empty() : basePayload;
+        if ( ! hasUpdatedConfig()) return basePayload;
+        return Optional.of(getNewPayload());
     }
 
     public static <T extends ConfigInstance> JRTClientConfigRequest createFromSub(JRTConfigSubscription<T> sub,
                                                                                   Trace trace,
                                                                                   CompressionType compressionType,
                                                                                   Optional<VespaVersion> vespaVersion) {
+        return createFromSub(sub, trace, compressionType, vespaVersion, false);
+    }
+
+    /**
+     * Creates a request for the given subscription. Subscriptions for raw config, as used by the config proxy,
+     * keep the payload they have, and may accept payload deltas to it.
+     */
+    public static <T extends ConfigInstance> JRTClientConfigRequest createFromSub(JRTConfigSubscription<T> sub,
+                                                                                  Trace trace,
+                                                                                  CompressionType compressionType,
+                                                                                  Optional<VespaVersion> vespaVersion,
+                                                                                  boolean acceptsPayloadDelta) {
         ConfigSubscription.ConfigState<T> configState = sub.getConfigState();
-        return createWithParams(sub.getKey(),
-                                sub.getDefContent(),
-                                ConfigUtils.getCanonicalHostName(),
-                                configState.getChecksums(),
-                                configState.getGeneration(),
-                                sub.timingValues().getSubscribeTimeout(),
-                                trace,
-                                compressionType,
-                                vespaVersion);
+        boolean keepsPayload = acceptsPayloadDelta && sub instanceof GenericJRTConfigSubscription;
+        Optional<Payload> basePayload = keepsPayload
+                ? Optional.ofNullable(((GenericJRTConfigSubscription) sub).getRawConfig()).map(RawConfig::getPayload)
+                : Optional.empty();
+        return new JRTClientConfigRequestV3(sub.getKey(),
+                                            ConfigUtils.getCanonicalHostName(),
+                                            sub.getDefContent(),
+                                            configState.getChecksums(),
+                                            configState.getGeneration(),
+                                            sub.timingValues().getSubscribeTimeout(),
+                                            trace,
+                                            compressionType,
+                                            vespaVersion,
+                                            keepsPayload,
+                                            basePayload);
     }
 
     public static JRTClientConfigRequest createFromRaw(RawConfig config,
@@ -290,6 +366,14 @@ public class JRTClientConfigRequestV3 implements JRTClientConfigRequest {
         } else if (!checkReturnTypes(request)) {
             log.warning("Invalid return types for config response: " + errorMessage());
             return false;
+        } else if ( ! getResponseData().getResponsePayloadDeltaBase().isEmpty()) {
+            try {
+                getNewPayload();
+            } catch (IllegalArgumentException e) {
+                log.log(Level.WARNING, "Could not apply payload delta for " + getConfigKey() + ", will request full payload: " + e.getMessage());
+                request.setError(ErrorCode.INVALID_PAYLOAD_DELTA, e.getMessage());
+                return false;
+            }
         }
         return true;
     }
@@ -17,10 +17,12 @@ public class JRTConfigRequestFactory {
 
     private static final CompressionType compressionType = getCompressionType();
     private static final String VESPA_CONFIG_PROTOCOL_COMPRESSION = "VESPA_CONFIG_PROTOCOL_COMPRESSION";
+    private static final boolean acceptsPayloadDelta = getAcceptsPayloadDelta();
+    private static final String VESPA_CONFIG_PROTOCOL_PAYLOAD_DELTA = "VESPA_CONFIG_PROTOCOL_PAYLOAD_DELTA";
 
     public static <T extends ConfigInstance> JRTClientConfigRequest createFromSub(JRTConfigSubscription<T> sub) {
         // TODO: Get trace from caller
-        return JRTClientConfigRequestV3.createFromSub(sub, Trace.createNew(), compressionType, getVespaVersion());
+        return JRTClientConfigRequestV3.createFromSub(sub, Trace.createNew(), compressionType, getVespaVersion(), acceptsPayloadDelta);
     }
 
     public static JRTClientConfigRequest createFromRaw(RawConfig config, long serverTimeout) {
@@ -37,6 +39,16 @@ public class JRTConfigRequestFactory {
         return CompressionType.valueOf(ConfigUtils.getEnvValue("LZ4", env, property));
     }
 
+    /** Returns whether clients which keep their config payload should ask for deltas to it, which is the default */
+    public static boolean getAcceptsPayloadDelta() {
+        return getAcceptsPayloadDelta(System.getenv(VESPA_CONFIG_PROTOCOL_PAYLOAD_DELTA),
+                                      System.getProperty(VESPA_CONFIG_PROTOCOL_PAYLOAD_DELTA));
+    }
+
+    static boolean getAcceptsPayloadDelta(String env, String property) {
+        return Boolean.parseBoolean(ConfigUtils.getEnvValue("true", env, property));
+    }
+
     static Optional<VespaVersion> getVespaVersion() {
         return Optional.of(getCompiledVespaVersion());
     }
@@ -39,6 +39,22 @@ public interface JRTServerConfigRequest extends JRTConfigRequest, GetConfigReque
      */
     void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums payloadChecksums);
 
+    /**
+     * Signal that the request was handled and provide return values typically needed by a client, where the payload
+     * may be sent as a delta to the payload the client already has, if the client accepts this.
+     *
+     * @param payload The config payload that the client should receive.
+     * @param generation The config generation of the given payload.
+     * @param applyOnRestart true if this config should only be applied on the next restart,
+     *                       false if it should be applied right away
+     * @param payloadChecksums checksums of the given payload.
+     * @param payloadDeltas recently served payloads, which the given payload is added to, and which deltas are made from
+     */
+    default void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums payloadChecksums,
+                               PayloadDeltas payloadDeltas) {
+        addOkResponse(payload, generation, applyOnRestart, payloadChecksums);
+    }
+
     /**
      * Returns the md5 of the config definition in the request.
      *
@@ -10,6 +10,7 @@ import com.yahoo.jrt.Value;
 import com.yahoo.text.Utf8Array;
 import com.yahoo.vespa.config.ConfigKey;
 import com.yahoo.vespa.config.ErrorCode;
+import com.yahoo.vespa.config.PayloadChecksum;
 import com.yahoo.vespa.config.PayloadChecksums;
 
 import java.io.ByteArrayOutputStream;
@@ -27,6 +28,10 @@ import static com.yahoo.vespa.config.PayloadChecksum.Type.XXHASH64;
  * * A metadata field containing json data describing config generation, md5 and compression info
  * * A data field containing compressed or uncompressed json config payload
  *
+ * If the client says it accepts payload deltas, and the server has the payload with the checksum in the request,
+ * the data field may instead contain a binary delta from that payload to the new one, and the metadata then contains
+ * the xxhash64 checksum of the payload the delta applies to.
+ *
  * The implementation of addOkResponse is optimized for doing as little copying of payload data as possible, ensuring
  * that we get a lower memory footprint.
  *
@@ -71,6 +76,26 @@ public class JRTServerConfigRequestV3 implements JRTServerConfigRequest {
 
     @Override
     public void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums checksums) {
+        addOkResponse(payload, generation, applyOnRestart, checksums, Optional.empty());
+    }
+
+    @Override
+    public void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums checksums,
+                              PayloadDeltas payloadDeltas) {
+        PayloadChecksum checksum = checksums.getForType(XXHASH64);
+        payloadDeltas.remember(payload, checksum);
+        PayloadChecksum base = getRequestConfigChecksums().getForType(XXHASH64);
+        Optional<Payload> delta = requestData.getAcceptsPayloadDelta()
+                ? payloadDeltas.delta(base, payload, checksum, getCompressionType())
+                : Optional.empty();
+        if (delta.isPresent())
+            addOkResponse(delta.get(), generation, applyOnRestart, checksums, Optional.of(base));
+        else
+            addOkResponse(payload, generation, applyOnRestart, checksums, Optional.empty());
+    }
+
+    private void addOkResponse(Payload payload, long generation, boolean applyOnRestart, PayloadChecksums checksums,
+                               Optional<PayloadChecksum> deltaBase) {
         this.applyOnRestart = applyOnRestart;
         Payload responsePayload = payload.withCompression(getCompressionType());
         if (responsePayload == null)
@@ -88,6 +113,8 @@ public class JRTServerConfigRequestV3 implements JRTServerConfigRequest {
             jsonGenerator.writeObjectFieldStart(SlimeResponseData.RESPONSE_COMPRESSION_INFO);
             responsePayload.getCompressionInfo().serialize(jsonGenerator);
             jsonGenerator.writeEndObject();
+            if (deltaBase.isPresent())
+                setResponseField(jsonGenerator, SlimeResponseData.RESPONSE_PAYLOAD_DELTA_BASE, deltaBase.get().asString());
 
             jsonGenerator.writeEndObject();
             jsonGenerator.close();
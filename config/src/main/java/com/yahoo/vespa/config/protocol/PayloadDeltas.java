@@ -0,0 +1,131 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.protocol;
+
+import com.yahoo.text.AbstractUtf8Array;
+import com.yahoo.text.Utf8Array;
+import com.yahoo.vespa.config.PayloadChecksum;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps recently served config payloads, so clients which have one of them can be sent a binary delta
+ * to a new payload instead of the full payload. Payloads are identified by their xxhash64 checksum,
+ * and the least recently used payloads are forgotten when the total size exceeds the given limit.
+ * Deltas are computed once per pair of payloads, as many clients typically request the same one.
+ */
+public class PayloadDeltas {
+
+    /** Payloads smaller than this (uncompressed) are always sent in full */
+    static final int minPayloadSize = 64 * 1024;
+
+    private static final int maxCachedDeltas = 64;
+
+    private final long maxHistoryBytes;
+    private final Map<PayloadChecksum, Payload> history = new LinkedHashMap<>(16, 0.75f, true);
+    private long historyBytes = 0;
+    private final Map<String, CompletableFuture<Optional<Payload>>> deltas = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Optional<Payload>>> eldest) {
+            return size() > maxCachedDeltas;
+        }
+    };
+
+    /** Creates a delta source which keeps at most the given number of bytes of payloads. 0 disables deltas. */
+    public PayloadDeltas(long maxHistoryBytes) {
+        this.maxHistoryBytes = maxHistoryBytes;
+    }
+
+    /** Returns an instance which never produces deltas */
+    public static PayloadDeltas disabled() { return new PayloadDeltas(0); }
+
+    /** Remembers the given payload, which has the given xxhash64 checksum, if it is large enough to be sent as deltas */
+    public void remember(Payload payload, PayloadChecksum checksum) {
+        if ( ! eligible(payload, checksum)) return;
+        long size = payload.getData().getByteLength();
+        if (size > maxHistoryBytes) return;
+
+        synchronized (history) {
+            Payload previous = history.put(checksum, payload);
+            if (previous != null) historyBytes -= previous.getData().getByteLength();
+            historyBytes += size;
+            for (Iterator<Payload> payloads = history.values().iterator(); historyBytes > maxHistoryBytes; ) {
+                historyBytes -= payloads.next().getData().getByteLength();
+                payloads.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns a delta from the payload with the given base checksum to the given payload, compressed with
+     * the given compression type, if the base payload is known and the delta is less than half the size of
+     * the full payload.
+     */
+    public Optional<Payload> delta(PayloadChecksum base, Payload payload, PayloadChecksum checksum, CompressionType compression) {
+        if ( ! eligible(payload, checksum) || base == null || base.isEmpty() || base.equals(checksum)) return Optional.empty();
+
+        Payload basePayload;
+        synchronized (history) {
+            basePayload = history.get(base);
+        }
+        if (basePayload == null) return Optional.empty();
+
+        String key = base.asString() + ":" + checksum.asString() + ":" + compression;
+        CompletableFuture<Optional<Payload>> delta;
+        boolean compute;
+        synchronized (deltas) {
+            delta = deltas.get(key);
+            compute = delta == null;
+            if (compute) {
+                delta = new CompletableFuture<>();
+                deltas.put(key, delta);
+            }
+        }
+        if (compute) {
+            try {
+                delta.complete(computeDelta(basePayload, payload, compression));
+            }
+            catch (RuntimeException e) {
+                delta.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return delta.join();
+    }
+
+    private boolean eligible(Payload payload, PayloadChecksum checksum) {
+        return maxHistoryBytes > 0
+               && checksum != null && ! checksum.isEmpty()
+               && uncompressedSize(payload) >= minPayloadSize;
+    }
+
+    private static int uncompressedSize(Payload payload) {
+        return payload.getCompressionInfo().getCompressionType() == CompressionType.UNCOMPRESSED
+               ? payload.getData().getByteLength()
+               : payload.getCompressionInfo().getUncompressedSize();
+    }
+
+    private static Optional<Payload> computeDelta(Payload base, Payload target, CompressionType compression) {
+        byte[] targetBytes = bytesOf(target.withCompression(CompressionType.UNCOMPRESSED).getData());
+        byte[] delta = BinaryDelta.encode(bytesOf(base.withCompression(CompressionType.UNCOMPRESSED).getData()), targetBytes);
+        if (delta.length > targetBytes.length / 2) return Optional.empty();
+
+        return Optional.of(Payload.from(new Utf8Array(delta), CompressionInfo.create(CompressionType.UNCOMPRESSED, delta.length)).withCompression(compression));
+    }
+
+    /** Returns the bytes of the given array, without copying if it is backed by an array of exactly that size */
+    static byte[] bytesOf(AbstractUtf8Array data) {
+        ByteBuffer buffer = data.wrap();
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.remaining() == buffer.array().length)
+            return buffer.array();
+
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
@@ -31,6 +31,7 @@ class SlimeResponseData {
     static final String RESPONSE_CONFIG_GENERATION = "generation";
     static final String RESPONSE_APPLY_ON_RESTART = "applyOnRestart";
     static final String RESPONSE_COMPRESSION_INFO = "compressionInfo";
+    static final String RESPONSE_PAYLOAD_DELTA_BASE = "payloadDeltaBase";
 
     private final Request request;
     private Slime data = null;
@@ -86,6 +87,14 @@ class SlimeResponseData {
         return CompressionInfo.fromSlime(getResponseField(RESPONSE_COMPRESSION_INFO));
     }
 
+    /** Returns the xxhash64 checksum of the payload the response payload is a delta to, or empty if it is a full payload */
+    PayloadChecksum getResponsePayloadDeltaBase() {
+        Inspector baseField = getResponseField(RESPONSE_PAYLOAD_DELTA_BASE);
+        return baseField.valid()
+                ? new PayloadChecksum(baseField.asString(), XXHASH64)
+                : PayloadChecksum.empty(XXHASH64);
+    }
+
     boolean getResponseApplyOnRestart() {
         Inspector inspector = getResponseField(RESPONSE_APPLY_ON_RESTART);
         return inspector.valid() && inspector.asBool();
@@ -0,0 +1,73 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.protocol;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryDeltaTest {
+
+    @Test
+    public void delta_with_small_change_is_small() {
+        StringBuilder config = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            config.append("{\\"name\\":\\"field").append(i).append("\\",\\"value\\":").append(i * 7).append("},\\n");
+        byte[] base = bytes(config.toString());
+        byte[] target = bytes(config.toString().replace("\\"field5000\\"", "\\"changed\\"") + "appended");
+
+        byte[] delta = BinaryDelta.encode(base, target);
+        assertTrue("Delta size " + delta.length, delta.length < 100);
+        assertArrayEquals(target, BinaryDelta.apply(base, delta));
+    }
+
+    @Test
+    public void deltas_reproduce_target() {
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            byte[] base = randomBytes(random.nextInt(500), random);
+            byte[] target = randomBytes(random.nextInt(500), random);
+            System.arraycopy(base, 0, target, 0, Math.min(base.length, target.length) / 2);
+            assertArrayEquals(target, BinaryDelta.apply(base, BinaryDelta.encode(base, target)));
+        }
+        assertArrayEquals(bytes("foo"), BinaryDelta.apply(new byte[0], BinaryDelta.encode(new byte[0], bytes("foo"))));
+        assertEquals(0, BinaryDelta.apply(bytes("foo"), BinaryDelta.encode(bytes("foo"), new byte[0])).length);
+    }
+
+    @Test
+    public void invalid_deltas_are_rejected() {
+        byte[] base = bytes("a".repeat(1000));
+        byte[] delta = BinaryDelta.encode(base, bytes("a".repeat(500) + "b" + "a".repeat(500)));
+        assertInvalid(bytes("a".repeat(999)), delta, "Delta is for a base of length 1000, but base has length 999");
+        assertInvalid(base, Arrays.copyOf(delta, delta.length - 4), "Delta produced 501 bytes, but should produce 1001");
+        assertInvalid(base, Arrays.copyOf(delta, 3), "Delta is truncated");
+    }
+
+    private static void assertInvalid(byte[] base, byte[] delta, String message) {
+        try {
+            BinaryDelta.apply(base, delta);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static byte[] randomBytes(int length, Random random) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte) ('a' + random.nextInt(4));
+        return bytes;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -127,6 +127,61 @@ public class JRTConfigRequestV3Test {
         assertTrue(clientReq.hasUpdatedGeneration());
     }
 
+    @Test
+    public void payload_is_sent_as_delta_when_client_accepts_it() {
+        Payload base = createPayload("x".repeat(100_000) + "bar");
+        Payload payload = createPayload("x".repeat(100_000) + "baz");
+        PayloadDeltas deltas = new PayloadDeltas(1 << 20);
+        deltas.remember(base, PayloadChecksums.fromPayload(base).getForType(XXHASH64));
+
+        JRTClientConfigRequest client = createReqAcceptingDelta(base, base);
+        JRTServerConfigRequest server = createReq(client.getRequest());
+        assertTrue(server.validateParameters());
+        server.addOkResponse(payload, currentGeneration + 1, false, PayloadChecksums.fromPayload(payload), deltas);
+        assertTrue(client.getRequest().returnValues().get(1).asData().length < 1000);
+        assertTrue(client.validateResponse());
+        assertTrue(client.hasUpdatedConfig());
+        assertEquals(payload.toString(), client.getNewPayload().toString());
+
+        // The new payload is the base of the next request, and the server remembers it
+        Payload next = createPayload("x".repeat(100_000) + "qux");
+        JRTClientConfigRequest nextClient = client.nextRequest(timeout);
+        createReq(nextClient.getRequest()).addOkResponse(next, currentGeneration + 2, false, PayloadChecksums.fromPayload(next), deltas);
+        assertTrue(nextClient.getRequest().returnValues().get(1).asData().length < 1000);
+        assertTrue(nextClient.validateResponse());
+        assertEquals(next.toString(), nextClient.getNewPayload().toString());
+    }
+
+    @Test
+    public void full_payload_is_sent_when_base_is_unknown() {
+        Payload base = createPayload("x".repeat(100_000) + "bar");
+        Payload payload = createPayload("x".repeat(100_000) + "baz");
+        JRTClientConfigRequest client = createReqAcceptingDelta(base, base);
+        createReq(client.getRequest()).addOkResponse(payload, currentGeneration + 1, false, PayloadChecksums.fromPayload(payload), new PayloadDeltas(1 << 20));
+        assertTrue(client.validateResponse());
+        assertEquals(payload.toString(), client.getNewPayload().toString());
+    }
+
+    @Test
+    public void full_payload_is_requested_when_delta_cannot_be_applied() {
+        Payload base = createPayload("x".repeat(100_000) + "bar");
+        Payload payload = createPayload("x".repeat(100_000) + "baz");
+        PayloadDeltas deltas = new PayloadDeltas(1 << 20);
+        deltas.remember(base, PayloadChecksums.fromPayload(base).getForType(XXHASH64));
+
+        // The client claims to have the base payload, but has another one
+        JRTClientConfigRequest client = createReqAcceptingDelta(base, createPayload("y".repeat(100_000) + "bar"));
+        createReq(client.getRequest()).addOkResponse(payload, currentGeneration + 1, false, PayloadChecksums.fromPayload(payload), deltas);
+        assertFalse(client.validateResponse());
+        assertEquals(ErrorCode.INVALID_PAYLOAD_DELTA, client.errorCode());
+
+        JRTClientConfigRequest nextClient = client.nextRequest(timeout);
+        assertThat(nextClient.getRequestConfigChecksums(), is(client.getRequestConfigChecksums()));
+        createReq(nextClient.getRequest()).addOkResponse(payload, currentGeneration + 1, false, PayloadChecksums.fromPayload(payload), deltas);
+        assertTrue(nextClient.validateResponse());
+        assertEquals(payload.toString(), nextClient.getNewPayload().toString());
+    }
+
     @Test
     public void error_response_adds_common_elements() {
         serverReq.addErrorResponse(ErrorCode.APPLICATION_NOT_LOADED, ErrorCode.getName(ErrorCode.APPLICATION_NOT_LOADED));
@@ -273,6 +328,20 @@ public class JRTConfigRequestV3Test {
                                                          vespaVersion);
     }
 
+    private JRTClientConfigRequest createReqAcceptingDelta(Payload checksummedPayload, Payload basePayload) {
+        return new JRTClientConfigRequestV3(ConfigKey.createFull(defName, configId, defNamespace),
+                                            hostname,
+                                            DefContent.fromList(List.of(configDefinition)),
+                                            PayloadChecksums.fromPayload(checksummedPayload),
+                                            currentGeneration,
+                                            timeout,
+                                            Trace.createNew(),
+                                            CompressionType.LZ4,
+                                            vespaVersion,
+                                            true,
+                                            Optional.of(basePayload));
+    }
+
     private JRTServerConfigRequest createReq(Request request) {
         return JRTServerConfigRequestV3.createFromRequest(request);
     }
@@ -32,6 +32,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -126,6 +127,16 @@ public class FileServer {
 
     FileDirectory getRootDir() { return root; }
 
+    /** Returns the file of the given file reference, if it exists and is a single file, as these may be served in chunks */
+    public Optional<File> getPlainFile(FileReference reference) {
+        try {
+            return Optional.of(root.getFile(reference)).filter(File::isFile);
+        } catch (IllegalArgumentException e) {
+            log.log(Level.FINE, () -> "Failed locating " + reference + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     void startFileServing(FileReference reference, Receiver target, Set<CompressionType> acceptedCompressionTypes) {
         if ( ! root.getFile(reference).exists()) return;
 
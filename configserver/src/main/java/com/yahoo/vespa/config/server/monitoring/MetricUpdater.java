@@ -5,6 +5,7 @@ import com.yahoo.jdisc.Metric;
 import com.yahoo.vespa.config.server.ServerCache;
 import com.yahoo.vespa.config.server.RequestHandler;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -33,6 +34,8 @@ public class MetricUpdater {
     private static final String METRIC_CACHE_CONFIG_CHECKSUMS = getMetricName("cacheChecksumElems");
     private static final String METRIC_DELAYED_RESPONSES = getMetricName("delayedResponses");
     private static final String METRIC_RPCSERVER_WORK_QUEUE_SIZE = getMetricName("rpcServerWorkQueueSize");
+    private static final String METRIC_DELAYED_RESPONSE_FAN_OUT = getMetricName("delayedResponseFanOut");
+    private static final String METRIC_DELAYED_RESPONSE_FAN_OUT_LATENCY = getMetricName("delayedResponseFanOutLatency");
 
 
     private final Metrics metrics;
@@ -219,4 +222,12 @@ public class MetricUpdater {
     public void setRpcServerQueueSize(int numQueued) {
         metrics.set(METRIC_RPCSERVER_WORK_QUEUE_SIZE, numQueued, metricContext);
     }
+
+    /**
+     * Set the number of delayed responses answered when config was activated, and the time it took to answer them all.
+     */
+    public void setDelayedResponseFanOut(int responses, Duration latency) {
+        metrics.set(METRIC_DELAYED_RESPONSE_FAN_OUT, responses, metricContext);
+        metrics.set(METRIC_DELAYED_RESPONSE_FAN_OUT_LATENCY, latency.toMillis(), metricContext);
+    }
 }
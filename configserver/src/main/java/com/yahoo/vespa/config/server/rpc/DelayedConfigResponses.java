@@ -1,7 +1,6 @@
 // Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.config.server.rpc;
 
-import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.config.provision.ApplicationId;
 import com.yahoo.jrt.Target;
 import com.yahoo.jrt.TargetWatcher;
@@ -10,16 +9,17 @@ import com.yahoo.vespa.config.server.GetConfigContext;
 import com.yahoo.vespa.config.server.monitoring.MetricUpdater;
 import com.yahoo.vespa.config.server.monitoring.Metrics;
 import com.yahoo.vespa.config.server.tenant.TenantRepository;
+
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,23 +27,33 @@ import java.util.logging.Logger;
  * Takes care of <i>delayed responses</i> in the config server.
  * A delayed response is a response sent at request (server) timeout
  * for a config which has not changed since the request was initiated.
+ * <p>
+ * Timeouts are tracked by hashed timing wheels, each driven by a single thread, so scheduling and cancelling
+ * a delayed response is a constant time operation without locks. Responses waiting for each application are
+ * kept in a lock-free queue, where responses which have been answered are purged lazily.
  *
  * @author hmusum
  */
 public class DelayedConfigResponses {
     private static final Logger log = Logger.getLogger(DelayedConfigResponses.class.getName());
+
+    static final long tickMillis = 100;
+    private static final int wheelSize = 512;
+    /** How often answered responses are purged from the application queues */
+    private static final int purgeIntervalTicks = 100;
+
     private final RpcServer rpcServer;
 
-    private final ScheduledExecutorService executorService;
+    private final TimingWheel[] wheels;
+    private final AtomicInteger nextWheel = new AtomicInteger();
     private final boolean useJrtWatcher;
 
     private final Map<ApplicationId, MetricUpdater> metrics = new ConcurrentHashMap<>();
-    
-    /* Requests that resolve to config that has not changed are put on this queue. When activating
-       config, all requests on this queue are reprocessed as if they were a new request */
-    private final Map<ApplicationId, BlockingQueue<DelayedConfigResponse>> delayedResponses =
-            new ConcurrentHashMap<>();
-            
+
+    /* Requests that resolve to config that has not changed are put on these queues. When activating
+       config, all requests on the queue are reprocessed as if they were a new request */
+    private final Map<ApplicationId, ResponseQueue> delayedResponses = new ConcurrentHashMap<>();
+
     DelayedConfigResponses(RpcServer rpcServer, int numTimerThreads) {
         this(rpcServer, numTimerThreads, true);
     }
@@ -51,56 +61,53 @@ public class DelayedConfigResponses {
     // Since JRT does not allow adding watcher for "fake" requests, we must be able to disable it for unit tests :(
     DelayedConfigResponses(RpcServer rpcServer, int numTimerThreads, boolean useJrtWatcher) {
         this.rpcServer = rpcServer;
-        ScheduledThreadPoolExecutor executor =
-                new ScheduledThreadPoolExecutor(numTimerThreads,
-                                                ThreadFactoryFactory.getDaemonThreadFactory("delayed config responses"));
-        executor.setRemoveOnCancelPolicy(true);
-        this.executorService = executor;
         this.useJrtWatcher = useJrtWatcher;
+        this.wheels = new TimingWheel[Math.max(1, numTimerThreads)];
+        for (int i = 0; i < wheels.length; i++)
+            wheels[i] = new TimingWheel("delayed config responses " + i, i == 0 ? this::purge : () -> { });
     }
 
     List<DelayedConfigResponse> allDelayedResponses() {
         List<DelayedConfigResponse> responses = new ArrayList<>();
-        for (Map.Entry<ApplicationId, BlockingQueue<DelayedConfigResponse>> entry : delayedResponses.entrySet()) {
-            responses.addAll(entry.getValue());
+        for (ResponseQueue queue : delayedResponses.values()) {
+            for (DelayedConfigResponse response : queue.responses)
+                if (response.isWaiting()) responses.add(response);
         }
         return responses;
     }
 
     /**
-     * The run method of this class is run by a Timer when the timeout expires.
-     * The timer associated with this response must be cancelled first.
+     * The run method of this class is run by a timing wheel when the timeout expires.
+     * A response is answered exactly once, either by the timer, by a config activation, or not at all
+     * if the client goes away; whichever first completes it wins.
      */
     class DelayedConfigResponse implements Runnable, TargetWatcher {
 
         final JRTServerConfigRequest request;
-        private final BlockingQueue<DelayedConfigResponse> delayedResponsesQueue;
+        private final ResponseQueue delayedResponsesQueue;
         private final ApplicationId app;
-        private ScheduledFuture<?> future;
+        private final AtomicBoolean waiting = new AtomicBoolean(false);
+
+        // Set before handing this to a timing wheel, and then owned by the wheel thread
+        private long dueTick;
+        private long remainingRounds;
 
-        DelayedConfigResponse(JRTServerConfigRequest req, BlockingQueue<DelayedConfigResponse> delayedResponsesQueue, ApplicationId app) {
+        DelayedConfigResponse(JRTServerConfigRequest req, ResponseQueue delayedResponsesQueue, ApplicationId app) {
             this.request = req;
             this.delayedResponsesQueue = delayedResponsesQueue;
             this.app = app;
         }
 
         @Override
-        public synchronized void run() {
-            removeFromQueue();
-            removeWatcher();
+        public void run() {
+            if ( ! complete()) return;
+
             rpcServer.addToRequestQueue(request, true, null);
             if (log.isLoggable(Level.FINE)) {
                 log.log(Level.FINE, logPre()+"DelayedConfigResponse. putting on queue: " + request.getShortDescription());
             }
         }
 
-        /**
-         * Remove delayed response from its queue
-         */
-        private void removeFromQueue() {
-            delayedResponsesQueue.remove(this);
-        }
-
         JRTServerConfigRequest getRequest() {
             return request;
         }
@@ -116,23 +123,32 @@ public class DelayedConfigResponses {
             return TenantRepository.logPre(app);
         }
 
-        synchronized void cancelAndRemove() {
-            removeFromQueue();
+        void cancelAndRemove() {
             cancel();
         }
 
-        synchronized boolean cancel() {
-            removeWatcher();
-            if (future == null) {
-                throw new IllegalStateException("Cannot cancel a task that has not been scheduled");
-            }
-            return future.cancel(false);
+        /** Cancels this, and returns whether this was waiting to be answered, i.e., whether the caller should answer it */
+        boolean cancel() {
+            return complete();
         }
 
-        synchronized void schedule(long delay) throws InterruptedException {
-            delayedResponsesQueue.put(this);
-            future = executorService.schedule(this, delay, TimeUnit.MILLISECONDS);
+        boolean isWaiting() { return waiting.get(); }
+
+        void schedule(long delay) {
+            waiting.set(true);
+            delayedResponsesQueue.add(this);
             addWatcher();
+            if ( ! isWaiting()) removeWatcher(); // Answered while the watcher was added, which may then have been too late to remove it
+            wheels[Math.floorMod(nextWheel.getAndIncrement(), wheels.length)].schedule(this, delay);
+        }
+
+        /** Marks this as answered, and returns whether it was waiting until now */
+        private boolean complete() {
+            if ( ! waiting.compareAndSet(true, false)) return false;
+
+            delayedResponsesQueue.waiting.decrementAndGet();
+            removeWatcher();
+            return true;
         }
 
         /**
@@ -171,58 +187,55 @@ public class DelayedConfigResponses {
     final void delayResponse(JRTServerConfigRequest request, GetConfigContext context) {
         if (request.isDelayedResponse()) {
             log.log(Level.FINE, () -> context.logPre()+"Request already delayed");
-        } else {            
-            createQueueIfNotExists(context);
-            BlockingQueue<DelayedConfigResponse> delayedResponsesQueue = delayedResponses.get(context.applicationId());
+        } else {
+            ResponseQueue delayedResponsesQueue = delayedResponses.computeIfAbsent(context.applicationId(), __ -> new ResponseQueue());
             DelayedConfigResponse response = new DelayedConfigResponse(request, delayedResponsesQueue, context.applicationId());
             request.setDelayedResponse(true);
-            try {
-                if (log.isLoggable(Level.FINE)) {
-                    log.log(Level.FINE, context.logPre()+"Putting on delayedRequests queue (" + delayedResponsesQueue.size() + " elements): " +
-                            response.getRequest().getShortDescription());
-                }
-                // Config will be resolved in the run() method of DelayedConfigResponse,
-                // when the timer expires or config is updated/activated.
-                response.schedule(Math.max(0, request.getTimeout()));
-                metricDelayedResponses(context.applicationId(), delayedResponsesQueue.size());
-            } catch (InterruptedException e) {
-                log.log(Level.WARNING, context.logPre()+"Interrupted when putting on delayed requests queue.");
+            if (log.isLoggable(Level.FINE)) {
+                log.log(Level.FINE, context.logPre()+"Putting on delayedRequests queue (" + delayedResponsesQueue.size() + " elements): " +
+                        response.getRequest().getShortDescription());
             }
+            // Config will be resolved in the run() method of DelayedConfigResponse,
+            // when the timer expires or config is updated/activated.
+            response.schedule(Math.max(0, request.getTimeout()));
+            metricDelayedResponses(context.applicationId(), delayedResponsesQueue.size());
         }
     }
 
-    private synchronized void metricDelayedResponses(ApplicationId app, int elems) {
+    private void metricDelayedResponses(ApplicationId app, int elems) {
         metrics.computeIfAbsent(app, key -> rpcServer.metricUpdaterFactory()
                                                      .getOrCreateMetricUpdater(Metrics.createDimensions(key)))
                .setDelayedResponses(elems);
     }
 
-    private synchronized void createQueueIfNotExists(GetConfigContext context) {
-        if ( ! delayedResponses.containsKey(context.applicationId())) {
-            delayedResponses.put(context.applicationId(), new LinkedBlockingQueue<>());
-        }
-    }
-
     void stop() {
-        executorService.shutdown();
+        for (TimingWheel wheel : wheels)
+            wheel.stop();
     }
 
     /**
-     * Drains delayed responses queue and returns responses in an array
+     * Drains the delayed responses queue of the given application
      *
-     * @return and array of DelayedConfigResponse objects
+     * @return the responses which were waiting to be answered, in the order they were delayed
      */
     List<DelayedConfigResponse> drainQueue(ApplicationId app) {
         ArrayList<DelayedConfigResponse> ret = new ArrayList<>();
-        
-        if (delayedResponses.containsKey(app)) {
-            BlockingQueue<DelayedConfigResponse> queue = delayedResponses.get(app);
-            queue.drainTo(ret);
+
+        ResponseQueue queue = delayedResponses.get(app);
+        if (queue != null) {
+            for (DelayedConfigResponse response; (response = queue.responses.poll()) != null; )
+                if (response.isWaiting()) ret.add(response);
         }
         metrics.remove(app);
         return ret;
     }
 
+    /** Removes responses which have been answered from all application queues */
+    private void purge() {
+        for (ResponseQueue queue : delayedResponses.values())
+            queue.responses.removeIf(response -> ! response.isWaiting());
+    }
+
     @Override
     public String toString() {
         return "DelayedConfigResponses. Average Size=" + size();
@@ -231,10 +244,109 @@ public class DelayedConfigResponses {
     int size() {
         int totalQueueSize = 0;
         int numQueues = 0;
-        for (Map.Entry<ApplicationId, BlockingQueue<DelayedConfigResponse>> e : delayedResponses.entrySet()) {
+        for (ResponseQueue queue : delayedResponses.values()) {
             numQueues++;
-            totalQueueSize+=e.getValue().size();
+            totalQueueSize += queue.size();
         }
         return (numQueues > 0) ? (totalQueueSize / numQueues) : 0;
     }
+
+    /** The delayed responses of an application, with a count of those still waiting to be answered */
+    static class ResponseQueue {
+
+        private final Queue<DelayedConfigResponse> responses = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        void add(DelayedConfigResponse response) {
+            waiting.incrementAndGet();
+            responses.add(response);
+        }
+
+        int size() { return waiting.get(); }
+
+    }
+
+    /**
+     * A hashed timing wheel with {@value #wheelSize} buckets of {@value #tickMillis} ms each. Responses are
+     * handed to the wheel thread through a lock-free queue, and the wheel thread alone owns the buckets.
+     * Each tick, the thread expires the responses in the current bucket which are due in this round of the
+     * wheel, and drops those already answered. Responses may hence be answered up to one tick early.
+     */
+    private static class TimingWheel {
+
+        private final Queue<DelayedConfigResponse> incoming = new ConcurrentLinkedQueue<>();
+        @SuppressWarnings("unchecked")
+        private final ArrayDeque<DelayedConfigResponse>[] buckets = new ArrayDeque[wheelSize];
+        private final Runnable maintenance;
+        private final Thread thread;
+        private final long startNanos = System.nanoTime();
+
+        private volatile boolean stopped = false;
+        private long tick = 0;
+
+        TimingWheel(String name, Runnable maintenance) {
+            for (int i = 0; i < wheelSize; i++)
+                buckets[i] = new ArrayDeque<>();
+            this.maintenance = maintenance;
+            this.thread = new Thread(this::run, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void schedule(DelayedConfigResponse response, long delayMillis) {
+            response.dueTick = (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + delayMillis) / tickMillis;
+            incoming.add(response);
+        }
+
+        void stop() {
+            stopped = true;
+            thread.interrupt();
+        }
+
+        private void run() {
+            while ( ! stopped) {
+                try {
+                    long sleepMillis = (tick + 1) * tickMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                    if (sleepMillis > 0) Thread.sleep(sleepMillis);
+                    tick++;
+                    transferIncoming();
+                    expire(buckets[(int) (tick % wheelSize)]);
+                    if (tick % purgeIntervalTicks == 0) maintenance.run();
+                }
+                catch (InterruptedException e) {
+                    if (stopped) return;
+                }
+                catch (RuntimeException e) {
+                    log.log(Level.WARNING, "Failed expiring delayed config responses", e);
+                }
+            }
+        }
+
+        private void transferIncoming() {
+            for (DelayedConfigResponse response; (response = incoming.poll()) != null; ) {
+                long dueTick = Math.max(response.dueTick, tick);
+                response.remainingRounds = (dueTick - tick) / wheelSize;
+                buckets[(int) (dueTick % wheelSize)].add(response);
+            }
+        }
+
+        private void expire(ArrayDeque<DelayedConfigResponse> bucket) {
+            for (int i = bucket.size(); i > 0; i--) {
+                DelayedConfigResponse response = bucket.poll();
+                if ( ! response.isWaiting()) continue;
+                if (response.remainingRounds-- > 0) {
+                    bucket.add(response);
+                    continue;
+                }
+                try {
+                    response.run();
+                }
+                catch (RuntimeException e) {
+                    log.log(Level.WARNING, "Failed answering " + response, e);
+                }
+            }
+        }
+
+    }
+
 }
@@ -138,7 +138,8 @@ class GetConfigProcessor implements Runnable {
             }
 
             // debugLog(trace, "config response before encoding:" + config.toString());
-            request.addOkResponse(request.payloadFromResponse(config), config.getGeneration(), config.applyOnRestart(), config.getPayloadChecksums());
+            request.addOkResponse(request.payloadFromResponse(config), config.getGeneration(), config.applyOnRestart(),
+                                  config.getPayloadChecksums(), rpcServer.payloadDeltas());
             debugLog(trace, "return response: " + request.getShortDescription());
             respond(request);
         } else {
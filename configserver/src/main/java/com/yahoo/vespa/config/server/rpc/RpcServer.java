@@ -26,6 +26,7 @@ import com.yahoo.vespa.config.JRTMethods;
 import com.yahoo.vespa.config.protocol.ConfigResponse;
 import com.yahoo.vespa.config.protocol.JRTServerConfigRequest;
 import com.yahoo.vespa.config.protocol.JRTServerConfigRequestV3;
+import com.yahoo.vespa.config.protocol.PayloadDeltas;
 import com.yahoo.vespa.config.protocol.Trace;
 import com.yahoo.vespa.config.server.GetConfigContext;
 import com.yahoo.vespa.config.server.ConfigActivationListener;
@@ -36,16 +37,19 @@ import com.yahoo.vespa.config.server.filedistribution.FileServer;
 import com.yahoo.vespa.config.server.host.HostRegistry;
 import com.yahoo.vespa.config.server.monitoring.MetricUpdater;
 import com.yahoo.vespa.config.server.monitoring.MetricUpdaterFactory;
+import com.yahoo.vespa.config.server.monitoring.Metrics;
 import com.yahoo.vespa.config.server.rpc.security.RpcAuthorizer;
 import com.yahoo.vespa.config.server.tenant.Tenant;
 import com.yahoo.vespa.config.server.tenant.TenantListener;
 import com.yahoo.vespa.config.server.tenant.TenantRepository;
+import com.yahoo.vespa.filedistribution.FileChunkServer;
 import com.yahoo.vespa.filedistribution.FileDownloader;
 import com.yahoo.vespa.filedistribution.FileReceiver;
 import com.yahoo.vespa.filedistribution.FileReferenceData;
 import com.yahoo.vespa.filedistribution.FileReferenceDownload;
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -91,6 +95,7 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
     private final boolean useRequestVersion;
     private final boolean hostedVespa;
     private final boolean canReturnEmptySentinelConfig;
+    private final PayloadDeltas payloadDeltas;
 
     private static final Logger log = Logger.getLogger(RpcServer.class.getName());
 
@@ -104,6 +109,7 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
     private final MetricUpdaterFactory metricUpdaterFactory;
     private final HostLivenessTracker hostLivenessTracker;
     private final FileServer fileServer;
+    private final FileChunkServer fileChunkServer;
     private final RpcAuthorizer rpcAuthorizer;
 
     private final ThreadPoolExecutor executorService;
@@ -145,11 +151,13 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
         this.useRequestVersion = config.useVespaVersionInRequest();
         this.hostedVespa = config.hostedVespa();
         this.canReturnEmptySentinelConfig = config.canReturnEmptySentinelConfig();
+        this.payloadDeltas = new PayloadDeltas(config.payloadDeltaHistoryMegaBytes() * 1024L * 1024L);
         this.fileServer = fileServer;
         this.rpcAuthorizer = rpcAuthorizer;
         downloader = fileServer.downloader();
         handlerProvider.setInstance(this);
         setUpFileDistributionHandlers();
+        fileChunkServer = new FileChunkServer(getSupervisor(), fileServer::getPlainFile, rpcAuthorizer::authorizeFileRequest);
     }
 
     private static int threadsToUse() {
@@ -207,6 +215,7 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
             Thread.interrupted(); // Ignore and continue shutdown.
         }
         delayedConfigResponses.stop();
+        fileChunkServer.close();
         fileServer.close();
         supervisor.transport().shutdown().join();
         isRunning = false;
@@ -274,15 +283,14 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
     }
 
     void configActivated(ApplicationId applicationId) {
+        long startNanos = System.nanoTime();
         List<DelayedConfigResponses.DelayedConfigResponse> responses = delayedConfigResponses.drainQueue(applicationId);
         String logPre = TenantRepository.logPre(applicationId);
         if (log.isLoggable(Level.FINE)) {
             log.log(Level.FINE, logPre + "Start of configActivated: " + responses.size() + " requests on delayed requests queue");
         }
-        int responsesSent = 0;
-        CompletionService<Boolean> completionService = new ExecutorCompletionService<>(executorService);
-        while (!responses.isEmpty()) {
-            DelayedConfigResponses.DelayedConfigResponse delayedConfigResponse = responses.remove(0);
+        List<JRTServerConfigRequest> requests = new ArrayList<>(responses.size());
+        for (DelayedConfigResponses.DelayedConfigResponse delayedConfigResponse : responses) {
             // Discard the ones that we have already answered
             // Doing cancel here deals with the case where the timer is already running or has not run, so
             // there is no need for any extra check.
@@ -290,16 +298,26 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
                 if (log.isLoggable(Level.FINE)) {
                     logRequestDebug(Level.FINE, logPre + "Timer cancelled for ", delayedConfigResponse.request);
                 }
-                // Do not wait for this request if we were unable to execute
-                if (addToRequestQueue(delayedConfigResponse.request, false, completionService)) {
-                    responsesSent++;
-                }
+                requests.add(delayedConfigResponse.request);
             } else {
                 log.log(Level.FINE, () -> logPre + "Timer already cancelled or finished or never scheduled");
             }
         }
 
-        for (int i = 0; i < responsesSent; i++) {
+        // Resolve the requests in one batch per worker thread, rather than one task each, so a large
+        // number of waiting clients neither floods the work queue nor is rejected when it is full
+        int batches = Math.min(requests.size(), executorService.getMaximumPoolSize());
+        int batchesSent = 0;
+        CompletionService<Boolean> completionService = new ExecutorCompletionService<>(executorService);
+        for (int i = 0; i < batches; i++) {
+            List<JRTServerConfigRequest> batch = requests.subList(requests.size() * i / batches, requests.size() * (i + 1) / batches);
+            // Do not wait for this batch if we were unable to execute
+            if (addToRequestQueue(batch, completionService)) {
+                batchesSent++;
+            }
+        }
+
+        for (int i = 0; i < batchesSent; i++) {
             try {
                 completionService.take();
             } catch (InterruptedException e) {
@@ -307,8 +325,11 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
             }
         }
 
+        if ( ! requests.isEmpty())
+            metricUpdaterFactory.getOrCreateMetricUpdater(Metrics.createDimensions(applicationId))
+                                .setDelayedResponseFanOut(requests.size(), Duration.ofNanos(System.nanoTime() - startNanos));
         if (log.isLoggable(Level.FINE))
-            log.log(Level.FINE, logPre + "Finished activating " + responsesSent + " requests");
+            log.log(Level.FINE, logPre + "Finished activating " + requests.size() + " requests in " + batchesSent + " batches");
     }
 
     private void logRequestDebug(Level level, String message, JRTServerConfigRequest request) {
@@ -395,6 +416,31 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
         }
     }
 
+    /** Resolves and responds to the given requests in sequence, in a single task submitted to the given completion service */
+    private boolean addToRequestQueue(List<JRTServerConfigRequest> requests, CompletionService<Boolean> completionService) {
+        requests.forEach(request -> request.setDelayedResponse(false));
+        try {
+            completionService.submit(() -> {
+                for (JRTServerConfigRequest request : requests) {
+                    try {
+                        new GetConfigProcessor(this, request, false).run();
+                    } catch (RuntimeException e) {
+                        log.log(Level.WARNING, "Failed resolving config for " + request.getShortDescription(), e);
+                    }
+                }
+                return true;
+            });
+            updateWorkQueueMetrics();
+            return true;
+        } catch (RejectedExecutionException e) {
+            for (JRTServerConfigRequest request : requests) {
+                request.addErrorResponse(ErrorCode.INTERNAL_ERROR, "getConfig request queue size is larger than configured max limit");
+                respond(request);
+            }
+            return false;
+        }
+    }
+
     private void updateWorkQueueMetrics() {
         int queued = executorService.getQueue().size();
         metrics.setRpcServerQueueSize(queued);
@@ -475,6 +521,11 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
         return useRequestVersion;
     }
 
+    /** Returns the recently served payloads, which responses may be deltas to */
+    PayloadDeltas payloadDeltas() {
+        return payloadDeltas;
+    }
+
     static class ChunkedFileReceiver implements FileServer.Receiver {
         final Target target;
         ChunkedFileReceiver(Target target) {
@@ -66,6 +66,25 @@ public class DelayedConfigResponseTest {
         assertEquals(0, responses.size());
     }
 
+    @Test
+    public void testDelayedResponseIsAnsweredOnce() throws IOException {
+        GetConfigContext context = GetConfigContext.testContext(ApplicationId.defaultId());
+        MockRpcServer rpc = new MockRpcServer(13337, temporaryFolder.newFolder());
+        DelayedConfigResponses responses = new DelayedConfigResponses(rpc, 1, false);
+        responses.delayResponse(createRequest("foo", "myid", 3, 100000, "bar"), context);
+        responses.delayResponse(createRequest("foolio", "myid", 3, 100000, "bar"), context);
+        assertEquals(2, responses.size());
+
+        responses.allDelayedResponses().get(0).cancelAndRemove();
+        List<DelayedConfigResponses.DelayedConfigResponse> drained = responses.drainQueue(ApplicationId.defaultId());
+        assertEquals(1, drained.size());
+        assertEquals("foolio", drained.get(0).getRequest().getConfigKey().getName());
+        assertTrue(drained.get(0).cancel());
+        assertFalse(drained.get(0).cancel());
+        assertEquals(0, responses.size());
+        assertTrue(responses.allDelayedResponses().isEmpty());
+    }
+
     @Test
     public void testDelayedConfigResponse() throws IOException {
         MockRpcServer rpc = new MockRpcServer(13337, temporaryFolder.newFolder());
@@ -2,17 +2,19 @@
 package com.yahoo.container.handler;
 
 import com.google.common.collect.Iterators;
+import com.yahoo.compress.ZstdInputStream;
+import com.yahoo.log.LogArchiveIndex;
 import com.yahoo.vespa.defaults.Defaults;
 import com.yahoo.yolean.Exceptions;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -25,6 +27,7 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
@@ -62,22 +65,23 @@ class LogReader {
     void writeLogs(OutputStream out, Instant from, Instant to, long maxLines, Optional<String> hostname) {
         double fromSeconds = from.getEpochSecond() + from.getNano() / 1e9;
         double toSeconds = to.getEpochSecond() + to.getNano() / 1e9;
+        byte[] hostnameBytes = hostname.map(host -> host.getBytes(UTF_8)).orElse(null);
         long linesWritten = 0;
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
+        BufferedOutputStream writer = new BufferedOutputStream(out, 1 << 16);
         for (List<Path> logs : getMatchingFiles(from, to)) {
             List<LogLineIterator> logLineIterators = new ArrayList<>();
             try {
                 // Logs in each sub-list contain entries covering the same time interval, so do a merge sort while reading
                 for (Path log : logs)
-                    logLineIterators.add(new LogLineIterator(log, fromSeconds, toSeconds, hostname));
+                    logLineIterators.add(new LogLineIterator(log, fromSeconds, toSeconds, hostnameBytes));
 
-                Iterator<LineWithTimestamp> lines = Iterators.mergeSorted(logLineIterators,
-                                                                          Comparator.comparingDouble(LineWithTimestamp::timestamp));
+                Iterator<LineWithTimestamp> lines = logLineIterators.size() == 1
+                                                    ? logLineIterators.get(0)
+                                                    : Iterators.mergeSorted(logLineIterators,
+                                                                            Comparator.comparingDouble(LineWithTimestamp::timestamp));
                 while (lines.hasNext()) {
                     if (linesWritten++ >= maxLines) return;
-                    String line = lines.next().line();
-                    writer.write(line);
-                    writer.newLine();
+                    lines.next().writeTo(writer);
                 }
             }
             catch (IOException e) {
@@ -92,16 +96,26 @@ class LogReader {
         }
     }
 
+    /**
+     * Reads the lines of a log file within a time range as bytes, which are written unchanged to the response.
+     * Zstd compressed archive files are decompressed from the first frame which may contain entries in range,
+     * according to their {@link LogArchiveIndex}, and uncompressed files are searched for the first such line.
+     */
     private static class LogLineIterator implements Iterator<LineWithTimestamp>, AutoCloseable {
 
-        private final BufferedReader reader;
+        private static final int tabsPerLine = 6;
+
+        private final InputStream in;
         private final double from;
         private final double to;
-        private final Optional<String> hostname;
+        private final byte[] hostname;
+        private byte[] buffer = new byte[1 << 16];
+        private int position = 0;
+        private int limit = 0;
+        private boolean exhausted = false;
         private LineWithTimestamp next;
-        private Process zcat = null;
 
-        private InputStream openFile(Path log) {
+        private InputStream openFile(Path log) throws IOException {
             boolean gzipped = log.toString().endsWith(".gz");
             boolean is_zstd = log.toString().endsWith(".zst");
             try {
@@ -109,14 +123,22 @@ class LogReader {
                     var in_gz = Files.newInputStream(log);
                     return new GZIPInputStream(in_gz);
                 } else if (is_zstd) {
-                    var pb = new ProcessBuilder("zstdcat", log.toString());
-                    pb.redirectError(ProcessBuilder.Redirect.DISCARD);
-                    zcat = pb.start();
-                    zcat.getOutputStream().close();
-                    return zcat.getInputStream();
+                    FileChannel channel = FileChannel.open(log);
+                    Optional<LogArchiveIndex> index = LogArchiveIndex.readFor(log);
+                    if (index.isPresent()) {
+                        long offset = index.get().offsetOf(from);
+                        if (offset < 0) {
+                            channel.close();
+                            return InputStream.nullInputStream();
+                        }
+                        channel.position(offset);
+                    }
+                    return new ZstdInputStream(Channels.newInputStream(channel));
                 } else {
                     try {
-                        return Files.newInputStream(log);
+                        FileChannel channel = FileChannel.open(log);
+                        channel.position(firstLineAtOrAfter(channel, from));
+                        return Channels.newInputStream(channel);
                     } catch (NoSuchFileException e) { // File may have been compressed since we found it.
                         Path p = Paths.get(log + ".gz");
                         if (Files.exists(p)) {
@@ -134,12 +156,11 @@ class LogReader {
             return InputStream.nullInputStream();
         }
 
-        private LogLineIterator(Path log, double from, double to, Optional<String> hostname) throws IOException {
-            InputStream in = openFile(log);
-            this.reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+        private LogLineIterator(Path log, double from, double to, byte[] hostname) throws IOException {
             this.from = from;
             this.to = to;
             this.hostname = hostname;
+            this.in = openFile(log);
             this.next = readNext();
         }
 
@@ -157,28 +178,27 @@ class LogReader {
 
         @Override
         public void close() throws IOException {
-            reader.close();
-            if (zcat != null) {
-                zcat.destroy();
-            }
+            in.close();
         }
 
         private LineWithTimestamp readNext() {
             try {
-                for (String line; (line = reader.readLine()) != null; ) {
-                    String[] parts = line.split("\t");
-                    if (parts.length != 7)
+                for (int end; (end = nextLineEnd()) >= 0; position = end + 1) {
+                    if ( ! hasFieldCount(position, end) || ! hasHostname(position, end))
                         continue;
 
-                    if (hostname.map(host -> !host.equals(parts[1])).orElse(false))
+                    double timestamp = LogArchiveIndex.timestampOf(buffer, position, end);
+                    if (Double.isNaN(timestamp))
                         continue;
 
-                    double timestamp = Double.parseDouble(parts[0]);
                     if (timestamp > to)
                         return null;
 
-                    if (timestamp >= from)
-                        return new LineWithTimestamp(line, timestamp);
+                    if (timestamp >= from) {
+                        LineWithTimestamp line = new LineWithTimestamp(Arrays.copyOfRange(buffer, position, end), timestamp);
+                        position = end + 1;
+                        return line;
+                    }
                 }
                 return null;
             }
@@ -187,16 +207,95 @@ class LogReader {
             }
         }
 
+        /** Returns the index of the newline ending the line at the current position, or -1 if there are no more lines */
+        private int nextLineEnd() throws IOException {
+            for (int scanned = position; ; ) {
+                for (int i = scanned; i < limit; i++)
+                    if (buffer[i] == '\n') return i;
+
+                if (exhausted) {
+                    if (position == limit) return -1;
+                    if (limit == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length + 1);
+                    buffer[limit] = '\n'; // The last line may lack a newline
+                    return limit++;
+                }
+                scanned = limit - position;
+                fill();
+            }
+        }
+
+        /** Moves the remaining bytes to the start of the buffer, growing it if it is full, and reads more */
+        private void fill() throws IOException {
+            int remaining = limit - position;
+            if (remaining == buffer.length)
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            else
+                System.arraycopy(buffer, position, buffer, 0, remaining);
+            position = 0;
+            limit = remaining;
+            int read = in.readNBytes(buffer, limit, buffer.length - limit);
+            limit += read;
+            if (limit < buffer.length) exhausted = true;
+        }
+
+        private boolean hasFieldCount(int start, int end) {
+            int tabs = 0;
+            for (int i = start; i < end; i++)
+                if (buffer[i] == '\t' && ++tabs > tabsPerLine) return false;
+            return tabs == tabsPerLine;
+        }
+
+        private boolean hasHostname(int start, int end) {
+            if (hostname == null) return true;
+            int hostStart = start;
+            while (hostStart < end && buffer[hostStart++] != '\t') { }
+            int hostEnd = hostStart + hostname.length;
+            return    hostEnd < end
+                   && buffer[hostEnd] == '\t'
+                   && Arrays.equals(buffer, hostStart, hostEnd, hostname, 0, hostname.length);
+        }
+
+    }
+
+    /**
+     * Returns the offset of the first line in the given uncompressed log file with a timestamp at or after the given one,
+     * using binary search, as lines in such files are written in time order. This may also return an earlier offset.
+     */
+    static long firstLineAtOrAfter(FileChannel channel, double from) throws IOException {
+        long low = 0; // Offset of a line start before the first line in range
+        long high = channel.size();
+        ByteBuffer chunk = ByteBuffer.allocate(1 << 12);
+        while (high - low > chunk.capacity()) {
+            long middle = low + (high - low) / 2;
+            long lineStart = -1;
+            double timestamp = Double.NaN;
+            chunk.clear();
+            channel.read(chunk, middle);
+            for (int i = 0, newline = -1; i < chunk.position(); i++) {
+                if (newline < 0 && chunk.get(i) == '\n') newline = i;
+                if (newline < 0 || chunk.get(i) != '\t') continue;
+                lineStart = middle + newline + 1;
+                timestamp = LogArchiveIndex.timestampOf(chunk.array(), newline + 1, i);
+                break;
+            }
+            if (lineStart < 0 || Double.isNaN(timestamp)) break; // Very long or unparsable lines, so read from low
+            if (timestamp < from) low = lineStart;
+            else high = middle;
+        }
+        return low;
     }
 
     private static class LineWithTimestamp {
-        final String line;
+        final byte[] line;
         final double timestamp;
-        LineWithTimestamp(String line, double timestamp) {
+        LineWithTimestamp(byte[] line, double timestamp) {
             this.line = line;
             this.timestamp = timestamp;
         }
-        String line() { return line; }
+        void writeTo(OutputStream out) throws IOException {
+            out.write(line);
+            out.write('\n');
+        }
         double timestamp() { return timestamp; }
     }
 
@@ -214,6 +313,7 @@ class LogReader {
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
                     if (logFilePattern.matcher(file.getFileName().toString()).matches()
+                        && ! LogArchiveIndex.isIndex(file)
                         && ! attrs.lastModifiedTime().toInstant().isBefore(from))
                     {
                         paths.add(file);
@@ -279,7 +379,6 @@ class LogReader {
                                 .toInstant()
                                 .plus(Duration.ofSeconds(1));
         }
-        // TODO: accept .zst files when the io.airlift library supports streamed input.
         throw new IllegalArgumentException("Unrecognized file pattern for file at '" + path + "'");
     }
 
@@ -2,6 +2,7 @@
 package com.yahoo.jdisc.http.server.jetty;
 
 import com.yahoo.jdisc.handler.CompletionHandler;
+import org.eclipse.jetty.server.HttpOutput;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
@@ -207,6 +208,9 @@ class ServletOutputStreamWriter {
             try {
                 if (buffer.hasArray()) {
                     outputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                } else if (outputStream instanceof HttpOutput) {
+                    // Jetty writes direct buffers as they are, while other buffers must be copied to an array
+                    ((HttpOutput) outputStream).write(buffer);
                 } else {
                     final byte[] array = new byte[buffer.remaining()];
                     buffer.get(array);
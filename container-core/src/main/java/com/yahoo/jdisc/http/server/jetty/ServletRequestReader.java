@@ -52,6 +52,9 @@ class ServletRequestReader {
     private Throwable errorDuringRead;
     private int bytesRead;
 
+    /** The number of bytes of content the request declares, or -1 if unknown */
+    private final long contentLength;
+
     /**
      * Rules:
      * 1. If state != State.READING,  then numberOfOutstandingUserCalls must not increase
@@ -104,6 +107,7 @@ class ServletRequestReader {
         this.requestContentChannel = Objects.requireNonNull(requestContentChannel);
         this.janitor = Objects.requireNonNull(janitor);
         this.metricReporter = Objects.requireNonNull(metricReporter);
+        this.contentLength = req.getContentLengthLong();
     }
 
     /** Register read listener to start reading request data */
@@ -132,10 +136,11 @@ class ServletRequestReader {
             ServletInputStream in;
             synchronized (monitor) { in = ServletRequestReader.this.in; }
             while (in.isReady()) {
-                final byte[] buffer = new byte[BUFFER_SIZE_BYTES];
                 int numBytesRead;
+                byte[] buffer;
 
                 synchronized (monitor) {
+                    buffer = new byte[nextBufferSize()];
                     numBytesRead = in.read(buffer);
                     if (numBytesRead < 0) {
                         // End of stream; there should be no more data available, ever.
@@ -175,6 +180,20 @@ class ServletRequestReader {
             }
         }
 
+        /**
+         * Returns the size of the buffer to read the next content into: Content is handed over to the request content
+         * channel, so buffers cannot be reused, but a request which declares its length needs no more than that.
+         * Once the declared length is read, the input is still ready, as end of stream is found by reading, so this
+         * is done with a single byte. Content may be longer than declared if it is inflated by the server, and is
+         * then read in full buffers.
+         */
+        private int nextBufferSize() {
+            if (contentLength < 0 || bytesRead > contentLength) return BUFFER_SIZE_BYTES;
+            long remaining = contentLength - bytesRead;
+            if (remaining == 0) return 1;
+            return (int) Math.min(BUFFER_SIZE_BYTES, remaining);
+        }
+
         @Override public void onError(final Throwable t) { fail(t); }
         @Override public void onAllDataRead() { doneReading(null); }
     }
@@ -2,6 +2,8 @@
 package com.yahoo.container.handler;
 
 import com.yahoo.compress.ZstdCompressor;
+import com.yahoo.compress.ZstdOutputStream;
+import com.yahoo.log.LogArchiveIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -11,6 +13,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
@@ -21,6 +24,7 @@ import java.util.zip.GZIPOutputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LogReaderTest {
 
@@ -33,6 +37,8 @@ public class LogReaderTest {
     private static final String log100 = "0.2\tnode2.com\t5480\tcontainer\tstdout\tinfo\tsecond\n";
     private static final String log101 = "0.1\tnode2.com\t5480\tcontainer\tstdout\tinfo\tERROR: Bundle canary-application [71] Unable to get module class path. (java.lang.NullPointerException)\n";
     private static final String log110 = "3600.1\tnode1.com\t5480\tcontainer\tstderr\twarning\tthird\n";
+    private static final String log201 = "90000.1\tnode2.com\t5480\tcontainer\tstdout\tinfo\tfirst frame\n";
+    private static final String log202 = "90000.2\tnode2.com\t5480\tcontainer\tstdout\tinfo\tsecond frame\n";
     private static final String log200 = "86400.1\tnode2.com\t5480\tcontainer\tstderr\twarning\tjava.lang.NullPointerException\\n\\tat org.apache.felix.framework.BundleRevisionImpl.calculateContentPath(BundleRevisionImpl.java:438)\\n\\tat org.apache.felix.framework.BundleRevisionImpl.initializeContentPath(BundleRevisionImpl.java:371)\n";
 
     @BeforeEach
@@ -73,7 +79,6 @@ public class LogReaderTest {
         assertEquals(log101 + logv11, baos.toString(UTF_8));
     }
 
-    @Disabled // TODO: zts log line missing on Mac
     @Test
     void testZippedStreaming() {
         ByteArrayOutputStream zippedBaos = new ByteArrayOutputStream();
@@ -101,6 +106,51 @@ public class LogReaderTest {
         assertEquals(log101 + log100, baos.toString(UTF_8));
     }
 
+    @Test
+    void indexedZstdArchivesAreReadFromFirstFrameInRange() throws IOException {
+        Path archive = logDirectory.resolve("1970/01/02/01-1.zst");
+        LogArchiveIndex.Builder index = new LogArchiveIndex.Builder();
+        try (ZstdOutputStream out = new ZstdOutputStream(Files.newOutputStream(archive))) {
+            out.write(log201.getBytes(UTF_8));
+            out.flush();
+            long secondFrame = Files.size(archive);
+            out.write(log202.getBytes(UTF_8));
+            out.flush();
+            index.add(0, 90000.1).add(secondFrame, 90000.2);
+        }
+        index.writeFor(archive);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        LogReader logReader = new LogReader(logDirectory, Pattern.compile("01-1\\.zst.*"));
+        logReader.writeLogs(baos, Instant.EPOCH, Instant.EPOCH.plus(Duration.ofDays(2)), 100, Optional.empty());
+        assertEquals(log201 + log202, baos.toString(UTF_8));
+
+        // The index claims the first frame has no entries in range, so it is skipped
+        baos.reset();
+        logReader.writeLogs(baos, Instant.ofEpochMilli(90000_150), Instant.EPOCH.plus(Duration.ofDays(2)), 100, Optional.empty());
+        assertEquals(log202, baos.toString(UTF_8));
+
+        baos.reset();
+        logReader.writeLogs(baos, Instant.ofEpochMilli(90000_250), Instant.EPOCH.plus(Duration.ofDays(2)), 100, Optional.empty());
+        assertEquals("", baos.toString(UTF_8));
+    }
+
+    @Test
+    void uncompressedLogsAreSearchedForFirstLineInRange() throws IOException {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            log.append(i).append(".5\tnode1.com\t5480\tcontainer\tstdout\tinfo\tline ").append(i).append('\n');
+        Path file = logDirectory.resolve("large.log");
+        Files.writeString(file, log);
+        try (FileChannel channel = FileChannel.open(file)) {
+            long offset = LogReader.firstLineAtOrAfter(channel, 7777);
+            int target = log.indexOf("\n7777.5\t") + 1;
+            assertEquals('\n', log.charAt((int) offset - 1));
+            assertTrue(offset <= target && target - offset < 8192);
+            assertEquals(0, LogReader.firstLineAtOrAfter(channel, 0));
+        }
+    }
+
     private byte[] compress1(String input) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         OutputStream zip = new GZIPOutputStream(baos);
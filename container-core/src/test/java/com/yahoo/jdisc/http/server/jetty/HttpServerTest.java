@@ -387,6 +387,20 @@ public class HttpServerTest {
                 .expectContent(containsString(updaterConfContent));
     }
 
+    @Test
+    void requireThatContentCanBeEchoedInDirectBuffers() throws Exception {
+        final JettyTestDriver driver = JettyTestDriver.newInstance(new DirectBufferEchoRequestHandler());
+        for (int length : new int[] { 1, 100, 100_000 }) {
+            String content = "0123456789".repeat(length / 10 + 1).substring(0, length);
+            driver.client().newPost("/status.html")
+                    .setContent(content)
+                    .execute()
+                    .expectStatusCode(is(OK))
+                    .expectContent(is(content));
+        }
+        assertTrue(driver.close());
+    }
+
     @Test
     void requireThatRequestCookiesAreReceived() throws Exception {
         final JettyTestDriver driver = JettyTestDriver.newInstance(new CookiePrinterRequestHandler());
@@ -870,6 +884,27 @@ public class HttpServerTest {
         }
     }
 
+    /** Writes the request content back in direct buffers */
+    private static class DirectBufferEchoRequestHandler extends AbstractRequestHandler {
+
+        @Override
+        public ContentChannel handleRequest(Request request, ResponseHandler handler) {
+            ContentChannel responseContent = ResponseDispatch.newInstance(Response.Status.OK).connect(handler);
+            return new ContentChannel() {
+                @Override
+                public void write(ByteBuffer buf, CompletionHandler completion) {
+                    ByteBuffer direct = ByteBuffer.allocateDirect(buf.remaining());
+                    direct.put(buf).flip();
+                    responseContent.write(direct, completion);
+                }
+                @Override
+                public void close(CompletionHandler completion) {
+                    responseContent.close(completion);
+                }
+            };
+        }
+    }
+
     private static class ThrowingHandler extends AbstractRequestHandler {
         @Override
         public ContentChannel handleRequest(final Request request, final ResponseHandler handler) {
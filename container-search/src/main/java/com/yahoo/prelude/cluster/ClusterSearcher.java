@@ -34,10 +34,11 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
 
 import static com.yahoo.container.QrSearchersConfig.Searchcluster.Indexingmode.STREAMING;
 
@@ -201,6 +202,24 @@ public class ClusterSearcher extends Searcher {
         return doSearch(searcher, query, execution);
     }
 
+    @Override
+    public CompletableFuture<Result> searchAsync(Query query, Execution execution) {
+        validateQueryTimeout(query);
+        validateQueryCache(query);
+        VespaBackEndSearcher searcher = server;
+        if (searcher == null) {
+            return CompletableFuture.completedFuture(new Result(query, ErrorMessage.createNoBackendsInService("Could not search")));
+        }
+        if (query.getTimeLeft() <= 0) {
+            return CompletableFuture.completedFuture(new Result(query, ErrorMessage.createTimeout("No time left for searching")));
+        }
+        if (schemas.size() > 1) {
+            return searchMultipleDocumentTypes(searcher, query, execution, searcher::searchAsync);
+        }
+        query.getModel().setRestrict(schemas.iterator().next());
+        return searcher.searchAsync(query, execution);
+    }
+
     private void validateQueryTimeout(Query query) {
         if (query.getTimeout() <= maxQueryTimeout) return;
 
@@ -222,9 +241,10 @@ public class ClusterSearcher extends Searcher {
         query.getRanking().setQueryCache(false);
     }
 
-    private Result doSearch(Searcher searcher, Query query, Execution execution) {
+    private Result doSearch(VespaBackEndSearcher searcher, Query query, Execution execution) {
         if (schemas.size() > 1) {
-            return searchMultipleDocumentTypes(searcher, query, execution);
+            return searchMultipleDocumentTypes(searcher, query, execution,
+                                               (q, e) -> CompletableFuture.completedFuture(searcher.search(q, e))).join();
         } else {
             String docType = schemas.iterator().next();
             query.getModel().setRestrict(docType);
@@ -232,7 +252,7 @@ public class ClusterSearcher extends Searcher {
         }
     }
 
-    private static void processResult(Query query, FutureTask<Result> task, Result mergedResult) {
+    private static void processResult(Query query, CompletableFuture<Result> task, Result mergedResult) {
         try {
             Result result = task.get();
             mergedResult.mergeWith(result);
@@ -244,37 +264,59 @@ public class ClusterSearcher extends Searcher {
         }
     }
 
-    private Result searchMultipleDocumentTypes(Searcher searcher, Query query, Execution execution) {
+    /**
+     * Searches each of the schemas of the query through the given entry point of the backend searcher,
+     * which is either its search or its searchAsync method, and merges the results.
+     */
+    private CompletableFuture<Result> searchMultipleDocumentTypes(VespaBackEndSearcher searcher, Query query, Execution execution,
+                                                                  BiFunction<Query, Execution, CompletableFuture<Result>> search) {
         Set<String> schemas = resolveSchemas(query, execution.context().getIndexFacts());
         List<Query> queries = createQueries(query, schemas);
         if (queries.size() == 1) {
-            return searcher.search(queries.get(0), execution);
+            return search.apply(queries.get(0), execution);
         } else {
-            Result mergedResult = new Result(query);
-            List<FutureTask<Result>> pending = new ArrayList<>(queries.size());
+            List<CompletableFuture<Result>> pending = new ArrayList<>(queries.size());
             for (Query q : queries) {
-                FutureTask<Result> task = new FutureTask<>(() -> searcher.search(q, execution));
-                try {
-                    executor.execute(task);
-                    pending.add(task);
-                } catch (RejectedExecutionException rej) {
-                    task.run();
-                    processResult(query, task, mergedResult);
-                }
+                pending.add(searchInExecutor(search, q, execution));
             }
-            for (FutureTask<Result> task : pending) {
-                processResult(query, task, mergedResult);
+            return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                                    .handle((__, ___) -> mergeResults(searcher, query, execution, pending));
+        }
+    }
+
+    private Result mergeResults(VespaBackEndSearcher searcher, Query query, Execution execution, List<CompletableFuture<Result>> pending) {
+        Result mergedResult = new Result(query);
+        for (CompletableFuture<Result> task : pending) {
+            processResult(query, task, mergedResult);
+        }
+        // Should we trim the merged result?
+        if (query.getOffset() > 0 || query.getHits() < mergedResult.hits().size()) {
+            if (mergedResult.getHitOrderer() != null) {
+                // Make sure we have the necessary data for sorting
+                searcher.fill(mergedResult, VespaBackEndSearcher.SORTABLE_ATTRIBUTES_SUMMARY_CLASS, execution);
             }
-            // Should we trim the merged result?
-            if (query.getOffset() > 0 || query.getHits() < mergedResult.hits().size()) {
-                if (mergedResult.getHitOrderer() != null) {
-                    // Make sure we have the necessary data for sorting
-                    searcher.fill(mergedResult, VespaBackEndSearcher.SORTABLE_ATTRIBUTES_SUMMARY_CLASS, execution);
-                }
-                mergedResult.hits().trim(query.getOffset(), query.getHits());
-                query.setOffset(0); // Needed when doing a trim
+            mergedResult.hits().trim(query.getOffset(), query.getHits());
+            query.setOffset(0); // Needed when doing a trim
+        }
+        return mergedResult;
+    }
+
+    /**
+     * Starts searching in the executor, so backends which block search in parallel. The executor thread is
+     * released when the backend has returned its future result, which is right after sending the request
+     * for backends which do not block.
+     */
+    private CompletableFuture<Result> searchInExecutor(BiFunction<Query, Execution, CompletableFuture<Result>> search,
+                                                       Query query, Execution execution) {
+        try {
+            return CompletableFuture.supplyAsync(() -> search.apply(query, execution), executor)
+                                    .thenCompose(result -> result);
+        } catch (RejectedExecutionException e) {
+            try {
+                return search.apply(query, execution);
+            } catch (RuntimeException searchException) {
+                return CompletableFuture.failedFuture(searchException);
             }
-            return mergedResult;
         }
     }
 
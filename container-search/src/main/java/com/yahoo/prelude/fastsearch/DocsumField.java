@@ -86,7 +86,10 @@ public abstract class DocsumField {
      */
     public abstract Object convert(Inspector value);
 
-    /** Returns whether this is the string field type. */
-    boolean isString() { return false; }
+    /** The forms in which field values may be passed to a {@link com.yahoo.search.result.Hit.RawUtf8Consumer} */
+    enum RawType { UTF8, INT, LONG, FLOAT, DOUBLE, OBJECT }
+
+    /** Returns the form in which values of this field type are passed to raw consumers, to avoid boxing them. */
+    RawType rawType() { return RawType.OBJECT; }
 
 }
@@ -28,4 +28,7 @@ public class DoubleField extends DocsumField {
         return convert(value.asDouble(EMPTY_VALUE));
     }
 
+    @Override
+    RawType rawType() { return RawType.DOUBLE; }
+
 }
@@ -7,6 +7,7 @@ import com.yahoo.net.URI;
 import com.yahoo.search.query.Sorting;
 import com.yahoo.search.result.FeatureData;
 import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.NanNumber;
 import com.yahoo.search.result.Relevance;
 import com.yahoo.data.access.Inspector;
 
@@ -563,20 +564,58 @@ public class FastHit extends Hit {
             data.traverse((ObjectTraverser)(name, value) -> {
                 if (!shadowed(name) && !removed(name)) {
                     DocsumField fieldType = type.fields().get(name);
-                    if (fieldType != null) {
-                        if (fieldType.isString()) {
-                            byte[] utf8Value = value.asUtf8();
-                            consumer.accept(name, utf8Value, 0, utf8Value.length);
-                        } else {
-                            Object convertedValue = fieldType.convert(value);
-                            if (convertedValue != null)
-                                consumer.accept(name, convertedValue);
-                        }
-                    }
+                    if (fieldType != null)
+                        acceptAsRaw(name, fieldType, value, consumer);
                 }
             });
         }
 
+        /**
+         * Passes a value to the consumer in the raw form of its field type.
+         * Primitives are read here rather than by the field type such that neither they
+         * nor the inspector of the value need to be allocated.
+         */
+        private static void acceptAsRaw(String name, DocsumField fieldType, Inspector value, RawUtf8Consumer consumer) {
+            switch (fieldType.rawType()) {
+                case UTF8:
+                    byte[] utf8Value = value.asUtf8();
+                    consumer.accept(name, utf8Value, 0, utf8Value.length);
+                    break;
+                case INT:
+                    int intValue = (int)value.asLong(IntegerField.EMPTY_VALUE);
+                    if (intValue == IntegerField.EMPTY_VALUE)
+                        consumer.accept(name, NanNumber.NaN);
+                    else
+                        consumer.accept(name, intValue);
+                    break;
+                case LONG:
+                    long longValue = value.asLong(Int64Field.EMPTY_VALUE);
+                    if (longValue == Int64Field.EMPTY_VALUE)
+                        consumer.accept(name, NanNumber.NaN);
+                    else
+                        consumer.accept(name, longValue);
+                    break;
+                case FLOAT:
+                    float floatValue = (float)value.asDouble(FloatField.EMPTY_VALUE);
+                    if (Float.isNaN(floatValue))
+                        consumer.accept(name, NanNumber.NaN);
+                    else
+                        consumer.accept(name, floatValue);
+                    break;
+                case DOUBLE:
+                    double doubleValue = value.asDouble(DoubleField.EMPTY_VALUE);
+                    if (Double.isNaN(doubleValue))
+                        consumer.accept(name, NanNumber.NaN);
+                    else
+                        consumer.accept(name, doubleValue);
+                    break;
+                default:
+                    Object convertedValue = fieldType.convert(value);
+                    if (convertedValue != null)
+                        consumer.accept(name, convertedValue);
+            }
+        }
+
         Iterator<Map.Entry<String, Object>> fieldIterator() {
             return new SummaryDataFieldIterator(this, type, data.fields().iterator());
         }
@@ -20,6 +20,8 @@ import com.yahoo.search.searchchain.Execution;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * The searcher which forwards queries to fdispatch nodes, using the fnet/fs4
@@ -100,15 +102,52 @@ public class FastSearcher extends VespaBackEndSearcher {
                 fill(result, query.getPresentation().getSummary(), execution); // ARGH
             }
             return result;
-        } catch (TimeoutException e) {
-            return new Result(query,ErrorMessage.createTimeout(e.getMessage()));
         } catch (IOException e) {
-            Result result = new Result(query);
-            if (query.getTrace().getLevel() >= 1)
-                query.trace(getName() + " error response: " + result, false, 1);
-            result.hits().addError(ErrorMessage.createBackendCommunicationError(getName() + " failed: "+ e.getMessage()));
-            return result;
+            return errorResult(query, e);
+        }
+    }
+
+    /** Returns a future result which is completed by the dispatcher when the content nodes have responded */
+    @Override
+    protected CompletableFuture<Result> doSearch2Async(Query query, Execution execution) {
+        if (query.properties().getBoolean(Ranking.RANKFEATURES, false))
+            return super.doSearch2Async(query, execution); // Fills synchronously, see doSearch2
+
+        if (dispatcher.searchCluster().allGroupsHaveSize1())
+            forceSinglePassGrouping(query);
+        SearchInvoker invoker = getSearchInvoker(query);
+        CompletableFuture<Result> result;
+        try {
+            result = invoker.searchAsync(query, execution);
+        } catch (IOException e) {
+            invoker.close();
+            return CompletableFuture.completedFuture(errorResult(query, e));
+        } catch (RuntimeException e) {
+            invoker.close();
+            throw e;
         }
+        return result.handle((searchResult, exception) -> {
+            invoker.close();
+            Throwable cause = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause()
+                                                                                                       : exception;
+            if (cause instanceof IOException ioException)
+                return errorResult(query, ioException);
+            if (cause != null)
+                throw new CompletionException(cause);
+            injectSource(searchResult.hits());
+            return searchResult;
+        });
+    }
+
+    private Result errorResult(Query query, IOException e) {
+        if (e instanceof TimeoutException)
+            return new Result(query,ErrorMessage.createTimeout(e.getMessage()));
+
+        Result result = new Result(query);
+        if (query.getTrace().getLevel() >= 1)
+            query.trace(getName() + " error response: " + result, false, 1);
+        result.hits().addError(ErrorMessage.createBackendCommunicationError(getName() + " failed: "+ e.getMessage()));
+        return result;
     }
 
     /**
@@ -30,4 +30,7 @@ public class Float16Field extends DocsumField {
         return convert((float)value.asDouble(EMPTY_VALUE));
     }
 
+    @Override
+    RawType rawType() { return RawType.FLOAT; }
+
 }
@@ -32,4 +32,7 @@ public class FloatField extends DocsumField {
         return convert((float)value.asDouble(EMPTY_VALUE));
     }
 
+    @Override
+    RawType rawType() { return RawType.FLOAT; }
+
 }
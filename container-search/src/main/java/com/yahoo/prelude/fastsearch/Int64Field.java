@@ -38,4 +38,7 @@ public class Int64Field extends DocsumField {
         return convert(value.asLong(EMPTY_VALUE));
     }
 
+    @Override
+    RawType rawType() { return RawType.LONG; }
+
 }
@@ -37,4 +37,7 @@ public class IntegerField extends DocsumField {
         return convert((int)value.asLong(EMPTY_VALUE));
     }
 
+    @Override
+    RawType rawType() { return RawType.INT; }
+
 }
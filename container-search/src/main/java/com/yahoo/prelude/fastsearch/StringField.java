@@ -27,6 +27,7 @@ public class StringField extends DocsumField {
         return value.asString("");
     }
 
-    boolean isString() { return true; }
+    @Override
+    RawType rawType() { return RawType.UTF8; }
 
 }
@@ -28,6 +28,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 /**
@@ -76,6 +77,18 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
      */
     protected abstract Result doSearch2(Query query, Execution execution);
 
+    /**
+     * Returns a future result of searching a search cluster.
+     * This default implementation invokes doSearch2 in the calling thread, for subclasses which
+     * can not search without blocking.
+     *
+     * @param query the query to search
+     * @param execution the query execution context
+     */
+    protected CompletableFuture<Result> doSearch2Async(Query query, Execution execution) {
+        return CompletableFuture.completedFuture(doSearch2(query, execution));
+    }
+
     protected abstract void doPartialFill(Result result, String summaryClass);
 
     private boolean hasLocation(Item tree) {
@@ -159,16 +172,36 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
 
     @Override
     public Result search(Query query, Execution execution) {
+        Optional<Result> preparedResult = prepare(query);
+        if (preparedResult.isPresent()) return preparedResult.get();
+
+        return traced(doSearch2(query, execution), query);
+    }
+
+    /**
+     * Returns a future result of searching the backend, which is completed without waiting for it if possible.
+     * This does not call {@link #search}, so subclasses overriding that must override this as well.
+     */
+    @Override
+    public CompletableFuture<Result> searchAsync(Query query, Execution execution) {
+        Optional<Result> preparedResult = prepare(query);
+        if (preparedResult.isPresent()) return CompletableFuture.completedFuture(preparedResult.get());
+
+        return doSearch2Async(query, execution).thenApply(result -> traced(result, query));
+    }
+
+    /** Prepares the query for searching the backend, and returns the result if there is nothing to search for */
+    private Optional<Result> prepare(Query query) {
         // query root should not be null here
         Item root = query.getModel().getQueryTree().getRoot();
         if (root == null || root instanceof NullItem) {
-            return new Result(query, ErrorMessage.createNullQuery(query.getHttpRequest().getUri().toString()));
+            return Optional.of(new Result(query, ErrorMessage.createNullQuery(query.getHttpRequest().getUri().toString())));
         }
 
         if ( ! getDocumentDatabase(query).schema().rankProfiles().containsKey(query.getRanking().getProfile()))
-            return new Result(query, ErrorMessage.createInvalidQueryParameter(getDocumentDatabase(query).schema() +
-                                                                              " does not contain requested rank profile '" +
-                                                                              query.getRanking().getProfile() + "'"));
+            return Optional.of(new Result(query, ErrorMessage.createInvalidQueryParameter(getDocumentDatabase(query).schema() +
+                                                                                          " does not contain requested rank profile '" +
+                                                                                          query.getRanking().getProfile() + "'")));
 
         QueryRewrite.optimizeByRestrict(query);
         QueryRewrite.optimizeAndNot(query);
@@ -176,7 +209,7 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
 
         root = query.getModel().getQueryTree().getRoot();
         if (root == null || root instanceof NullItem) // root can become null after optimization
-            return new Result(query);
+            return Optional.of(new Result(query));
 
         resolveDocumentDatabase(query);
         transformQuery(query);
@@ -184,10 +217,11 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
 
         root = query.getModel().getQueryTree().getRoot();
         if (root == null || root instanceof NullItem) // root can become null after resolving and transformation?
-            return new Result(query);
-
-        Result result = doSearch2(query, execution);
+            return Optional.of(new Result(query));
+        return Optional.empty();
+    }
 
+    private Result traced(Result result, Query query) {
         if (query.getTrace().getLevel() >= 1)
             query.trace(getName() + " dispatch response: " + result, false, 1);
         result.trace(getName());
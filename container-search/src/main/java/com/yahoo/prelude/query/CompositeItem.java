@@ -10,9 +10,11 @@ import com.yahoo.search.query.QueryTree;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -210,7 +212,7 @@ public abstract class CompositeItem extends Item {
     public CompositeItem clone() {
         CompositeItem copy = (CompositeItem) super.clone();
 
-        copy.subitems = new java.util.ArrayList<>();
+        copy.subitems = new java.util.ArrayList<>(subitems.size());
         for (Item subItem : subitems) {
             Item subItemCopy = subItem.clone();
             subItemCopy.setParent(copy);
@@ -222,14 +224,18 @@ public abstract class CompositeItem extends Item {
 
     private void fixConnexity(CompositeItem copy) {
         List<Item> flatland = new ArrayList<>();
-        List<Item> flatCopy = new ArrayList<>();
         taggingFlatten(this, flatland);
+        if (flatland.stream().noneMatch(item -> item.connectedItem != null)) return;
+
+        List<Item> flatCopy = new ArrayList<>(flatland.size());
         taggingFlatten(copy, flatCopy);
-        int barrier = flatland.size();
-        for (int i = 0; i < barrier; ++i) {
+        Map<Item, Integer> positions = new IdentityHashMap<>(flatland.size());
+        for (int i = flatland.size() - 1; i >= 0; --i)
+            positions.put(flatland.get(i), i);
+        for (int i = 0; i < flatland.size(); ++i) {
             Item orig = flatland.get(i);
-            int connectedTo = find(orig.connectedItem, flatland);
-            if (connectedTo >= 0) {
+            Integer connectedTo = orig.connectedItem == null ? null : positions.get(orig.connectedItem);
+            if (connectedTo != null) {
                 TaggableItem tagged = (TaggableItem) flatCopy.get(i);
                 tagged.setConnectivity(flatCopy.get(connectedTo), orig.connectivity);
             }
@@ -247,19 +253,6 @@ public abstract class CompositeItem extends Item {
         }
     }
 
-    private int find(Item needle, List<Item> haystack) {
-        if (needle == null) {
-            return -1;
-        }
-        int barrier = haystack.size();
-        for (int i = 0; i < barrier; ++i) {
-            if (haystack.get(i) == needle) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
     @Override
     public int hashCode() {
         int code = getName().hashCode() + subitems.size() * 17;
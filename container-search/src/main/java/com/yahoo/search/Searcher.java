@@ -6,6 +6,7 @@ import com.yahoo.processing.Processor;
 import com.yahoo.processing.Response;
 import com.yahoo.search.searchchain.Execution;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 /**
@@ -128,6 +129,30 @@ public abstract class Searcher extends Processor {
      */
     public abstract Result search(Query query,Execution execution);
 
+    /**
+     * Returns a future which completes with the result of making this query. This is invoked instead of
+     * {@link #search} when the query is passed down with {@link Execution#searchAsync}.
+     * <p>
+     * Override this in searchers which wait for something else, typically a backend or the rest of the chain,
+     * to return the future result without holding a thread while waiting, e.g., by calling
+     * execution.searchAsync(query).thenApply(result -&gt; ...). The search method must still be implemented,
+     * for when this is invoked synchronously.
+     * <p>
+     * This default implementation adapts synchronous searchers by invoking {@link #search} in the calling thread,
+     * and returns an already completed future.
+     *
+     * @param query the query
+     * @return the future result of making this query, which may be completed exceptionally on unexpected events
+     */
+    public CompletableFuture<Result> searchAsync(Query query, Execution execution) {
+        try {
+            return CompletableFuture.completedFuture(search(query, execution));
+        }
+        catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /** Use the search method in Searcher processors. This forwards to it. */
     @Override
     public final Response process(com.yahoo.processing.Request request, com.yahoo.processing.execution.Execution execution) {
@@ -7,26 +7,49 @@ import com.yahoo.search.Query;
 import com.yahoo.searchlib.aggregation.Grouping;
 import com.yahoo.searchlib.aggregation.Hit;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Incrementally merges underlying {@link Grouping} instances from {@link GroupingListHit} hits.
+ * Merges underlying {@link Grouping} instances from {@link GroupingListHit} hits.
+ *
+ * Small results are merged as they arrive. Once the results of a grouping request are large, further results
+ * are collected, and merged when the aggregated hit is requested: pairwise, in rounds, so that each group is
+ * merged about log2(results) times instead of once per result merged into it. The merges in a round are
+ * independent, and are done in parallel in the given executor.
  *
  * @author bjorncs
  */
 class GroupingResultAggregator {
     private static final Logger log = Logger.getLogger(GroupingResultAggregator.class.getName());
 
-    private final Map<Integer, Grouping> groupings = new LinkedHashMap<>();
+    /** The least number of top level groups in a result for which merges are deferred and done in parallel */
+    static final int parallelMergeThreshold = 1000;
+
+    private final Map<Integer, List<Grouping>> groupings = new LinkedHashMap<>();
+    private final Executor executor;
     private DocsumDefinitionSet docsumDefinitions = null;
     private Query query = null;
     private int groupingHitsMerged = 0;
 
+    /** Creates an aggregator which merges in the calling thread */
+    GroupingResultAggregator() {
+        this(Runnable::run);
+    }
+
+    /** Creates an aggregator which may do merges in parallel in the given executor */
+    GroupingResultAggregator(Executor executor) {
+        this.executor = executor;
+    }
+
     void mergeWith(GroupingListHit result) {
         ++groupingHitsMerged;
         if (docsumDefinitions == null) docsumDefinitions = result.getDocsumDefinitionSet();
@@ -35,10 +58,11 @@ class GroupingResultAggregator {
                 String.format("Merging hit #%d having %d groupings",
                         groupingHitsMerged, result.getGroupingList().size()));
         for (Grouping grouping : result.getGroupingList()) {
-            groupings.merge(grouping.getId(), grouping, (existingGrouping, newGrouping) -> {
-                existingGrouping.merge(newGrouping);
-                return existingGrouping;
-            });
+            List<Grouping> results = groupings.computeIfAbsent(grouping.getId(), __ -> new ArrayList<>());
+            if (results.size() == 1 && isSmall(results.get(0)) && isSmall(grouping))
+                results.get(0).merge(grouping);
+            else
+                results.add(grouping);
         }
     }
 
@@ -47,7 +71,10 @@ class GroupingResultAggregator {
         log.log(Level.FINE, () ->
                 String.format("Creating aggregated hit containing %d groupings from %d hits with docsums '%s' and %s",
                         groupings.size(), groupingHitsMerged, docsumDefinitions, query));
-        GroupingListHit groupingHit = new GroupingListHit(List.copyOf(groupings.values()), docsumDefinitions);
+        List<Grouping> merged = new ArrayList<>(groupings.size());
+        for (List<Grouping> results : groupings.values())
+            merged.add(merge(results, executor));
+        GroupingListHit groupingHit = new GroupingListHit(List.copyOf(merged), docsumDefinitions);
         groupingHit.setQuery(query);
         groupingHit.getGroupingList().forEach(g -> {
             g.select(o -> o instanceof Hit, o -> ((Hit)o).setContext(groupingHit));
@@ -56,4 +83,70 @@ class GroupingResultAggregator {
         return Optional.of(groupingHit);
     }
 
+    /** Merges the given results of the same grouping request into the first of them, and returns it */
+    static Grouping merge(List<Grouping> results, Executor executor) {
+        List<Grouping> round = results;
+        while (round.size() > 1) {
+            boolean parallel = round.size() > 3 && ! isSmall(round.get(0));
+            List<MergeTask> tasks = new ArrayList<>(round.size() / 2);
+            List<Grouping> next = new ArrayList<>((round.size() + 1) / 2);
+            for (int i = 0; i + 1 < round.size(); i += 2) {
+                MergeTask task = new MergeTask(round.get(i), round.get(i + 1));
+                tasks.add(task);
+                next.add(round.get(i));
+                if (parallel && i > 0) // The first is done by this thread
+                    executor.execute(task);
+            }
+            if (round.size() % 2 != 0)
+                next.add(round.get(round.size() - 1));
+            for (MergeTask task : tasks)
+                task.runOrAwait();
+            round = next;
+        }
+        return round.get(0);
+    }
+
+    private static boolean isSmall(Grouping grouping) {
+        return grouping.getRoot().getNumChildren() < parallelMergeThreshold;
+    }
+
+    /** Merges one grouping into another, in whichever thread gets to it first */
+    private static class MergeTask implements Runnable {
+
+        private final Grouping into;
+        private final Grouping from;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private RuntimeException failure = null;
+
+        MergeTask(Grouping into, Grouping from) {
+            this.into = into;
+            this.from = from;
+        }
+
+        @Override
+        public void run() {
+            if ( ! claimed.compareAndSet(false, true)) return;
+            try {
+                into.merge(from);
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /** Runs this in the calling thread unless another thread has started it, and waits for it to complete */
+        void runOrAwait() {
+            run();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException("Interrupted while merging groupings", e);
+            }
+            if (failure != null) throw failure;
+        }
+
+    }
+
 }
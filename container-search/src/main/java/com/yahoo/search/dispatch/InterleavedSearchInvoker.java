@@ -20,6 +20,8 @@ import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
@@ -46,6 +48,19 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     private Query query;
 
     private TimeoutHandler timeoutHandler;
+
+    // The result being merged
+    private InvokerResult result;
+    private List<LeanHit> merged;
+    private GroupingResultAggregator groupingResultAggregator;
+
+    // State of collecting results asynchronously, where responses are merged in the executor as they arrive
+    private volatile Executor executor = null;
+    private Execution execution;
+    private CompletableFuture<InvokerResult> asyncResult;
+    private long deadline;
+    private long scheduledDeadline;
+
     public InterleavedSearchInvoker(Timer timer, Collection<SearchInvoker> invokers,
                                     SearchCluster searchCluster,
                                     Group group,
@@ -103,27 +118,93 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
 
     @Override
     protected InvokerResult getSearchResult(Execution execution) throws IOException {
-        InvokerResult result = new InvokerResult(query, query.getHits());
-        List<LeanHit> merged = Collections.emptyList();
+        initResult(execution);
         long nextTimeout = query.getTimeLeft();
-        var groupingResultAggregator = new GroupingResultAggregator();
         try {
             while (!invokers.isEmpty() && nextTimeout >= 0) {
                 SearchInvoker invoker = availableForProcessing.poll(nextTimeout, TimeUnit.MILLISECONDS);
                 if (invoker == null) {
-                    log.fine(() -> "Search timed out with " + coverageAggregator.getAskedNodes() + " requests made, " +
-                            coverageAggregator.getAnsweredNodes() + " responses received");
+                    logTimeout();
                     break;
                 } else {
-                    InvokerResult toMerge = invoker.getSearchResult(execution);
-                    merged = mergeResult(result.getResult(), toMerge, merged, groupingResultAggregator);
-                    ejectInvoker(invoker);
+                    merge(invoker, execution);
                 }
                 nextTimeout = timeoutHandler.nextTimeoutMS(coverageAggregator.getAnsweredNodes());
             }
         } catch (InterruptedException e) {
             throw new RuntimeException("Interrupted while waiting for search results", e);
         }
+        return completeResult();
+    }
+
+    /**
+     * Returns a future which is completed when all the contained invokers have responded, or the timeout is reached.
+     * Responses are merged in the executor of the given execution as they arrive, instead of by a waiting thread.
+     */
+    @Override
+    protected CompletableFuture<InvokerResult> getSearchResultAsync(Execution execution) {
+        synchronized (this) {
+            initResult(execution);
+            this.execution = execution;
+            this.asyncResult = new CompletableFuture<>();
+            this.deadline = timer.milliTime() + query.getTimeLeft();
+            this.scheduledDeadline = Long.MIN_VALUE;
+            this.executor = executorOf(execution);
+        }
+        processAvailable(); // Responses may have arrived before the executor was set
+        return asyncResult;
+    }
+
+    /** Merges the responses which are available, and completes the async result when done or timed out */
+    private synchronized void processAvailable() {
+        if (asyncResult.isDone()) return;
+        try {
+            SearchInvoker invoker;
+            while ( ! invokers.isEmpty() && (invoker = availableForProcessing.poll()) != null) {
+                merge(invoker, execution);
+                deadline = timer.milliTime() + timeoutHandler.nextTimeoutMS(coverageAggregator.getAnsweredNodes());
+            }
+            if (invokers.isEmpty() || timer.milliTime() >= deadline) {
+                if ( ! invokers.isEmpty())
+                    logTimeout();
+                asyncResult.complete(completeResult());
+            }
+            else if (scheduledDeadline != deadline) {
+                long scheduled = scheduledDeadline = deadline;
+                CompletableFuture.delayedExecutor(deadline - timer.milliTime(), TimeUnit.MILLISECONDS, executor)
+                                 .execute(() -> checkTimeout(scheduled));
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            asyncResult.completeExceptionally(e);
+        }
+    }
+
+    private synchronized void checkTimeout(long scheduled) {
+        if (scheduled != scheduledDeadline) return; // A check for a later or earlier deadline is scheduled instead
+        scheduledDeadline = Long.MIN_VALUE; // Schedule a new check if this is early
+        processAvailable();
+    }
+
+    private void initResult(Execution execution) {
+        result = new InvokerResult(query, query.getHits());
+        merged = Collections.emptyList();
+        groupingResultAggregator = execution != null ? new GroupingResultAggregator(executorOf(execution))
+                                                     : new GroupingResultAggregator();
+    }
+
+    private void merge(SearchInvoker invoker, Execution execution) throws IOException {
+        InvokerResult toMerge = invoker.getSearchResult(execution);
+        merged = mergeResult(result.getResult(), toMerge, merged, groupingResultAggregator);
+        ejectInvoker(invoker);
+    }
+
+    private void logTimeout() {
+        log.fine(() -> "Search timed out with " + coverageAggregator.getAskedNodes() + " requests made, " +
+                       coverageAggregator.getAnsweredNodes() + " responses received");
+    }
+
+    private InvokerResult completeResult() {
         groupingResultAggregator.toAggregatedHit().ifPresent(h -> result.getResult().hits().add(h));
 
         insertNetworkErrors(result.getResult());
@@ -231,7 +312,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     }
 
     @Override
-    protected void release() {
+    protected synchronized void release() {
         if (!invokers.isEmpty()) {
             invokers.forEach(SearchInvoker::close);
             invokers.clear();
@@ -242,6 +323,9 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     public void responseAvailable(SearchInvoker from) {
         if (availableForProcessing != null) {
             availableForProcessing.add(from);
+            Executor executor = this.executor;
+            if (executor != null)
+                executor.execute(this::processAvailable);
         }
     }
 
@@ -10,6 +10,9 @@ import com.yahoo.search.searchchain.Execution;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * SearchInvoker encapsulates an allocated connection for running a single search query.
@@ -39,6 +42,21 @@ public abstract class SearchInvoker extends CloseableInvoker {
         return result.getResult();
     }
 
+    /**
+     * Returns a future which completes with the hits for the given {@link Query}, without blocking
+     * a thread while waiting for the backend, if this invoker supports that.
+     *
+     * @see #search(Query, Execution)
+     */
+    public CompletableFuture<Result> searchAsync(Query query, Execution execution) throws IOException {
+        sendSearchRequest(query, null);
+        return getSearchResultAsync(execution).thenApply(result -> {
+            setFinalStatus(result.getResult().hits().getError() == null);
+            result.complete();
+            return result.getResult();
+        });
+    }
+
     /**
      *
      * @param query the query to send
@@ -50,6 +68,31 @@ public abstract class SearchInvoker extends CloseableInvoker {
 
     protected abstract InvokerResult getSearchResult(Execution execution) throws IOException;
 
+    /**
+     * Returns a future which completes with the result of the request sent by sendSearchRequest.
+     * This default implementation waits for it with getSearchResult, in the calling thread.
+     */
+    protected CompletableFuture<InvokerResult> getSearchResultAsync(Execution execution) {
+        try {
+            return CompletableFuture.completedFuture(getSearchResult(execution));
+        }
+        catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Returns the executor to do work on when responses arrive, which runs it in the calling thread if saturated */
+    protected static Executor executorOf(Execution execution) {
+        Executor executor = execution.context().executor();
+        return command -> {
+            try {
+                executor.execute(command);
+            } catch (RejectedExecutionException e) {
+                command.run();
+            }
+        };
+    }
+
     protected void setMonitor(ResponseMonitor<SearchInvoker> monitor) {
         this.monitor = monitor;
     }
@@ -14,9 +14,10 @@ import com.yahoo.search.searchchain.Execution;
 
 import java.io.IOException;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * {@link SearchInvoker} implementation using RPC
@@ -30,7 +31,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
     private final VespaBackEndSearcher searcher;
     private final Node node;
     private final RpcResourcePool resourcePool;
-    private final BlockingQueue<Client.ResponseOrError<ProtobufResponse>> responses;
+    private final CompletableFuture<Client.ResponseOrError<ProtobufResponse>> response;
     private final int maxHits;
 
     private Query query;
@@ -40,7 +41,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
         this.searcher = searcher;
         this.node = node;
         this.resourcePool = resourcePool;
-        this.responses = new LinkedBlockingQueue<>(1);
+        this.response = new CompletableFuture<>();
         this.maxHits = maxHits;
     }
 
@@ -50,7 +51,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
 
         Client.NodeConnection nodeConnection = resourcePool.getConnection(node.key());
         if (nodeConnection == null) {
-            responses.add(Client.ResponseOrError.fromError("Could not send search to unknown node " + node.key()));
+            response.complete(Client.ResponseOrError.fromError("Could not send search to unknown node " + node.key()));
             responseAvailable();
             return incomingContext;
         }
@@ -60,7 +61,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
         if (timeout.timedOut()) {
             // Need to produce an error response her in case of JVM system clock being adjusted
             // Timeout mechanism relies on System.currentTimeMillis(), not System.nanoTime() :(
-            responses.add(Client.ResponseOrError.fromTimeoutError("Timeout before sending request to " + getName()));
+            response.complete(Client.ResponseOrError.fromTimeoutError("Timeout before sending request to " + getName()));
             responseAvailable();
             return incomingContext;
         }
@@ -90,15 +91,27 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
         if (timeLeftMs <= 0) {
             return errorResult(query, ErrorMessage.createTimeout("Timeout while waiting for " + getName()));
         }
-        Client.ResponseOrError<ProtobufResponse> response = null;
         try {
-            response = responses.poll(timeLeftMs, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
+            return toSearchResult(response.get(timeLeftMs, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
             // handled as timeout
-        }
-        if (response == null) {
             return errorResult(query, ErrorMessage.createTimeout("Timeout while waiting for " + getName()));
         }
+    }
+
+    /** Returns a future result which is deserialized in the executor of the given execution when the response arrives */
+    @Override
+    protected CompletableFuture<InvokerResult> getSearchResultAsync(Execution execution) {
+        long timeLeftMs = query.getTimeLeft();
+        if (timeLeftMs <= 0) {
+            return CompletableFuture.completedFuture(errorResult(query, ErrorMessage.createTimeout("Timeout while waiting for " + getName())));
+        }
+        return response.completeOnTimeout(Client.ResponseOrError.fromTimeoutError("Timeout while waiting for " + getName()),
+                                          timeLeftMs, TimeUnit.MILLISECONDS)
+                       .thenApplyAsync(this::toSearchResult, executorOf(execution));
+    }
+
+    private InvokerResult toSearchResult(Client.ResponseOrError<ProtobufResponse> response) {
         if (response.timeout()) {
             return errorResult(query, ErrorMessage.createTimeout(response.error().get()));
         }
@@ -121,7 +134,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
     }
 
     public void receive(Client.ResponseOrError<ProtobufResponse> response) {
-        responses.add(response);
+        this.response.complete(response);
         responseAvailable();
     }
 
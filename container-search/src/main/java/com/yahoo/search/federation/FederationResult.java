@@ -9,6 +9,7 @@ import java.time.Clock;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -56,6 +57,16 @@ class FederationResult {
         }
     }
     
+    /**
+     * Returns a future which completes when {@link #waitForAll} would return, without holding a thread while waiting.
+     * When it completes, results can be accessed from the TargetResults with no blocking.
+     */
+    public CompletableFuture<Void> whenAllComplete(int queryTimeout) {
+        return CompletableFuture.allOf(targetsToWaitFor.stream()
+                                                       .map(target -> target.completion(queryTimeout))
+                                                       .toArray(CompletableFuture[]::new));
+    }
+
     /** Returns an immutable list of the results of this */
     public List<TargetResult> all() { return targetResults; }
 
@@ -98,6 +109,12 @@ class FederationResult {
             return availableResult;
         }
         
+        /** Returns a future which completes when this completes, or when its timeout has passed */
+        private CompletableFuture<Void> completion(long queryTimeout) {
+            return futureResult.completion().thenRun(() -> { })
+                               .completeOnTimeout(null, timeout(queryTimeout), TimeUnit.MILLISECONDS);
+        }
+
         /** Returns a result without blocking; if the result is not available one with a timeout error is produced */
         public Result getOrTimeoutError() {
             // The else part is to offload creation of the timeout error
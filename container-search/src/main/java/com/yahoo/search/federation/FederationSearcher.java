@@ -53,6 +53,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -163,7 +164,39 @@ public class FederationSearcher extends ForkingSearcher {
     @Override
     public Result search(Query query, Execution execution) {
         Result mergedResults = execution.search(query);
+        Set<Target> targetHandlers = resolveTargets(query, execution, mergedResults);
 
+        if (targetHandlers.isEmpty())
+            return mergedResults;
+        else if (targetHandlers.size() > 1)
+            search(query, execution, targetHandlers, mergedResults);
+        else if (shouldExecuteTargetLongerThanThread(query, targetHandlers.iterator().next()))
+            search(query, execution, targetHandlers, mergedResults); // one target, but search in separate thread
+        else
+            search(query, execution, first(targetHandlers), mergedResults); // search in this thread
+        return mergedResults;
+    }
+
+    /**
+     * Searches the targets like {@link #search}, but composes the future results of the targets instead of
+     * waiting for them, such that no thread is held while the targets are searched, as long as the searchers
+     * of the target chains implement searchAsync.
+     */
+    @Override
+    public CompletableFuture<Result> searchAsync(Query query, Execution execution) {
+        return execution.searchAsync(query).thenCompose(mergedResults -> {
+            Set<Target> targetHandlers = resolveTargets(query, execution, mergedResults);
+
+            if (targetHandlers.isEmpty())
+                return CompletableFuture.completedFuture(mergedResults);
+            else if (targetHandlers.size() > 1 || shouldExecuteTargetLongerThanThread(query, targetHandlers.iterator().next()))
+                return searchAsync(query, execution, targetHandlers, mergedResults);
+            else
+                return searchAsync(query, execution, first(targetHandlers), mergedResults);
+        });
+    }
+
+    private Set<Target> resolveTargets(Query query, Execution execution, Result mergedResults) {
         Results<SearchChainInvocationSpec, UnresolvedSearchChainException> targets =
                 getTargets(query.getModel().getSources(), query.properties(), execution.context().getIndexFacts());
         warnIfUnresolvedSearchChains(targets.errors(), mergedResults.hits());
@@ -178,16 +211,30 @@ public class FederationSearcher extends ForkingSearcher {
         targetHandlers.addAll(getAdditionalTargets(query, execution, targetSelector));
 
         traceTargets(query, targetHandlers);
+        return targetHandlers;
+    }
 
-        if (targetHandlers.isEmpty())
+    private CompletableFuture<Result> searchAsync(Query query, Execution execution, Target target, Result mergedResults) {
+        long timeout = target.federationOptions().getSearchChainExecutionTimeoutInMilliseconds(query.getTimeLeft());
+        if (timeout <= 0) {
+            mergeResult(query, target, mergedResults, createSearchChainTimedOutResult(query, target));
+            return CompletableFuture.completedFuture(mergedResults);
+        }
+
+        Execution newExecution = new Execution(target.getChain(), execution.context());
+        return newExecution.searchAsync(cloneFederationQuery(query, Window.from(query), timeout, target)).thenApply(result -> {
+            target.modifyTargetResult(result);
+            mergeResult(query, target, mergedResults, result);
             return mergedResults;
-        else if (targetHandlers.size() > 1)
-            search(query, execution, targetHandlers, mergedResults);
-        else if (shouldExecuteTargetLongerThanThread(query, targetHandlers.iterator().next()))
-            search(query, execution, targetHandlers, mergedResults); // one target, but search in separate thread
-        else
-            search(query, execution, first(targetHandlers), mergedResults); // search in this thread
-        return mergedResults;
+        });
+    }
+
+    private CompletableFuture<Result> searchAsync(Query query, Execution execution, Collection<Target> targets, Result mergedResults) {
+        FederationResult results = search(query, execution, targets);
+        return results.whenAllComplete((int)query.getTimeLeft()).thenApply(__ -> {
+            mergeResults(query, results, mergedResults);
+            return mergedResults;
+        });
     }
 
     private void search(Query query, Execution execution, Target target, Result mergedResults) {
@@ -198,7 +245,10 @@ public class FederationSearcher extends ForkingSearcher {
     private void search(Query query, Execution execution, Collection<Target> targets, Result mergedResults) {
         FederationResult results = search(query, execution, targets);
         results.waitForAll((int)query.getTimeLeft(), clock);
+        mergeResults(query, results, mergedResults);
+    }
 
+    private void mergeResults(Query query, FederationResult results, Result mergedResults) {
         HitOrderer s = null;
         for (FederationResult.TargetResult targetResult : results.all()) {
             if (s == null)
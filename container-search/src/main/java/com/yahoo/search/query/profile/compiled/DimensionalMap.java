@@ -5,9 +5,12 @@ import com.google.common.collect.ImmutableMap;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.query.profile.DimensionBinding;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A map which may return different values depending on the values given in a context
@@ -19,17 +22,57 @@ import java.util.Set;
  */
 public class DimensionalMap<VALUE> {
 
+    /** The max number of distinct contexts to remember resolved values for */
+    private static final int maxResolvedContexts = 1000;
+
+    /** Marks a key which has no value in a context */
+    private static final Object noValue = new Object();
+
     private final Map<CompoundName, DimensionalValue<VALUE>> values;
 
+    /** The dimensions which values in this vary by */
+    private final String[] dimensions;
+
+    /** The values resolved so far in each context, keyed by the values of the dimensions of this in that context */
+    private final Map<ContextKey, Map<CompoundName, Object>> resolved = new ConcurrentHashMap<>();
+
     private DimensionalMap(Map<CompoundName, DimensionalValue<VALUE>> values) {
         this.values = ImmutableMap.copyOf(values);
+        Set<String> dimensions = new TreeSet<>();
+        for (DimensionalValue<VALUE> value : values.values())
+            value.addDimensionsTo(dimensions);
+        this.dimensions = dimensions.toArray(new String[0]);
     }
 
     /** Returns the value for this key matching a context, or null if none */
+    @SuppressWarnings("unchecked")
     public VALUE get(CompoundName key, Map<String, String> context) {
         DimensionalValue<VALUE> variants = values.get(key);
         if (variants == null) return null;
-        return variants.get(context);
+        if (variants.isInvariant()) return variants.get(context);
+
+        Map<CompoundName, Object> resolvedInContext = resolvedIn(context);
+        if (resolvedInContext == null) return variants.get(context);
+        Object value = resolvedInContext.get(key);
+        if (value == null) {
+            value = variants.get(context);
+            resolvedInContext.put(key, value == null ? noValue : value);
+        }
+        return value == noValue ? null : (VALUE)value;
+    }
+
+    /** Returns the values resolved so far in the given context, or null if there are too many contexts to remember */
+    private Map<CompoundName, Object> resolvedIn(Map<String, String> context) {
+        String[] dimensionValues = new String[dimensions.length];
+        if (context != null) {
+            for (int i = 0; i < dimensions.length; i++)
+                dimensionValues[i] = context.get(dimensions[i]);
+        }
+        ContextKey key = new ContextKey(dimensionValues);
+        Map<CompoundName, Object> resolvedInContext = resolved.get(key);
+        if (resolvedInContext == null && resolved.size() < maxResolvedContexts)
+            resolvedInContext = resolved.computeIfAbsent(key, __ -> new ConcurrentHashMap<>());
+        return resolvedInContext;
     }
 
     /** Returns the set of dimensional entries across all contexts. */
@@ -42,6 +85,29 @@ public class DimensionalMap<VALUE> {
         return values.isEmpty();
     }
 
+    /** The values of the dimensions of a map in some context */
+    private static class ContextKey {
+
+        private final String[] dimensionValues;
+        private final int hashCode;
+
+        ContextKey(String[] dimensionValues) {
+            this.dimensionValues = dimensionValues;
+            this.hashCode = Arrays.hashCode(dimensionValues);
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) return true;
+            if ( ! (other instanceof ContextKey)) return false;
+            return Arrays.equals(((ContextKey)other).dimensionValues, this.dimensionValues);
+        }
+
+    }
+
     public static class Builder<VALUE> {
 
         private final Map<CompoundName, DimensionalValue.Builder<VALUE>> entries = new HashMap<>();
@@ -25,6 +25,9 @@ public class DimensionalValue<VALUE> {
     private final Map<Binding, VALUE> indexedVariants;
     private final List<BindingSpec> bindingSpecs;
 
+    /** The value of this if it has a single variant which holds in all contexts, or null otherwise */
+    private final VALUE invariantValue;
+
     private DimensionalValue(List<Value<VALUE>> variants) {
         Collections.sort(variants);
 
@@ -39,10 +42,14 @@ public class DimensionalValue<VALUE> {
             if ( ! bindingSpecs.contains(spec))
                 bindingSpecs.add(spec);
         }
+
+        this.invariantValue = indexedVariants.size() == 1 ? indexedVariants.get(Binding.nullBinding) : null;
     }
 
     /** Returns the value matching this context, or null if none */
     public VALUE get(Map<String, String> context) {
+        if (invariantValue != null) return invariantValue;
+
         if (context == null)
             context = Collections.emptyMap();
 
@@ -57,6 +64,15 @@ public class DimensionalValue<VALUE> {
 
     public boolean isEmpty() { return indexedVariants.isEmpty(); }
 
+    /** Returns whether this has the same value in all contexts */
+    boolean isInvariant() { return invariantValue != null || indexedVariants.isEmpty(); }
+
+    /** Adds the dimensions the value of this depends on to the given set */
+    void addDimensionsTo(Set<String> dimensions) {
+        for (BindingSpec spec : bindingSpecs)
+            dimensions.addAll(Arrays.asList(spec.dimensions()));
+    }
+
     @Override
     public String toString() {
         return indexedVariants.toString();
@@ -9,6 +9,7 @@ import com.yahoo.text.JSON;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,7 +24,13 @@ import java.util.OptionalDouble;
 public class RankFeatures implements Cloneable {
 
     private final Ranking parent;
-    private final Map<String, Object> features;
+    private Map<String, Object> features;
+
+    /** Whether the features map is shared with a clone of this, such that it must be copied before it is modified */
+    private boolean shared = false;
+
+    /** Whether the features map is handed out by asMap, such that it may be modified at any time and cannot be shared */
+    private boolean exposed = false;
 
     public RankFeatures(Ranking parent) {
         this(parent, new LinkedHashMap<>());
@@ -36,16 +43,16 @@ public class RankFeatures implements Cloneable {
 
     /** Sets a double rank feature */
     public void put(String name, double value) {
-        features.put(name, value);
+        writableFeatures().put(name, value);
     }
 
     /** Sets a tensor rank feature */
     public void put(String name, Tensor value) {
         verifyType(name, value);
         if (value.type().rank() == 0)
-            features.put(name, value.asDouble());
+            writableFeatures().put(name, value.asDouble());
         else
-            features.put(name, value);
+            writableFeatures().put(name, value);
     }
 
     private void verifyType(String name, Object value) {
@@ -58,7 +65,7 @@ public class RankFeatures implements Cloneable {
      * with other string, but not for any other purpose.
      */
     public void put(String name, String value) {
-        features.put(name, value);
+        writableFeatures().put(name, value);
     }
 
     /** Returns this value as either a Double, Tensor or String. Returns null if the value is not set. */
@@ -112,7 +119,14 @@ public class RankFeatures implements Cloneable {
      * Returns the map holding the features of this.
      * This map may be modified to change the rank features of the query.
      */
-    public Map<String, Object> asMap() { return features; }
+    public Map<String, Object> asMap() {
+        Map<String, Object> features = writableFeatures();
+        exposed = true;
+        return features;
+    }
+
+    /** Returns an unmodifiable view of the features of this, which does not cause a shared map to be copied */
+    public Map<String, Object> asReadOnlyMap() { return Collections.unmodifiableMap(features); }
 
     public boolean isEmpty() {
         return features.isEmpty();
@@ -141,7 +155,7 @@ public class RankFeatures implements Cloneable {
             }
         }
         for (int i = 0; i < featuresToRemove.size(); ++i) {
-            rankProperties.put(propertiesToInsert.get(i), features.remove(featuresToRemove.get(i)));
+            rankProperties.put(propertiesToInsert.get(i), writableFeatures().remove(featuresToRemove.get(i)));
         }
     }
 
@@ -164,11 +178,24 @@ public class RankFeatures implements Cloneable {
 
     @Override
     public RankFeatures clone() {
-        return new RankFeatures(parent, new LinkedHashMap<>(features));
+        return cloneFor(parent);
     }
 
+    /** Returns a clone of this which shares the features of this until either of them is modified */
     public RankFeatures cloneFor(Ranking parent) {
-        return new RankFeatures(parent, new LinkedHashMap<>(features));
+        if (exposed) return new RankFeatures(parent, new LinkedHashMap<>(features));
+
+        RankFeatures clone = new RankFeatures(parent, features);
+        clone.shared = this.shared = true;
+        return clone;
+    }
+
+    private Map<String, Object> writableFeatures() {
+        if (shared) {
+            features = new LinkedHashMap<>(features);
+            shared = false;
+        }
+        return features;
     }
 
     @Override
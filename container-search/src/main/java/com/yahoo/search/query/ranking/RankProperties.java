@@ -20,7 +20,13 @@ import java.util.Map;
  */
 public class RankProperties implements Cloneable {
 
-    private final Map<String, List<Object>> properties;
+    private Map<String, List<Object>> properties;
+
+    /** Whether the properties are shared with a clone of this, such that they must be copied before they are modified */
+    private boolean shared = false;
+
+    /** Whether the properties are handed out by asMap, such that they may be modified at any time and cannot be shared */
+    private boolean exposed = false;
 
     public RankProperties() {
         this(new LinkedHashMap<>());
@@ -36,12 +42,7 @@ public class RankProperties implements Cloneable {
 
     /** Adds a property by full name to a value */
     public void put(String name, Object value) {
-        List<Object> list = properties.get(name);
-        if (list == null) {
-            list = new ArrayList<>();
-            properties.put(name, list);
-        }
-        list.add(value);
+        writableProperties().computeIfAbsent(name, __ -> new ArrayList<>()).add(value);
     }
 
     /**
@@ -63,7 +64,7 @@ public class RankProperties implements Cloneable {
 
     /** Removes all properties for a given name */
     public void remove(String name) {
-        properties.remove(name);
+        writableProperties().remove(name);
     }
 
     public boolean isEmpty() {
@@ -71,7 +72,17 @@ public class RankProperties implements Cloneable {
     }
 
     /** Returns a modifiable map of the properties of this */
-    public Map<String, List<Object>> asMap() { return properties; }
+    public Map<String, List<Object>> asMap() {
+        Map<String, List<Object>> properties = writableProperties();
+        exposed = true;
+        return properties;
+    }
+
+    /**
+     * Returns an unmodifiable view of the properties of this, which does not cause shared properties to be copied.
+     * The value lists must not be modified.
+     */
+    public Map<String, List<Object>> asReadOnlyMap() { return Collections.unmodifiableMap(properties); }
 
     /** Encodes this in a binary internal representation and returns the number of property maps encoded (0 or 1) */
     public int encode(ByteBuffer buffer, boolean encodeQueryData) {
@@ -98,12 +109,29 @@ public class RankProperties implements Cloneable {
         return properties.hashCode();
     }
 
+    /** Returns a clone of this which shares the properties of this until either of them is modified */
     @Override
     public RankProperties clone() {
-        Map<String, List<Object>> clone = new LinkedHashMap<>();
+        if (exposed) return new RankProperties(deepCopy(properties));
+
+        RankProperties clone = new RankProperties(properties);
+        clone.shared = this.shared = true;
+        return clone;
+    }
+
+    private Map<String, List<Object>> writableProperties() {
+        if (shared) {
+            properties = deepCopy(properties);
+            shared = false;
+        }
+        return properties;
+    }
+
+    private static Map<String, List<Object>> deepCopy(Map<String, List<Object>> properties) {
+        Map<String, List<Object>> copy = new LinkedHashMap<>();
         for (Map.Entry<String, List<Object>> entry : properties.entrySet())
-            clone.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-        return new RankProperties(clone);
+            copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        return copy;
     }
 
     @Override
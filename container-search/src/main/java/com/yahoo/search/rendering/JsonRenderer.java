@@ -63,6 +63,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import static com.fasterxml.jackson.databind.SerializationFeature.FLUSH_AFTER_WRITE_VALUE;
 
@@ -626,6 +627,46 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             }
         }
 
+        @Override
+        public void accept(String name, int value) {
+            acceptNumber(name, () -> value, (generator, field) -> generator.writeNumberField(field, value));
+        }
+
+        @Override
+        public void accept(String name, long value) {
+            acceptNumber(name, () -> value, (generator, field) -> generator.writeNumberField(field, value));
+        }
+
+        @Override
+        public void accept(String name, float value) {
+            acceptNumber(name, () -> value, (generator, field) -> generator.writeNumberField(field, value));
+        }
+
+        @Override
+        public void accept(String name, double value) {
+            acceptNumber(name, () -> value, (generator, field) -> generator.writeNumberField(field, value));
+        }
+
+        /**
+         * Renders a number received unboxed with the given writer, or boxes it and passes it to
+         * accept(String, Object) if there is no generator, as in a subclass which only overrides that.
+         */
+        private void acceptNumber(String name, Supplier<Object> boxedValue, NumberFieldWriter writer) {
+            if (generator == null) {
+                accept(name, boxedValue.get());
+                return;
+            }
+            try {
+                if (shouldRenderNumber(name)) {
+                    ensureFieldsField();
+                    writer.write(generator, name);
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
         protected boolean shouldRender(String name, Object value) {
             if (settings.debugRendering) return true;
             if (name.startsWith(VESPA_HIDDEN_FIELD_PREFIX)) return false;
@@ -643,6 +684,12 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             return true;
         }
 
+        /** Returns whether a number received unboxed should be rendered. Empty numbers are never received unboxed. */
+        private boolean shouldRenderNumber(String name) {
+            if (settings.debugRendering) return true;
+            return ! name.startsWith(VESPA_HIDDEN_FIELD_PREFIX);
+        }
+
         private Inspector maybeConvertMap(Inspector data) {
             var map = new Value.ObjectValue();
             for (int i = 0; i < data.entryCount(); i++) {
@@ -838,6 +885,13 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             return generator;
         }
 
+        /** Writes a number field, with the number given when this is created */
+        private interface NumberFieldWriter {
+
+            void write(JsonGenerator generator, String name) throws IOException;
+
+        }
+
     }
 
 }
@@ -690,6 +690,30 @@ public class Hit extends ListenableFreezableClass implements Data, Comparable<Hi
          */
         void accept(String fieldName, byte[] utf8Data, int offset, int length);
 
+        /**
+         * Called for int fields which are available unboxed instead of accept(String, Object).
+         * This default implementation boxes the value and calls accept(String, Object).
+         */
+        default void accept(String fieldName, int value) { accept(fieldName, (Object)value); }
+
+        /**
+         * Called for long fields which are available unboxed instead of accept(String, Object).
+         * This default implementation boxes the value and calls accept(String, Object).
+         */
+        default void accept(String fieldName, long value) { accept(fieldName, (Object)value); }
+
+        /**
+         * Called for float fields which are available unboxed instead of accept(String, Object).
+         * This default implementation boxes the value and calls accept(String, Object).
+         */
+        default void accept(String fieldName, float value) { accept(fieldName, (Object)value); }
+
+        /**
+         * Called for double fields which are available unboxed instead of accept(String, Object).
+         * This default implementation boxes the value and calls accept(String, Object).
+         */
+        default void accept(String fieldName, double value) { accept(fieldName, (Object)value); }
+
     }
 
 }
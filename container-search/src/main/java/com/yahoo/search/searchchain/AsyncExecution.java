@@ -10,13 +10,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Future;
-import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 /**
  * Provides asynchronous execution of searchchains.
@@ -110,7 +107,7 @@ public class AsyncExecution {
      * @see com.yahoo.search.searchchain.Execution
      */
     public FutureResult search(Query query) {
-        return getFutureResult(execution.context().executor(), () -> execution.search(query), query);
+        return new FutureResult(searchInExecutor(query), execution, query);
     }
 
     public FutureResult searchAndFill(Query query) {
@@ -133,23 +130,35 @@ public class AsyncExecution {
         }, result.getQuery());
     }
 
-    private static <T> Future<T> getFuture(Executor executor, Callable<T> callable) {
-        FutureTask<T> future = new FutureTask<>(callable);
+    /**
+     * Starts executing the chain with searchAsync in the executor of this. When all the searchers of the chain
+     * implement searchAsync, the executor thread is released as soon as they have returned their future result,
+     * rather than when the result is complete. A searcher using the default searchAsync holds the thread until
+     * its search returns.
+     */
+    private CompletableFuture<Result> searchInExecutor(Query query) {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        Runnable search = () -> {
+            try {
+                execution.searchAsync(query).whenComplete((result, exception) -> {
+                    if (exception == null)
+                        future.complete(result);
+                    else
+                        future.completeExceptionally(exception);
+                });
+            }
+            catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
         try {
-            executor.execute(future);
+            execution.context().executor().execute(search);
         } catch (RejectedExecutionException e) {
-            future.run();
+            search.run();
         }
         return future;
     }
 
-    private static Future<Void> runTask(Executor executor, Runnable runnable) {
-        return getFuture(executor, () -> {
-            runnable.run();
-            return null;
-        });
-    }
-
     private FutureResult getFutureResult(Executor executor, Callable<Result> callable, Query query) {
         FutureResult future = new FutureResult(callable, execution, query);
         try {
@@ -172,14 +181,9 @@ public class AsyncExecution {
 
         // Copy the list in case it is modified while we are waiting
         List<FutureResult> workingTasks = new ArrayList<>(tasks);
-        try {
-            runTask(tasks.stream().findAny().get().getExecution().context().executor(), () -> {
-                for (FutureResult task : workingTasks)
-                    task.get(timeoutMs, TimeUnit.MILLISECONDS);
-            }).get(timeoutMs, TimeUnit.MILLISECONDS);
-        } catch (TimeoutException | InterruptedException | ExecutionException e) {
-            // Handle timeouts below
-        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (FutureResult task : workingTasks) // Timeouts are handled below
+            task.getIfAvailable(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
 
         List<Result> results = new ArrayList<>(tasks.size());
         for (FutureResult atask : workingTasks) {
@@ -20,6 +20,7 @@ import com.yahoo.search.schema.SchemaInfo;
 import com.yahoo.search.rendering.RendererRegistry;
 import com.yahoo.search.statistics.TimeTracker;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
@@ -499,6 +500,46 @@ public class Execution extends com.yahoo.processing.execution.Execution {
         return (Result)super.process(query);
     }
 
+    /**
+     * Calls searchAsync on the next searcher in this chain, and returns its future result.
+     * If there is no next, a future which is completed with an empty result is returned.
+     * <p>
+     * This returns as soon as the next searcher has returned its future, which is when the searchers in
+     * the chain do not wait for anything else. Searchers which are not asynchronous will, by default, run
+     * the rest of the chain synchronously, so the returned future is then completed already.
+     */
+    public CompletableFuture<Result> searchAsync(Query query) {
+        timer.sampleSearch(nextIndex(), context.getDetailedDiagnostics());
+
+        // Transfer state between query and execution as the execution constructors does not do that completely
+        query.getModel().setExecution(this);
+        trace().setTraceLevel(query.getTrace().getLevel());
+
+        Searcher searcher = (Searcher)next(); // TODO: Allow but skip processors which are not searchers
+        if (searcher == null)
+            return CompletableFuture.completedFuture((Result)defaultResponse(query));
+
+        CompletableFuture<Result> result = null;
+        try {
+            nextProcessor();
+            onInvoking(query, searcher);
+            result = searcher.searchAsync(query, this);
+            if (result == null)
+                throw new NullPointerException(searcher + " returned null, not a future Result");
+            return result;
+        }
+        finally {
+            previousProcessor();
+            // The time spent returning the future, and the result, if the searcher did not wait for anything
+            onReturning(query, searcher, completedResult(result));
+        }
+    }
+
+    private static Result completedResult(CompletableFuture<Result> result) {
+        if (result == null || ! result.isDone() || result.isCompletedExceptionally()) return null;
+        return result.join();
+    }
+
     @Override
     protected void onInvoking(Request request, Processor processor) {
         super.onInvoking(request,processor);
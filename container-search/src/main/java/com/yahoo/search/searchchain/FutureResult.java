@@ -8,6 +8,8 @@ import com.yahoo.yolean.Exceptions;
 
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
@@ -26,14 +28,57 @@ public class FutureResult extends FutureTask<Result> {
 
     private final Execution execution;
 
+    /** Whether this is completed by a completable future rather than by being run */
+    private final boolean completedByFuture;
+
+    /** Completed when this is done */
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
     private final static Logger log = Logger.getLogger(FutureResult.class.getName());
 
     public FutureResult(Callable<Result> callable, Execution execution, Query query) {
+        this(callable, execution, query, false);
+    }
+
+    /**
+     * Creates a future result which completes with the given future, rather than by being run.
+     * Running this does nothing.
+     */
+    public FutureResult(CompletableFuture<Result> future, Execution execution, Query query) {
+        this(() -> null, execution, query, true);
+        future.whenComplete((result, exception) -> {
+            if (exception == null)
+                set(result);
+            else
+                setException(exception instanceof CompletionException && exception.getCause() != null ? exception.getCause()
+                                                                                                      : exception);
+        });
+    }
+
+    private FutureResult(Callable<Result> callable, Execution execution, Query query, boolean completedByFuture) {
         super(callable);
         this.query = query;
         this.execution = execution;
+        this.completedByFuture = completedByFuture;
     }
 
+    @Override
+    public void run() {
+        if ( ! completedByFuture)
+            super.run();
+    }
+
+    @Override
+    protected void done() {
+        completion.complete(null);
+    }
+
+    /**
+     * Returns a future which is completed, normally, when this is done, such that the result can then be
+     * accessed without blocking. This allows waiting for the result without holding a thread.
+     */
+    public CompletableFuture<Void> completion() { return completion; }
+
     /** 
      * Returns a Result containing the hits returned from this source, or an error otherwise.
      * This will block for however long it takes to get the result: Using this is a bad idea.
@@ -3,6 +3,7 @@ package com.yahoo.search.yql;
 
 import com.yahoo.api.annotations.Beta;
 import com.yahoo.component.annotation.Inject;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.language.Linguistics;
 import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.processing.IllegalInputException;
@@ -23,6 +24,7 @@ import com.yahoo.yolean.chain.After;
 import com.yahoo.yolean.chain.Before;
 import com.yahoo.yolean.chain.Provides;
 
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 /**
@@ -45,12 +47,23 @@ public class MinimalQueryInserter extends Searcher {
     private static final CompoundName MAX_OFFSET = new CompoundName("maxOffset");
     private static final Logger log = Logger.getLogger(MinimalQueryInserter.class.getName());
 
+    private static final String PROGRAM_CACHE_HITS_METRIC = "yql.program_cache.hits";
+    private static final String PROGRAM_CACHE_MISSES_METRIC = "yql.program_cache.misses";
+    private static final String PARSE_TIME_SAVED_METRIC = "yql.program_cache.parse_time_saved";
+
+    private final Metric metric;
+
     @Inject
-    public MinimalQueryInserter(Linguistics linguistics) {
+    public MinimalQueryInserter(Linguistics linguistics, Metric metric) {
+        this.metric = metric;
         // Warmup is needed to avoid a large 400ms init cost during first execution of yql code.
         warmup(linguistics);
     }
 
+    public MinimalQueryInserter(Linguistics linguistics) {
+        this(linguistics, null);
+    }
+
     public MinimalQueryInserter() {
         this(new SimpleLinguistics());
     }
@@ -61,7 +74,7 @@ public class MinimalQueryInserter extends Searcher {
 
     private static boolean warmup(Linguistics linguistics) {
         Query query = new Query("search/?yql=select%20*%20from%20sources%20where%20title%20contains%20'xyz'");
-        Result result = insertQuery(query, new ParserEnvironment().setLinguistics(linguistics));
+        Result result = insertQuery(query, new ParserEnvironment().setLinguistics(linguistics), parsed -> { });
         if (result != null) {
             log.warning("Warmup code trigger an error. Error = " + result);
             return false;
@@ -77,7 +90,7 @@ public class MinimalQueryInserter extends Searcher {
     public Result search(Query query, Execution execution) {
         try {
             if (query.properties().get(YQL) == null) return execution.search(query);
-            Result result = insertQuery(query, ParserEnvironment.fromExecutionContext(execution.context()));
+            Result result = insertQuery(query, ParserEnvironment.fromExecutionContext(execution.context()), this::report);
             return (result == null) ? execution.search(query) : result;
         }
         catch (IllegalArgumentException e) {
@@ -85,7 +98,18 @@ public class MinimalQueryInserter extends Searcher {
         }
     }
 
-    private static Result insertQuery(Query query, ParserEnvironment env) {
+    private void report(ProgramCache.Parsed parsed) {
+        if (metric == null) return;
+        if (parsed.cached()) {
+            metric.add(PROGRAM_CACHE_HITS_METRIC, 1, null);
+            metric.add(PARSE_TIME_SAVED_METRIC, parsed.parseNanosSaved() / 1_000_000.0, null);
+        }
+        else {
+            metric.add(PROGRAM_CACHE_MISSES_METRIC, 1, null);
+        }
+    }
+
+    private static Result insertQuery(Query query, ParserEnvironment env, Consumer<ProgramCache.Parsed> parsedProgramReceiver) {
         YqlParser parser = (YqlParser) ParserFactory.newInstance(Query.Type.YQL, env);
         parser.setQueryParser(false);
         parser.setUserQuery(query);
@@ -93,6 +117,7 @@ public class MinimalQueryInserter extends Searcher {
         try {
             Parsable parsable = Parsable.fromQueryModel(query.getModel()).setQuery(query.properties().getString(YQL));
             newTree = parser.parse(parsable);
+            parsedProgramReceiver.accept(parser.getParsedProgram());
         } catch (RuntimeException e) {
             return new Result(query, ErrorMessage.createInvalidQueryParameter("Could not create query from YQL: " +
                                                                               Exceptions.toMessageString(e),
@@ -0,0 +1,253 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of parsed YQL programs, keyed by the program text with the contents of its string literals
+ * left out. Programs which differ only in their string literals, or in the values of the parameters they refer to,
+ * are therefore parsed once, and the values of the literals are bound into a copy of the parsed template.
+ *
+ * A template is created when the same shape is seen the second time, by parsing the program with a sentinel
+ * in each literal, and it is only used if binding the literals of the program yields the same as parsing it.
+ * Shapes where literals are not plain values, such as those inside grouping expressions, are not templated.
+ */
+final class ProgramCache {
+
+    private static final char sentinelMarker = '\u0000';
+
+    private final Cache<String, Template> templates;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder parseNanosSaved = new LongAdder();
+
+    ProgramCache(int maxSize) {
+        this.templates = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    }
+
+    /**
+     * Returns the given program parsed by the given parser, or bound from a cached template of the same shape.
+     *
+     * @return the parsed program, and whether it was bound from a template
+     */
+    Parsed parse(String program, Parser parser) throws Exception {
+        Shape shape = Shape.of(program);
+        Template template = templates.getIfPresent(shape.key);
+        if (template != null && template.program != null) {
+            long startTime = System.nanoTime();
+            OperatorNode<?> bound = template.bind(shape.literals);
+            long nanosSaved = Math.max(0, template.parseNanos - (System.nanoTime() - startTime));
+            hits.increment();
+            parseNanosSaved.add(nanosSaved);
+            return new Parsed(bound, true, nanosSaved);
+        }
+
+        long startTime = System.nanoTime();
+        OperatorNode<?> parsed = parser.parse(program);
+        long parseNanos = System.nanoTime() - startTime;
+        misses.increment();
+        if (template == null)
+            templates.put(shape.key, Template.seen(parseNanos));
+        else if (template.templatable)
+            templates.put(shape.key, Template.create(shape, parsed, parseNanos, parser));
+        return new Parsed(parsed, false, 0);
+    }
+
+    long hits() { return hits.sum(); }
+
+    long misses() { return misses.sum(); }
+
+    /** Returns the estimated total time saved by not parsing programs which matched a template */
+    long parseNanosSaved() { return parseNanosSaved.sum(); }
+
+    int size() { return (int)templates.size(); }
+
+    /** The result of parsing a program through this cache */
+    record Parsed(OperatorNode<?> program, boolean cached, long parseNanosSaved) { }
+
+    /** A parser of YQL programs */
+    @FunctionalInterface
+    interface Parser {
+
+        OperatorNode<?> parse(String program) throws Exception;
+
+    }
+
+    /** A program text with the contents of its string literals taken out */
+    private static class Shape {
+
+        private final String key;
+        private final List<String> literals;
+
+        private Shape(String key, List<String> literals) {
+            this.key = key;
+            this.literals = literals;
+        }
+
+        /**
+         * Returns the shape of the given program, where plain string literals are replaced by empty ones.
+         * Literals containing escapes are kept in the key, as their values are not equal to their text.
+         */
+        static Shape of(String program) {
+            StringBuilder key = null;
+            List<String> literals = List.of();
+            int copied = 0;
+            for (int i = 0; i < program.length(); i++) {
+                char quote = program.charAt(i);
+                if (quote != '"' && quote != '\'') continue;
+
+                int end = i + 1;
+                boolean plain = true;
+                while (end < program.length() && program.charAt(end) != quote) {
+                    char c = program.charAt(end);
+                    if (c == '\\') {
+                        plain = false;
+                        end++;
+                    }
+                    else if (c == sentinelMarker) {
+                        plain = false;
+                    }
+                    end++;
+                }
+                if (end >= program.length()) break; // Unterminated, so this will not parse
+
+                if (plain) {
+                    if (key == null) {
+                        key = new StringBuilder(program.length());
+                        literals = new ArrayList<>();
+                    }
+                    key.append(program, copied, i + 1);
+                    literals.add(program.substring(i + 1, end));
+                    copied = end;
+                }
+                i = end;
+            }
+            if (key == null) return new Shape(program, literals);
+            key.append(program, copied, program.length());
+            return new Shape(key.toString(), literals);
+        }
+
+        /** Returns the program of this shape with a sentinel in each literal slot */
+        String withSentinels() {
+            StringBuilder program = new StringBuilder(key.length() + literals.size() * 4);
+            int slot = 0;
+            int copied = 0;
+            for (int i = 0; i < key.length(); i++) {
+                char quote = key.charAt(i);
+                if (quote != '"' && quote != '\'') continue;
+
+                int end = i + 1;
+                while (end < key.length() && key.charAt(end) != quote) {
+                    if (key.charAt(end) == '\\') end++;
+                    end++;
+                }
+                if (end >= key.length()) break;
+                if (end == i + 1) { // a slot
+                    program.append(key, copied, i + 1).append(sentinel(slot++));
+                    copied = end;
+                }
+                i = end;
+            }
+            return program.append(key, copied, key.length()).toString();
+        }
+
+    }
+
+    private static String sentinel(int slot) {
+        return sentinelMarker + Integer.toString(slot) + sentinelMarker;
+    }
+
+    private static class Template {
+
+        /** The program parsed with sentinels in place of literals, or null if this shape is not (yet) templated */
+        private final OperatorNode<?> program;
+
+        /** The time it took to parse a program of this shape */
+        private final long parseNanos;
+
+        /** Whether we should try to create a template from this shape */
+        private final boolean templatable;
+
+        private Template(OperatorNode<?> program, long parseNanos, boolean templatable) {
+            this.program = program;
+            this.parseNanos = parseNanos;
+            this.templatable = templatable;
+        }
+
+        static Template seen(long parseNanos) {
+            return new Template(null, parseNanos, true);
+        }
+
+        /** Creates a template, or marks the shape as not templatable if binding does not give the same as parsing */
+        static Template create(Shape shape, OperatorNode<?> parsed, long parseNanos, Parser parser) {
+            try {
+                Template template = new Template(parser.parse(shape.withSentinels()), parseNanos, true);
+                if (template.bind(shape.literals).equals(parsed))
+                    return template;
+            }
+            catch (Exception e) {
+                // Not templatable
+            }
+            return new Template(null, parseNanos, false);
+        }
+
+        /** Returns a copy of this template with the given literals in place of the sentinels */
+        OperatorNode<?> bind(List<String> literals) {
+            return (OperatorNode<?>)bind(program, literals);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Object bind(Object value, List<String> literals) {
+            if (value instanceof String string) {
+                if (string.length() < 3 || string.charAt(0) != sentinelMarker || string.charAt(string.length() - 1) != sentinelMarker)
+                    return string;
+                return literals.get(Integer.parseInt(string, 1, string.length() - 1, 10));
+            }
+            else if (value instanceof OperatorNode<?> node) {
+                Object[] arguments = node.getArguments();
+                boolean changed = false;
+                for (int i = 0; i < arguments.length; i++) {
+                    Object bound = bind(arguments[i], literals);
+                    changed |= bound != arguments[i];
+                    arguments[i] = bound;
+                }
+                Map<String, Object> annotations = node.getAnnotations();
+                Map<String, Object> boundAnnotations = (Map<String, Object>)bind(annotations, literals);
+                if ( ! changed && boundAnnotations == annotations) return node;
+                return OperatorNode.create(node.getLocation(), boundAnnotations, (Operator)node.getOperator(), arguments);
+            }
+            else if (value instanceof List<?> list) {
+                List<Object> boundList = null;
+                for (int i = 0; i < list.size(); i++) {
+                    Object bound = bind(list.get(i), literals);
+                    if (bound != list.get(i) && boundList == null)
+                        boundList = new ArrayList<>(list.subList(0, i));
+                    if (boundList != null)
+                        boundList.add(bound);
+                }
+                return boundList == null ? list : boundList;
+            }
+            else if (value instanceof Map<?, ?> map) {
+                boolean changed = false;
+                Map<Object, Object> boundMap = new LinkedHashMap<>(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    Object key = bind(entry.getKey(), literals);
+                    Object bound = bind(entry.getValue(), literals);
+                    changed |= key != entry.getKey() || bound != entry.getValue();
+                    boundMap.put(key, bound);
+                }
+                return changed ? boundMap : map;
+            }
+            return value;
+        }
+
+    }
+
+}
@@ -199,6 +199,8 @@ public class YqlParser implements Parser {
     public static final String MAX_EDIT_DISTANCE = "maxEditDistance";
     public static final String PREFIX_LENGTH = "prefixLength";
 
+    /** Parsed programs shared by all parser instances, as most traffic is a small number of query shapes */
+    private static final ProgramCache programCache = new ProgramCache(1000);
 
     private final IndexFacts indexFacts;
     private final List<ConnectedItem> connectedItems = new ArrayList<>();
@@ -218,6 +220,7 @@ public class YqlParser implements Parser {
     private IndexNameExpander indexNameExpander = new IndexNameExpander();
     private Set<String> docTypes;
     private Sorting sorting;
+    private ProgramCache.Parsed parsedProgram;
     private boolean queryParser = true;
     private final Deque<OperatorNode<?>> annotationStack = new ArrayDeque<>();
     private final ParserEnvironment environment;
@@ -270,6 +273,7 @@ public class YqlParser implements Parser {
         currentlyParsing = query;
         docTypes = null;
         sorting = null;
+        parsedProgram = null;
         // queryParser set prior to calling this
         return buildTree(parseYqlProgram());
     }
@@ -788,7 +792,8 @@ public class YqlParser implements Parser {
     private OperatorNode<?> parseYqlProgram() {
         OperatorNode<?> ast;
         try {
-            ast = new ProgramParser().parse("query", currentlyParsing.getQuery());
+            parsedProgram = programCache.parse(currentlyParsing.getQuery(), program -> new ProgramParser().parse("query", program));
+            ast = parsedProgram.program();
         } catch (Exception e) {
             throw new IllegalInputException(e);
         }
@@ -1586,6 +1591,9 @@ public class YqlParser implements Parser {
     @Beta
     public List<VespaGroupingStep> getGroupingSteps() { return groupingSteps; }
 
+    /** Returns how the latest program was parsed, or null if none has been parsed */
+    ProgramCache.Parsed getParsedProgram() { return parsedProgram; }
+
     /**
      * Give the offset expected from the latest parsed query if anything is
      * explicitly specified.
@@ -233,7 +233,12 @@ public class VdsStreamingSearcher extends VespaBackEndSearcher {
 
         VisitorStatistics visitStats = visitor.getStatistics();
         result.setTotalHitCount(visitor.getTotalHitCount());
-        result.setCoverage(new Coverage(visitStats.getDocumentsVisited(), visitStats.getDocumentsVisited()));
+        Coverage coverage = new Coverage(visitStats.getDocumentsVisited(), visitStats.getDocumentsVisited());
+        if (visitor.isTerminatedEarly()) {
+            lazyTrace(query, 2, "Visiting terminated early after ", visitStats.getDocumentsVisited(), " documents");
+            coverage.setDegradedReason(Coverage.DEGRADED_BY_MATCH_PHASE);
+        }
+        result.setCoverage(coverage);
         query.trace(visitor.getStatistics().toString(), false, 2);
         query.getContext(true).setProperty(STREAMING_STATISTICS, visitor.getStatistics());
 
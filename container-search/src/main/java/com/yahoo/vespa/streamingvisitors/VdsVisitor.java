@@ -47,6 +47,10 @@ import java.util.logging.Level;
  * groupings. The resulting data can be fetched when the query has
  * completed.
  *
+ * Results are merged as they arrive. If streaming.earlyterminationrank is set,
+ * visiting is aborted as soon as all the requested hits have at least this rank,
+ * and the result only covers the documents visited until then.
+ *
  * @author Ulf Carlin
  */
 class VdsVisitor extends VisitorDataHandler implements Visitor {
@@ -58,6 +62,7 @@ class VdsVisitor extends VisitorDataHandler implements Visitor {
     private static final CompoundName streamingTotimestamp=new CompoundName("streaming.totimestamp");
     private static final CompoundName streamingPriority=new CompoundName("streaming.priority");
     private static final CompoundName streamingMaxbucketspervisitor=new CompoundName("streaming.maxbucketspervisitor");
+    private static final CompoundName streamingEarlyterminationrank=new CompoundName("streaming.earlyterminationrank");
 
     protected static final int MAX_BUCKETS_PER_VISITOR = 1024;
 
@@ -65,12 +70,14 @@ class VdsVisitor extends VisitorDataHandler implements Visitor {
     private final VisitorParameters params = new VisitorParameters("");
     private List<SearchResult.Hit> hits = new ArrayList<>();
     private int totalHitCount = 0;
+    private volatile boolean terminatedEarly = false;
 
     private final Map<String, DocumentSummary.Summary> summaryMap = new HashMap<>();
     private final Map<Integer, Grouping> groupingMap = new ConcurrentHashMap<>();
     private Query query = null;
     private final VisitorSessionFactory visitorSessionFactory;
     private final int traceLevelOverride;
+    private final Double earlyTerminationRank;
     private Trace sessionTrace;
 
     public interface VisitorSessionFactory {
@@ -84,6 +91,7 @@ class VdsVisitor extends VisitorDataHandler implements Visitor {
         this.query = query;
         this.visitorSessionFactory = visitorSessionFactory;
         this.traceLevelOverride = traceLevelOverride;
+        this.earlyTerminationRank = earlyTerminationRank(query);
         setVisitorParameters(searchCluster, route, documentType);
     }
 
@@ -97,6 +105,13 @@ class VdsVisitor extends VisitorDataHandler implements Visitor {
         return Math.max(query.getTrace().getLevel(), implicitLevel);
     }
 
+    /** Returns the rank all requested hits must have to stop visiting early, or null to visit all buckets */
+    private static Double earlyTerminationRank(Query query) {
+        if (query.getRanking().getSorting() != null) return null; // Hits are not ordered by rank
+        if ( ! GroupingExecutor.getGroupingList(query).isEmpty()) return null; // Groups must see all documents
+        return query.properties().getDouble(streamingEarlyterminationrank);
+    }
+
     private static String createSelectionString(String documentType, String selection) {
         if ((selection == null) || selection.isEmpty()) return documentType;
 
@@ -284,6 +299,8 @@ class VdsVisitor extends VisitorDataHandler implements Visitor {
 
         if (params.getControlHandler().getResult().code == VisitorControlHandler.CompletionCode.SUCCESS) {
             log.log(Level.FINE, () -> "VdsVisitor completed successfully for " + query + " with selection " + params.getDocumentSelection());
+        } else if (terminatedEarly && params.getControlHandler().getResult().code == VisitorControlHandler.CompletionCode.ABORTED) {
+            log.log(Level.FINE, () -> "VdsVisitor terminated early for " + query + " with selection " + params.getDocumentSelection());
         } else {
             throw new IllegalArgumentException("Query failed: " +
                                                params.getControlHandler().getResult().code + ": " +
@@ -315,6 +332,9 @@ class VdsVisitor extends VisitorDataHandler implements Visitor {
         return sessionTrace;
     }
 
+    @Override
+    public boolean isTerminatedEarly() { return terminatedEarly; }
+
     public void onQueryResult(SearchResult sr, DocumentSummary summary) {
         handleSearchResult(sr);
         handleSummary(summary);
@@ -339,13 +359,31 @@ class VdsVisitor extends VisitorDataHandler implements Visitor {
             SearchResult.Hit hit = sr.getHit(i);
             newHits.add(hit);
         }
+        boolean terminate;
         synchronized (this) {
             totalHitCount += hitCountTotal;
             hits = ListMerger.mergeIntoArrayList(hits, newHits, query.getOffset() + query.getHits());
+            terminate = ! terminatedEarly && hasEnoughHits();
+            if (terminate)
+                terminatedEarly = true;
         }
 
         Map<Integer, byte []> newGroupingMap = sr.getGroupingList();
         mergeGroupingMaps(newGroupingMap);
+
+        if (terminate) {
+            log.log(Level.FINE, () -> "Got " + hits.size() + " hits with rank at least " + earlyTerminationRank +
+                                      ", aborting visiting for query with selection " + params.getDocumentSelection());
+            session.abort();
+        }
+    }
+
+    /** Returns whether all the requested hits are merged and have at least the early termination rank */
+    private boolean hasEnoughHits() {
+        if (earlyTerminationRank == null) return false;
+        int wantedHits = query.getOffset() + query.getHits();
+        if (wantedHits == 0 || hits.size() < wantedHits) return false;
+        return hits.get(hits.size() - 1).getRank() >= earlyTerminationRank; // Hits are sorted descending on rank
     }
 
     private void mergeGroupingMaps(Map<Integer, byte []> newGroupingMap) {
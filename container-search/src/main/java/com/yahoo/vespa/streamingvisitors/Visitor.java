@@ -33,4 +33,7 @@ interface Visitor {
 
     Trace getTrace();
 
+    /** Returns whether visiting was stopped before all buckets were visited because enough good hits were found */
+    boolean isTerminatedEarly();
+
 }
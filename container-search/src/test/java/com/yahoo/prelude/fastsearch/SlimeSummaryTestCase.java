@@ -8,6 +8,7 @@ import com.yahoo.prelude.hitfield.RawData;
 import com.yahoo.prelude.hitfield.XMLString;
 import com.yahoo.search.result.FeatureData;
 import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.NanNumber;
 import com.yahoo.search.result.StructuredData;
 import com.yahoo.search.schema.DocumentSummary;
 import com.yahoo.search.schema.Schema;
@@ -279,6 +280,37 @@ public class SlimeSummaryTestCase {
     }
 
 
+    @Test
+    void testUnboxedFieldTraversal() {
+        DocsumDefinitionSet docsum = createDocsumDefinitionSet();
+        FastHit hit = new FastHit();
+        assertNull(docsum.lazyDecode("default", fullSummary(null, null), hit));
+        hit.setField("string_field", "new string_value");
+
+        Map<String, Object> traversed = new HashMap<>();
+        hit.forEachFieldAsRaw(new UnboxedFieldTraverser(traversed));
+        assertEquals("int 4", traversed.get("integer_field"));
+        assertEquals("object 2", traversed.get("short_field"));
+        assertEquals("float 4.5", traversed.get("float_field"));
+        assertEquals("double 8.75", traversed.get("double_field"));
+        assertEquals("long 8", traversed.get("int64_field"));
+        assertEquals("object new string_value", traversed.get("string_field"));
+
+        Slime slime = new Slime();
+        Cursor emptyNumbers = slime.setObject();
+        emptyNumbers.setLong("integer_field", IntegerField.EMPTY_VALUE);
+        emptyNumbers.setLong("int64_field", Int64Field.EMPTY_VALUE);
+        emptyNumbers.setDouble("double_field", DoubleField.EMPTY_VALUE);
+        hit = new FastHit();
+        assertNull(docsum.lazyDecode("default", encode(slime), hit));
+
+        traversed.clear();
+        hit.forEachFieldAsRaw(new UnboxedFieldTraverser(traversed));
+        assertEquals("NaN", traversed.get("integer_field"));
+        assertEquals("NaN", traversed.get("int64_field"));
+        assertEquals("NaN", traversed.get("double_field"));
+    }
+
     /** Asserts that the expected fields are what is returned from every access method of Hit */
     private void assertFields(Map<String, Object> expected, Hit hit) {
         // field traverser
@@ -502,4 +534,37 @@ public class SlimeSummaryTestCase {
 
     }
 
+    /** Records how each field was received */
+    private static class UnboxedFieldTraverser implements Hit.RawUtf8Consumer {
+
+        private final Map<String, Object> traversed;
+
+        public UnboxedFieldTraverser(Map<String, Object> traversed) {
+            this.traversed = traversed;
+        }
+
+        @Override
+        public void accept(String fieldName, byte[] utf8Data, int offset, int length) {
+            traversed.put(fieldName, "utf8 " + new String(utf8Data, offset, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void accept(String fieldName, int value) { traversed.put(fieldName, "int " + value); }
+
+        @Override
+        public void accept(String fieldName, long value) { traversed.put(fieldName, "long " + value); }
+
+        @Override
+        public void accept(String fieldName, float value) { traversed.put(fieldName, "float " + value); }
+
+        @Override
+        public void accept(String fieldName, double value) { traversed.put(fieldName, "double " + value); }
+
+        @Override
+        public void accept(String name, Object value) {
+            traversed.put(name, value == NanNumber.NaN ? "NaN" : "object " + value);
+        }
+
+    }
+
 }
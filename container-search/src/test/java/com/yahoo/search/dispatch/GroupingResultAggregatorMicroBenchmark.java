@@ -0,0 +1,71 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.searchlib.aggregation.Grouping;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares merging synthetic grouping results from many nodes one by one, as they arrive,
+ * with merging them pairwise, in the calling thread and in parallel.
+ */
+public class GroupingResultAggregatorMicroBenchmark {
+
+    private static final int nodes = 50;
+    private static final int groups = 100_000;
+    private static final int runs = 5;
+
+    /** Benchmarks groups which are mostly on every node, and groups which are mostly on a single node */
+    public void benchmark() {
+        benchmark(2.0 / 3);
+        benchmark(1.0 / nodes);
+    }
+
+    private void benchmark(double fraction) {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (int i = 0; i < runs; i++) { // warmup
+                mergeSequentially(fraction);
+                mergePairwise(fraction, Runnable::run);
+                mergePairwise(fraction, executor);
+            }
+            long sequential = 0, pairwise = 0, parallel = 0;
+            for (int i = 0; i < runs; i++) {
+                sequential += mergeSequentially(fraction);
+                pairwise += mergePairwise(fraction, Runnable::run);
+                parallel += mergePairwise(fraction, executor);
+            }
+            System.out.println("Time to merge " + groups + " groups from " + nodes + " nodes each having " +
+                               Math.round(fraction * 100) + "% of them: " +
+                               "one by one " + (sequential / runs / 1000_000) + " ms, " +
+                               "pairwise " + (pairwise / runs / 1000_000) + " ms, " +
+                               "pairwise in parallel " + (parallel / runs / 1000_000) + " ms");
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private long mergeSequentially(double fraction) {
+        List<Grouping> results = GroupingResultAggregatorTest.createResults(nodes, groups, fraction);
+        long startTime = System.nanoTime();
+        for (int i = 1; i < results.size(); i++)
+            results.get(0).merge(results.get(i));
+        return System.nanoTime() - startTime;
+    }
+
+    private long mergePairwise(double fraction, Executor executor) {
+        List<Grouping> results = GroupingResultAggregatorTest.createResults(nodes, groups, fraction);
+        long startTime = System.nanoTime();
+        GroupingResultAggregator.merge(results, executor);
+        return System.nanoTime() - startTime;
+    }
+
+    public static void main(String[] args) {
+        new GroupingResultAggregatorMicroBenchmark().benchmark();
+    }
+
+}
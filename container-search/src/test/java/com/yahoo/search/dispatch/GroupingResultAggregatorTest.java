@@ -0,0 +1,143 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.prelude.fastsearch.GroupingListHit;
+import com.yahoo.searchlib.aggregation.CountAggregationResult;
+import com.yahoo.searchlib.aggregation.Group;
+import com.yahoo.searchlib.aggregation.Grouping;
+import com.yahoo.searchlib.aggregation.GroupingLevel;
+import com.yahoo.searchlib.expression.IntegerResultNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that merging grouping results pairwise gives the same result as merging them one by one.
+ */
+public class GroupingResultAggregatorTest {
+
+    @Test
+    void requireThatResultsAreMergedAsIfSequentially() {
+        for (int nodes = 1; nodes <= 9; nodes++)
+            assertMergedAsIfSequentially(nodes, 100, Runnable::run);
+    }
+
+    @Test
+    void requireThatLargeResultsAreMergedInParallel() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertMergedAsIfSequentially(13, GroupingResultAggregator.parallelMergeThreshold * 2, executor);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void requireThatMergesRunInTheCallingThreadWhenTheExecutorDoesNot() {
+        List<Runnable> neverRun = new ArrayList<>();
+        assertMergedAsIfSequentially(8, GroupingResultAggregator.parallelMergeThreshold * 2, neverRun::add);
+        assertTrue(neverRun.size() > 0);
+    }
+
+    @Test
+    void requireThatGroupingsAreMergedPerRequest() {
+        GroupingResultAggregator aggregator = new GroupingResultAggregator();
+        assertTrue(aggregator.toAggregatedHit().isEmpty());
+
+        Random random = new Random(7);
+        for (int node = 0; node < 5; node++)
+            aggregator.mergeWith(new GroupingListHit(List.of(createGrouping(1, 50, 0.5, random),
+                                                             createGrouping(2, 10, 0.5, random))));
+        List<Grouping> groupings = aggregator.toAggregatedHit().get().getGroupingList();
+        assertEquals(2, groupings.size());
+        assertEquals(1, groupings.get(0).getId());
+        assertEquals(2, groupings.get(1).getId());
+    }
+
+    @Test
+    void requireThatOnlySmallResultsAreMergedAsTheyArrive() {
+        assertMergedAsTheyArrive(true, 100);
+        assertMergedAsTheyArrive(false, GroupingResultAggregator.parallelMergeThreshold * 4);
+    }
+
+    private static void assertMergedAsTheyArrive(boolean expectMergedOnArrival, int groups) {
+        List<Grouping> expected = createResults(3, groups, 0.5);
+        List<Grouping> actual = createResults(3, groups, 0.5);
+        for (int i = 1; i < expected.size(); i++)
+            expected.get(0).merge(expected.get(i));
+
+        GroupingResultAggregator aggregator = new GroupingResultAggregator();
+        int childrenBefore = actual.get(0).getRoot().getNumChildren();
+        for (Grouping result : actual)
+            aggregator.mergeWith(new GroupingListHit(List.of(result)));
+        assertEquals(expectMergedOnArrival, actual.get(0).getRoot().getNumChildren() > childrenBefore);
+
+        expected.get(0).postMerge();
+        assertEquals(expected.get(0), aggregator.toAggregatedHit().get().getGroupingList().get(0));
+    }
+
+    private static void assertMergedAsIfSequentially(int nodes, int groups, Executor executor) {
+        assertMergedAsIfSequentially(nodes, groups, 2.0 / 3, executor);
+        assertMergedAsIfSequentially(nodes, groups, 2.0 / nodes, executor);
+    }
+
+    private static void assertMergedAsIfSequentially(int nodes, int groups, double fraction, Executor executor) {
+        List<Grouping> expected = createResults(nodes, groups, fraction);
+        List<Grouping> actual = createResults(nodes, groups, fraction);
+
+        for (int i = 1; i < expected.size(); i++)
+            expected.get(0).merge(expected.get(i));
+        Grouping merged = GroupingResultAggregator.merge(actual, executor);
+
+        expected.get(0).postMerge();
+        merged.postMerge();
+        assertEquals(expected.get(0), merged);
+    }
+
+    /**
+     * Returns the results of a two-level grouping request from the given number of nodes,
+     * where each node has about the given fraction of the groups
+     */
+    static List<Grouping> createResults(int nodes, int groups, double fraction) {
+        Random random = new Random(nodes);
+        List<Grouping> results = new ArrayList<>();
+        for (int node = 0; node < nodes; node++)
+            results.add(createGrouping(0, groups, fraction, random));
+        return results;
+    }
+
+    /** Returns a grouping with a random subset of the given number of groups, each having a few subgroups */
+    static Grouping createGrouping(int id, int groups, double fraction, Random random) {
+        CountAggregationResult rootCount = new CountAggregationResult(0);
+        Group root = new Group().addAggregationResult(rootCount);
+        for (int i = 0; i < groups; i++) {
+            if (random.nextDouble() >= fraction) continue;
+            Group group = new Group().setId(new IntegerResultNode(i)).setRank(random.nextDouble());
+            long groupCount = 0;
+            for (int j = 0; j < 4; j++) {
+                if (random.nextBoolean()) continue;
+                long count = 1 + random.nextInt(10);
+                group.addChild(new Group().setId(new IntegerResultNode(j))
+                                          .setRank(random.nextDouble())
+                                          .addAggregationResult(new CountAggregationResult(count)));
+                groupCount += count;
+            }
+            group.addAggregationResult(new CountAggregationResult(groupCount));
+            root.addChild(group);
+            rootCount.setCount(rootCount.getCount() + groupCount);
+        }
+        return new Grouping(id).setRoot(root)
+                               .addLevel(new GroupingLevel().setMaxGroups(-1))
+                               .addLevel(new GroupingLevel().setMaxGroups(2));
+    }
+
+}
@@ -15,6 +15,7 @@ import com.yahoo.search.result.Coverage;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
 import com.yahoo.search.result.Relevance;
+import com.yahoo.search.searchchain.Execution;
 import com.yahoo.searchlib.aggregation.Grouping;
 import com.yahoo.searchlib.aggregation.MaxAggregationResult;
 import com.yahoo.searchlib.aggregation.MinAggregationResult;
@@ -33,6 +34,7 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.StreamSupport;
@@ -374,6 +376,41 @@ public class InterleavedSearchInvokerTest {
         }
     }
 
+    @Test
+    void requireThatResponsesAreMergedAsynchronously() throws IOException {
+        SearchCluster cluster = new MockSearchCluster("!", 1, 2);
+        List<SearchInvoker> invokers = List.of(createInvoker(A5, 0), createInvoker(B5, 1));
+        try (InterleavedSearchInvoker invoker = new InterleavedSearchInvoker(Timer.monotonic, invokers, cluster, new Group(0, List.of()), Collections.emptySet())) {
+            invoker.responseAvailable(invokers.get(0));
+            query.setHits(12);
+            CompletableFuture<Result> future = invoker.searchAsync(query, new Execution(Execution.Context.createContextStub()));
+            assertFalse(future.isDone());
+
+            invoker.responseAvailable(invokers.get(1));
+            Result result = future.join();
+            assertEquals(10, result.hits().size());
+            assertEquals(11.0, result.hits().get(0).getRelevance().getScore(), DELTA);
+            assertEquals(1.0, result.hits().get(9).getRelevance().getScore(), DELTA);
+            assertTrue(invoker.invokers().isEmpty());
+        }
+    }
+
+    @Test
+    void requireThatAsynchronousSearchTimesOut() throws IOException {
+        SearchCluster cluster = new MockSearchCluster("!", 1, 2);
+        List<SearchInvoker> invokers = List.of(createInvoker(A5, 0), createInvoker(B5, 1));
+        try (InterleavedSearchInvoker invoker = new InterleavedSearchInvoker(Timer.monotonic, invokers, cluster, new Group(0, List.of()), Collections.emptySet())) {
+            query.setTimeout(50);
+            CompletableFuture<Result> future = invoker.searchAsync(query, new Execution(Execution.Context.createContextStub()));
+            invoker.responseAvailable(invokers.get(0));
+
+            Result result = future.join();
+            assertEquals(5, result.hits().size());
+            assertTrue(findTrace(result, "Backend communication timeout on nodes with distribution-keys").isPresent());
+            assertEquals(1, invoker.invokers().size());
+        }
+    }
+
     private static InterleavedSearchInvoker createInterLeavedTestInvoker(List<Double> a, List<Double> b, Group group) {
         SearchCluster cluster = new MockSearchCluster("!", 1, 2);
         List<SearchInvoker> invokers = new ArrayList<>();
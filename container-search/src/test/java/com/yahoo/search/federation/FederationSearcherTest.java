@@ -26,6 +26,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -160,6 +162,25 @@ public class FederationSearcherTest {
         assertEquals("Timed out", error.getMessage());
     }
 
+    @Test
+    void require_that_async_federation_completes_when_the_targets_complete() throws Exception {
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        FederationTester tester = new FederationTester();
+        tester.addSearchChain("chain1", new AddHitSearcher());
+        tester.addSearchChain("chain2", new AsyncAddHitSearcher(release));
+
+        Query query = new Query();
+        query.setTimeout(60 * 1000);
+        CompletableFuture<Result> future = tester.searchAsync(query);
+        assertFalse(future.isDone());
+
+        release.complete(null);
+        Result result = future.get(60, TimeUnit.SECONDS);
+        assertEquals(2, result.hits().size());
+        assertEquals(new URI("dummy"), firstHitInFirstGroup(result).getId());
+        assertEquals(new URI("async"), ((HitGroup)result.hits().get(1)).get(0).getId());
+    }
+
     @Test
     void custom_federation_target() {
         ComponentId targetSelectorId = ComponentId.fromString("TargetSelector");
@@ -233,6 +254,30 @@ public class FederationSearcherTest {
         return ((HitGroup)firstHit(result)).get(0);
     }
 
+    /** Adds a hit to the result once it is released, without holding a thread until then */
+    private static class AsyncAddHitSearcher extends Searcher {
+
+        private final CompletableFuture<Void> release;
+
+        AsyncAddHitSearcher(CompletableFuture<Void> release) {
+            this.release = release;
+        }
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            return searchAsync(query, execution).join();
+        }
+
+        @Override
+        public CompletableFuture<Result> searchAsync(Query query, Execution execution) {
+            return execution.searchAsync(query).thenCombine(release, (result, __) -> {
+                result.hits().add(new Hit("async"));
+                return result;
+            });
+        }
+
+    }
+
     private static class AddHitSearcher extends Searcher {
 
         protected Hit hit = createHit();
@@ -0,0 +1,63 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.DimensionBinding;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests that values resolved for a context are reused only in contexts with the same dimension values.
+ */
+public class DimensionalMapTestCase {
+
+    private static final CompoundName x = new CompoundName("x");
+    private static final CompoundName y = new CompoundName("y");
+    private static final CompoundName z = new CompoundName("z");
+
+    @Test
+    void values_are_resolved_per_context() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        builder.put(x, binding(Map.of()), "x");
+        builder.put(x, binding(Map.of("a", "a1")), "x-a1");
+        builder.put(x, binding(Map.of("a", "a1", "b", "b1")), "x-a1-b1");
+        builder.put(y, binding(Map.of()), "y");
+        builder.put(z, binding(Map.of("b", "b2")), "z-b2");
+        DimensionalMap<String> map = builder.build();
+
+        for (int run = 0; run < 3; run++) {
+            assertEquals("x", map.get(x, null));
+            assertEquals("x", map.get(x, Map.of()));
+            assertEquals("x-a1", map.get(x, Map.of("a", "a1")));
+            assertEquals("x-a1", map.get(x, Map.of("a", "a1", "b", "b2", "c", "c1")));
+            assertEquals("x-a1-b1", map.get(x, Map.of("a", "a1", "b", "b1")));
+            assertEquals("x", map.get(x, Map.of("a", "a2", "b", "b1")));
+            assertEquals("y", map.get(y, Map.of("a", "a1")));
+            assertNull(map.get(z, Map.of("a", "a1")));
+            assertEquals("z-b2", map.get(z, Map.of("a", "a1", "b", "b2")));
+            assertNull(map.get(new CompoundName("w"), Map.of("a", "a1")));
+        }
+    }
+
+    @Test
+    void values_are_resolved_when_there_are_more_contexts_than_remembered() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        builder.put(x, binding(Map.of()), "x");
+        builder.put(x, binding(Map.of("a", "a1")), "x-a1");
+        DimensionalMap<String> map = builder.build();
+
+        for (int i = 0; i < 2000; i++)
+            assertEquals("x", map.get(x, Map.of("a", "other" + i)));
+        assertEquals("x-a1", map.get(x, Map.of("a", "a1")));
+    }
+
+    private static Binding binding(Map<String, String> values) {
+        return Binding.createFrom(DimensionBinding.createFrom(List.of("a", "b"), values));
+    }
+
+}
@@ -1,7 +1,10 @@
 // Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.query.test;
 
+import com.yahoo.prelude.query.AndItem;
+import com.yahoo.prelude.query.OrItem;
 import com.yahoo.prelude.query.WeightedSetItem;
+import com.yahoo.prelude.query.WordItem;
 import com.yahoo.search.Query;
 
 /**
@@ -22,6 +25,45 @@ public class QueryCloneMicroBenchmark {
         System.out.println("Time per clone: " + (totalTime * 1000 * 1000 / runs) + " nanoseconds" );
     }
 
+    /** Clones a query with a large query tree and rank features once per target, as federation does */
+    public void benchmarkFederationFanOut() {
+        int runs = 1000;
+        int targets = 8;
+
+        Query query = createFederationQuery();
+        for (int i = 0; i < runs; i++) // warmup
+            fanOut(query, targets);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < runs; i++)
+            fanOut(query, targets);
+        long totalTime = System.nanoTime() - startTime;
+        System.out.println("Time per fan-out to " + targets + " targets: " + (totalTime / runs) + " nanoseconds");
+    }
+
+    private void fanOut(Query query, int targets) {
+        for (int i = 0; i < targets; i++) {
+            Query target = Query.createNewQuery(query);
+            target.properties().set("sourceName", "source" + i);
+        }
+    }
+
+    private Query createFederationQuery() {
+        Query query = new Query();
+        OrItem or = new OrItem();
+        for (int i = 0; i < 2000; i++) {
+            AndItem and = new AndItem();
+            and.addItem(new WordItem("term" + i, "title"));
+            and.addItem(new WordItem("other" + i, "body"));
+            or.addItem(and);
+        }
+        query.getModel().getQueryTree().setRoot(or);
+        for (int i = 0; i < 100; i++) {
+            query.getRanking().getFeatures().put("query(feature" + i + ")", i);
+            query.getRanking().getProperties().put("property" + i, String.valueOf(i));
+        }
+        return query;
+    }
+
     private Query createQuery() {
         Query query = new Query();
         query.getModel().getQueryTree().setRoot(createWeightedSet());
@@ -37,6 +79,7 @@ public class QueryCloneMicroBenchmark {
 
     public static void main(String[] args) {
         new QueryCloneMicroBenchmark().benchmark();
+        new QueryCloneMicroBenchmark().benchmarkFederationFanOut();
     }
 
 }
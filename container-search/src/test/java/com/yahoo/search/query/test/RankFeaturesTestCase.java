@@ -13,6 +13,7 @@ import com.yahoo.text.Utf8;
 import org.junit.jupiter.api.Test;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -20,6 +21,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * @author geirst
@@ -35,6 +37,48 @@ public class RankFeaturesTestCase {
         assertEquals("b", p.get("string").get(0));
     }
 
+    @Test
+    void requireThatClonesAreIndependentOfTheOriginal() {
+        Query query = new Query();
+        query.getRanking().getFeatures().put("query(a)", 1.0);
+        query.getRanking().getProperties().put("p", "1");
+
+        Query clone1 = query.clone();
+        Query clone2 = query.clone();
+        clone1.getRanking().getFeatures().put("query(b)", 2.0);
+        clone1.getRanking().getProperties().put("p", "2");
+        query.getRanking().getFeatures().asMap().remove("query(a)");
+        query.getRanking().getProperties().remove("p");
+        clone2.getRanking().getFeatures().prepare(clone2.getRanking().getProperties());
+
+        assertEquals(Map.of(), query.getRanking().getFeatures().asMap());
+        assertEquals(Map.of(), query.getRanking().getProperties().asMap());
+        assertEquals(Map.of("query(a)", 1.0, "query(b)", 2.0), clone1.getRanking().getFeatures().asMap());
+        assertEquals(List.of("1", "2"), clone1.getRanking().getProperties().get("p"));
+        assertEquals(Map.of(), clone2.getRanking().getFeatures().asMap());
+        assertEquals(List.of("1"), clone2.getRanking().getProperties().get("p"));
+        assertEquals(List.of("1.0"), clone2.getRanking().getProperties().get("a"));
+    }
+
+    @Test
+    void requireThatMapsHandedOutBeforeCloningAreNotShared() {
+        Query query = new Query();
+        Map<String, Object> features = query.getRanking().getFeatures().asMap();
+        Map<String, List<Object>> properties = query.getRanking().getProperties().asMap();
+        features.put("query(a)", 1.0);
+        properties.put("p", new ArrayList<>(List.of("1")));
+
+        Query clone = query.clone();
+        features.put("query(b)", 2.0);
+        properties.get("p").add("2");
+
+        assertEquals(Map.of("query(a)", 1.0, "query(b)", 2.0), query.getRanking().getFeatures().asReadOnlyMap());
+        assertEquals(List.of("1", "2"), query.getRanking().getProperties().get("p"));
+        assertEquals(Map.of("query(a)", 1.0), clone.getRanking().getFeatures().asReadOnlyMap());
+        assertEquals(List.of("1"), clone.getRanking().getProperties().get("p"));
+        assertThrows(UnsupportedOperationException.class, () -> clone.getRanking().getFeatures().asReadOnlyMap().put("query(c)", 3.0));
+    }
+
     @Test
     @SuppressWarnings("deprecation")
     void requireThatRankFeaturesUsingDoubleAndDoubleToStringEncodeTheSameWay() {
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -140,6 +141,89 @@ public class AsyncExecutionTestCase {
 
     }
 
+    @Test
+    void testAsyncSearchersDoNotWaitForBackend() {
+        BackendSearcher backend = new BackendSearcher();
+        Chain<Searcher> chain = new Chain<>(new ComponentId("chain"),
+                                            List.of(new AsyncForwardingSearcher("first"),
+                                                    new AsyncForwardingSearcher("second"),
+                                                    backend));
+
+        CompletableFuture<Result> result = new Execution(chain, Execution.Context.createContextStub()).searchAsync(new Query("?query=test"));
+        assertFalse(result.isDone());
+        FutureResult futureResult = new AsyncExecution(chain, Execution.Context.createContextStub()).search(new Query("?query=test"));
+        assertTrue(futureResult.getIfAvailable(100, TimeUnit.MILLISECONDS).isEmpty());
+
+        backend.complete();
+        assertEquals(List.of("second", "first"), result.join().hits().asUnorderedHits().stream().map(hit -> hit.getId().toString()).toList());
+        assertEquals(2, futureResult.get().hits().size());
+    }
+
+    @Test
+    void testSyncSearchersAreInvokedAsynchronously() {
+        Chain<Searcher> chain = new Chain<>(new ComponentId("chain"),
+                                            List.of(new AsyncForwardingSearcher("first"), new ResultProducingSearcher()));
+
+        CompletableFuture<Result> result = new Execution(chain, Execution.Context.createContextStub()).searchAsync(new Query("?query=test"));
+        assertTrue(result.isDone());
+        assertEquals(2, result.join().hits().size());
+        assertEquals(1, new Execution(chain, Execution.Context.createContextStub()).search(new Query("?query=test")).hits().size());
+    }
+
+    /** Adds a hit when the rest of the chain has completed its result, without waiting for it */
+    private static class AsyncForwardingSearcher extends Searcher {
+
+        private final String id;
+
+        AsyncForwardingSearcher(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            return execution.search(query);
+        }
+
+        @Override
+        public CompletableFuture<Result> searchAsync(Query query, Execution execution) {
+            return execution.searchAsync(query).thenApply(result -> {
+                result.hits().add(new Hit(id));
+                return result;
+            });
+        }
+
+    }
+
+    /** Returns results which are completed when the backend is told to, or right away after that */
+    private static class BackendSearcher extends Searcher {
+
+        private final List<CompletableFuture<Result>> pending = new ArrayList<>();
+        private final List<Query> queries = new ArrayList<>();
+        private boolean completed = false;
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            return searchAsync(query, execution).join();
+        }
+
+        @Override
+        public synchronized CompletableFuture<Result> searchAsync(Query query, Execution execution) {
+            if (completed) return CompletableFuture.completedFuture(new Result(query));
+
+            CompletableFuture<Result> result = new CompletableFuture<>();
+            pending.add(result);
+            queries.add(query);
+            return result;
+        }
+
+        synchronized void complete() {
+            completed = true;
+            for (int i = 0; i < pending.size(); i++)
+                pending.get(i).complete(new Result(queries.get(i)));
+        }
+
+    }
+
     @Test
     void testAsyncExecutionTimeout() {
         Chain<Searcher> chain = new Chain<>(new Searcher() {
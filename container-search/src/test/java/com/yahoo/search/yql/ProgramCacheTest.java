@@ -0,0 +1,60 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that programs bound from cached templates are equal to the same programs parsed directly.
+ */
+public class ProgramCacheTest {
+
+    private static final ProgramCache.Parser parser = program -> new ProgramParser().parse("query", program);
+
+    @Test
+    void programs_differing_in_string_literals_share_a_template() throws Exception {
+        ProgramCache cache = new ProgramCache(10);
+        String[] terms = { "foo", "bar", "", "with space", "foo" };
+        for (int i = 0; i < terms.length; i++) {
+            String program = "select * from sources * where title contains \"" + terms[i] +
+                             "\" and body contains ({distance: 2}near(\"a\", 'b" + i + "')) limit 10";
+            ProgramCache.Parsed parsed = cache.parse(program, parser);
+            assertEquals(i >= 2, parsed.cached(), program);
+            assertEquals(parser.parse(program), parsed.program(), program);
+        }
+        assertEquals(3, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void programs_with_escaped_literals_are_cached_by_their_full_text() throws Exception {
+        ProgramCache cache = new ProgramCache(10);
+        String program = "select * from sources * where title contains \"fo\\\"o\" and body contains \"bar\"";
+        for (int i = 0; i < 3; i++) {
+            ProgramCache.Parsed parsed = cache.parse(program, parser);
+            assertEquals(i >= 2, parsed.cached());
+            assertEquals(parser.parse(program), parsed.program());
+        }
+        assertTrue(cache.parse(program.replace("bar", "baz"), parser).cached());
+        assertFalse(cache.parse(program.replace("fo", "go"), parser).cached());
+    }
+
+    @Test
+    void programs_with_literals_in_raw_text_are_not_templated() throws Exception {
+        ProgramCache cache = new ProgramCache(10);
+        for (int i = 0; i < 4; i++) {
+            String program = "select * from sources * where title contains \"foo\" | " +
+                             "all(group(predefined(attr, bucket(\"" + i % 2 + "\", inf))) each(output(count())))";
+            ProgramCache.Parsed parsed = cache.parse(program, parser);
+            assertFalse(parsed.cached());
+            assertEquals(parser.parse(program), parsed.program());
+        }
+        assertEquals(0, cache.hits());
+        assertTrue(cache.size() > 0);
+    }
+
+}
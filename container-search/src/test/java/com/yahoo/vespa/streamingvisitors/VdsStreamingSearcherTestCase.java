@@ -56,6 +56,7 @@ public class VdsStreamingSearcherTestCase {
         private final Map<String, DocumentSummary.Summary> summaryMap = new HashMap<>();
         private final List<Grouping> groupings = new ArrayList<>();
         int traceLevelOverride;
+        boolean terminatedEarly = false;
 
         MockVisitor(Query query, String searchCluster, Route route, String documentType, int traceLevelOverride) {
             this.query = query;
@@ -93,6 +94,9 @@ public class VdsStreamingSearcherTestCase {
                 addResults(USERDOC_ID_PREFIX, 1, false);
             } else if (queryString.compareTo("onegroupinghit") == 0) {
                 groupings.add(new Grouping());
+            } else if (queryString.compareTo("terminatedearly") == 0) {
+                addResults(USERDOC_ID_PREFIX, 1, false);
+                terminatedEarly = true;
             }
 
         }
@@ -141,6 +145,11 @@ public class VdsStreamingSearcherTestCase {
         public Trace getTrace() {
             return new Trace();
         }
+
+        @Override
+        public boolean isTerminatedEarly() {
+            return terminatedEarly;
+        }
     }
 
     private static class MockVisitorFactory implements VisitorFactory {
@@ -249,6 +258,12 @@ public class VdsStreamingSearcherTestCase {
         checkSearch(searcher, "/?streaming.groupname=group1&query=twogrouphitsandoneuserhit", 2, GROUPDOC_ID_PREFIX);
 
         checkGrouping(searcher, "/?streaming.selection=true&query=onegroupinghit", 1);
+
+        Result result = executeQuery(searcher, new Query("/?streaming.userid=1&query=oneuserhit"));
+        assertFalse(result.getCoverage(false).isDegradedByMatchPhase());
+        result = executeQuery(searcher, new Query("/?streaming.userid=1&query=terminatedearly"));
+        assertEquals(1, result.hits().size());
+        assertTrue(result.getCoverage(false).isDegradedByMatchPhase());
     }
 
     @Test
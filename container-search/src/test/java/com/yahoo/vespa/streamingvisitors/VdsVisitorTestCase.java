@@ -334,6 +334,40 @@ public class VdsVisitorTestCase {
         verifyVisitorFails(factory, qa, route, searchCluster);
     }
 
+    @Test
+    void testEarlyTermination() throws Exception {
+        Route route = Route.parse("storageClusterRouteSpec");
+        MockVisitorSessionFactory factory = new MockVisitorSessionFactory();
+        factory.messages.add(createSRM("id:ns:type::0", 0.3));
+        factory.messages.add(createSRM("id:ns:type::1", 1.0));
+        factory.messages.add(createSRM("id:ns:type::2", 0.9));
+        factory.messages.add(createSRM("id:ns:type::3", 0.8));
+
+        VdsVisitor visitor = new VdsVisitor(new Query("/?query=test&hits=2&streaming.earlyterminationrank=0.5"),
+                                            "searchClusterConfigId", route, "mytype", factory, 0);
+        visitor.doSearch();
+        assertTrue(visitor.isTerminatedEarly());
+        assertEquals(3, factory.deliveredMessages);
+        assertEquals(2, visitor.getHits().size());
+        assertEquals("id:ns:type::1", visitor.getHits().get(0).getDocId());
+        assertEquals("id:ns:type::2", visitor.getHits().get(1).getDocId());
+
+        factory.deliveredMessages = 0;
+        visitor = new VdsVisitor(new Query("/?query=test&hits=2&streaming.earlyterminationrank=0.95"),
+                                 "searchClusterConfigId", route, "mytype", factory, 0);
+        visitor.doSearch();
+        assertFalse(visitor.isTerminatedEarly());
+        assertEquals(4, factory.deliveredMessages);
+        assertEquals(2, visitor.getHits().size());
+
+        factory.deliveredMessages = 0;
+        visitor = new VdsVisitor(new Query("/?query=test&hits=2&sorting=%2Bsurname&streaming.earlyterminationrank=0.5"),
+                                 "searchClusterConfigId", route, "mytype", factory, 0);
+        visitor.doSearch();
+        assertFalse(visitor.isTerminatedEarly());
+        assertEquals(4, factory.deliveredMessages);
+    }
+
     private void verifyVisitorOk(MockVisitorSessionFactory factory, QueryArguments qa, Route route, String searchCluster) throws Exception {
         VdsVisitor visitor = new VdsVisitor(buildQuery(qa), searchCluster, route, "mytype", factory, 0);
         visitor.doSearch();
@@ -375,6 +409,7 @@ public class VdsVisitorTestCase {
         assertEquals(3, visitor.getSummaryMap().size());
         assertEquals(0, visitor.getGroupings().size());
         assertNull(visitor.getStatistics());
+        assertFalse(visitor.isTerminatedEarly());
 
         for (int i=0; i<visitor.getHits().size(); ++i) {
             SearchResult.Hit hit = visitor.getHits().get(i);
@@ -400,13 +435,16 @@ public class VdsVisitorTestCase {
         private VisitorParameters params;
         private boolean timeoutQuery = false;
         private boolean failQuery = false;
+        private boolean aborted = false;
+        private final MockVisitorSessionFactory factory;
 
-        public MockVisitorSession(VisitorParameters params, boolean timeoutQuery, boolean failQuery) {
+        public MockVisitorSession(VisitorParameters params, MockVisitorSessionFactory factory) {
             this.params = params;
             params.setControlHandler(new VisitorControlHandler());
             params.getLocalDataHandler().setSession(this);
-            this.timeoutQuery = timeoutQuery;
-            this.failQuery = failQuery;
+            this.timeoutQuery = factory.timeoutQuery;
+            this.failQuery = factory.failQuery;
+            this.factory = factory;
         }
 
         @Override
@@ -429,9 +467,16 @@ public class VdsVisitorTestCase {
             if (timeoutQuery) {
                 return false;
             }
+            for (Message message : factory.messages) {
+                if (aborted) break;
+                params.getLocalDataHandler().onMessage(message, null);
+                factory.deliveredMessages++;
+            }
             VisitorControlHandler.CompletionCode code = VisitorControlHandler.CompletionCode.SUCCESS;
             if (failQuery) {
                 code = VisitorControlHandler.CompletionCode.FAILURE;
+            } else if (aborted) {
+                code = VisitorControlHandler.CompletionCode.ABORTED;
             }
             params.getControlHandler().onDone(code, "Message");
             return true;
@@ -443,6 +488,7 @@ public class VdsVisitorTestCase {
 
         @Override
         public void abort() {
+            aborted = true;
         }
 
         @Override
@@ -464,13 +510,15 @@ public class VdsVisitorTestCase {
         private VisitorParameters params;
         private boolean timeoutQuery = false;
         private boolean failQuery = false;
+        private final List<Message> messages = new ArrayList<>();
+        private int deliveredMessages = 0;
 
         private MockVisitorSessionFactory() {}
 
         @Override
         public VisitorSession createVisitorSession(VisitorParameters params) throws ParseException {
             this.params = params;
-            return new MockVisitorSession(params, timeoutQuery, failQuery);
+            return new MockVisitorSession(params, this);
         }
 
         public VisitorParameters getParams() {
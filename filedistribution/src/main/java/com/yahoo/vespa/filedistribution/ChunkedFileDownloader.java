@@ -0,0 +1,331 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.config.FileReference;
+import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.Int64Value;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.StringValue;
+import com.yahoo.vespa.config.Connection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.yahoo.vespa.filedistribution.FileChunkServer.GET_CHUNKS_METHOD;
+import static com.yahoo.vespa.filedistribution.FileChunkServer.GET_CHUNK_METHOD;
+import static com.yahoo.vespa.filedistribution.FileChunkServer.OK;
+
+/**
+ * Downloads plain file references chunk by chunk from sources running a {@link FileChunkServer}.
+ * <p>
+ * The download is written to a file in the chunks directory, so an interrupted download resumes with the chunks
+ * which were already written. Chunks which are also part of earlier downloads are copied from those, and chunks
+ * occurring several times in the file are fetched once. The remaining chunks are fetched by several workers in
+ * parallel, spread over all sources with the same manifest, and a source which fails is not used again for the same download.
+ * The manifests of completed downloads are kept in the chunks directory, to find chunks for later downloads.
+ */
+class ChunkedFileDownloader {
+
+    private static final Logger log = Logger.getLogger(ChunkedFileDownloader.class.getName());
+
+    static final String chunksDirectoryName = ".chunks";
+    private static final String manifestSuffix = ".manifest";
+    private static final String inProgressSuffix = ".inprogress";
+
+    private final File downloadDirectory;
+    private final File chunksDirectory;
+    private final Duration rpcTimeout;
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    ChunkedFileDownloader(File downloadDirectory, Duration rpcTimeout, int parallelism) {
+        this.downloadDirectory = downloadDirectory;
+        this.chunksDirectory = new File(downloadDirectory, chunksDirectoryName);
+        this.rpcTimeout = rpcTimeout;
+        this.parallelism = parallelism;
+        this.executor = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("filereference chunk downloader"));
+    }
+
+    /**
+     * Downloads the given file reference from the given sources.
+     *
+     * @return the downloaded file, or empty if none of the sources serves the file reference in chunks
+     * @throws UncheckedIOException if the download failed, in which case it resumes from where it stopped if retried
+     */
+    Optional<File> download(FileReference reference, List<? extends Connection> sources, Downloads downloads) {
+        List<Connection> sourcesWithFile = new ArrayList<>();
+        Optional<FileChunks> manifest = getManifest(reference, sources, sourcesWithFile);
+        if (manifest.isEmpty()) return Optional.empty();
+
+        FileChunks chunks = manifest.get();
+        log.log(Level.FINE, () -> "Downloading " + reference + " in " + chunks.chunkCount() + " chunks from " + sourcesWithFile.size() + " sources");
+        File inProgress = new File(chunksDirectory, reference.value() + inProgressSuffix);
+        try {
+            Files.createDirectories(chunksDirectory.toPath());
+            try (FileChannel channel = FileChannel.open(inProgress.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (channel.size() > chunks.size()) channel.truncate(chunks.size());
+
+                BitSet done = verifyWritten(chunks, channel);
+                copyKnownChunks(reference, chunks, channel, done);
+                if (done.cardinality() > 0)
+                    log.log(Level.FINE, () -> "Reusing " + done.cardinality() + " of " + chunks.chunkCount() + " chunks of " + reference);
+                fetch(reference, chunks, channel, done, sourcesWithFile, downloads);
+                channel.force(false);
+            }
+            File directory = new File(downloadDirectory, reference.value());
+            Files.createDirectories(directory.toPath());
+            File file = new File(directory, chunks.filename());
+            FileReceiver.moveFileToDestination(inProgress, file);
+            writeManifest(reference, chunks);
+            return Optional.of(file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed downloading " + reference + " in chunks", e);
+        }
+    }
+
+    /**
+     * Returns the manifest of the first source which has the given file reference, and adds that source, and all
+     * other sources with an identical manifest, to the given list of sources with the file.
+     */
+    private Optional<FileChunks> getManifest(FileReference reference, List<? extends Connection> sources, List<Connection> sourcesWithFile) {
+        FileChunks chunks = null;
+        byte[] manifest = null;
+        for (Connection source : sources) {
+            Request request = new Request(GET_CHUNKS_METHOD);
+            request.parameters().add(new StringValue(reference.value()));
+            source.invokeSync(request, rpcTimeout);
+            if ( ! isOk(request)) {
+                log.log(Level.FINE, () -> "No chunk manifest of " + reference + " from " + source.getAddress() + ": " + describe(request));
+                continue;
+            }
+            byte[] received = request.returnValues().get(1).asData();
+            if (manifest == null) {
+                try {
+                    chunks = FileChunks.fromBytes(received);
+                    manifest = received;
+                }
+                catch (IllegalArgumentException e) {
+                    log.log(Level.WARNING, "Invalid chunk manifest of " + reference + " from " + source.getAddress() + ": " + e.getMessage());
+                    continue;
+                }
+            }
+            if (Arrays.equals(manifest, received))
+                sourcesWithFile.add(source);
+        }
+        return Optional.ofNullable(chunks);
+    }
+
+    /** Returns the chunks which are already written to the given channel, by an earlier, interrupted download */
+    private static BitSet verifyWritten(FileChunks chunks, FileChannel channel) throws IOException {
+        BitSet written = new BitSet(chunks.chunkCount());
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(chunks.chunkSize());
+        for (int i = 0; i < chunks.chunkCount() && chunks.offset(i) + chunks.length(i) <= size; i++) {
+            buffer.clear();
+            FileChunks.readFully(channel, buffer, chunks.offset(i), chunks.length(i));
+            if (chunks.matches(i, buffer.array(), buffer.position()))
+                written.set(i);
+        }
+        return written;
+    }
+
+    /** Copies chunks which are not yet done from files completed earlier, if they contain a chunk with the same content */
+    private void copyKnownChunks(FileReference reference, FileChunks chunks, FileChannel channel, BitSet done) {
+        Map<Long, ChunkLocation> known = knownChunks(reference);
+        if (known.isEmpty()) return;
+
+        Map<File, FileChannel> sources = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.allocate(chunks.chunkSize());
+        try {
+            for (int i = done.nextClearBit(0); i < chunks.chunkCount(); i = done.nextClearBit(i + 1)) {
+                ChunkLocation location = known.get(chunks.hash(i));
+                if (location == null || location.length != chunks.length(i)) continue;
+
+                buffer.clear();
+                FileChunks.readFully(sources.computeIfAbsent(location.file, ChunkedFileDownloader::open),
+                                     buffer, location.offset, location.length);
+                if ( ! chunks.matches(i, buffer.array(), buffer.position())) continue;
+                write(channel, buffer.array(), buffer.position(), chunks.offset(i));
+                done.set(i);
+            }
+        }
+        catch (IOException | UncheckedIOException e) { // Just fetch the remaining chunks
+            log.log(Level.FINE, () -> "Failed copying known chunks for " + reference + ": " + e.getMessage());
+        }
+        finally {
+            for (FileChannel source : sources.values()) {
+                try {
+                    source.close();
+                }
+                catch (IOException e) {
+                    log.log(Level.FINE, () -> "Failed closing " + source + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Returns the location of each chunk of the files completed earlier, except the given one */
+    private Map<Long, ChunkLocation> knownChunks(FileReference exclude) {
+        Map<Long, ChunkLocation> known = new HashMap<>();
+        File[] manifests = chunksDirectory.listFiles((directory, name) -> name.endsWith(manifestSuffix));
+        if (manifests == null) return known;
+
+        for (File manifestFile : manifests) {
+            String reference = manifestFile.getName().substring(0, manifestFile.getName().length() - manifestSuffix.length());
+            if (reference.equals(exclude.value())) continue;
+            try {
+                FileChunks chunks = FileChunks.fromBytes(Files.readAllBytes(manifestFile.toPath()));
+                File file = new File(new File(downloadDirectory, reference), chunks.filename());
+                if (file.length() != chunks.size()) { // Deleted, or not the file the manifest is for
+                    Files.deleteIfExists(manifestFile.toPath());
+                    continue;
+                }
+                for (int i = 0; i < chunks.chunkCount(); i++)
+                    known.putIfAbsent(chunks.hash(i), new ChunkLocation(file, chunks.offset(i), chunks.length(i)));
+            }
+            catch (IOException | IllegalArgumentException e) {
+                log.log(Level.FINE, () -> "Ignoring chunk manifest " + manifestFile + ": " + e.getMessage());
+            }
+        }
+        return known;
+    }
+
+    /** Fetches the chunks which are not done, in parallel, and writes them to the given channel */
+    private void fetch(FileReference reference, FileChunks chunks, FileChannel channel, BitSet done,
+                       List<? extends Connection> sources, Downloads downloads) throws IOException {
+        // Chunks with the same content are fetched once, and written to each place they occur
+        Map<Long, List<Integer>> missing = new LinkedHashMap<>();
+        AtomicLong bytesDone = new AtomicLong();
+        for (int i = 0; i < chunks.chunkCount(); i++) {
+            if (done.get(i)) bytesDone.addAndGet(chunks.length(i));
+            else missing.computeIfAbsent(chunks.hash(i), __ -> new ArrayList<>()).add(i);
+        }
+        if (missing.isEmpty()) return;
+
+        Queue<List<Integer>> queue = new ConcurrentLinkedQueue<>(missing.values());
+        Set<Connection> failedSources = ConcurrentHashMap.newKeySet();
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int worker = 0; worker < Math.min(parallelism, missing.size()); worker++) {
+            int firstSource = worker;
+            workers.add(CompletableFuture.runAsync(() -> {
+                for (List<Integer> occurrences; failure.get() == null && (occurrences = queue.poll()) != null; ) {
+                    int chunk = occurrences.get(0);
+                    Optional<byte[]> data = fetchChunk(reference, chunks, chunk, sources, firstSource, failedSources);
+                    if (data.isEmpty()) {
+                        failure.compareAndSet(null, "No source could provide chunk " + chunk + " of " + reference);
+                        return;
+                    }
+                    try {
+                        for (int occurrence : occurrences)
+                            write(channel, data.get(), data.get().length, chunks.offset(occurrence));
+                    }
+                    catch (IOException e) {
+                        failure.compareAndSet(null, "Failed writing chunk " + chunk + " of " + reference + ": " + e.getMessage());
+                        return;
+                    }
+                    downloads.setDownloadStatus(reference, (double) bytesDone.addAndGet((long) data.get().length * occurrences.size()) / chunks.size());
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+        if (failure.get() != null) throw new IOException(failure.get());
+    }
+
+    /** Fetches the given chunk from the first source, starting at the given one, which can provide it */
+    private Optional<byte[]> fetchChunk(FileReference reference, FileChunks chunks, int chunk,
+                                        List<? extends Connection> sources, int firstSource, Set<Connection> failedSources) {
+        for (int i = 0; i < sources.size(); i++) {
+            Connection source = sources.get((firstSource + i) % sources.size());
+            if (failedSources.contains(source)) continue;
+
+            Request request = new Request(GET_CHUNK_METHOD);
+            request.parameters().add(new StringValue(reference.value()));
+            request.parameters().add(new Int32Value(chunk));
+            request.parameters().add(new Int64Value(chunks.hash(chunk)));
+            source.invokeSync(request, rpcTimeout);
+            if (isOk(request)) {
+                byte[] data = request.returnValues().get(1).asData();
+                if (chunks.matches(chunk, data, data.length)) return Optional.of(data);
+                log.log(Level.WARNING, "Chunk " + chunk + " of " + reference + " from " + source.getAddress() + " has unexpected content");
+            }
+            else {
+                log.log(Level.FINE, () -> "Failed getting chunk " + chunk + " of " + reference + " from " + source.getAddress() + ": " + describe(request));
+            }
+            failedSources.add(source);
+        }
+        return Optional.empty();
+    }
+
+    private void writeManifest(FileReference reference, FileChunks chunks) {
+        File manifest = new File(chunksDirectory, reference.value() + manifestSuffix);
+        File tmp = new File(chunksDirectory, reference.value() + manifestSuffix + ".tmp");
+        try {
+            Files.write(tmp.toPath(), chunks.toBytes());
+            Files.move(tmp.toPath(), manifest.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e) { // Only used to find chunks for later downloads
+            log.log(Level.WARNING, "Failed writing chunk manifest of " + reference + ": " + e.getMessage());
+        }
+    }
+
+    private static void write(FileChannel channel, byte[] data, int length, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data, 0, length);
+        while (buffer.hasRemaining())
+            channel.write(buffer, position + buffer.position());
+    }
+
+    private static FileChannel open(File file) {
+        try {
+            return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isOk(Request request) {
+        return ! request.isError() && request.checkReturnTypes("ix") && request.returnValues().get(0).asInt32() == OK;
+    }
+
+    private static String describe(Request request) {
+        return request.isError() ? "error " + request.errorCode() + " (" + request.errorMessage() + ")"
+                                 : request.checkReturnTypes("ix") ? "return code " + request.returnValues().get(0).asInt32()
+                                                                  : "invalid return types";
+    }
+
+    void close() {
+        executor.shutdownNow();
+    }
+
+    private record ChunkLocation(File file, long offset, int length) { }
+
+}
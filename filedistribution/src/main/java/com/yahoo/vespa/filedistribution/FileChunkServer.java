@@ -0,0 +1,200 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.config.FileReference;
+import com.yahoo.jrt.DataValue;
+import com.yahoo.jrt.ErrorCode;
+import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.Method;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.Supervisor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the chunks of plain (uncompressed) file references, for clients downloading with {@link ChunkedFileDownloader}.
+ * Unlike the push based protocol used by {@link FileReceiver}, clients pull each chunk, so they may fetch chunks from
+ * several sources in parallel, and only those they do not already have. Directories are not served, as their
+ * compressed archives are created on demand and are not guaranteed to be identical across sources.
+ */
+public class FileChunkServer {
+
+    private static final Logger log = Logger.getLogger(FileChunkServer.class.getName());
+
+    public static final String GET_CHUNKS_METHOD = "filedistribution.getFileChunks";
+    public static final String GET_CHUNK_METHOD = "filedistribution.getFileChunk";
+
+    public static final int OK = 0;
+    public static final int NOT_FOUND = 1;
+    public static final int CHANGED = 2;
+
+    private static final int maxCachedManifests = 64;
+
+    private final Function<FileReference, Optional<File>> files;
+    private final Function<Request, CompletableFuture<Void>> authorizer;
+    private final int chunkSize;
+    private final ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() / 2),
+                                                                          new DaemonThreadFactory("file-chunk-server-"));
+    private final Object computeLock = new Object();
+    private final Map<File, Manifest> manifests = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, Manifest> eldest) {
+            return size() > maxCachedManifests;
+        }
+    };
+
+    /**
+     * Creates a server of the plain files returned by the given function, and registers its methods in the given supervisor.
+     * Requests are served only after the given authorizer completes successfully for them.
+     */
+    public FileChunkServer(Supervisor supervisor,
+                           Function<FileReference, Optional<File>> files,
+                           Function<Request, CompletableFuture<Void>> authorizer) {
+        this(supervisor, files, authorizer, FileChunks.defaultChunkSize);
+    }
+
+    FileChunkServer(Supervisor supervisor,
+                    Function<FileReference, Optional<File>> files,
+                    Function<Request, CompletableFuture<Void>> authorizer,
+                    int chunkSize) {
+        this.files = files;
+        this.authorizer = authorizer;
+        this.chunkSize = chunkSize;
+        supervisor.addMethod(new Method(GET_CHUNKS_METHOD, "s", "ix", request -> serve(request, this::getFileChunks))
+                                     .methodDesc("get the chunk manifest of a file reference")
+                                     .paramDesc(0, "filereference", "file reference to download")
+                                     .returnDesc(0, "ret", "0 if success, 1 if not found or not a plain file")
+                                     .returnDesc(1, "manifest", "the serialized chunk manifest"));
+        supervisor.addMethod(new Method(GET_CHUNK_METHOD, "sil", "ix", request -> serve(request, this::getFileChunk))
+                                     .methodDesc("get a chunk of a file reference")
+                                     .paramDesc(0, "filereference", "file reference to download")
+                                     .paramDesc(1, "chunk", "index of the chunk in the manifest")
+                                     .paramDesc(2, "xxhash", "xxhash64 of the content of the chunk")
+                                     .returnDesc(0, "ret", "0 if success, 1 if not found, 2 if the content has changed")
+                                     .returnDesc(1, "data", "content of the chunk"));
+    }
+
+    private void serve(Request request, Function<Request, Integer> handler) {
+        request.detach();
+        authorizer.apply(request)
+                  .thenRunAsync(() -> {
+                      try {
+                          int code = handler.apply(request);
+                          if (code != OK) {
+                              request.returnValues().add(new Int32Value(code));
+                              request.returnValues().add(new DataValue(new byte[0]));
+                          }
+                      }
+                      catch (RuntimeException e) {
+                          log.log(Level.WARNING, "Failed serving " + request.methodName() + " for " + request.parameters().get(0).asString(), e);
+                          request.setError(ErrorCode.METHOD_FAILED, e.getMessage());
+                      }
+                      request.returnRequest();
+                  }, executor)
+                  .exceptionally(e -> { // Authorization failed, and the authorizer has responded
+                      log.log(Level.FINE, () -> "Not serving " + request.methodName() + ": " + e.getMessage());
+                      return null;
+                  });
+    }
+
+    private int getFileChunks(Request request) {
+        Optional<Manifest> manifest = manifest(new FileReference(request.parameters().get(0).asString()));
+        if (manifest.isEmpty()) return NOT_FOUND;
+
+        request.returnValues().add(new Int32Value(OK));
+        request.returnValues().add(new DataValue(manifest.get().chunks.toBytes()));
+        return OK;
+    }
+
+    private int getFileChunk(Request request) {
+        FileReference reference = new FileReference(request.parameters().get(0).asString());
+        int chunk = request.parameters().get(1).asInt32();
+        long hash = request.parameters().get(2).asInt64();
+        Optional<Manifest> manifest = manifest(reference);
+        if (manifest.isEmpty()) return NOT_FOUND;
+
+        FileChunks chunks = manifest.get().chunks;
+        if (chunk < 0 || chunk >= chunks.chunkCount() || chunks.hash(chunk) != hash) return CHANGED;
+
+        byte[] data = new byte[chunks.length(chunk)];
+        try (FileChannel channel = FileChannel.open(manifest.get().file.toPath(), StandardOpenOption.READ)) {
+            FileChunks.readFully(channel, ByteBuffer.wrap(data), chunks.offset(chunk), data.length);
+        }
+        catch (IOException e) {
+            log.log(Level.WARNING, "Failed reading chunk " + chunk + " of " + reference + ": " + e.getMessage());
+            return NOT_FOUND;
+        }
+        if ( ! chunks.matches(chunk, data, data.length)) { // The file was modified after the manifest was made
+            invalidate(manifest.get().file);
+            return CHANGED;
+        }
+        request.returnValues().add(new Int32Value(OK));
+        request.returnValues().add(new DataValue(data));
+        return OK;
+    }
+
+    /** Returns the manifest of the given file reference, if it is a plain file, computing it if the file is new or has changed */
+    private Optional<Manifest> manifest(FileReference reference) {
+        Optional<File> file = files.apply(reference).filter(File::isFile);
+        if (file.isEmpty()) return Optional.empty();
+
+        Optional<Manifest> cached = cachedManifest(file.get());
+        if (cached.isPresent()) return cached;
+
+        synchronized (computeLock) { // Avoid hashing the same, possibly large, file for each concurrent request
+            cached = cachedManifest(file.get());
+            if (cached.isPresent()) return cached;
+
+            long size = file.get().length();
+            long lastModified = file.get().lastModified();
+            try {
+                Manifest manifest = new Manifest(file.get(), size, lastModified, FileChunks.of(file.get(), chunkSize));
+                log.log(Level.FINE, () -> "Computed chunk manifest of " + reference + " with " + manifest.chunks.chunkCount() + " chunks");
+                synchronized (manifests) {
+                    manifests.put(file.get(), manifest);
+                }
+                return Optional.of(manifest);
+            }
+            catch (IOException e) {
+                log.log(Level.WARNING, "Failed computing chunk manifest of " + reference + ": " + e.getMessage());
+                return Optional.empty();
+            }
+        }
+    }
+
+    private Optional<Manifest> cachedManifest(File file) {
+        long size = file.length();
+        long lastModified = file.lastModified();
+        synchronized (manifests) {
+            return Optional.ofNullable(manifests.get(file))
+                           .filter(manifest -> manifest.size == size && manifest.lastModified == lastModified);
+        }
+    }
+
+    private void invalidate(File file) {
+        synchronized (manifests) {
+            manifests.remove(file);
+        }
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private record Manifest(File file, long size, long lastModified, FileChunks chunks) { }
+
+}
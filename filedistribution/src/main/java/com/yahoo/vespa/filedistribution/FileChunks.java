@@ -0,0 +1,134 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The manifest of a file split into fixed size chunks, each identified by the xxhash64 of its content.
+ * Clients use this to fetch chunks from any source which has them, to verify each chunk as it arrives,
+ * to resume interrupted downloads, and to reuse chunks they already have from other files.
+ */
+public class FileChunks {
+
+    public static final int defaultChunkSize = 1 << 20;
+
+    private static final int magic = 0x46434b53; // "FCKS"
+    private static final int version = 1;
+    private static final XXHash64 hasher = XXHashFactory.fastestInstance().hash64();
+
+    private final String filename;
+    private final long size;
+    private final int chunkSize;
+    private final long[] hashes;
+
+    FileChunks(String filename, long size, int chunkSize, long[] hashes) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive, was " + chunkSize);
+        if (hashes.length != (size + chunkSize - 1) / chunkSize)
+            throw new IllegalArgumentException("Expected " + ((size + chunkSize - 1) / chunkSize) + " chunks of " +
+                                               chunkSize + " bytes for " + size + " bytes, but got " + hashes.length);
+        this.filename = filename;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.hashes = hashes;
+    }
+
+    /** Reads the given file and returns its chunks */
+    public static FileChunks of(File file, int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] hashes = new long[(int) ((size + chunkSize - 1) / chunkSize)];
+            ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+            for (int i = 0; i < hashes.length; i++) {
+                buffer.clear();
+                readFully(channel, buffer, (long) i * chunkSize, (int) Math.min(chunkSize, size - (long) i * chunkSize));
+                hashes[i] = hash(buffer.array(), 0, buffer.position());
+            }
+            return new FileChunks(file.getName(), size, chunkSize, hashes);
+        }
+    }
+
+    public String filename() { return filename; }
+
+    /** Returns the size of the whole file */
+    public long size() { return size; }
+
+    public int chunkSize() { return chunkSize; }
+
+    public int chunkCount() { return hashes.length; }
+
+    public long offset(int chunk) { return (long) chunk * chunkSize; }
+
+    public int length(int chunk) { return (int) Math.min(chunkSize, size - offset(chunk)); }
+
+    public long hash(int chunk) { return hashes[chunk]; }
+
+    /** Returns whether the given data is the content of the given chunk */
+    public boolean matches(int chunk, byte[] data, int length) {
+        return length == length(chunk) && hash(data, 0, length) == hash(chunk);
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + filename.length() + 8 * hashes.length);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeUTF(filename);
+            out.writeLong(size);
+            out.writeInt(chunkSize);
+            for (long hash : hashes)
+                out.writeLong(hash);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Returns the chunks serialized in the given bytes, or throws IllegalArgumentException if they are invalid */
+    public static FileChunks fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != magic) throw new IllegalArgumentException("Not a file chunk manifest");
+            int version = in.readInt();
+            if (version != FileChunks.version) throw new IllegalArgumentException("Unknown file chunk manifest version " + version);
+            String filename = in.readUTF();
+            long size = in.readLong();
+            int chunkSize = in.readInt();
+            if (size < 0 || chunkSize <= 0 || (size + chunkSize - 1) / chunkSize > (bytes.length - 8) / 8)
+                throw new IllegalArgumentException("Invalid file chunk manifest for '" + filename + "' of size " + size + " with chunk size " + chunkSize);
+            long[] hashes = new long[(int) ((size + chunkSize - 1) / chunkSize)];
+            for (int i = 0; i < hashes.length; i++)
+                hashes[i] = in.readLong();
+            return new FileChunks(filename, size, chunkSize, hashes);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Truncated file chunk manifest", e);
+        }
+    }
+
+    static long hash(byte[] data, int offset, int length) {
+        return hasher.hash(data, offset, length, 0);
+    }
+
+    /** Reads exactly the given number of bytes at the given position into the given buffer, or throws if the file ends before that */
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        int start = buffer.position();
+        buffer.limit(start + length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position() - start);
+            if (read < 0) throw new IOException("Unexpected end of file at " + position);
+        }
+    }
+
+}
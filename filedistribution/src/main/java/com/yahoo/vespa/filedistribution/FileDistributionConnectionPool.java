@@ -40,4 +40,9 @@ public class FileDistributionConnectionPool extends JRTConnectionPool {
         return pickNewConnectionRandomly(sourceCandidates);
     }
 
+    /** Returns the connections to all sources */
+    public synchronized List<JRTConnection> connections() {
+        return getSources();
+    }
+
 }
@@ -11,13 +11,19 @@ import net.jpountz.xxhash.StreamingXXHash64;
 import net.jpountz.xxhash.XXHashFactory;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -59,6 +65,7 @@ public class FileReceiver {
         private final File fileReferenceDir;
         private final File tmpDir;
         private final File inprogressFile;
+        private final Extraction extraction; // Extracts compressed file references while parts are received, null for plain files
 
         Session(File downloadDirectory,
                 int sessionId,
@@ -67,6 +74,17 @@ public class FileReceiver {
                 FileReferenceData.CompressionType compressionType,
                 String fileName,
                 long fileSize) {
+            this(downloadDirectory, sessionId, reference, fileType, compressionType, fileName, fileSize, Extraction.defaultPartTimeout);
+        }
+
+        Session(File downloadDirectory,
+                int sessionId,
+                FileReference reference,
+                Type fileType,
+                FileReferenceData.CompressionType compressionType,
+                String fileName,
+                long fileSize,
+                Duration partTimeout) {
             this.hasher = XXHashFactory.fastestInstance().newStreamingHash64(0);
             this.sessionId = sessionId;
             this.reference = reference;
@@ -80,12 +98,27 @@ public class FileReceiver {
             fileReferenceDir = new File(downloadDirectory, reference.value());
             this.tmpDir = downloadDirectory;
 
-            try {
-                inprogressFile = Files.createTempFile(tmpDir.toPath(), fileName, ".inprogress").toFile();
-            } catch (IOException e) {
-                String msg = "Failed creating temp file for inprogress file for " + fileName + " in '" + tmpDir.toPath() + "': ";
-                log.log(Level.SEVERE, msg + e.getMessage(), e);
-                throw new RuntimeException(msg, e);
+            if (fileType == Type.compressed) {
+                inprogressFile = null;
+                try {
+                    extraction = new Extraction(Files.createTempDirectory(tmpDir.toPath(), "archive").toFile(),
+                                                new FileReferenceCompressor(fileType, compressionType),
+                                                reference,
+                                                partTimeout);
+                } catch (IOException e) {
+                    String msg = "Failed creating temp dir for extracting " + fileName + " in '" + tmpDir.toPath() + "': ";
+                    log.log(Level.SEVERE, msg + e.getMessage(), e);
+                    throw new RuntimeException(msg, e);
+                }
+            } else {
+                extraction = null;
+                try {
+                    inprogressFile = Files.createTempFile(tmpDir.toPath(), fileName, ".inprogress").toFile();
+                } catch (IOException e) {
+                    String msg = "Failed creating temp file for inprogress file for " + fileName + " in '" + tmpDir.toPath() + "': ";
+                    log.log(Level.SEVERE, msg + e.getMessage(), e);
+                    throw new RuntimeException(msg, e);
+                }
             }
         }
 
@@ -97,15 +130,25 @@ public class FileReceiver {
                 throw new IllegalStateException("Received part would extend the file from " + currentFileSize + " to " +
                                                 (currentFileSize + part.length) + ", but " + fileSize + " is max.");
             }
-            try {
-                Files.write(inprogressFile.toPath(), part, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                String message = "Failed writing to file (" + inprogressFile.toPath() + "): ";
-                log.log(Level.SEVERE, message + e.getMessage(), e);
-                boolean successfulDelete = inprogressFile.delete();
-                if ( ! successfulDelete)
-                    log.log(Level.INFO, "Unable to delete " + inprogressFile.toPath());
-                throw new RuntimeException(message, e);
+            if (extraction != null) {
+                try {
+                    extraction.add(part);
+                } catch (IOException e) {
+                    String message = "Failed extracting " + reference + ": ";
+                    log.log(Level.SEVERE, message + e.getMessage(), e);
+                    throw new RuntimeException(message, e);
+                }
+            } else {
+                try {
+                    Files.write(inprogressFile.toPath(), part, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                } catch (IOException e) {
+                    String message = "Failed writing to file (" + inprogressFile.toPath() + "): ";
+                    log.log(Level.SEVERE, message + e.getMessage(), e);
+                    boolean successfulDelete = inprogressFile.delete();
+                    if ( ! successfulDelete)
+                        log.log(Level.INFO, "Unable to delete " + inprogressFile.toPath());
+                    throw new RuntimeException(message, e);
+                }
             }
             currentFileSize += part.length;
             currentPartId++;
@@ -113,12 +156,10 @@ public class FileReceiver {
         }
 
         File close(long hash) {
-            verifyHash(hash);
-
             File file = new File(fileReferenceDir, fileName);
-            File decompressedDir = null;
             try {
                 if (fileType == Type.file) {
+                    verifyHash(hash);
                     try {
                         Files.createDirectories(fileReferenceDir.toPath());
                     } catch (IOException e) {
@@ -128,17 +169,19 @@ public class FileReceiver {
                     log.log(Level.FINE, () -> "Uncompressed file, moving to " + file.getAbsolutePath());
                     moveFileToDestination(inprogressFile, file);
                 } else {
-                    decompressedDir = Files.createTempDirectory(tmpDir.toPath(), "archive").toFile();
-                    log.log(Level.FINE, () -> "compression type to use=" + compressionType);
-                    new FileReferenceCompressor(fileType, compressionType).decompress(inprogressFile, decompressedDir);
-                    moveFileToDestination(decompressedDir, fileReferenceDir);
+                    extraction.finish();
+                    verifyHash(hash);
+                    extraction.throwIfFailed();
+                    log.log(Level.FINE, () -> "Extracted " + reference + " with compression type " + compressionType);
+                    moveFileToDestination(extraction.directory, fileReferenceDir);
                 }
             } catch (IOException e) {
                 log.log(Level.SEVERE, "Failed writing file: " + e.getMessage(), e);
                 throw new RuntimeException("Failed writing file: ", e);
             } finally {
                 deletePath(inprogressFile);
-                deletePath(decompressedDir);
+                if (extraction != null)
+                    deletePath(extraction.directory);
             }
             return file;
         }
@@ -154,6 +197,134 @@ public class FileReceiver {
 
     }
 
+    /**
+     * Extracts a compressed file reference into a directory on a separate thread, while its parts are received,
+     * so the extraction overlaps with the transfer, and the archive itself is never written to disk.
+     */
+    private static class Extraction {
+
+        private static final int maxQueuedParts = 8;
+        private static final Duration defaultPartTimeout = Duration.ofMinutes(5);
+        private static final byte[] endOfParts = new byte[0];
+
+        private final BlockingQueue<byte[]> parts = new ArrayBlockingQueue<>(maxQueuedParts);
+        private final File directory;
+        private final Duration partTimeout;
+        private final Thread thread;
+        private volatile Exception failure = null;
+
+        Extraction(File directory, FileReferenceCompressor compressor, FileReference reference, Duration partTimeout) {
+            this.directory = directory;
+            this.partTimeout = partTimeout;
+            this.thread = new Thread(() -> extract(compressor), "extract-" + reference.value());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void extract(FileReferenceCompressor compressor) {
+            PartsInputStream input = new PartsInputStream();
+            try {
+                compressor.decompress(input, directory);
+            } catch (Exception e) {
+                failure = e;
+            }
+            try {
+                // Consume any trailing parts, so the receiver never blocks on a completed or failed extraction,
+                // unless the sender has stopped sending them
+                if ( ! input.timedOut)
+                    input.skipToEnd();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+            // The session may be abandoned, in which case nobody else will clean up
+            if (failure != null)
+                deletePath(directory);
+        }
+
+        void add(byte[] part) throws IOException {
+            throwIfFailed();
+            offer(part);
+        }
+
+        /** Signals that all parts are added, and waits for the extraction to complete */
+        void finish() throws IOException {
+            offer(endOfParts);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for extraction of " + directory);
+            }
+        }
+
+        void throwIfFailed() throws IOException {
+            Exception failure = this.failure;
+            if (failure != null) throw new IOException("Extraction into " + directory + " failed", failure);
+        }
+
+        private void offer(byte[] part) throws IOException {
+            try {
+                if ( ! parts.offer(part, partTimeout.toMillis(), TimeUnit.MILLISECONDS))
+                    throw new IOException("Timed out waiting for extraction into " + directory);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while adding part to extraction into " + directory);
+            }
+        }
+
+        /** Reads the parts in the order they are added */
+        private class PartsInputStream extends InputStream {
+
+            private byte[] part = new byte[0];
+            private int position = 0;
+            private boolean timedOut = false;
+
+            @Override
+            public int read() throws IOException {
+                if ( ! nextPartIfConsumed()) return -1;
+                return part[position++] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) return 0;
+                if ( ! nextPartIfConsumed()) return -1;
+                int length = Math.min(len, part.length - position);
+                System.arraycopy(part, position, b, off, length);
+                position += length;
+                return length;
+            }
+
+            void skipToEnd() throws IOException {
+                while (nextPartIfConsumed())
+                    position = part.length;
+            }
+
+            /** Returns false if all parts are consumed, true if there are unread bytes in the current part */
+            private boolean nextPartIfConsumed() throws IOException {
+                while (position == part.length) {
+                    if (part == endOfParts) return false;
+                    byte[] next;
+                    try {
+                        next = parts.poll(partTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for parts");
+                    }
+                    if (next == null) {
+                        timedOut = true;
+                        throw new IOException("Timed out waiting for parts");
+                    }
+                    part = next;
+                    position = 0;
+                }
+                return true;
+            }
+
+        }
+
+    }
+
     FileReceiver(Supervisor supervisor, Downloads downloads, File downloadDirectory) {
         this.supervisor = supervisor;
         this.downloads = downloads;
@@ -193,7 +364,7 @@ public class FileReceiver {
         return methods;
     }
 
-    private static void moveFileToDestination(File tempFile, File destination) {
+    static void moveFileToDestination(File tempFile, File destination) {
         try {
             Files.move(tempFile.toPath(), destination.toPath());
             log.log(Level.FINEST, () -> "File moved from " + tempFile.getAbsolutePath()+ " to " + destination.getAbsolutePath());
@@ -2,6 +2,7 @@
 package com.yahoo.vespa.filedistribution;
 
 import com.google.common.io.ByteStreams;
+import com.yahoo.compress.ZstdInputStream;
 import net.jpountz.lz4.LZ4BlockInputStream;
 import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.apache.commons.compress.archivers.ArchiveEntry;
@@ -35,6 +36,7 @@ public class FileReferenceCompressor {
 
     private static final Logger log = Logger.getLogger(FileReferenceCompressor.class.getName());
     private static final int recurseDepth = 100;
+    private static final int zstdCompressionThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
 
     private final FileReferenceData.Type type;
     private final FileReferenceData.CompressionType compressionType;
@@ -62,13 +64,23 @@ public class FileReferenceCompressor {
 
     public void decompress(File inputFile, File outputDir) throws IOException {
         log.log(Level.FINE, () -> "Decompressing '" + inputFile + "' into '" + outputDir + "'");
-        try (ArchiveInputStream ais = new TarArchiveInputStream(decompressedInputStream(inputFile))) {
+        try (ArchiveInputStream ais = new TarArchiveInputStream(decompressedInputStream(new FileInputStream(inputFile)))) {
             decompress(ais, outputDir);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Unable to decompress '" + inputFile.getAbsolutePath() + "': " + e.getMessage());
         }
     }
 
+    /** Decompresses the archive read from the given stream into the given directory, writing each entry as it is read */
+    public void decompress(InputStream input, File outputDir) throws IOException {
+        log.log(Level.FINE, () -> "Decompressing stream into '" + outputDir + "'");
+        try (ArchiveInputStream ais = new TarArchiveInputStream(decompressedInputStream(input))) {
+            decompress(ais, outputDir);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unable to decompress stream into '" + outputDir.getAbsolutePath() + "': " + e.getMessage());
+        }
+    }
+
     private static void decompress(ArchiveInputStream archiveInputStream, File outputFile) throws IOException {
         int entries = 0;
         ArchiveEntry entry;
@@ -113,7 +125,9 @@ public class FileReferenceCompressor {
     private static void writeFileToTar(ArchiveOutputStream taos, File baseDir, File file) throws IOException {
         log.log(Level.FINEST, () -> "Adding file to tar: " + baseDir.toPath().relativize(file.toPath()).toString());
         taos.putArchiveEntry(taos.createArchiveEntry(file, baseDir.toPath().relativize(file.toPath()).toString()));
-        ByteStreams.copy(new FileInputStream(file), taos);
+        try (InputStream in = new FileInputStream(file)) {
+            ByteStreams.copy(in, taos);
+        }
         taos.closeArchiveEntry();
     }
 
@@ -126,6 +140,8 @@ public class FileReferenceCompressor {
                         return new GZIPOutputStream(new FileOutputStream(outputFile));
                     case lz4:
                         return new LZ4BlockOutputStream(new FileOutputStream(outputFile));
+                    case zstd:
+                        return new ParallelZstdOutputStream(new FileOutputStream(outputFile), zstdCompressionThreads);
                     default:
                         throw new RuntimeException("Unknown compression type " + compressionType);
                 }
@@ -136,20 +152,22 @@ public class FileReferenceCompressor {
         }
     }
 
-    private InputStream decompressedInputStream(File inputFile) throws IOException {
+    private InputStream decompressedInputStream(InputStream input) throws IOException {
         switch (type) {
             case compressed:
                 log.log(Level.FINE, () -> "Decompressing with compression type " + compressionType);
                 switch (compressionType) {
                     case gzip:
-                        return new GZIPInputStream(new FileInputStream(inputFile));
+                        return new GZIPInputStream(input);
                     case lz4:
-                        return new LZ4BlockInputStream(new FileInputStream(inputFile));
+                        return new LZ4BlockInputStream(input);
+                    case zstd:
+                        return new ZstdInputStream(input);
                     default:
                         throw new RuntimeException("Unknown compression type " + compressionType);
                 }
             case file:
-                return new FileInputStream(inputFile);
+                return input;
             default:
                 throw new RuntimeException("Unknown file reference type " + type);
         }
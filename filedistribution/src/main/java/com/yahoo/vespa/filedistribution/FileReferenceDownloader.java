@@ -10,8 +10,11 @@ import com.yahoo.jrt.StringValue;
 import com.yahoo.vespa.config.Connection;
 import com.yahoo.vespa.config.ConnectionPool;
 import java.io.File;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -32,6 +35,7 @@ import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType
 public class FileReferenceDownloader {
 
     private final static Logger log = Logger.getLogger(FileReferenceDownloader.class.getName());
+    private final static int chunkedDownloadParallelism = 8;
 
     private final ExecutorService downloadExecutor =
             Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors()),
@@ -43,6 +47,7 @@ public class FileReferenceDownloader {
     private final Duration rpcTimeout;
     private final File downloadDirectory;
     private final Set<CompressionType> acceptedCompressionTypes;
+    private final Optional<ChunkedFileDownloader> chunkedDownloader;
 
     FileReferenceDownloader(ConnectionPool connectionPool,
                             Downloads downloads,
@@ -58,6 +63,10 @@ public class FileReferenceDownloader {
         String timeoutString = System.getenv("VESPA_CONFIGPROXY_FILEDOWNLOAD_RPC_TIMEOUT");
         this.rpcTimeout = Duration.ofSeconds(timeoutString == null ? 30 : Integer.parseInt(timeoutString));
         this.acceptedCompressionTypes = requireNonEmpty(acceptedCompressionTypes);
+        // Download plain files in chunks, in parallel from all sources, when the sources support it
+        this.chunkedDownloader = Boolean.parseBoolean(System.getenv("VESPA_FILE_DISTRIBUTION_CHUNKED_DOWNLOAD"))
+                ? Optional.of(new ChunkedFileDownloader(downloadDirectory, rpcTimeout, chunkedDownloadParallelism))
+                : Optional.empty();
     }
 
     private void waitUntilDownloadStarted(FileReferenceDownload fileReferenceDownload) {
@@ -70,8 +79,15 @@ public class FileReferenceDownloader {
 
             if (FileDownloader.fileReferenceExists(fileReference, downloadDirectory))
                 return;
-            if (startDownloadRpc(fileReferenceDownload, retryCount, connection))
-                return;
+            try {
+                if (downloadInChunks(fileReference, connection))
+                    return;
+                if (startDownloadRpc(fileReferenceDownload, retryCount, connection))
+                    return;
+            } catch (UncheckedIOException e) {
+                // Chunks downloaded so far are kept, so the next attempt continues where this stopped
+                log.log(retryCount > 3 ? Level.INFO : Level.FINE, e.getMessage() + ": " + e.getCause().getMessage());
+            }
 
             retryCount++;
             // There might not be one connection that works for all file references (each file reference might
@@ -106,6 +122,29 @@ public class FileReferenceDownloader {
         return fileReferenceDownload.future();
     }
 
+    /**
+     * Downloads the given file reference in chunks, if enabled, and if any source serves it in chunks.
+     *
+     * @return whether the file reference was downloaded
+     * @throws UncheckedIOException if the chunked download started, but failed
+     */
+    private boolean downloadInChunks(FileReference fileReference, Connection connection) {
+        if (chunkedDownloader.isEmpty()) return false;
+
+        Optional<File> file = chunkedDownloader.get().download(fileReference, sources(connection), downloads);
+        file.ifPresent(f -> downloads.completedDownloading(fileReference, f));
+        return file.isPresent();
+    }
+
+    /** Returns all sources to download from, starting with the given one */
+    private List<Connection> sources(Connection first) {
+        List<Connection> sources = new ArrayList<>();
+        sources.add(first);
+        if (connectionPool instanceof FileDistributionConnectionPool pool)
+            pool.connections().stream().filter(connection -> connection != first).forEach(sources::add);
+        return sources;
+    }
+
     void failedDownloading(FileReference fileReference) {
         downloads.remove(fileReference);
     }
@@ -162,6 +201,7 @@ public class FileReferenceDownloader {
     }
 
     public void close() {
+        chunkedDownloader.ifPresent(ChunkedFileDownloader::close);
         downloadExecutor.shutdown();
         try {
             downloadExecutor.awaitTermination(1, TimeUnit.SECONDS);
@@ -0,0 +1,119 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.compress.ZstdCompressor;
+import com.yahoo.concurrent.DaemonThreadFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compresses into a sequence of independent Zstd frames, which are compressed in parallel and written in order,
+ * and which may be read with {@link com.yahoo.compress.ZstdInputStream}. At most two frames per thread are kept
+ * in memory at any time.
+ */
+class ParallelZstdOutputStream extends OutputStream {
+
+    static final int defaultFrameSize = 1 << 20;
+
+    private final ZstdCompressor compressor = new ZstdCompressor();
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int frameSize;
+    private final int maxPendingFrames;
+    private byte[] buffer;
+    private int position = 0;
+    private boolean closed = false;
+
+    ParallelZstdOutputStream(OutputStream out, int threads) {
+        this(out, threads, defaultFrameSize);
+    }
+
+    ParallelZstdOutputStream(OutputStream out, int threads, int frameSize) {
+        this.out = out;
+        this.executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory("zstd-compressor-"));
+        this.frameSize = frameSize;
+        this.maxPendingFrames = 2 * threads;
+        this.buffer = new byte[frameSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        throwIfClosed();
+        buffer[position++] = (byte) b;
+        if (position == frameSize) submitFrame();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        throwIfClosed();
+        int end = off + len;
+        while (off < end) {
+            int length = Math.min(end - off, frameSize - position);
+            System.arraycopy(b, off, buffer, position, length);
+            off += length;
+            position += length;
+            if (position == frameSize) submitFrame();
+        }
+    }
+
+    /** Compresses and writes all data written so far, as a frame which may be shorter than the frame size */
+    @Override
+    public void flush() throws IOException {
+        throwIfClosed();
+        if (position > 0) submitFrame();
+        writeCompressedFrames(0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        try {
+            flush();
+            out.close();
+        }
+        finally {
+            closed = true;
+            executor.shutdownNow();
+        }
+    }
+
+    private void submitFrame() throws IOException {
+        byte[] frame = buffer;
+        int length = position;
+        pending.add(executor.submit(() -> compressor.compress(frame, 0, length)));
+        buffer = new byte[frameSize];
+        position = 0;
+        writeCompressedFrames(maxPendingFrames - 1);
+    }
+
+    /** Writes compressed frames in order, waiting for them as necessary, until no more than the given number are pending */
+    private void writeCompressedFrames(int maxPending) throws IOException {
+        while (pending.size() > maxPending) {
+            try {
+                out.write(pending.poll().get());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while compressing");
+            }
+            catch (ExecutionException e) {
+                throw new IOException("Failed compressing frame", e.getCause());
+            }
+        }
+    }
+
+    private void throwIfClosed() throws IOException {
+        if (closed) throw new IOException("Stream is closed");
+    }
+
+}
@@ -0,0 +1,174 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.config.FileReference;
+import com.yahoo.jrt.Acceptor;
+import com.yahoo.jrt.ListenFailedException;
+import com.yahoo.jrt.Spec;
+import com.yahoo.jrt.Supervisor;
+import com.yahoo.jrt.Transport;
+import com.yahoo.vespa.config.JRTConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkedFileDownloaderTest {
+
+    private static final int chunkSize = 64;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<Source> servers = new ArrayList<>();
+    private final Supervisor client = new Supervisor(new Transport("client"));
+    private final Downloads downloads = new Downloads();
+    private File downloadDirectory;
+    private ChunkedFileDownloader downloader;
+
+    @Before
+    public void setup() throws IOException {
+        downloadDirectory = temporaryFolder.newFolder("download");
+        downloader = new ChunkedFileDownloader(downloadDirectory, Duration.ofSeconds(10), 4);
+    }
+
+    @After
+    public void teardown() {
+        downloader.close();
+        servers.forEach(Source::close);
+        client.transport().shutdown().join();
+    }
+
+    @Test
+    public void downloadsFromSourcesWhichHaveTheFile() throws Exception {
+        byte[] content = randomBytes(1000, 1);
+        Source empty = new Source();
+        Source full = new Source();
+        full.add("ref-a", "model.onnx", content);
+
+        File file = download("ref-a", empty, full).orElseThrow();
+        assertEquals("model.onnx", file.getName());
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertEquals(1.0, downloadStatus("ref-a"), 1e-9);
+        assertEquals(16, full.chunkRequests.get());
+        assertEquals(0, empty.chunkRequests.get());
+    }
+
+    @Test
+    public void notServedInChunksIfNoSourceHasAPlainFile() throws Exception {
+        Source source = new Source();
+        source.files.put("ref-dir", temporaryFolder.newFolder("directory"));
+        assertTrue(download("ref-dir", source).isEmpty());
+        assertTrue(download("ref-unknown", source).isEmpty());
+    }
+
+    @Test
+    public void resumesInterruptedDownload() throws Exception {
+        byte[] content = randomBytes(1000, 2);
+        Source source = new Source();
+        source.add("ref-a", "model.onnx", content);
+
+        // The first 5 chunks were written before the download was interrupted, and the 6th partially
+        File chunks = new File(downloadDirectory, ChunkedFileDownloader.chunksDirectoryName);
+        assertTrue(chunks.mkdirs());
+        Files.write(new File(chunks, "ref-a.inprogress").toPath(), Arrays.copyOf(content, 5 * chunkSize + 10));
+
+        File file = download("ref-a", source).orElseThrow();
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertEquals(11, source.chunkRequests.get());
+    }
+
+    @Test
+    public void reusesChunksFromEarlierDownloadsAndRepeatedChunks() throws Exception {
+        byte[] first = randomBytes(1000, 3);
+        byte[] second = first.clone();
+        second[100] ^= 1; // Changes chunk 1
+        System.arraycopy(second, 3 * chunkSize, second, 4 * chunkSize, chunkSize); // Chunk 4 is now a copy of chunk 3
+        Source source = new Source();
+        source.add("ref-1", "model.onnx", first);
+        source.add("ref-2", "model.onnx", second);
+
+        assertArrayEquals(first, Files.readAllBytes(download("ref-1", source).orElseThrow().toPath()));
+        assertEquals(16, source.chunkRequests.getAndSet(0));
+
+        assertArrayEquals(second, Files.readAllBytes(download("ref-2", source).orElseThrow().toPath()));
+        assertEquals(1, source.chunkRequests.getAndSet(0));
+
+        byte[] zeros = new byte[1000];
+        source.add("ref-3", "zeros", zeros);
+        assertArrayEquals(zeros, Files.readAllBytes(download("ref-3", source).orElseThrow().toPath()));
+        assertEquals(2, source.chunkRequests.get()); // 15 full chunks of zeros, and a shorter last one
+    }
+
+    private Optional<File> download(String reference, Source... sources) {
+        List<JRTConnection> connections = new ArrayList<>();
+        for (Source source : sources)
+            connections.add(new JRTConnection("tcp/localhost:" + source.acceptor.port(), client));
+        return downloader.download(new FileReference(reference), connections, downloads);
+    }
+
+    private double downloadStatus(String reference) {
+        return downloads.downloadStatus(new FileReference(reference));
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private class Source {
+
+        final Map<String, File> files = new HashMap<>();
+        final AtomicInteger chunkRequests = new AtomicInteger();
+        final Supervisor supervisor = new Supervisor(new Transport("source"));
+        final FileChunkServer server = new FileChunkServer(supervisor,
+                                                           reference -> Optional.ofNullable(files.get(reference.value())),
+                                                           request -> {
+                                                               if (request.methodName().equals(FileChunkServer.GET_CHUNK_METHOD))
+                                                                   chunkRequests.incrementAndGet();
+                                                               return CompletableFuture.completedFuture(null);
+                                                           },
+                                                           chunkSize);
+        final Acceptor acceptor;
+
+        Source() throws ListenFailedException {
+            acceptor = supervisor.listen(new Spec(0));
+            servers.add(this);
+        }
+
+        void add(String reference, String filename, byte[] content) throws IOException {
+            File directory = temporaryFolder.newFolder();
+            File file = new File(directory, filename);
+            Files.write(file.toPath(), content);
+            files.put(reference, file);
+        }
+
+        void close() {
+            server.close();
+            acceptor.shutdown().join();
+            supervisor.transport().shutdown().join();
+        }
+
+    }
+
+}
@@ -15,13 +15,20 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
 
 import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType;
 import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType.gzip;
 import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType.lz4;
+import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType.zstd;
 import static com.yahoo.vespa.filedistribution.FileReferenceData.Type.compressed;
 import static com.yahoo.vespa.filedistribution.FileReferenceData.Type.file;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 public class FileReceiverTest {
     private File root;
@@ -75,6 +82,65 @@ public class FileReceiverTest {
         downloadDir = new File(root, "ref");
         assertEquals("1", IOUtils.readFile(new File(downloadDir, "a")));
         assertEquals("2", IOUtils.readFile(new File(downloadDir, "b")));
+
+        tempFile = temporaryFolder.newFile();
+        file = new FileReferenceCompressor(compressed, zstd).compress(dirWithFiles, tempFile);
+        transferCompressedData(zstd, new FileReference("ref-zstd"), "a", IOUtils.readFileBytes(file));
+        downloadDir = new File(root, "ref-zstd");
+        assertEquals("1", IOUtils.readFile(new File(downloadDir, "a")));
+        assertEquals("2", IOUtils.readFile(new File(downloadDir, "b")));
+    }
+
+    @Test
+    public void receiveCompressedDataInManyParts() throws IOException {
+        File dirWithFiles = temporaryFolder.newFolder("files");
+        byte[] content = new byte[3 * ParallelZstdOutputStream.defaultFrameSize + 17];
+        new Random(1).nextBytes(content);
+        Files.write(new File(dirWithFiles, "random").toPath(), content);
+        Files.write(new File(dirWithFiles, "zeros").toPath(), new byte[content.length]);
+
+        byte[] data = IOUtils.readFileBytes(new FileReferenceCompressor(compressed, zstd).compress(dirWithFiles, temporaryFolder.newFile()));
+        FileReceiver.Session session = new FileReceiver.Session(root, 1, new FileReference("ref"), compressed, zstd, "random", data.length);
+        int partSize = 1 << 16;
+        for (int i = 0, offset = 0; offset < data.length; i++, offset += partSize)
+            session.addPart(i, Arrays.copyOfRange(data, offset, Math.min(data.length, offset + partSize)));
+        session.close(hasher.hash(ByteBuffer.wrap(data), 0));
+
+        File downloadDir = new File(root, "ref");
+        assertArrayEquals(content, Files.readAllBytes(new File(downloadDir, "random").toPath()));
+        assertArrayEquals(new byte[content.length], Files.readAllBytes(new File(downloadDir, "zeros").toPath()));
+    }
+
+    @Test
+    public void receiveCorruptCompressedData() throws IOException {
+        byte[] data = new byte[100_000];
+        new Random(2).nextBytes(data);
+        try {
+            transferCompressedData(gzip, new FileReference("ref"), "a", data);
+            fail("Expected extraction to fail");
+        }
+        catch (RuntimeException expected) { }
+        assertFalse(new File(root, "ref").exists());
+        assertEquals(0, root.list().length);
+    }
+
+    @Test
+    public void abandonedCompressedTransferIsCleanedUp() throws IOException, InterruptedException {
+        File dirWithFiles = temporaryFolder.newFolder("files");
+        byte[] content = new byte[3 * ParallelZstdOutputStream.defaultFrameSize];
+        new Random(3).nextBytes(content);
+        Files.write(new File(dirWithFiles, "random").toPath(), content);
+        byte[] data = IOUtils.readFileBytes(new FileReferenceCompressor(compressed, zstd).compress(dirWithFiles, temporaryFolder.newFile()));
+
+        FileReceiver.Session session = new FileReceiver.Session(root, 1, new FileReference("ref"), compressed, zstd,
+                                                                "random", data.length, Duration.ofMillis(100));
+        session.addPart(0, Arrays.copyOf(data, data.length / 2));
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (root.list().length > 0) {
+            if (System.currentTimeMillis() > deadline) fail("Extraction directory was not removed");
+            Thread.sleep(10);
+        }
+        assertFalse(new File(root, "ref").exists());
     }
 
     private void transferPartsAndAssert(FileReference ref, String fileName, String all, int numParts) throws IOException {
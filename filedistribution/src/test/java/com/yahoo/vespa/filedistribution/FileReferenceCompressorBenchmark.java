@@ -0,0 +1,126 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.config.FileReference;
+import com.yahoo.io.IOUtils;
+import net.jpountz.xxhash.StreamingXXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType;
+import static com.yahoo.vespa.filedistribution.FileReferenceData.Type.compressed;
+
+/**
+ * Compresses a synthetic directory with each compression type, and receives it both the old way, by writing all parts
+ * to a file before decompressing it, and by extracting it while parts are received, as {@link FileReceiver} does.
+ * Run with the total size of the directory in megabytes as argument, e.g., 4096.
+ */
+public class FileReferenceCompressorBenchmark {
+
+    private static final int partSize = 1 << 20;
+    private static final int fileSize = 64 << 20;
+
+    private final File root;
+    private final long totalSize;
+
+    public FileReferenceCompressorBenchmark(File root, long totalSize) {
+        this.root = root;
+        this.totalSize = totalSize;
+    }
+
+    public void benchmark() throws IOException {
+        File directory = new File(root, "input");
+        createDirectory(directory);
+        for (CompressionType compressionType : CompressionType.values()) {
+            FileReferenceCompressor compressor = new FileReferenceCompressor(compressed, compressionType);
+            File archive = new File(root, "archive." + compressionType);
+
+            long startTime = System.nanoTime();
+            compressor.compress(directory, archive);
+            long compressTime = System.nanoTime() - startTime;
+
+            File decompressed = new File(root, "decompressed");
+            startTime = System.nanoTime();
+            File inprogress = new File(root, "inprogress");
+            Files.copy(archive.toPath(), inprogress.toPath());
+            compressor.decompress(inprogress, decompressed);
+            long decompressTime = System.nanoTime() - startTime;
+            IOUtils.recursiveDeleteDir(decompressed);
+            IOUtils.recursiveDeleteDir(inprogress);
+
+            startTime = System.nanoTime();
+            receive(archive, compressionType);
+            long receiveTime = System.nanoTime() - startTime;
+            IOUtils.recursiveDeleteDir(new File(root, "ref-" + compressionType));
+
+            System.out.printf("%-5s ratio %.3f, compress %6d ms, write and decompress %6d ms, extract while receiving %6d ms%n",
+                              compressionType, (double) archive.length() / totalSize,
+                              compressTime / 1_000_000, decompressTime / 1_000_000, receiveTime / 1_000_000);
+            IOUtils.recursiveDeleteDir(archive);
+        }
+    }
+
+    /** Feeds the archive in parts to a session, as the parts would arrive from a config server */
+    private void receive(File archive, CompressionType compressionType) throws IOException {
+        StreamingXXHash64 hasher = XXHashFactory.fastestInstance().newStreamingHash64(0);
+        FileReceiver.Session session = new FileReceiver.Session(root, 1, new FileReference("ref-" + compressionType),
+                                                                compressed, compressionType, "input", archive.length());
+        try (InputStream in = new FileInputStream(archive)) {
+            byte[] part;
+            for (int partId = 0; (part = in.readNBytes(partSize)).length > 0; partId++) {
+                hasher.update(part, 0, part.length);
+                session.addPart(partId, part);
+            }
+        }
+        session.close(hasher.getValue());
+    }
+
+    /** Creates files which are alternately text like, and thus compressible, and random, like model weights */
+    private void createDirectory(File directory) throws IOException {
+        Random random = new Random(42);
+        String[] words = new String[1000];
+        for (int i = 0; i < words.length; i++)
+            words[i] = Long.toString(random.nextLong() & 0xffffffffL, 36) + " ";
+
+        byte[] buffer = new byte[1 << 16];
+        for (int i = 0; (long) i * fileSize < totalSize; i++) {
+            File file = new File(directory, "dir" + (i % 8) + "/file" + i);
+            Files.createDirectories(file.getParentFile().toPath());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+                for (long written = 0; written < fileSize; written += buffer.length) {
+                    if (i % 2 == 0) {
+                        for (int j = 0; j < buffer.length; ) {
+                            String word = words[random.nextInt(words.length)];
+                            for (int k = 0; k < word.length() && j < buffer.length; k++)
+                                buffer[j++] = (byte) word.charAt(k);
+                        }
+                    }
+                    else {
+                        random.nextBytes(buffer);
+                    }
+                    out.write(buffer);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        long totalSize = (args.length > 0 ? Long.parseLong(args[0]) : 2048) << 20;
+        File root = Files.createTempDirectory("file-reference-compressor-benchmark").toFile();
+        try {
+            new FileReferenceCompressorBenchmark(root, totalSize).benchmark();
+        }
+        finally {
+            IOUtils.recursiveDeleteDir(root);
+        }
+    }
+
+}
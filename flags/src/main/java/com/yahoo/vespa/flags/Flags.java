@@ -417,16 +417,16 @@ public class Flags {
             APPLICATION_ID);
 
     public static final UnboundListFlag<String> FILE_DISTRIBUTION_ACCEPTED_COMPRESSION_TYPES = defineListFlag(
-            "file-distribution-accepted-compression-types", List.of("gzip", "lz4"), String.class,
+            "file-distribution-accepted-compression-types", List.of("gzip", "lz4", "zstd"), String.class,
             List.of("hmusum"), "2022-07-05", "2022-11-01",
-            "´List of accepted compression types used when asking for a file reference. Valid values: gzip, lz4",
+            "´List of accepted compression types used when asking for a file reference. Valid values: gzip, lz4, zstd",
             "Takes effect on restart of service",
             APPLICATION_ID);
 
     public static final UnboundListFlag<String> FILE_DISTRIBUTION_COMPRESSION_TYPES_TO_SERVE = defineListFlag(
             "file-distribution-compression-types-to-use", List.of("lz4", "gzip"), String.class,
             List.of("hmusum"), "2022-07-05", "2022-11-01",
-            "List of compression types to use (in preferred order), matched with accepted compression types when serving file references. Valid values: gzip, lz4",
+            "List of compression types to use (in preferred order), matched with accepted compression types when serving file references. Valid values: gzip, lz4, zstd",
             "Takes effect on restart of service",
             APPLICATION_ID);
 
@@ -75,6 +75,12 @@ public class PermanentFlags {
             "Takes effect at next run of maintainer",
             APPLICATION_ID);
 
+    public static final UnboundBooleanFlag BINARY_NODE_DATA = defineFeatureFlag(
+            "node-repository-binary-node-data", false,
+            "Whether the node repository should write node data in the binary slime format rather than as JSON. " +
+            "Must not be enabled before all config servers are able to read the binary format.",
+            "Takes effect on next write of each node");
+
     public static final UnboundListFlag<String> INACTIVE_MAINTENANCE_JOBS = defineListFlag(
             "inactive-maintenance-jobs", List.of(), String.class,
             "The list of maintenance jobs that are inactive.",
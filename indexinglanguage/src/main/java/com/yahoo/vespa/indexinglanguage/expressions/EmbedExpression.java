@@ -6,6 +6,7 @@ import com.yahoo.document.DataType;
 import com.yahoo.document.DocumentType;
 import com.yahoo.document.Field;
 import com.yahoo.document.TensorDataType;
+import com.yahoo.document.datatypes.Array;
 import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.datatypes.TensorFieldValue;
 import com.yahoo.language.process.Embedder;
@@ -71,6 +72,28 @@ public class EmbedExpression extends Expression  {
         context.setValue(new TensorFieldValue(tensor));
     }
 
+    /**
+     * Embeds all the strings in the given array in a single call to the embedder,
+     * such that embedders supporting batching can evaluate them in one model invocation.
+     *
+     * @return an array of the embeddings, in the same order as the input
+     */
+    Array<TensorFieldValue> embedAll(Array<?> input, ExecutionContext context) {
+        List<String> texts = new ArrayList<>(input.size());
+        for (Object value : input)
+            texts.add(((StringFieldValue)value).getString());
+        List<Tensor> tensors = embedder.embed(texts,
+                                              new Embedder.Context(destination).setLanguage(context.getLanguage()),
+                                              targetType);
+        if (tensors.size() != texts.size())
+            throw new IllegalStateException("Embedder '" + embedderId + "' returned " + tensors.size() +
+                                            " embeddings for " + texts.size() + " inputs");
+        Array<TensorFieldValue> output = new Array<>(DataType.getArray(new TensorDataType(targetType)), texts.size());
+        for (Tensor tensor : tensors)
+            output.add(new TensorFieldValue(tensor));
+        return output;
+    }
+
     @Override
     protected void doVerify(VerificationContext context) {
         String outputField = context.getOutputField();
@@ -34,7 +34,10 @@ public final class ForEachExpression extends CompositeExpression {
     @Override
     protected void doExecute(final ExecutionContext context) {
         FieldValue input = context.getValue();
-        if (input instanceof Array || input instanceof WeightedSet) {
+        EmbedExpression embed = batchableEmbedExpression();
+        if (embed != null && input instanceof Array && isStringArray((Array<?>)input)) {
+            context.setValue(embed.embedAll((Array<?>)input, context));
+        } else if (input instanceof Array || input instanceof WeightedSet) {
             FieldValue next = new MyConverter(context, exp).convert(input);
             if (next == null) {
                 VerificationContext vctx = new VerificationContext(context);
@@ -50,6 +53,18 @@ public final class ForEachExpression extends CompositeExpression {
         }
     }
 
+    /** Returns the embed expression of this if it is the only thing done per element, such that elements can be batched */
+    private EmbedExpression batchableEmbedExpression() {
+        Expression inner = exp;
+        if (inner instanceof StatementExpression && ((StatementExpression)inner).size() == 1)
+            inner = ((StatementExpression)inner).get(0);
+        return inner instanceof EmbedExpression ? (EmbedExpression)inner : null;
+    }
+
+    private static boolean isStringArray(Array<?> array) {
+        return ((ArrayDataType)array.getDataType()).getNestedType().equals(DataType.STRING);
+    }
+
     @Override
     protected void doVerify(VerificationContext context) {
         DataType valueType = context.getValueType();
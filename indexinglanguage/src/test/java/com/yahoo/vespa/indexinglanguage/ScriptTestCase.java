@@ -20,6 +20,7 @@ import com.yahoo.vespa.indexinglanguage.expressions.*;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -262,10 +263,42 @@ public class ScriptTestCase {
         assertEquals(Tensor.from(tensorType, "[7,3,0,0]"), tensorArray.get(1).getTensor().get());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testArrayEmbedIsBatched() throws ParseException {
+        var embedder = new MockEmbedder("myDocument.myTensorArray", "[7,3,0,0]");
+        TensorType tensorType = TensorType.fromSpec("tensor(d[4])");
+        var expression = Expression.fromString("input myTextArray | for_each { embed } | attribute 'myTensorArray'",
+                                               new SimpleLinguistics(),
+                                               Map.of("emb1", embedder));
+
+        SimpleTestAdapter adapter = new SimpleTestAdapter();
+        adapter.createField(new Field("myTextArray", new ArrayDataType(DataType.STRING)));
+        var tensorField = new Field("myTensorArray", new ArrayDataType(new TensorDataType(tensorType)));
+        adapter.createField(tensorField);
+
+        var array = new Array<StringFieldValue>(new ArrayDataType(DataType.STRING));
+        array.add(new StringFieldValue("first"));
+        array.add(new StringFieldValue("second"));
+        array.add(new StringFieldValue("third"));
+        adapter.setValue("myTextArray", array);
+        expression.setStatementOutput(new DocumentType("myDocument"), tensorField);
+        expression.verify(new VerificationContext(adapter));
+
+        ExecutionContext context = new ExecutionContext(adapter);
+        context.setValue(array);
+        expression.execute(context);
+        var tensorArray = (Array<TensorFieldValue>)adapter.values.get("myTensorArray");
+        assertEquals(3, tensorArray.size());
+        assertEquals(Tensor.from(tensorType, "[7,3,0,0]"), tensorArray.get(2).getTensor().get());
+        assertEquals(List.of(3), embedder.batchSizes);
+    }
+
     private static class MockEmbedder implements Embedder {
 
         private final String expectedDestination;
         private final String tensorString;
+        private final List<Integer> batchSizes = new ArrayList<>();
 
         public MockEmbedder(String expectedDestination, String tensorString) {
             this.expectedDestination = expectedDestination;
@@ -283,6 +316,12 @@ public class ScriptTestCase {
             return Tensor.from(tensorType, tensorString);
         }
 
+        @Override
+        public List<Tensor> embed(List<String> texts, Embedder.Context context, TensorType tensorType) {
+            batchSizes.add(texts.size());
+            return Embedder.super.embed(texts, context, tensorType);
+        }
+
     }
 
     private void assertThrows(Runnable r, String msg) {
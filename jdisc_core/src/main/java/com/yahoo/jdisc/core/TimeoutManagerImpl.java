@@ -14,12 +14,12 @@ import com.yahoo.jdisc.handler.RequestHandler;
 import com.yahoo.jdisc.handler.ResponseHandler;
 
 import java.nio.ByteBuffer;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,7 +33,6 @@ public class TimeoutManagerImpl {
     private final ScheduledQueue [] schedules = new ScheduledQueue[Runtime.getRuntime().availableProcessors()];
     private final Thread thread;
     private final Timer timer;
-    private final AtomicInteger nextScheduler = new AtomicInteger(0);
     private final AtomicBoolean done = new AtomicBoolean(false);
 
     @Inject
@@ -78,8 +77,16 @@ public class TimeoutManagerImpl {
         return timer;
     }
 
+    /**
+     * Returns a new entry in a randomly chosen schedule. The choice is local to the calling thread,
+     * so that threads scheduling concurrently do not contend on anything but the (striped) schedules.
+     */
+    ScheduledQueue.Entry newEntry(Object payload) {
+        return schedules[ThreadLocalRandom.current().nextInt(schedules.length)].newEntry(payload);
+    }
+
     void checkTasks(long currentTimeMillis) {
-        Queue<Object> queue = new LinkedList<>();
+        Queue<Object> queue = new ArrayDeque<>();
         for (ScheduledQueue schedule : schedules) {
             schedule.drainTo(currentTimeMillis, queue);
         }
@@ -204,7 +211,7 @@ public class TimeoutManagerImpl {
                 return;
             }
             if (timeoutQueueEntry == null) {
-                timeoutQueueEntry = schedules[(nextScheduler.incrementAndGet() & 0xffff) % schedules.length].newEntry(this);
+                timeoutQueueEntry = newEntry(this);
             }
             timeoutQueueEntry.scheduleAt(request.creationTime(TimeUnit.MILLISECONDS) + request.getTimeout(TimeUnit.MILLISECONDS));
         }
@@ -23,8 +23,12 @@ import org.junit.jupiter.api.Test;
 
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -151,6 +155,51 @@ public class TimeoutManagerImplTestCase {
         assertTrue(ctx.close());
     }
 
+    @Test
+    void requireThatTimeoutsScheduledConcurrentlyAreAllDrainedInOrder() throws Exception {
+        Context ctx = new Context(MyRequestHandler.newInstance());
+        int numThreads = 8;
+        int numRequestsPerThread = 50;
+        List<MyResponseHandler> early = new ArrayList<>();
+        List<MyResponseHandler> late = new ArrayList<>();
+        for (int i = 0; i < numThreads * numRequestsPerThread; ++i) {
+            early.add(MyResponseHandler.newInstance());
+            late.add(MyResponseHandler.newInstance());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < numThreads; ++i) {
+                int offset = i * numRequestsPerThread;
+                results.add(executor.submit(() -> {
+                    for (int j = offset; j < offset + numRequestsPerThread; ++j) {
+                        ctx.dispatchRequest(100L, early.get(j));
+                        ctx.dispatchRequest(200L, late.get(j));
+                    }
+                }));
+            }
+            for (Future<?> result : results)
+                result.get(600, TimeUnit.SECONDS);
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertTrue(ctx.awaitQueueSize(early.size() + late.size(), 600, TimeUnit.SECONDS));
+
+        ctx.forwardToTime(100);
+        for (MyResponseHandler handler : early)
+            assertTrue(handler.await(600, TimeUnit.SECONDS));
+        assertEquals(late.size(), ctx.timeoutManager.queueSize());
+        for (MyResponseHandler handler : late)
+            assertNull(handler.response.get());
+
+        ctx.forwardToTime(200);
+        for (MyResponseHandler handler : late)
+            assertTrue(handler.await(600, TimeUnit.SECONDS));
+        assertEquals(0, ctx.timeoutManager.queueSize());
+        assertTrue(ctx.close());
+    }
+
     @Test
     void requireThatResponseHandlerIsWellBehavedAfterTimeout() throws InterruptedException {
         Context ctx = new Context(MyRequestHandler.newInstance());
@@ -0,0 +1,85 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jdisc.core;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the throughput of scheduling and unscheduling timeouts concurrently, as every request does,
+ * while the timeout manager thread expires timeouts. This is a benchmark, and is disabled by default;
+ * the behavior it exercises is covered by {@link TimeoutManagerImplTestCase}.
+ */
+public class TimeoutManagerThroughputTestCase {
+
+    private static final int NUM_TIMEOUTS = 100_000;
+    private static final int MIN_THREADS = 1;
+    private static final int MAX_THREADS = 64;
+    private static final ExecutorService executor = Executors.newFixedThreadPool(MAX_THREADS);
+
+    @Test
+    @Disabled("Benchmark, run manually")
+    void runThroughputMeasurements() throws Exception {
+        SystemTimer timer = new SystemTimer();
+        TimeoutManagerImpl timeoutManager = new TimeoutManagerImpl(Executors.defaultThreadFactory(), timer);
+        timeoutManager.start();
+        try {
+            measureThroughput(timeoutManager, timer, MAX_THREADS); // warmup
+
+            System.err.format("%15s%15s%15s%15s%15s%15s%15s\n",
+                              "1 thread", "2 thread", "4 thread", "8 thread", "16 thread", "32 thread", "64 thread");
+            for (int numThreads = MIN_THREADS; numThreads <= MAX_THREADS; numThreads *= 2)
+                System.err.format("%15s", measureThroughput(timeoutManager, timer, numThreads));
+            System.err.format("\n");
+            assertEquals(0, timeoutManager.queueSize());
+        }
+        finally {
+            timeoutManager.shutdown();
+        }
+    }
+
+    /** Returns the number of timeouts scheduled and unscheduled per second */
+    private static long measureThroughput(TimeoutManagerImpl timeoutManager, SystemTimer timer, int numThreads) throws Exception {
+        List<ChurnTask> tasks = new ArrayList<>(numThreads);
+        for (int i = 0; i < numThreads; ++i)
+            tasks.add(new ChurnTask(timeoutManager, timer));
+        long nanos = 0;
+        for (Future<Long> result : executor.invokeAll(tasks))
+            nanos = Math.max(nanos, result.get());
+        return (numThreads * NUM_TIMEOUTS * TimeUnit.SECONDS.toNanos(1)) / nanos;
+    }
+
+    private static class ChurnTask implements Callable<Long> {
+
+        final TimeoutManagerImpl timeoutManager;
+        final SystemTimer timer;
+
+        ChurnTask(TimeoutManagerImpl timeoutManager, SystemTimer timer) {
+            this.timeoutManager = timeoutManager;
+            this.timer = timer;
+        }
+
+        @Override
+        public Long call() {
+            Object payload = new Object();
+            long startTime = System.nanoTime();
+            for (int i = 0; i < NUM_TIMEOUTS; ++i) {
+                ScheduledQueue.Entry entry = timeoutManager.newEntry(payload);
+                entry.scheduleAt(timer.currentTimeMillis() + 1000 + i % 60_000);
+                entry.unschedule();
+            }
+            return System.nanoTime() - startTime;
+        }
+
+    }
+
+}
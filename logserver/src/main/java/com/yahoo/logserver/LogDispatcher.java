@@ -86,10 +86,26 @@ public class LogDispatcher implements LogHandler {
         send(todo);
     }
 
+    /**
+     * Dispatches a list of messages, e.g., those received in one RPC request.
+     * Unless in batched mode, the list is passed on to the handlers as a
+     * single unit, so handler threads queue and process it in one go.
+     */
     public void handle(List<LogMessage> messages) {
+        if (batchedMode.get()) {
+            for (var message : messages) {
+                handle(message);
+            }
+            return;
+        }
         for (var message : messages) {
-            handle(message);
+            if (message == null) {
+                throw new NullPointerException("LogMessage was null");
+            }
         }
+        if (messages.isEmpty()) { return; }
+        send(messages);
+        messageCount.addAndGet(messages.size());
     }
 
     /**
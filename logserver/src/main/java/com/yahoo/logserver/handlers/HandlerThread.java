@@ -201,6 +201,9 @@ public class HandlerThread extends Thread implements LogHandler {
                         throw new IllegalArgumentException("not LogMessage or List: " + o);
                     }
                 }
+                // Handlers may buffer output; make what was handled in this batch visible
+                // without waiting for the Flusher, and bound what is lost if we die
+                flush();
             }
         } catch (InterruptedException e) {
             // NOP
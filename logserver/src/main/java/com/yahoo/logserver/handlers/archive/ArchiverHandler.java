@@ -2,6 +2,7 @@
 package com.yahoo.logserver.handlers.archive;
 
 import com.yahoo.log.LogMessage;
+import com.yahoo.log.event.Event;
 import com.yahoo.logserver.handlers.AbstractLogHandler;
 
 import java.io.File;
@@ -11,8 +12,10 @@ import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.LongAccumulator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
 
 
 /**
@@ -21,6 +24,11 @@ import java.util.logging.Logger;
  * is to make it easy to locate messages in a time interval, while
  * ensuring that no log file exceeds the maximum allowed size.
  * <p>
+ * Messages are written to the log writer of their hour, whose writes are buffered,
+ * while old files are compressed in the background by {@link FilesArchived}.
+ * The lag between the timestamp of archived messages and the time they are archived
+ * is reported as an event metric.
+ * </p><p>
  * This class is not thread safe.
  * </p>
  *
@@ -44,6 +52,13 @@ public class ArchiverHandler extends AbstractLogHandler {
      */
     private static final int maxFilesOpen = 100;
 
+    private static final long millisPerHour = 3600 * 1000;
+
+    /**
+     * Minimum interval between reports of the ingest lag
+     */
+    private static final long lagReportIntervalMillis = 60 * 1000;
+
     /**
      * The maximum number of bytes we allow a file to grow to
      * before we rotate it
@@ -68,6 +83,18 @@ public class ArchiverHandler extends AbstractLogHandler {
 
     private FilesArchived filesArchived;
 
+    /**
+     * The writer of the hour of the last message, and the start of that hour
+     */
+    private LogWriter currentWriter = null;
+    private long currentHourStart = Long.MIN_VALUE;
+
+    /**
+     * The largest difference between the time of archiving and the timestamp of a message since the last report
+     */
+    private final LongAccumulator maxIngestLagMillis = new LongAccumulator(Math::max, 0);
+    private long lastLagReport = System.currentTimeMillis();
+
     /**
      * Creates an ArchiverHandler
      */
@@ -87,8 +114,16 @@ public class ArchiverHandler extends AbstractLogHandler {
      * the given root directory.
      */
     public ArchiverHandler(String rootDir, int maxFileSize, String zip) {
+        this(rootDir, maxFileSize, zip, FilesArchived.defaultCompressionThreads, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates an ArchiverHandler which puts files under the given root directory,
+     * and compresses them with the given number of threads and (gzip) level.
+     */
+    public ArchiverHandler(String rootDir, int maxFileSize, String zip, int compressionThreads, int compressionLevel) {
         this();
-        setRootDir(rootDir, zip);
+        setRootDir(rootDir, zip, compressionThreads, compressionLevel);
         this.maxFileSize = maxFileSize;
     }
 
@@ -97,16 +132,24 @@ public class ArchiverHandler extends AbstractLogHandler {
      * Return the appropriate LogWriter given a log message.
      */
     private synchronized LogWriter getLogWriter(LogMessage m) throws IOException {
-        Integer slot = dateHash(m.getTimestamp().toEpochMilli());
-        LogWriter logWriter = logWriterLRUCache.get(slot);
-        if (logWriter != null) {
-            return logWriter;
+        long time = m.getTimestamp().toEpochMilli();
+        long hourStart = time - Math.floorMod(time, millisPerHour);
+        // Most messages are in the same hour as the previous one. Writers are only evicted from
+        // the cache when another one is added, and the current writer is then the added one.
+        if (hourStart == currentHourStart) {
+            return currentWriter;
         }
 
-        // invariant: LogWriter we sought was not in the cache
-        logWriter = new LogWriter(getPrefix(m), maxFileSize, filesArchived);
-        logWriterLRUCache.put(slot, logWriter);
+        Integer slot = dateHash(time);
+        LogWriter logWriter = logWriterLRUCache.get(slot);
+        if (logWriter == null) {
+            // invariant: LogWriter we sought was not in the cache
+            logWriter = new LogWriter(getPrefix(m), maxFileSize, filesArchived);
+            logWriterLRUCache.put(slot, logWriter);
+        }
 
+        currentWriter = logWriter;
+        currentHourStart = hourStart;
         return logWriter;
     }
 
@@ -163,6 +206,7 @@ public class ArchiverHandler extends AbstractLogHandler {
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        maxIngestLagMillis.accumulate(System.currentTimeMillis() - msg.getTimestamp().toEpochMilli());
         return true;
     }
 
@@ -174,6 +218,22 @@ public class ArchiverHandler extends AbstractLogHandler {
                 log.log(Level.WARNING, "Flushing failed", e);
             }
         }
+        reportIngestLag();
+    }
+
+    /**
+     * Returns the largest difference between the time of archiving and the timestamp of messages since the last report.
+     */
+    long maxIngestLagMillis() {
+        return maxIngestLagMillis.get();
+    }
+
+    private void reportIngestLag() {
+        long now = System.currentTimeMillis();
+        if (now - lastLagReport < lagReportIntervalMillis) return;
+
+        lastLagReport = now;
+        Event.value("logserver.archive.ingest_lag_max", maxIngestLagMillis.getThenReset() / 1000.0);
     }
 
     public synchronized void close() {
@@ -187,9 +247,11 @@ public class ArchiverHandler extends AbstractLogHandler {
             }
             it.remove();
         }
+        currentWriter = null;
+        currentHourStart = Long.MIN_VALUE;
     }
 
-    private void setRootDir(String rootDir, String zip) {
+    private void setRootDir(String rootDir, String zip, int compressionThreads, int compressionLevel) {
         // roundabout way of setting things, but this way we can
         // get around Java's ineptitude for file handling (relative paths in File are broken)
         absoluteRootDir = new File(rootDir).getAbsolutePath();
@@ -205,7 +267,7 @@ public class ArchiverHandler extends AbstractLogHandler {
                 log.log(Level.FINE, () -> "Created root at " + absoluteRootDir);
             }
         }
-        filesArchived = new FilesArchived(root, zip);
+        filesArchived = new FilesArchived(root, zip, compressionThreads, compressionLevel);
     }
 
     public String toString() {
@@ -22,6 +22,10 @@ public class ArchiverPlugin implements Plugin {
 
     private static final String DEFAULT_COMPRESSION = "gzip";
 
+    private static final String DEFAULT_COMPRESSION_THREADS = String.valueOf(FilesArchived.defaultCompressionThreads);
+
+    private static final String DEFAULT_COMPRESSION_LEVEL = "-1";
+
     private final Server server = Server.getInstance();
     private static final Logger log = Logger.getLogger(ArchiverPlugin.class.getName());
     private ArchiverHandler archiver;
@@ -41,6 +45,9 @@ public class ArchiverPlugin implements Plugin {
      * maxfilesize
      * dir            The root of the logarchive, make sure this does
      * <b>not</b> end with a '/' character.
+     * compression    gzip or zstd
+     * compressionthreads  The number of log files to compress in parallel
+     * compressionlevel    The gzip compression level, 1-9, or -1 for the default
      */
     public void initPlugin(Config config) {
 
@@ -55,9 +62,11 @@ public class ArchiverPlugin implements Plugin {
         int maxFileSize = config.getInt("maxfilesize", DEFAULT_MAXFILESIZE);
         String threadName = config.get("thread", getPluginName());
         String zip = config.get("compression", DEFAULT_COMPRESSION);
+        int compressionThreads = config.getInt("compressionthreads", DEFAULT_COMPRESSION_THREADS);
+        int compressionLevel = config.getInt("compressionlevel", DEFAULT_COMPRESSION_LEVEL);
 
         // register log handler and flusher
-        archiver = new ArchiverHandler(rootDir, maxFileSize, zip);
+        archiver = new ArchiverHandler(rootDir, maxFileSize, zip, compressionThreads, compressionLevel);
         server.registerLogHandler(archiver, threadName);
         server.registerFlusher(archiver);
     }
@@ -8,19 +8,24 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
 import com.yahoo.compress.ZstdOutputStream;
 import com.yahoo.io.NativeIO;
+import com.yahoo.log.LogArchiveIndex;
 import com.yahoo.log.LogFileDb;
 import com.yahoo.protect.Process;
 import com.yahoo.yolean.Exceptions;
 
 import java.io.BufferedOutputStream;
-import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
 import java.io.OutputStream;
 import java.nio.file.Files;
@@ -46,12 +51,20 @@ public class FilesArchived {
 
     enum Compression {NONE, GZIP, ZSTD}
     private final Compression compression;
+    private final int compressionLevel;
     private final NativeIO nativeIO = new NativeIO();
 
     private final Object mutex = new Object();
+    private final Object maintenanceMonitor = new Object();
+
+    /** Compresses files in the background, so maintenance passes compress several files in parallel */
+    private final ExecutorService compressionExecutor;
+    private final int maxCompressionsPerPass;
 
     // known-existing files inside the archive directory
-    private List<LogFile> knownFiles;
+    private volatile List<LogFile> knownFiles;
+
+    public static final int defaultCompressionThreads = 2;
 
     public static final long compressAfterMillis = 2L * 3600 * 1000;
     private static final long maxAgeDays = 30; // GDPR rules: max 30 days
@@ -81,8 +94,27 @@ public class FilesArchived {
      * Creates an instance of FilesArchive managing the given directory
      */
     public FilesArchived(File rootDir, String zip) {
+        this(rootDir, zip, defaultCompressionThreads, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates an instance of FilesArchive managing the given directory
+     *
+     * @param compressionThreads the number of files to compress in parallel
+     * @param compressionLevel the gzip compression level, 1-9, or -1 for the default. Zstd always uses its default level.
+     */
+    public FilesArchived(File rootDir, String zip, int compressionThreads, int compressionLevel) {
+        if (compressionThreads < 1)
+            throw new IllegalArgumentException("Compression threads must be positive, was " + compressionThreads);
         this.root = rootDir;
         this.compression = ("zstd".equals(zip)) ? Compression.ZSTD : Compression.GZIP;
+        this.compressionLevel = compressionLevel;
+        this.maxCompressionsPerPass = 5 * compressionThreads;
+        this.compressionExecutor = Executors.newFixedThreadPool(compressionThreads, runnable -> {
+            Thread thread = new Thread(runnable, "FilesArchived-compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
         rescan();
         Thread thread = new Thread(this::run);
         thread.setDaemon(true);
@@ -94,7 +126,7 @@ public class FilesArchived {
         return FilesArchived.class.getName() + ": root=" + root;
     }
 
-    public synchronized int highestGen(String prefix) {
+    public int highestGen(String prefix) {
         int gen = 0;
         for (LogFile lf : knownFiles) {
             if (prefix.equals(lf.prefix)) {
@@ -110,25 +142,27 @@ public class FilesArchived {
         }
     }
 
-    synchronized boolean maintenance() {
-        boolean action = false;
-        rescan();
-        if (removeOlderThan(maxAgeDays)) {
-            action = true;
-            rescan();
-        }
-        if (compressOldFiles()) {
-            action = true;
+    boolean maintenance() {
+        synchronized (maintenanceMonitor) {
+            boolean action = false;
             rescan();
-        }
-        long days = maxAgeDays;
-        while (tooMuchDiskUsage() && (--days > 1)) {
-            if (removeOlderThan(days)) {
+            if (removeOlderThan(maxAgeDays)) {
                 action = true;
                 rescan();
             }
+            if (compressOldFiles()) {
+                action = true;
+                rescan();
+            }
+            long days = maxAgeDays;
+            while (tooMuchDiskUsage() && (--days > 1)) {
+                if (removeOlderThan(days)) {
+                    action = true;
+                    rescan();
+                }
+            }
+            return action;
         }
-        return action;
     }
 
     private void rescan() {
@@ -153,6 +187,7 @@ public class FilesArchived {
         for (LogFile lf : knownFiles) {
             if (olderThan(lf, days, now)) {
                 lf.path.delete();
+                LogArchiveIndex.pathOf(lf.path.toPath()).toFile().delete();
                 log.info("Deleted: "+lf.path);
                 action = true;
             }
@@ -163,14 +198,24 @@ public class FilesArchived {
     // returns true if any files were compressed
     private boolean compressOldFiles() {
         long now = System.currentTimeMillis();
-        int count = 0;
+        List<Future<?>> compressions = new ArrayList<>();
         for (LogFile lf : knownFiles) {
             // avoid compressing entire archive at once
-            if (lf.canCompress(now) && (count++ < 5)) {
-                compress(lf.path);
+            if (lf.canCompress(now) && compressions.size() < maxCompressionsPerPass) {
+                compressions.add(compressionExecutor.submit(() -> compress(lf.path)));
             }
         }
-        return count > 0;
+        for (Future<?> compression : compressions) {
+            try {
+                compression.get();
+            } catch (ExecutionException e) {
+                log.log(Level.WARNING, "Failed compressing log file", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return ! compressions.isEmpty();
     }
 
 
@@ -192,7 +237,7 @@ public class FilesArchived {
 
     private void compressGzip(File oldFile) {
         File gzippedFile = new File(oldFile.getPath() + ".gz");
-        try (GZIPOutputStream compressor = new GZIPOutputStream(new FileOutputStream(gzippedFile), 0x100000);
+        try (GZIPOutputStream compressor = new LeveledGZIPOutputStream(new FileOutputStream(gzippedFile), 0x100000, compressionLevel);
              FileInputStream inputStream = new FileInputStream(oldFile))
         {
             long mtime = oldFile.lastModified();
@@ -216,12 +261,14 @@ public class FilesArchived {
             Path compressedFile = Paths.get(oldFile.toString() + ".zst");
             int bufferSize = 2*1024*1024;
             long mtime = oldFile.lastModified();
+            LogArchiveIndex.Builder index = new LogArchiveIndex.Builder();
             try (FileOutputStream fileOut = AtomicFileOutputStream.create(compressedFile);
                  ZstdOutputStream out = new ZstdOutputStream(fileOut, bufferSize);
                  FileInputStream in = new FileInputStream(oldFile))
             {
-                pageFriendlyTransfer(nativeIO, out, fileOut.getFD(), in, bufferSize);
+                pageFriendlyTransfer(nativeIO, out, fileOut, in, bufferSize, index);
                 out.flush();
+                index.writeFor(compressedFile);
             }
             compressedFile.toFile().setLastModified(mtime);
             oldFile.delete();
@@ -260,6 +307,9 @@ public class FilesArchived {
                 File sub = new File(top, name);
                 if (sub.isFile()) {
                     String pathName = sub.toString();
+                    if (LogArchiveIndex.isIndex(sub.toPath())) {
+                        continue; // Removed together with the log file it indexes
+                    }
                     if (dateFormatRegexp.matcher(pathName).matches()) {
                         retval.add(new LogFile(sub));
                     } else {
@@ -325,6 +375,15 @@ public class FilesArchived {
         }
     }
 
+    private static class LeveledGZIPOutputStream extends GZIPOutputStream {
+
+        LeveledGZIPOutputStream(OutputStream out, int size, int level) throws IOException {
+            super(out, size);
+            def.setLevel(level);
+        }
+
+    }
+
     private static class AtomicFileOutputStream extends FileOutputStream {
         private final Path path;
         private final Path tmpPath;
@@ -350,18 +409,91 @@ public class FilesArchived {
         }
     }
 
-    private static void pageFriendlyTransfer(NativeIO nativeIO, OutputStream out, FileDescriptor outDescriptor, FileInputStream in, int bufferSize) throws IOException {
+    /** Compresses the input to the output, adding each compressed frame which starts at a line boundary to the given index */
+    private static void pageFriendlyTransfer(NativeIO nativeIO, ZstdOutputStream out, FileOutputStream fileOut, FileInputStream in,
+                                             int bufferSize, LogArchiveIndex.Builder index) throws IOException {
         int read;
         long totalBytesRead = 0;
         byte[] buffer = new byte[bufferSize];
-        while ((read = in.read(buffer)) >= 0) {
-            out.write(buffer, 0, read);
-            if (read > 0) {
-                nativeIO.dropPartialFileFromCache(in.getFD(), totalBytesRead, read, false);
-                nativeIO.dropPartialFileFromCache(outDescriptor, totalBytesRead, read, false);
+        int carried = 0; // Bytes of an incomplete line at the start of the buffer
+        IndexingFrameWriter writer = new IndexingFrameWriter(out, fileOut, bufferSize, index);
+        while ((read = in.read(buffer, carried, buffer.length - carried)) > 0) {
+            int end = carried + read;
+            int lineStart = 0;
+            for (int i = carried; i < end; i++) {
+                if (buffer[i] != '\n') continue;
+                writer.writeLine(buffer, lineStart, i + 1 - lineStart);
+                lineStart = i + 1;
+            }
+            if (lineStart == 0 && end == buffer.length) { // A line longer than the buffer
+                writer.writeFragment(buffer, 0, end);
+                lineStart = end;
             }
+            carried = end - lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, carried);
+
+            nativeIO.dropPartialFileFromCache(in.getFD(), totalBytesRead, read, false);
+            nativeIO.dropPartialFileFromCache(fileOut.getFD(), totalBytesRead, read, false);
             totalBytesRead += read;
         }
+        if (carried > 0) // Last line without a newline
+            writer.writeLine(buffer, 0, carried);
+        writer.finish();
+    }
+
+    /**
+     * Ends each compressed frame at the last line boundary before it would exceed the buffer size,
+     * and indexes the frames which start at a line boundary with the highest timestamp of their lines.
+     */
+    private static class IndexingFrameWriter {
+
+        private final ZstdOutputStream out;
+        private final FileOutputStream fileOut;
+        private final int frameSizeLimit;
+        private final LogArchiveIndex.Builder index;
+
+        private long frameStart;
+        private long frameSize = 0;
+        private double frameMaxTimestamp = Double.NEGATIVE_INFINITY;
+        private boolean inLine = false;
+
+        IndexingFrameWriter(ZstdOutputStream out, FileOutputStream fileOut, int frameSizeLimit, LogArchiveIndex.Builder index) throws IOException {
+            this.out = out;
+            this.fileOut = fileOut;
+            this.frameSizeLimit = frameSizeLimit;
+            this.index = index;
+            this.frameStart = fileOut.getChannel().position();
+        }
+
+        /** Writes the given line, or the end of the line written in fragments before */
+        void writeLine(byte[] buffer, int offset, int length) throws IOException {
+            if ( ! inLine && frameSize > 0 && frameSize + length > frameSizeLimit)
+                endFrame();
+            double timestamp = inLine ? Double.NaN : LogArchiveIndex.timestampOf(buffer, offset, offset + length);
+            if (timestamp > frameMaxTimestamp) frameMaxTimestamp = timestamp;
+            out.write(buffer, offset, length);
+            frameSize += length;
+            inLine = false;
+        }
+
+        /** Writes a part of a line which is too long for a single frame */
+        void writeFragment(byte[] buffer, int offset, int length) throws IOException {
+            writeLine(buffer, offset, length);
+            inLine = true;
+        }
+
+        void finish() throws IOException {
+            if (frameSize > 0) endFrame();
+        }
+
+        private void endFrame() throws IOException {
+            out.flush();
+            index.add(frameStart, frameMaxTimestamp);
+            frameStart = fileOut.getChannel().position();
+            frameSize = 0;
+            frameMaxTimestamp = Double.NEGATIVE_INFINITY;
+        }
+
     }
 
 }
@@ -3,6 +3,7 @@ package com.yahoo.logserver.handlers.archive;
 
 import com.yahoo.log.InvalidLogFormatException;
 import com.yahoo.log.LogMessage;
+import com.yahoo.logserver.handlers.HandlerThread;
 import com.yahoo.plugin.SystemPropertyConfig;
 import org.junit.Rule;
 import org.junit.Test;
@@ -13,9 +14,11 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -202,6 +205,40 @@ public class ArchiverHandlerTestCase {
 
     }
 
+    @Test
+    public void testIngestLagIsTracked() throws IOException {
+        File tmpDir = temporaryFolder.newFolder();
+
+        ArchiverHandler a = new ArchiverHandler(tmpDir.getAbsolutePath(), 1024, "zstd", 1, Deflater.BEST_SPEED);
+        assertEquals(0, a.maxIngestLagMillis());
+        long before = System.currentTimeMillis();
+        a.handle(List.of(msg[3], msg[0]));
+        assertTrue(a.maxIngestLagMillis() >= before - msg[0].getTimestamp().toEpochMilli());
+        a.close();
+    }
+
+    @Test
+    public void testBatchesAreFlushedByHandlerThread() throws IOException, InterruptedException {
+        File tmpDir = temporaryFolder.newFolder();
+
+        ArchiverHandler a = new ArchiverHandler(tmpDir.getAbsolutePath(), 1024 * 1024, "gzip");
+        HandlerThread thread = new HandlerThread("archiver");
+        thread.registerHandler(a);
+        thread.start();
+        thread.handle(List.of(msg[0], msg[1]));
+
+        // Visible in the file without closing or flushing the handler
+        File f = new File(a.getPrefix(msg[0]) + "-0");
+        long expectedLength = msg[0].toString().length() + msg[1].toString().length();
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (f.length() < expectedLength) {
+            if (System.currentTimeMillis() > deadline) fail("Batch was not flushed to " + f);
+            Thread.sleep(10);
+        }
+        thread.interrupt();
+        thread.join();
+    }
+
     @Test
     public void testCacheEldestEntry() throws IOException {
         LogWriterLRUCache cache = new LogWriterLRUCache(5, (float) 0.75);
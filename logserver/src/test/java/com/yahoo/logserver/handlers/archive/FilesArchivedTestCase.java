@@ -86,6 +86,8 @@ public class FilesArchivedTestCase {
         checkExist("2018/12/28/13-0.zst");
         checkExist("2018/12/29/13-0.zst");
         checkExist("2018/12/30/13-0.zst");
+        checkExist("2018/12/30/13-0.zst.index");
+        checkNoExist("2018/12/31/17-0.zst.index");
 
         checkNoExist("2018/12/31/17-0.zst");
         checkNoExist("2018/12/31/16-0.zst");
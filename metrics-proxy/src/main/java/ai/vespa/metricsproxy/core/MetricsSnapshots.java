@@ -0,0 +1,147 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.metricsproxy.core;
+
+import ai.vespa.metricsproxy.metric.model.ConsumerId;
+import ai.vespa.metricsproxy.metric.model.MetricsPacket;
+import ai.vespa.metricsproxy.service.VespaServices;
+import com.yahoo.component.AbstractComponent;
+import com.yahoo.component.annotation.Inject;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a snapshot of the metrics of all local services for each consumer which has asked for metrics recently,
+ * refreshed periodically by a background thread, so requests for metrics are served from memory, and are not
+ * delayed by slow services. A consumer's snapshot is fetched when the consumer first asks for metrics, and whenever
+ * the snapshot is older than twice the refresh interval, e.g., because a refresh is slow.
+ */
+public class MetricsSnapshots extends AbstractComponent implements Runnable {
+
+    private static final Logger log = Logger.getLogger(MetricsSnapshots.class.getName());
+
+    static final Duration REFRESH_INTERVAL = Duration.ofSeconds(30);
+    static final Duration CONSUMER_TTL = Duration.ofMinutes(10);
+
+    private final MetricsManager metricsManager;
+    private final VespaServices vespaServices;
+    private final Clock clock;
+    private final Duration refreshInterval;
+    private final Map<ConsumerId, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<ConsumerId, Instant> lastRequested = new ConcurrentHashMap<>();
+    private final Object monitor = new Object();
+    private final Thread refreshThread;
+    private boolean stopped = false;
+
+    @Inject
+    public MetricsSnapshots(MetricsManager metricsManager, VespaServices vespaServices) {
+        this(metricsManager, vespaServices, Clock.systemUTC(), REFRESH_INTERVAL);
+    }
+
+    MetricsSnapshots(MetricsManager metricsManager, VespaServices vespaServices, Clock clock, Duration refreshInterval) {
+        this.metricsManager = metricsManager;
+        this.vespaServices = vespaServices;
+        this.clock = clock;
+        this.refreshInterval = refreshInterval;
+        this.refreshThread = new Thread(this, "metrics-snapshot-refresher");
+        refreshThread.setDaemon(true);
+    }
+
+    /** Returns a recent snapshot of the metrics for the given consumer */
+    public Snapshot get(ConsumerId consumer) {
+        lastRequested.put(consumer, clock.instant());
+        Snapshot snapshot = snapshots.get(consumer);
+        if (snapshot != null && ! isStale(snapshot)) return snapshot;
+
+        startRefreshThread();
+        return refreshIfStale(consumer);
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            synchronized (monitor) {
+                try {
+                    monitor.wait(refreshInterval.toMillis());
+                } catch (InterruptedException e) { }
+                if (stopped) return;
+            }
+            try {
+                refreshAll();
+            } catch (Exception e) {
+                log.log(Level.WARNING, "Failed refreshing metrics snapshots:", e);
+            }
+        }
+    }
+
+    @Override
+    public void deconstruct() {
+        synchronized (monitor) {
+            stopped = true;
+            monitor.notifyAll();
+        }
+        if (refreshThread.isAlive()) {
+            try {
+                refreshThread.join();
+            } catch (InterruptedException e) { }
+        }
+        super.deconstruct();
+    }
+
+    /** Refreshes the snapshots of all consumers which have asked for metrics recently, and forgets the others */
+    void refreshAll() {
+        Instant oldestRequest = clock.instant().minus(CONSUMER_TTL);
+        for (Map.Entry<ConsumerId, Instant> entry : lastRequested.entrySet()) {
+            ConsumerId consumer = entry.getKey();
+            if (entry.getValue().isBefore(oldestRequest)) {
+                log.log(Level.FINE, () -> "Dropping metrics snapshot for consumer '" + consumer + "', which has not asked for metrics since " + entry.getValue());
+                lastRequested.remove(consumer);
+                snapshots.remove(consumer);
+            }
+            else {
+                refresh(consumer);
+            }
+        }
+    }
+
+    private synchronized Snapshot refreshIfStale(ConsumerId consumer) {
+        Snapshot snapshot = snapshots.get(consumer);
+        if (snapshot != null && ! isStale(snapshot)) return snapshot;
+        return refresh(consumer);
+    }
+
+    private synchronized Snapshot refresh(ConsumerId consumer) {
+        Instant now = clock.instant();
+        List<MetricsPacket> metrics = metricsManager.getMetrics(vespaServices.getVespaServices(), now, consumer)
+                                                    .stream()
+                                                    .filter(metricsPacket -> metricsPacket.consumers().contains(consumer))
+                                                    .toList();
+        Snapshot snapshot = new Snapshot(consumer, now, metrics);
+        snapshots.put(consumer, snapshot);
+        log.log(Level.FINE, () -> "Refreshed metrics snapshot for consumer '" + consumer + "' with " + metrics.size() + " packets");
+        return snapshot;
+    }
+
+    private boolean isStale(Snapshot snapshot) {
+        return snapshot.time().plus(refreshInterval.multipliedBy(2)).isBefore(clock.instant());
+    }
+
+    private void startRefreshThread() {
+        synchronized (monitor) {
+            if ( ! stopped && ! refreshThread.isAlive()) refreshThread.start();
+        }
+    }
+
+    /**
+     * The metrics packets for a consumer at a point in time. A new snapshot instance is created on each refresh,
+     * so callers may cache anything derived from a snapshot for as long as it is the current one.
+     */
+    public record Snapshot(ConsumerId consumer, Instant time, List<MetricsPacket> metrics) { }
+
+}
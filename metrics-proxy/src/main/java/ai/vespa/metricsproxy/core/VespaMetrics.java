@@ -12,9 +12,14 @@ import ai.vespa.metricsproxy.metric.model.Dimension;
 import ai.vespa.metricsproxy.metric.model.DimensionId;
 import ai.vespa.metricsproxy.metric.model.MetricId;
 import ai.vespa.metricsproxy.metric.model.MetricsPacket;
+import ai.vespa.metricsproxy.metric.model.StatusCode;
 import ai.vespa.metricsproxy.service.MetricsParser;
 import ai.vespa.metricsproxy.service.VespaService;
+import com.yahoo.component.AbstractComponent;
+import com.yahoo.component.annotation.Inject;
+import com.yahoo.concurrent.DaemonThreadFactory;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -24,6 +29,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static ai.vespa.metricsproxy.metric.dimensions.PublicDimensions.INTERNAL_SERVICE_ID;
 import static ai.vespa.metricsproxy.metric.model.DimensionId.toDimensionId;
@@ -31,19 +44,41 @@ import static ai.vespa.metricsproxy.metric.model.DimensionId.toDimensionId;
 /**
  * @author gjoranv
  */
-public class VespaMetrics {
+public class VespaMetrics extends AbstractComponent {
+
+    private static final Logger log = Logger.getLogger(VespaMetrics.class.getName());
 
     public static final ConsumerId vespaMetricsConsumerId = ConsumerId.toConsumerId("Vespa");
 
     public static final DimensionId METRIC_TYPE_DIMENSION_ID = toDimensionId("metrictype");
     public static final DimensionId INSTANCE_DIMENSION_ID = toDimensionId(INTERNAL_SERVICE_ID);
 
+    static final Duration FETCH_TIMEOUT = Duration.ofSeconds(20);
+    private static final int MAX_FETCH_THREADS = 16;
+
     private final MetricsConsumers metricsConsumers;
+    private final Duration fetchTimeout;
+    private final ThreadPoolExecutor fetchExecutor;
 
     private static final MetricsFormatter formatter = new MetricsFormatter(false, false);
 
+    @Inject
     public VespaMetrics(MetricsConsumers metricsConsumers) {
+        this(metricsConsumers, FETCH_TIMEOUT);
+    }
+
+    VespaMetrics(MetricsConsumers metricsConsumers, Duration fetchTimeout) {
         this.metricsConsumers = metricsConsumers;
+        this.fetchTimeout = fetchTimeout;
+        this.fetchExecutor = new ThreadPoolExecutor(MAX_FETCH_THREADS, MAX_FETCH_THREADS, 1, TimeUnit.MINUTES,
+                                                    new LinkedBlockingQueue<>(), new DaemonThreadFactory("vespa-metrics-fetcher-"));
+        fetchExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void deconstruct() {
+        fetchExecutor.shutdownNow();
+        super.deconstruct();
     }
 
     public List<MetricsPacket> getHealthMetrics(List<VespaService> services) {
@@ -63,51 +98,85 @@ public class VespaMetrics {
     }
 
     /**
+     * Fetches the metrics of the given services concurrently. A service which fails, or does not respond within
+     * the fetch timeout, gets a metrics packet with unknown status instead, so a slow service does not delay the others.
+     *
      * @param services the services to get metrics for
      * @return a list of metrics packet builders (to allow modification by the caller)
      */
     public List<MetricsPacket.Builder> getMetrics(List<VespaService> services, ConsumerId consumerId) {
-        List<MetricsPacket.Builder> metricsPackets = new ArrayList<>();
+        List<Future<List<MetricsPacket.Builder>>> futures = new ArrayList<>(services.size());
+        for (VespaService service : services)
+            futures.add(fetchExecutor.submit(() -> getMetrics(service, consumerId)));
 
-        for (VespaService service : services) {
-            // One metrics packet for system metrics
-            Optional<MetricsPacket.Builder> systemCheck = getSystemMetrics(service);
-            systemCheck.ifPresent(metricsPackets::add);
-
-            MetricAggregator aggregator = new MetricAggregator(service.getDimensions());
-            MetricsParser.Consumer metricsConsumer = (consumerId != null)
-                    ? new GetServiceMetricsConsumer(metricsConsumers, aggregator, consumerId)
-                    : new GetServiceMetricsConsumerForAll(metricsConsumers, aggregator);
-            service.consumeMetrics(metricsConsumer);
-
-            if (! aggregator.getAggregated().isEmpty()) {
-
-                // One metrics packet per set of metrics that share the same dimensions+consumers
-                aggregator.getAggregated().forEach((aggregationKey, metrics) -> {
-                    MetricsPacket.Builder builder = new MetricsPacket.Builder(service.getMonitoringName())
-                            .putMetrics(metrics)
-                            .putDimension(METRIC_TYPE_DIMENSION_ID, "standard")
-                            .putDimension(INSTANCE_DIMENSION_ID, service.getInstanceName())
-                            .putDimensions(aggregationKey.getDimensions());
-                    setMetaInfo(builder, metrics.get(0).getTimeStamp());
-                    builder.addConsumers(aggregationKey.getConsumers());
-                    metricsPackets.add(builder);
-                });
-            } else {
-                // Service did not return any metrics, so add metrics packet based on service health.
-                // TODO: Make VespaService.getMetrics return MetricsPacket and handle health on its own.
-                metricsPackets.add(getHealth(service));
+        long deadline = System.nanoTime() + fetchTimeout.toNanos();
+        List<MetricsPacket.Builder> metricsPackets = new ArrayList<>();
+        try {
+            for (int i = 0; i < services.size(); i++) {
+                VespaService service = services.get(i);
+                try {
+                    metricsPackets.addAll(futures.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    log.log(Level.INFO, "Timed out fetching metrics from service '" + service.getInstanceName() + "'");
+                    metricsPackets.add(getStatus(service, StatusCode.UNKNOWN.code, "Timed out fetching metrics"));
+                } catch (ExecutionException e) {
+                    log.log(Level.WARNING, "Failed fetching metrics from service '" + service.getInstanceName() + "'", e.getCause());
+                    metricsPackets.add(getStatus(service, StatusCode.UNKNOWN.code, "Failed fetching metrics: " + e.getCause().getMessage()));
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching metrics", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return metricsPackets;
+    }
+
+    private List<MetricsPacket.Builder> getMetrics(VespaService service, ConsumerId consumerId) {
+        List<MetricsPacket.Builder> metricsPackets = new ArrayList<>();
+
+        // One metrics packet for system metrics
+        Optional<MetricsPacket.Builder> systemCheck = getSystemMetrics(service);
+        systemCheck.ifPresent(metricsPackets::add);
+
+        MetricAggregator aggregator = new MetricAggregator(service.getDimensions());
+        MetricsParser.Consumer metricsConsumer = (consumerId != null)
+                ? new GetServiceMetricsConsumer(metricsConsumers, aggregator, consumerId)
+                : new GetServiceMetricsConsumerForAll(metricsConsumers, aggregator);
+        service.consumeMetrics(metricsConsumer);
+
+        if (! aggregator.getAggregated().isEmpty()) {
+
+            // One metrics packet per set of metrics that share the same dimensions+consumers
+            aggregator.getAggregated().forEach((aggregationKey, metrics) -> {
+                MetricsPacket.Builder builder = new MetricsPacket.Builder(service.getMonitoringName())
+                        .putMetrics(metrics)
+                        .putDimension(METRIC_TYPE_DIMENSION_ID, "standard")
+                        .putDimension(INSTANCE_DIMENSION_ID, service.getInstanceName())
+                        .putDimensions(aggregationKey.getDimensions());
+                setMetaInfo(builder, metrics.get(0).getTimeStamp());
+                builder.addConsumers(aggregationKey.getConsumers());
+                metricsPackets.add(builder);
+            });
+        } else {
+            // Service did not return any metrics, so add metrics packet based on service health.
+            // TODO: Make VespaService.getMetrics return MetricsPacket and handle health on its own.
+            metricsPackets.add(getHealth(service));
         }
         return metricsPackets;
     }
 
     private MetricsPacket.Builder getHealth(VespaService service) {
         HealthMetric health = service.getHealth();
+        return getStatus(service, health.getStatus().ordinal(), health.getMessage()); // TODO: MetricsPacket should use StatusCode instead of int
+    }
+
+    private MetricsPacket.Builder getStatus(VespaService service, int statusCode, String statusMessage) {
         return new MetricsPacket.Builder(service.getMonitoringName())
                 .timestamp(System.currentTimeMillis() / 1000)
-                .statusCode(health.getStatus().ordinal())  // TODO: MetricsPacket should use StatusCode instead of int
-                .statusMessage(health.getMessage())
+                .statusCode(statusCode)
+                .statusMessage(statusMessage)
                 .putDimensions(service.getDimensions())
                 .putDimension(INSTANCE_DIMENSION_ID, service.getInstanceName())
                 .addConsumers(metricsConsumers.getAllConsumers());
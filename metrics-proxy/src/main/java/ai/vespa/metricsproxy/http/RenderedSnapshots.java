@@ -0,0 +1,38 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.metricsproxy.http;
+
+import ai.vespa.metricsproxy.core.MetricsSnapshots.Snapshot;
+import ai.vespa.metricsproxy.metric.model.ConsumerId;
+import ai.vespa.metricsproxy.metric.model.MetricsPacket;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps the rendering of the current metrics snapshot of each consumer, so a snapshot is rendered only once,
+ * however many times it is requested before it is refreshed.
+ */
+public class RenderedSnapshots {
+
+    private final Function<List<MetricsPacket>, String> renderer;
+    private final Map<ConsumerId, Rendered> rendered = new ConcurrentHashMap<>();
+
+    public RenderedSnapshots(Function<List<MetricsPacket>, String> renderer) {
+        this.renderer = renderer;
+    }
+
+    /** Returns the rendering of the given snapshot, rendering it only if it is not the one last rendered for its consumer */
+    public String render(Snapshot snapshot) {
+        Rendered current = rendered.get(snapshot.consumer());
+        if (current != null && current.snapshot() == snapshot) return current.text();
+
+        String text = renderer.apply(snapshot.metrics());
+        rendered.put(snapshot.consumer(), new Rendered(snapshot, text));
+        return text;
+    }
+
+    private record Rendered(Snapshot snapshot, String text) { }
+
+}
@@ -3,16 +3,18 @@ package ai.vespa.metricsproxy.http;
 
 import ai.vespa.metricsproxy.core.MetricsConsumers;
 import ai.vespa.metricsproxy.core.MetricsManager;
+import ai.vespa.metricsproxy.core.MetricsSnapshots;
+import ai.vespa.metricsproxy.core.MetricsSnapshots.Snapshot;
 import ai.vespa.metricsproxy.metric.model.ConsumerId;
 import ai.vespa.metricsproxy.metric.model.MetricsPacket;
 import ai.vespa.metricsproxy.metric.model.json.JsonRenderingException;
 import ai.vespa.metricsproxy.service.VespaServices;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import static ai.vespa.metricsproxy.metric.model.ConsumerId.toConsumerId;
 
@@ -30,32 +32,26 @@ public class ValuesFetcher {
     private final MetricsManager metricsManager;
     private final VespaServices vespaServices;
     private final MetricsConsumers metricsConsumers;
+    private final MetricsSnapshots metricsSnapshots;
 
     public ValuesFetcher(MetricsManager metricsManager,
                          VespaServices vespaServices,
-                         MetricsConsumers metricsConsumers) {
+                         MetricsConsumers metricsConsumers,
+                         MetricsSnapshots metricsSnapshots) {
         this.metricsManager = metricsManager;
         this.vespaServices = vespaServices;
         this.metricsConsumers = metricsConsumers;
+        this.metricsSnapshots = metricsSnapshots;
     }
 
+    /** Returns a modifiable copy of the metrics in the current snapshot for the given consumer. */
     public List<MetricsPacket> fetch(String requestedConsumer) throws JsonRenderingException {
-        ConsumerId consumer = getConsumerOrDefault(requestedConsumer, metricsConsumers);
-
-        return metricsManager.getMetrics(vespaServices.getVespaServices(), Instant.now(), consumer)
-                .stream()
-                .filter(metricsPacket -> metricsPacket.consumers().contains(consumer))
-                .collect(Collectors.toList());
+        return new ArrayList<>(fetchSnapshot(requestedConsumer).metrics());
     }
 
-    public MetricsPacket.Builder[] fetchMetricsAsBuilders(String requestedConsumer) throws JsonRenderingException {
-        ConsumerId consumer = getConsumerOrDefault(requestedConsumer, metricsConsumers);
-
-        List<MetricsPacket.Builder> builders = metricsManager.getMetricsAsBuilders(vespaServices.getVespaServices(), Instant.now(), consumer)
-                .stream()
-                .filter(builder -> builder.hasConsumer(consumer))
-                .collect(Collectors.toList());
-        return builders.toArray(new MetricsPacket.Builder[builders.size()]);
+    /** Returns the current metrics snapshot for the given consumer, which is refreshed in the background. */
+    public Snapshot fetchSnapshot(String requestedConsumer) {
+        return metricsSnapshots.get(getConsumerOrDefault(requestedConsumer, metricsConsumers));
     }
 
 
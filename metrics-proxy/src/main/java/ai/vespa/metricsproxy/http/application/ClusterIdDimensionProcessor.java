@@ -1,8 +1,10 @@
 // Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.metricsproxy.http.application;
 
-import ai.vespa.metricsproxy.metric.model.MetricsPacket;
-import ai.vespa.metricsproxy.metric.model.processing.MetricsProcessor;
+import ai.vespa.metricsproxy.metric.model.DimensionId;
+import ai.vespa.metricsproxy.metric.model.processing.DimensionsProcessor;
+
+import java.util.Map;
 
 import static ai.vespa.metricsproxy.metric.dimensions.PublicDimensions.CLUSTER_ID;
 import static ai.vespa.metricsproxy.metric.dimensions.PublicDimensions.INTERNAL_CLUSTER_ID;
@@ -14,12 +16,16 @@ import static ai.vespa.metricsproxy.metric.model.DimensionId.toDimensionId;
  *
  * @author gjoranv
  */
-public class ClusterIdDimensionProcessor implements MetricsProcessor {
+public class ClusterIdDimensionProcessor implements DimensionsProcessor {
+
+    private static final DimensionId internalClusterType = toDimensionId(INTERNAL_CLUSTER_TYPE);
+    private static final DimensionId internalClusterId = toDimensionId(INTERNAL_CLUSTER_ID);
+    private static final DimensionId clusterIdDimension = toDimensionId(CLUSTER_ID);
 
     @Override
-    public void process(MetricsPacket.Builder builder) {
-        String clusterType = emptyIfNull(builder.getDimensionValue(toDimensionId(INTERNAL_CLUSTER_TYPE)));
-        String clusterId = emptyIfNull(builder.getDimensionValue(toDimensionId(INTERNAL_CLUSTER_ID)));
+    public void processDimensions(Map<DimensionId, String> dimensions) {
+        String clusterType = emptyIfNull(dimensions.get(internalClusterType));
+        String clusterId = emptyIfNull(dimensions.get(internalClusterId));
 
         String newClusterId;
         if (! clusterType.isEmpty() && ! clusterId.isEmpty())
@@ -31,7 +37,7 @@ public class ClusterIdDimensionProcessor implements MetricsProcessor {
         else
             return;  // Both type and id were null or empty
 
-        builder.putDimension(toDimensionId(CLUSTER_ID), newClusterId);
+        dimensions.put(clusterIdDimension, newClusterId);
     }
 
     private String emptyIfNull(String s) {
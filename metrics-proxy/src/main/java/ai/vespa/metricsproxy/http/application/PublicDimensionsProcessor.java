@@ -3,11 +3,11 @@ package ai.vespa.metricsproxy.http.application;
 
 import ai.vespa.metricsproxy.metric.dimensions.PublicDimensions;
 import ai.vespa.metricsproxy.metric.model.DimensionId;
-import ai.vespa.metricsproxy.metric.model.MetricsPacket;
-import ai.vespa.metricsproxy.metric.model.processing.MetricsProcessor;
+import ai.vespa.metricsproxy.metric.model.processing.DimensionsProcessor;
 
 import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -17,10 +17,11 @@ import java.util.stream.Collectors;
  *
  * @author gjoranv
  */
-public class PublicDimensionsProcessor implements MetricsProcessor {
+public class PublicDimensionsProcessor implements DimensionsProcessor {
 
     private final int maxDimensions;
-    private Set<DimensionId> publicDimensions = getPublicDimensions();
+    private final Set<DimensionId> publicDimensions = getPublicDimensions();
+    private final Set<DimensionId> metricDimensions = getMetricDimensions();
 
     public PublicDimensionsProcessor(int maxDimensions) {
         int numCommonDimensions = PublicDimensions.commonDimensions.size();
@@ -33,23 +34,20 @@ public class PublicDimensionsProcessor implements MetricsProcessor {
     }
 
     @Override
-    public void process(MetricsPacket.Builder builder) {
-        Set<DimensionId> dimensionsToRetain = builder.getDimensionIds();
-        dimensionsToRetain.retainAll(publicDimensions);
+    public void processDimensions(Map<DimensionId, String> dimensions) {
+        dimensions.keySet().retainAll(publicDimensions);
 
-        if (dimensionsToRetain.size() > maxDimensions) {
-            for (var metricDim : getMetricDimensions()) {
-                dimensionsToRetain.remove(metricDim);
-                if (dimensionsToRetain.size() <= maxDimensions) break;
+        if (dimensions.size() > maxDimensions) {
+            for (var metricDim : metricDimensions) {
+                dimensions.remove(metricDim);
+                if (dimensions.size() <= maxDimensions) break;
             }
         }
 
-        builder.retainDimensions(dimensionsToRetain);
-
         // Extra safeguard, to make sure we don't exceed the limit of some metric systems.
-        if (builder.getDimensionIds().size() > maxDimensions) {
+        if (dimensions.size() > maxDimensions) {
             throw new IllegalStateException(String.format(
-                    "Metrics packet is only allowed to have %d dimensions, but has: %s", maxDimensions, builder.getDimensionIds()));
+                    "Metrics packet is only allowed to have %d dimensions, but has: %s", maxDimensions, dimensions.keySet()));
         }
     }
 
@@ -1,8 +1,10 @@
 // Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.metricsproxy.http.application;
 
-import ai.vespa.metricsproxy.metric.model.MetricsPacket;
-import ai.vespa.metricsproxy.metric.model.processing.MetricsProcessor;
+import ai.vespa.metricsproxy.metric.model.DimensionId;
+import ai.vespa.metricsproxy.metric.model.processing.DimensionsProcessor;
+
+import java.util.Map;
 
 import static ai.vespa.metricsproxy.metric.dimensions.PublicDimensions.INTERNAL_SERVICE_ID;
 import static ai.vespa.metricsproxy.metric.dimensions.PublicDimensions.SERVICE_ID;
@@ -13,13 +15,16 @@ import static ai.vespa.metricsproxy.metric.model.DimensionId.toDimensionId;
  *
  * @author gjoranv
  */
-public class ServiceIdDimensionProcessor implements MetricsProcessor {
+public class ServiceIdDimensionProcessor implements DimensionsProcessor {
+
+    private static final DimensionId internalServiceId = toDimensionId(INTERNAL_SERVICE_ID);
+    private static final DimensionId serviceId = toDimensionId(SERVICE_ID);
 
     @Override
-    public void process(MetricsPacket.Builder builder) {
-        String serviceIdValue = builder.getDimensionValue(toDimensionId(INTERNAL_SERVICE_ID));
+    public void processDimensions(Map<DimensionId, String> dimensions) {
+        String serviceIdValue = dimensions.get(internalServiceId);
         if (serviceIdValue != null)
-            builder.putDimension(toDimensionId(SERVICE_ID), serviceIdValue);
+            dimensions.put(serviceId, serviceIdValue);
     }
 
 }
@@ -3,8 +3,10 @@ package ai.vespa.metricsproxy.http.metrics;
 
 import ai.vespa.metricsproxy.core.MetricsConsumers;
 import ai.vespa.metricsproxy.core.MetricsManager;
+import ai.vespa.metricsproxy.core.MetricsSnapshots;
+import ai.vespa.metricsproxy.http.RenderedSnapshots;
 import ai.vespa.metricsproxy.http.ValuesFetcher;
-import ai.vespa.metricsproxy.metric.model.MetricsPacket;
+import ai.vespa.metricsproxy.metric.model.MetricsTable;
 import ai.vespa.metricsproxy.service.VespaServices;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.container.handler.metrics.ErrorResponse;
@@ -19,7 +21,7 @@ import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.logging.Level;
 
-import static ai.vespa.metricsproxy.metric.model.json.GenericJsonUtil.toGenericJsonModel;
+import static ai.vespa.metricsproxy.metric.model.json.GenericJsonUtil.toGenericJson;
 import static com.yahoo.jdisc.Response.Status.INTERNAL_SERVER_ERROR;
 import static com.yahoo.jdisc.Response.Status.OK;
 
@@ -34,14 +36,16 @@ public class MetricsV1Handler extends HttpHandlerBase {
     public static final String VALUES_PATH = V1_PATH + "/values";
 
     private final ValuesFetcher valuesFetcher;
+    private final RenderedSnapshots renderedSnapshots = new RenderedSnapshots(metrics -> toGenericJson(MetricsTable.of(metrics)));
 
     @Inject
     public MetricsV1Handler(Executor executor,
                             MetricsManager metricsManager,
                             VespaServices vespaServices,
-                            MetricsConsumers metricsConsumers) {
+                            MetricsConsumers metricsConsumers,
+                            MetricsSnapshots metricsSnapshots) {
         super(executor);
-        valuesFetcher = new ValuesFetcher(metricsManager, vespaServices, metricsConsumers);
+        valuesFetcher = new ValuesFetcher(metricsManager, vespaServices, metricsConsumers, metricsSnapshots);
     }
 
     @Override
@@ -53,8 +57,7 @@ public class MetricsV1Handler extends HttpHandlerBase {
 
     private JsonResponse valuesResponse(String consumer) {
         try {
-            List<MetricsPacket> metrics =  valuesFetcher.fetch(consumer);
-            return new JsonResponse(OK, toGenericJsonModel(metrics).serialize());
+            return new JsonResponse(OK, renderedSnapshots.render(valuesFetcher.fetchSnapshot(consumer)));
         } catch (Exception e) {
             log.log(Level.WARNING, "Got exception when rendering metrics:", e);
             return new ErrorResponse(INTERNAL_SERVER_ERROR, e.getMessage());
@@ -3,13 +3,15 @@ package ai.vespa.metricsproxy.http.metrics;
 
 import ai.vespa.metricsproxy.core.MetricsConsumers;
 import ai.vespa.metricsproxy.core.MetricsManager;
+import ai.vespa.metricsproxy.core.MetricsSnapshots;
+import ai.vespa.metricsproxy.http.RenderedSnapshots;
 import ai.vespa.metricsproxy.http.ValuesFetcher;
 import ai.vespa.metricsproxy.http.application.ClusterIdDimensionProcessor;
 import ai.vespa.metricsproxy.http.application.Node;
 import ai.vespa.metricsproxy.http.application.PublicDimensionsProcessor;
 import ai.vespa.metricsproxy.http.application.ServiceIdDimensionProcessor;
 import ai.vespa.metricsproxy.metric.model.MetricsPacket;
-import ai.vespa.metricsproxy.metric.model.processing.MetricsProcessor;
+import ai.vespa.metricsproxy.metric.model.MetricsTable;
 import ai.vespa.metricsproxy.service.VespaServices;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.container.handler.metrics.ErrorResponse;
@@ -19,18 +21,15 @@ import com.yahoo.container.jdisc.HttpResponse;
 import com.yahoo.restapi.Path;
 
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.logging.Level;
 
-import static ai.vespa.metricsproxy.metric.model.json.GenericJsonUtil.toGenericApplicationModel;
-import static ai.vespa.metricsproxy.metric.model.processing.MetricsProcessor.applyProcessors;
+import static ai.vespa.metricsproxy.metric.model.json.GenericJsonUtil.toGenericApplicationJson;
+import static ai.vespa.metricsproxy.metric.model.processing.DimensionsProcessor.applyProcessors;
 import static com.yahoo.jdisc.Response.Status.INTERNAL_SERVER_ERROR;
 import static com.yahoo.jdisc.Response.Status.OK;
-import static java.util.Collections.singletonMap;
 
 /**
  * Http handler for the metrics/v2 rest api.
@@ -45,16 +44,18 @@ public class MetricsV2Handler  extends HttpHandlerBase {
 
     private final ValuesFetcher valuesFetcher;
     private final NodeInfoConfig nodeInfoConfig;
+    private final RenderedSnapshots renderedSnapshots = new RenderedSnapshots(this::render);
 
     @Inject
     public MetricsV2Handler(Executor executor,
                             MetricsManager metricsManager,
                             VespaServices vespaServices,
                             MetricsConsumers metricsConsumers,
+                            MetricsSnapshots metricsSnapshots,
                             NodeInfoConfig nodeInfoConfig) {
         super(executor);
         this.nodeInfoConfig = nodeInfoConfig;
-        valuesFetcher = new ValuesFetcher(metricsManager, vespaServices, metricsConsumers);
+        valuesFetcher = new ValuesFetcher(metricsManager, vespaServices, metricsConsumers, metricsSnapshots);
     }
 
     @Override
@@ -66,29 +67,21 @@ public class MetricsV2Handler  extends HttpHandlerBase {
 
     private JsonResponse valuesResponse(String consumer) {
         try {
-            List<MetricsPacket> metrics = processAndBuild(valuesFetcher.fetchMetricsAsBuilders(consumer),
-                                                          new ServiceIdDimensionProcessor(),
-                                                          new ClusterIdDimensionProcessor(),
-                                                          new PublicDimensionsProcessor(MAX_DIMENSIONS));
-
-            Node localNode = new Node(nodeInfoConfig.role(), nodeInfoConfig.hostname(), 0, "");
-            Map<Node, List<MetricsPacket>> metricsByNode = singletonMap(localNode, metrics);
-            return new JsonResponse(OK, toGenericApplicationModel(metricsByNode).serialize());
+            return new JsonResponse(OK, renderedSnapshots.render(valuesFetcher.fetchSnapshot(consumer)));
         } catch (Exception e) {
             log.log(Level.WARNING, "Got exception when rendering metrics:", e);
             return new ErrorResponse(INTERNAL_SERVER_ERROR, e.getMessage());
         }
     }
 
-    private static List<MetricsPacket> processAndBuild(MetricsPacket.Builder [] builders,
-                                                       MetricsProcessor... processors) {
-        List<MetricsPacket> metricsPackets = new ArrayList<>(builders.length);
-        for (int i = 0; i < builders.length; i++) {
-            applyProcessors(builders[i], processors);
-            metricsPackets.add(builders[i].build());
-            builders[i] = null; // Set null to be able to GC the builder when packet has been created
-        }
-        return metricsPackets;
+    private String render(List<MetricsPacket> snapshot) {
+        MetricsTable metrics = applyProcessors(MetricsTable.of(snapshot),
+                                               new ServiceIdDimensionProcessor(),
+                                               new ClusterIdDimensionProcessor(),
+                                               new PublicDimensionsProcessor(MAX_DIMENSIONS));
+
+        Node localNode = new Node(nodeInfoConfig.role(), nodeInfoConfig.hostname(), 0, "");
+        return toGenericApplicationJson(metrics, localNode);
     }
 
 }
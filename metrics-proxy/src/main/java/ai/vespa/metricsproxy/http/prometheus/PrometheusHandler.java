@@ -3,9 +3,10 @@ package ai.vespa.metricsproxy.http.prometheus;
 
 import ai.vespa.metricsproxy.core.MetricsConsumers;
 import ai.vespa.metricsproxy.core.MetricsManager;
+import ai.vespa.metricsproxy.core.MetricsSnapshots;
+import ai.vespa.metricsproxy.http.RenderedSnapshots;
 import ai.vespa.metricsproxy.http.TextResponse;
 import ai.vespa.metricsproxy.http.ValuesFetcher;
-import ai.vespa.metricsproxy.metric.model.MetricsPacket;
 import ai.vespa.metricsproxy.service.VespaServices;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.container.handler.metrics.HttpHandlerBase;
@@ -31,14 +32,16 @@ public class PrometheusHandler extends HttpHandlerBase {
     static final String VALUES_PATH = V1_PATH + "/values";
 
     private final ValuesFetcher valuesFetcher;
+    private final RenderedSnapshots renderedSnapshots = new RenderedSnapshots(metrics -> toPrometheusModel(metrics).serialize());
 
     @Inject
     public PrometheusHandler(Executor executor,
                              MetricsManager metricsManager,
                              VespaServices vespaServices,
-                             MetricsConsumers metricsConsumers) {
+                             MetricsConsumers metricsConsumers,
+                             MetricsSnapshots metricsSnapshots) {
         super(executor);
-        valuesFetcher = new ValuesFetcher(metricsManager, vespaServices, metricsConsumers);
+        valuesFetcher = new ValuesFetcher(metricsManager, vespaServices, metricsConsumers, metricsSnapshots);
     }
 
     @Override
@@ -50,8 +53,7 @@ public class PrometheusHandler extends HttpHandlerBase {
 
     private TextResponse valuesResponse(String consumer) {
         try {
-            List<MetricsPacket> metrics =  valuesFetcher.fetch(consumer);
-            return new TextResponse(OK, toPrometheusModel(metrics).serialize());
+            return new TextResponse(OK, renderedSnapshots.render(valuesFetcher.fetchSnapshot(consumer)));
         } catch (Exception e) {
             log.log(Level.WARNING, "Got exception when rendering metrics:", e);
             return new TextResponse(INTERNAL_SERVER_ERROR, e.getMessage());
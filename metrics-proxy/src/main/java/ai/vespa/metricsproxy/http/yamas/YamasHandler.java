@@ -3,6 +3,7 @@ package ai.vespa.metricsproxy.http.yamas;
 
 import ai.vespa.metricsproxy.core.MetricsConsumers;
 import ai.vespa.metricsproxy.core.MetricsManager;
+import ai.vespa.metricsproxy.core.MetricsSnapshots;
 import ai.vespa.metricsproxy.http.ValuesFetcher;
 import ai.vespa.metricsproxy.metric.dimensions.ApplicationDimensions;
 import ai.vespa.metricsproxy.metric.dimensions.NodeDimensions;
@@ -43,10 +44,11 @@ public class YamasHandler extends HttpHandlerBase {
                         MetricsManager metricsManager,
                         VespaServices vespaServices,
                         MetricsConsumers metricsConsumers,
+                        MetricsSnapshots metricsSnapshots,
                         ApplicationDimensions applicationDimensions,
                         NodeDimensions nodeDimensions) {
         super(executor);
-        valuesFetcher = new ValuesFetcher(metricsManager, vespaServices, metricsConsumers);
+        valuesFetcher = new ValuesFetcher(metricsManager, vespaServices, metricsConsumers, metricsSnapshots);
         this.nodeMetricGatherer = new NodeMetricGatherer(metricsManager, vespaServices, applicationDimensions, nodeDimensions);
     }
 
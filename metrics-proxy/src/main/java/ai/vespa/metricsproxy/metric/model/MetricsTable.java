@@ -0,0 +1,211 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.metricsproxy.metric.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A list of metrics packets in columnar form, for processing and rendering large numbers of metrics without
+ * creating objects per metric. Each distinct metric id and set of dimensions is stored once and referred to
+ * by index, and the metric values are stored as primitive doubles, in packet order. The consumers of the
+ * packets are not kept.
+ *
+ * Packets are referred to by their index in the list this was created from, and metrics by their index
+ * in the range from {@link #metricsStart(int)} to {@link #metricsEnd(int)} of their packet.
+ */
+public class MetricsTable {
+
+    private final ServiceId[] services;
+    private final int[] statusCodes;
+    private final String[] statusMessages;
+    private final long[] timestamps;
+    private final int[] dimensionSetOfPacket;
+    private final int[] metricsStart;
+
+    private final int[] metricIdOfMetric;
+    private final double[] values;
+
+    private final List<MetricId> metricIds;
+    private List<Map<DimensionId, String>> dimensionSets;
+
+    private MetricsTable(List<MetricsPacket> packets) {
+        int packetCount = packets.size();
+        int metricCount = 0;
+        for (MetricsPacket packet : packets)
+            metricCount += packet.metrics().size();
+
+        services = new ServiceId[packetCount];
+        statusCodes = new int[packetCount];
+        statusMessages = new String[packetCount];
+        timestamps = new long[packetCount];
+        dimensionSetOfPacket = new int[packetCount];
+        metricsStart = new int[packetCount + 1];
+        metricIdOfMetric = new int[metricCount];
+        values = new double[metricCount];
+        metricIds = new ArrayList<>();
+        dimensionSets = new ArrayList<>();
+
+        Map<MetricId, Integer> metricIdIndices = new HashMap<>();
+        Map<OrderedDimensions, Integer> dimensionSetIndices = new HashMap<>();
+        int metric = 0;
+        for (int packet = 0; packet < packetCount; packet++) {
+            MetricsPacket metricsPacket = packets.get(packet);
+            services[packet] = metricsPacket.service;
+            statusCodes[packet] = metricsPacket.statusCode;
+            statusMessages[packet] = metricsPacket.statusMessage;
+            timestamps[packet] = metricsPacket.timestamp;
+            dimensionSetOfPacket[packet] = intern(metricsPacket.dimensions(), dimensionSets, dimensionSetIndices);
+            metricsStart[packet] = metric;
+            for (Map.Entry<MetricId, Number> entry : metricsPacket.metrics().entrySet()) {
+                metricIdOfMetric[metric] = intern(entry.getKey(), metricIds, metricIdIndices);
+                values[metric++] = entry.getValue().doubleValue();
+            }
+        }
+        metricsStart[packetCount] = metric;
+    }
+
+    public static MetricsTable of(List<MetricsPacket> packets) {
+        return new MetricsTable(packets);
+    }
+
+    public int packetCount() { return services.length; }
+
+    public ServiceId service(int packet) { return services[packet]; }
+
+    public int statusCode(int packet) { return statusCodes[packet]; }
+
+    public String statusMessage(int packet) { return statusMessages[packet]; }
+
+    public long timestamp(int packet) { return timestamps[packet]; }
+
+    /** Returns the index of the dimension set of the given packet */
+    public int dimensionSetOf(int packet) { return dimensionSetOfPacket[packet]; }
+
+    /** Returns the dimensions of the given packet */
+    public Map<DimensionId, String> dimensions(int packet) { return dimensionSets.get(dimensionSetOfPacket[packet]); }
+
+    /** Returns the index of the first metric of the given packet */
+    public int metricsStart(int packet) { return metricsStart[packet]; }
+
+    /** Returns the index after the last metric of the given packet */
+    public int metricsEnd(int packet) { return metricsStart[packet + 1]; }
+
+    /** Returns the index of the metric id of the given metric */
+    public int metricIdOf(int metric) { return metricIdOfMetric[metric]; }
+
+    public MetricId metricId(int metric) { return metricIds.get(metricIdOfMetric[metric]); }
+
+    public double value(int metric) { return values[metric]; }
+
+    /** Returns the number of distinct metric ids, which are indexed from 0 */
+    public int metricIdCount() { return metricIds.size(); }
+
+    /** Returns the metric id with the given index */
+    public MetricId metricIdAt(int index) { return metricIds.get(index); }
+
+    /** Returns the number of distinct dimension sets, which are indexed from 0 */
+    public int dimensionSetCount() { return dimensionSets.size(); }
+
+    /** Returns the dimension set with the given index */
+    public Map<DimensionId, String> dimensionSetAt(int index) { return dimensionSets.get(index); }
+
+    /** Returns the indices of the packets of each service, with services in order of first appearance */
+    public int[][] packetsByService() {
+        Map<ServiceId, Integer> serviceIndices = new HashMap<>();
+        int[] serviceOfPacket = new int[packetCount()];
+        int[] packetCounts = new int[packetCount()];
+        for (int packet = 0; packet < packetCount(); packet++) {
+            Integer service = serviceIndices.get(services[packet]);
+            if (service == null) {
+                service = serviceIndices.size();
+                serviceIndices.put(services[packet], service);
+            }
+            serviceOfPacket[packet] = service;
+            packetCounts[service]++;
+        }
+
+        int[][] packetsByService = new int[serviceIndices.size()][];
+        for (int service = 0; service < packetsByService.length; service++)
+            packetsByService[service] = new int[packetCounts[service]];
+        int[] added = new int[packetsByService.length];
+        for (int packet = 0; packet < packetCount(); packet++) {
+            int service = serviceOfPacket[packet];
+            packetsByService[service][added[service]++] = packet;
+        }
+        return packetsByService;
+    }
+
+    /**
+     * Modifies the dimensions of all packets, by applying the given processor once to a modifiable copy of each
+     * distinct set of dimensions. Sets which become equal are merged, so indices of dimension sets may change.
+     */
+    public void processDimensions(Consumer<Map<DimensionId, String>> processor) {
+        List<Map<DimensionId, String>> processedSets = new ArrayList<>(dimensionSets.size());
+        Map<OrderedDimensions, Integer> processedSetIndices = new HashMap<>();
+        int[] processedSetOf = new int[dimensionSets.size()];
+        for (int set = 0; set < dimensionSets.size(); set++) {
+            Map<DimensionId, String> dimensions = new LinkedHashMap<>(dimensionSets.get(set));
+            processor.accept(dimensions);
+            processedSetOf[set] = intern(dimensions, processedSets, processedSetIndices);
+        }
+        for (int packet = 0; packet < dimensionSetOfPacket.length; packet++)
+            dimensionSetOfPacket[packet] = processedSetOf[dimensionSetOfPacket[packet]];
+
+        dimensionSets = processedSets;
+    }
+
+    private static int intern(Map<DimensionId, String> dimensions,
+                              List<Map<DimensionId, String>> sets, Map<OrderedDimensions, Integer> indices) {
+        Integer index = indices.get(new OrderedDimensions(dimensions));
+        if (index != null) return index;
+
+        Map<DimensionId, String> copy = Collections.unmodifiableMap(new LinkedHashMap<>(dimensions));
+        indices.put(new OrderedDimensions(copy), sets.size());
+        sets.add(copy);
+        return sets.size() - 1;
+    }
+
+    private static int intern(MetricId metricId, List<MetricId> ids, Map<MetricId, Integer> indices) {
+        Integer index = indices.get(metricId);
+        if (index != null) return index;
+
+        indices.put(metricId, ids.size());
+        ids.add(metricId);
+        return ids.size() - 1;
+    }
+
+    /** Dimensions which are equal only to dimensions with the same entries in the same order, as order is kept when rendering */
+    private static class OrderedDimensions {
+
+        private final Map<DimensionId, String> dimensions;
+
+        OrderedDimensions(Map<DimensionId, String> dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if ( ! (o instanceof OrderedDimensions other)) return false;
+            if (dimensions.size() != other.dimensions.size()) return false;
+
+            Iterator<Map.Entry<DimensionId, String>> otherEntries = other.dimensions.entrySet().iterator();
+            for (Map.Entry<DimensionId, String> entry : dimensions.entrySet())
+                if ( ! entry.equals(otherEntries.next())) return false;
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return dimensions.hashCode();
+        }
+
+    }
+
+}
@@ -2,12 +2,17 @@
 package ai.vespa.metricsproxy.metric.model.json;
 
 import ai.vespa.metricsproxy.http.application.Node;
+import ai.vespa.metricsproxy.metric.model.DimensionId;
 import ai.vespa.metricsproxy.metric.model.MetricsPacket;
+import ai.vespa.metricsproxy.metric.model.MetricsTable;
 import ai.vespa.metricsproxy.metric.model.ServiceId;
 import ai.vespa.metricsproxy.metric.model.StatusCode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -31,6 +36,7 @@ import static java.util.stream.Collectors.toList;
  */
 public class GenericJsonUtil {
     private static final Logger log = Logger.getLogger(GenericJsonUtil.class.getName());
+    private static final JsonFactory factory = new JsonFactory();
 
     private GenericJsonUtil() {
     }
@@ -85,6 +91,98 @@ public class GenericJsonUtil {
         return jsonModel;
     }
 
+    /**
+     * Renders the given metrics in the generic json application format, for a single node, directly from the table.
+     * The result is the same as serializing the model from {@link #toGenericApplicationModel(Map)}.
+     */
+    public static String toGenericApplicationJson(MetricsTable table, Node node) {
+        var writer = new StringWriter();
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("nodes");
+            toGenericJson(table, node, generator);
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new JsonRenderingException("Could not render application nodes. Check the log for details.", e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Renders the given metrics in the generic json format, directly from the table.
+     * The result is the same as serializing the model from {@link #toGenericJsonModel(List)}.
+     */
+    public static String toGenericJson(MetricsTable table) {
+        var writer = new StringWriter();
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            toGenericJson(table, null, generator);
+        } catch (IOException e) {
+            throw new JsonRenderingException("Could not render metrics. Check the log for details.", e);
+        }
+        return writer.toString();
+    }
+
+    private static void toGenericJson(MetricsTable table, Node node, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        if (node != null) {
+            generator.writeStringField("hostname", node.hostname);
+            generator.writeStringField("role", node.role);
+        }
+
+        int[][] packetsByService = table.packetsByService();
+        for (int[] packets : packetsByService) {
+            if (VESPA_NODE_SERVICE_ID.equals(table.service(packets[0]))) {
+                generator.writeObjectFieldStart("node");
+                generator.writeNumberField("timestamp", table.timestamp(packets[0]));
+                writeGenericMetrics(table, packets, generator);
+                generator.writeEndObject();
+            }
+        }
+
+        generator.writeArrayFieldStart("services");
+        for (int[] packets : packetsByService) {
+            int first = packets[0];
+            if (VESPA_NODE_SERVICE_ID.equals(table.service(first))) continue;
+
+            generator.writeStartObject();
+            generator.writeStringField("name", table.service(first).id);
+            generator.writeNumberField("timestamp", table.timestamp(first));
+            generator.writeObjectFieldStart("status");
+            generator.writeStringField("code", StatusCode.values()[table.statusCode(first)].status);
+            String description = table.statusMessage(first);
+            if (description != null && ! description.isEmpty())
+                generator.writeStringField("description", description);
+            generator.writeEndObject();
+            writeGenericMetrics(table, packets, generator);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeGenericMetrics(MetricsTable table, int[] packets, JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart("metrics");
+        for (int packet : packets) {
+            Map<DimensionId, String> dimensions = table.dimensions(packet);
+            if (table.metricsStart(packet) == table.metricsEnd(packet) && dimensions.isEmpty()) continue;
+
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("values");
+            for (int metric = table.metricsStart(packet); metric < table.metricsEnd(packet); metric++) {
+                generator.writeFieldName(table.metricId(metric).id);
+                JacksonUtil.writeDouble(generator, table.value(metric));
+            }
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("dimensions");
+            for (var dimension : dimensions.entrySet())
+                generator.writeStringField(dimension.getKey().id, dimension.getValue());
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
     public static List<MetricsPacket.Builder> toMetricsPackets(String jsonString) {
         try {
             ObjectMapper mapper = createObjectMapper();
@@ -46,15 +46,19 @@ public class JacksonUtil {
     /**
      * Returns an object mapper with a custom floating point serializer to avoid scientific notation
      */
-    public static void writeDouble(JsonGenerator jgen, Double value) throws IOException {
+    public static void writeDouble(JsonGenerator jgen, double value) throws IOException {
         jgen.writeNumber(format(value));
     }
 
-    public static String format(Double value) {
+    public static String format(double value) {
         return format(value, withinLongRangeFormat.get(), outsideLongRangeFormat.get());
     }
 
-    private static String format(Double value, NumberFormat withinLongRange, NumberFormat outsideLongRange) {
+    private static String format(double value, NumberFormat withinLongRange, NumberFormat outsideLongRange) {
+        // Integers are formatted equally by Long.toString, as long as they are exactly representable
+        if (value == (long) value && Math.abs(value) < 1e15 && Double.compare(value, -0.0) != 0) {
+            return Long.toString((long) value);
+        }
         if ((value <= Long.MAX_VALUE) && (value >= Long.MIN_VALUE)) {
             return withinLongRange.format(value);
         } else {
@@ -0,0 +1,45 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.metricsproxy.metric.model.processing;
+
+import ai.vespa.metricsproxy.metric.model.DimensionId;
+import ai.vespa.metricsproxy.metric.model.MetricsPacket;
+import ai.vespa.metricsproxy.metric.model.MetricsTable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A metrics processor which only reads and modifies dimensions. It may therefore be applied once to each distinct
+ * set of dimensions in a {@link MetricsTable}, rather than once to each metrics packet.
+ */
+public interface DimensionsProcessor extends MetricsProcessor {
+
+    /**
+     * Processes the given dimensions in-place.
+     */
+    void processDimensions(Map<DimensionId, String> dimensions);
+
+    @Override
+    default void process(MetricsPacket.Builder builder) {
+        Map<DimensionId, String> dimensions = new LinkedHashMap<>();
+        for (DimensionId id : builder.getDimensionIds())
+            dimensions.put(id, builder.getDimensionValue(id));
+
+        processDimensions(dimensions);
+        builder.retainDimensions(dimensions.keySet());
+        builder.putDimensions(dimensions);
+    }
+
+    /**
+     * Helper method to apply a list of processors to all dimension sets of a metrics table.
+     * Returns the metrics table (which has been processed in-place).
+     */
+    static MetricsTable applyProcessors(MetricsTable table, DimensionsProcessor... processors) {
+        table.processDimensions(dimensions -> {
+            for (DimensionsProcessor processor : processors)
+                processor.processDimensions(dimensions);
+        });
+        return table;
+    }
+
+}
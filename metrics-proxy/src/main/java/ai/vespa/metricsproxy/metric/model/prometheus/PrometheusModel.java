@@ -8,7 +8,6 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,8 +20,8 @@ public class PrometheusModel implements Enumeration<Collector.MetricFamilySample
 
     private final Iterator<Collector.MetricFamilySamples> metricFamilySamplesIterator;
 
-    PrometheusModel(List<Collector.MetricFamilySamples> metricFamilySamples) {
-        this.metricFamilySamplesIterator = metricFamilySamples.iterator();
+    PrometheusModel(Iterator<Collector.MetricFamilySamples> metricFamilySamples) {
+        this.metricFamilySamplesIterator = metricFamilySamples;
     }
 
     @Override
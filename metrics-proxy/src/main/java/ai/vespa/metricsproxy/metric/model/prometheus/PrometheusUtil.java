@@ -1,17 +1,19 @@
 // Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.metricsproxy.metric.model.prometheus;
 
+import ai.vespa.metricsproxy.metric.model.DimensionId;
 import ai.vespa.metricsproxy.metric.model.MetricsPacket;
-import ai.vespa.metricsproxy.metric.model.ServiceId;
+import ai.vespa.metricsproxy.metric.model.MetricsTable;
 import io.prometheus.client.Collector;
 import io.prometheus.client.Collector.MetricFamilySamples;
 import io.prometheus.client.Collector.MetricFamilySamples.Sample;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
@@ -23,51 +25,139 @@ import static java.util.Collections.singletonList;
 public class PrometheusUtil {
 
     public static PrometheusModel toPrometheusModel(List<MetricsPacket> metricsPackets) {
-        Map<ServiceId, List<MetricsPacket>> packetsByService = metricsPackets.stream()
-                .collect(Collectors.groupingBy(packet -> packet.service));
-
-        List<MetricFamilySamples> metricFamilySamples = new ArrayList<>(packetsByService.size());
-
-        Map<String, List<Sample>> samples = new HashMap<>();
-        packetsByService.forEach(((serviceId, packets) -> {
-
-            var serviceName = Collector.sanitizeMetricName(serviceId.id);
-            for (var packet : packets) {
-                var dimensions = packet.dimensions();
-                List<String> labels = new ArrayList<>(dimensions.size());
-                List<String> labelValues = new ArrayList<>(dimensions.size());
-                for (var entry : dimensions.entrySet()) {
-                    var labelName = Collector.sanitizeMetricName(entry.getKey().id);
-                    labels.add(labelName);
-                    labelValues.add(entry.getValue());
-                }
-                labels.add("vespa_service");
-                labelValues.add(serviceName);
-
-                for (var metric : packet.metrics().entrySet()) {
-                    var metricName = Collector.sanitizeMetricName(metric.getKey().id);
-                    List<Sample> sampleList;
-                    if (samples.containsKey(metricName)) {
-                        sampleList = samples.get(metricName);
-                    } else {
-                        sampleList = new ArrayList<>();
-                        samples.put(metricName, sampleList);
-                        metricFamilySamples.add(new MetricFamilySamples(metricName, Collector.Type.UNTYPED, "", sampleList));
+        return toPrometheusModel(MetricsTable.of(metricsPackets));
+    }
+
+    /**
+     * Returns a model which creates the samples of each metric family only when it is rendered. Names are sanitized
+     * once per distinct metric id, and label lists are shared by all samples with the same dimensions and service.
+     */
+    public static PrometheusModel toPrometheusModel(MetricsTable table) {
+        int[][] packetsByService = table.packetsByService();
+        String[] serviceNames = new String[packetsByService.length];
+        for (int service = 0; service < packetsByService.length; service++)
+            serviceNames[service] = Collector.sanitizeMetricName(table.service(packetsByService[service][0]).id);
+
+        // Metric ids with the same sanitized name belong to the same family
+        Map<String, Integer> familyIndices = new HashMap<>();
+        List<String> familyNames = new ArrayList<>();
+        int[] familyOfMetricId = new int[table.metricIdCount()];
+        Arrays.fill(familyOfMetricId, -1);
+
+        // Families in order of first appearance, each followed by the status family of its service, as -1 - service
+        List<Integer> families = new ArrayList<>();
+        int[] sampleCounts = new int[table.metricIdCount()];
+        for (int service = 0; service < packetsByService.length; service++) {
+            for (int packet : packetsByService[service]) {
+                for (int metric = table.metricsStart(packet); metric < table.metricsEnd(packet); metric++) {
+                    int metricId = table.metricIdOf(metric);
+                    if (familyOfMetricId[metricId] == -1) {
+                        String name = Collector.sanitizeMetricName(table.metricIdAt(metricId).id);
+                        Integer family = familyIndices.get(name);
+                        if (family == null) {
+                            family = familyNames.size();
+                            familyIndices.put(name, family);
+                            familyNames.add(name);
+                            families.add(family);
+                        }
+                        familyOfMetricId[metricId] = family;
                     }
-                    sampleList.add(new Sample(metricName, labels, labelValues, metric.getValue().doubleValue(), packet.timestamp * 1000));
+                    sampleCounts[familyOfMetricId[metricId]]++;
                 }
             }
-            // convert status message to 0,1 metric
-            var firstPacket = packets.get(0);
-            String statusMetricName = serviceName + "_status";
-            // MetricsPacket status 0 means OK, but it's the opposite in Prometheus.
-            double statusMetricValue = (firstPacket.statusCode == 0) ? 1.0 : 0.0;
-            List<Sample> sampleList = singletonList(new Sample(statusMetricName, emptyList(), emptyList(),
-                                                               statusMetricValue, firstPacket.timestamp * 1000));
-            metricFamilySamples.add(new MetricFamilySamples(statusMetricName, Collector.Type.UNTYPED, "status of service", sampleList));
-        }));
-
-        return new PrometheusModel(metricFamilySamples);
+            families.add(-1 - service);
+        }
+
+        // The packet and metric of each sample, by family, in order of service and then packet
+        int[][] samplePackets = new int[familyNames.size()][];
+        int[][] sampleMetrics = new int[familyNames.size()][];
+        for (int family = 0; family < familyNames.size(); family++) {
+            samplePackets[family] = new int[sampleCounts[family]];
+            sampleMetrics[family] = new int[sampleCounts[family]];
+        }
+        int[] added = new int[familyNames.size()];
+        for (int[] packets : packetsByService) {
+            for (int packet : packets) {
+                for (int metric = table.metricsStart(packet); metric < table.metricsEnd(packet); metric++) {
+                    int family = familyOfMetricId[table.metricIdOf(metric)];
+                    samplePackets[family][added[family]] = packet;
+                    sampleMetrics[family][added[family]++] = metric;
+                }
+            }
+        }
+
+        Labels labels = new Labels(table, packetsByService, serviceNames);
+        return new PrometheusModel(families.stream().map(family -> {
+            if (family < 0) {
+                // convert status message to 0,1 metric
+                int service = -1 - family;
+                int firstPacket = packetsByService[service][0];
+                String statusMetricName = serviceNames[service] + "_status";
+                // MetricsPacket status 0 means OK, but it's the opposite in Prometheus.
+                double statusMetricValue = (table.statusCode(firstPacket) == 0) ? 1.0 : 0.0;
+                List<Sample> sampleList = singletonList(new Sample(statusMetricName, emptyList(), emptyList(),
+                                                                   statusMetricValue, table.timestamp(firstPacket) * 1000));
+                return new MetricFamilySamples(statusMetricName, Collector.Type.UNTYPED, "status of service", sampleList);
+            }
+            String metricName = familyNames.get(family);
+            List<Sample> sampleList = IntStream.range(0, sampleMetrics[family].length)
+                                               .mapToObj(i -> {
+                                                   int packet = samplePackets[family][i];
+                                                   return new Sample(metricName,
+                                                                     labels.names(packet),
+                                                                     labels.values(packet),
+                                                                     table.value(sampleMetrics[family][i]),
+                                                                     table.timestamp(packet) * 1000);
+                                               })
+                                               .toList();
+            return new MetricFamilySamples(metricName, Collector.Type.UNTYPED, "", sampleList);
+        }).iterator());
+    }
+
+    /** Label names and values, computed once per dimension set, and per dimension set and service, respectively */
+    private static class Labels {
+
+        private final MetricsTable table;
+        private final int[] serviceOfPacket;
+        private final String[] serviceNames;
+        private final List<List<String>> names;
+        private final Map<Long, List<String>> values = new HashMap<>();
+
+        Labels(MetricsTable table, int[][] packetsByService, String[] serviceNames) {
+            this.table = table;
+            this.serviceNames = serviceNames;
+            this.serviceOfPacket = new int[table.packetCount()];
+            for (int service = 0; service < packetsByService.length; service++)
+                for (int packet : packetsByService[service])
+                    serviceOfPacket[packet] = service;
+
+            this.names = new ArrayList<>(table.dimensionSetCount());
+            for (int set = 0; set < table.dimensionSetCount(); set++) {
+                Map<DimensionId, String> dimensions = table.dimensionSetAt(set);
+                List<String> labels = new ArrayList<>(dimensions.size() + 1);
+                for (DimensionId dimension : dimensions.keySet())
+                    labels.add(Collector.sanitizeMetricName(dimension.id));
+                labels.add("vespa_service");
+                names.add(labels);
+            }
+        }
+
+        List<String> names(int packet) {
+            return names.get(table.dimensionSetOf(packet));
+        }
+
+        List<String> values(int packet) {
+            int set = table.dimensionSetOf(packet);
+            int service = serviceOfPacket[packet];
+            return values.computeIfAbsent(((long) set << 32) | service, __ -> {
+                Map<DimensionId, String> dimensions = table.dimensionSetAt(set);
+                List<String> labelValues = new ArrayList<>(dimensions.size() + 1);
+                labelValues.addAll(dimensions.values());
+                labelValues.add(serviceNames[service]);
+                return labelValues;
+            });
+        }
+
     }
 
 }
@@ -26,7 +26,8 @@ public abstract class HttpMetricFetcher {
 
     private final static Logger log = Logger.getLogger(HttpMetricFetcher.class.getName());
     public final static String STATE_PATH = "/state/v1/";
-    // The call to apache will do 3 retries. As long as we check the services in series, we can't have this too high.
+    // The call to apache will do 3 retries. Services are checked concurrently, but each check must still finish within
+    // the fetch timeout of VespaMetrics, so we can't have this too high.
     public static volatile int CONNECTION_TIMEOUT = 5000;
     private final static int SOCKET_TIMEOUT = 60000;
     final static int BUFFER_SIZE = 0x40000; // 256k
@@ -4,6 +4,7 @@ package ai.vespa.metricsproxy.core;
 import ai.vespa.metricsproxy.TestUtil;
 import ai.vespa.metricsproxy.core.ConsumersConfig.Consumer;
 import ai.vespa.metricsproxy.metric.HealthMetric;
+import ai.vespa.metricsproxy.metric.ExternalMetrics;
 import ai.vespa.metricsproxy.metric.Metric;
 import ai.vespa.metricsproxy.metric.Metrics;
 import ai.vespa.metricsproxy.metric.dimensions.ApplicationDimensions;
@@ -14,14 +15,17 @@ import ai.vespa.metricsproxy.metric.model.DimensionId;
 import ai.vespa.metricsproxy.metric.model.MetricId;
 import ai.vespa.metricsproxy.metric.model.MetricsPacket;
 import ai.vespa.metricsproxy.metric.model.ServiceId;
+import ai.vespa.metricsproxy.metric.model.StatusCode;
 import ai.vespa.metricsproxy.service.DownService;
 import ai.vespa.metricsproxy.service.DummyService;
+import ai.vespa.metricsproxy.service.MetricsParser;
 import ai.vespa.metricsproxy.service.VespaService;
 import ai.vespa.metricsproxy.service.VespaServices;
 import com.google.common.collect.ImmutableList;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
@@ -89,6 +93,40 @@ public class MetricsManagerTest {
         assertEquals(2.35, packets.get(1).metrics().get(toMetricId("val")));
     }
 
+    @Test
+    public void service_that_does_not_respond_in_time_gets_unknown_status_without_delaying_the_others() {
+        var slowService = new DummyService(2, "dummy/id/2") {
+            @Override
+            public void consumeMetrics(MetricsParser.Consumer consumer) {
+                try {
+                    Thread.sleep(60_000);
+                } catch (InterruptedException e) { }
+            }
+        };
+        List<VespaService> services = List.of(testServices.get(0), slowService, testServices.get(1));
+        MetricsConsumers consumers = getMetricsConsumers();
+        VespaMetrics vespaMetrics = new VespaMetrics(consumers, Duration.ofMillis(500));
+        MetricsManager metricsManager = new MetricsManager(new VespaServices(services), vespaMetrics, new ExternalMetrics(consumers),
+                                                           getApplicationDimensions(), getNodeDimensions());
+        try {
+            List<MetricsPacket> packets = metricsManager.getMetrics(services, Instant.EPOCH);
+            assertEquals(3, packets.size());
+            assertEquals("dummy0", packets.get(0).dimensions().get(toDimensionId("instance")));
+            assertEquals(1, packets.get(0).metrics().get(toMetricId("c.test")));
+
+            assertEquals("dummy2", packets.get(1).dimensions().get(toDimensionId("instance")));
+            assertEquals(StatusCode.UNKNOWN.code, packets.get(1).statusCode);
+            assertEquals("Timed out fetching metrics", packets.get(1).statusMessage);
+            assertTrue(packets.get(1).metrics().isEmpty());
+
+            assertEquals("dummy1", packets.get(2).dimensions().get(toDimensionId("instance")));
+            assertEquals(6, packets.get(2).metrics().get(toMetricId("c.test")));
+        }
+        finally {
+            vespaMetrics.deconstruct();
+        }
+    }
+
     @Test
     public void verify_expected_output_from_getMetricsById() {
         String dummy0Metrics = metricsManager.getMetricsByConfigId(SERVICE_0_ID);
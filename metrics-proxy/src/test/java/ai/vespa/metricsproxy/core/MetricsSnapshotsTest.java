@@ -0,0 +1,107 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.metricsproxy.core;
+
+import ai.vespa.metricsproxy.TestUtil;
+import ai.vespa.metricsproxy.core.ConsumersConfig.Consumer;
+import ai.vespa.metricsproxy.core.MetricsSnapshots.Snapshot;
+import ai.vespa.metricsproxy.metric.dimensions.ApplicationDimensions;
+import ai.vespa.metricsproxy.metric.dimensions.ApplicationDimensionsConfig;
+import ai.vespa.metricsproxy.metric.dimensions.NodeDimensions;
+import ai.vespa.metricsproxy.metric.dimensions.NodeDimensionsConfig;
+import ai.vespa.metricsproxy.service.DummyService;
+import ai.vespa.metricsproxy.service.MetricsParser;
+import ai.vespa.metricsproxy.service.VespaService;
+import ai.vespa.metricsproxy.service.VespaServices;
+import com.yahoo.test.ManualClock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ai.vespa.metricsproxy.core.VespaMetrics.vespaMetricsConsumerId;
+import static ai.vespa.metricsproxy.metric.model.MetricId.toMetricId;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class MetricsSnapshotsTest {
+
+    private static final Duration refreshInterval = Duration.ofHours(1);
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final ManualClock clock = new ManualClock();
+    private MetricsSnapshots snapshots;
+
+    @Before
+    public void setup() {
+        VespaService service = new DummyService(0, "dummy/id/0") {
+            @Override
+            public void consumeMetrics(MetricsParser.Consumer consumer) {
+                fetches.incrementAndGet();
+                super.consumeMetrics(consumer);
+            }
+        };
+        VespaServices vespaServices = new VespaServices(List.of(service));
+        MetricsManager metricsManager = TestUtil.createMetricsManager(vespaServices, getMetricsConsumers(),
+                                                                      new ApplicationDimensions(new ApplicationDimensionsConfig.Builder().build()),
+                                                                      new NodeDimensions(new NodeDimensionsConfig.Builder().build()));
+        snapshots = new MetricsSnapshots(metricsManager, vespaServices, clock, refreshInterval);
+    }
+
+    @After
+    public void teardown() {
+        snapshots.deconstruct();
+    }
+
+    @Test
+    public void snapshot_is_fetched_on_first_request_and_then_reused() {
+        Snapshot snapshot = snapshots.get(vespaMetricsConsumerId);
+        assertEquals(1, fetches.get());
+        assertEquals(vespaMetricsConsumerId, snapshot.consumer());
+        assertEquals(clock.instant(), snapshot.time());
+        assertEquals(1, snapshot.metrics().size());
+        assertEquals(1, snapshot.metrics().get(0).metrics().get(toMetricId(DummyService.METRIC_1)));
+
+        clock.advance(refreshInterval);
+        assertSame(snapshot, snapshots.get(vespaMetricsConsumerId));
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void stale_snapshot_is_fetched_again_on_request() {
+        Snapshot snapshot = snapshots.get(vespaMetricsConsumerId);
+        clock.advance(refreshInterval.multipliedBy(2).plusSeconds(1));
+        Snapshot refreshed = snapshots.get(vespaMetricsConsumerId);
+        assertNotSame(snapshot, refreshed);
+        assertEquals(clock.instant(), refreshed.time());
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void background_refresh_replaces_snapshots_until_consumer_stops_asking() {
+        Snapshot snapshot = snapshots.get(vespaMetricsConsumerId);
+        snapshots.refreshAll();
+        assertEquals(2, fetches.get());
+        Snapshot refreshed = snapshots.get(vespaMetricsConsumerId);
+        assertNotSame(snapshot, refreshed);
+        assertEquals(2, fetches.get());
+
+        clock.advance(MetricsSnapshots.CONSUMER_TTL.plusSeconds(1));
+        snapshots.refreshAll();
+        assertEquals(2, fetches.get());
+    }
+
+    private static MetricsConsumers getMetricsConsumers() {
+        return new MetricsConsumers(new ConsumersConfig.Builder()
+                                            .consumer(new Consumer.Builder()
+                                                              .name(vespaMetricsConsumerId.id)
+                                                              .metric(new Consumer.Metric.Builder()
+                                                                              .name(DummyService.METRIC_1)
+                                                                              .outputname(DummyService.METRIC_1)))
+                                            .build());
+    }
+
+}
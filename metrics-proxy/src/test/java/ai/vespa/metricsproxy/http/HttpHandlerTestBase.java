@@ -5,6 +5,7 @@ import ai.vespa.metricsproxy.TestUtil;
 import ai.vespa.metricsproxy.core.ConsumersConfig;
 import ai.vespa.metricsproxy.core.MetricsConsumers;
 import ai.vespa.metricsproxy.core.MetricsManager;
+import ai.vespa.metricsproxy.core.MetricsSnapshots;
 import ai.vespa.metricsproxy.metric.HealthMetric;
 import ai.vespa.metricsproxy.metric.Metric;
 import ai.vespa.metricsproxy.metric.dimensions.ApplicationDimensions;
@@ -62,6 +63,10 @@ public class HttpHandlerTestBase {
         return metricsManager;
     }
 
+    protected static MetricsSnapshots getMetricsSnapshots(MetricsManager metricsManager) {
+        return new MetricsSnapshots(metricsManager, vespaServices);
+    }
+
     protected static MetricsConsumers getMetricsConsumers() {
         // Must use a whitelisted dimension to avoid it being removed for the MetricsV2Handler
         var defaultConsumerDimension = new ConsumersConfig.Consumer.Metric.Dimension.Builder()
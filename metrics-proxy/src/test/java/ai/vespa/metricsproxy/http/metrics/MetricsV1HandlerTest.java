@@ -25,10 +25,12 @@ public class MetricsV1HandlerTest extends MetricsHandlerTestBase<GenericJsonMode
     public static void setup() {
         rootUri = V1_URI;
         valuesUri = VALUES_URI;
+        var metricsManager = getMetricsManager();
         var handler = new MetricsV1Handler(Executors.newSingleThreadExecutor(),
-                                                        getMetricsManager(),
+                                                        metricsManager,
                                                         vespaServices,
-                                                        getMetricsConsumers());
+                                                        getMetricsConsumers(),
+                                                        getMetricsSnapshots(metricsManager));
         testDriver = new RequestHandlerTestDriver(handler);
     }
 
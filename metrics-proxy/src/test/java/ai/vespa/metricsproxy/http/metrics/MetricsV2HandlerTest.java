@@ -26,10 +26,12 @@ public class MetricsV2HandlerTest extends MetricsHandlerTestBase<GenericApplicat
     public static void setup() {
         rootUri = V2_URI;
         valuesUri = VALUES_URI;
+        var metricsManager = getMetricsManager();
         var handler = new MetricsV2Handler(Executors.newSingleThreadExecutor(),
-                                           getMetricsManager(),
+                                           metricsManager,
                                            vespaServices,
                                            getMetricsConsumers(),
+                                           getMetricsSnapshots(metricsManager),
                                            nodeInfoConfig());
         testDriver = new RequestHandlerTestDriver(handler);
     }
@@ -1,6 +1,7 @@
 // Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.metricsproxy.http.prometheus;
 
+import ai.vespa.metricsproxy.core.MetricsManager;
 import ai.vespa.metricsproxy.http.HttpHandlerTestBase;
 import ai.vespa.metricsproxy.service.DummyService;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -32,10 +33,12 @@ public class PrometheusHandlerTest extends HttpHandlerTestBase {
 
     @BeforeClass
     public static void setup() {
+        MetricsManager metricsManager = getMetricsManager();
         PrometheusHandler handler = new PrometheusHandler(Executors.newSingleThreadExecutor(),
-                                                          getMetricsManager(),
+                                                          metricsManager,
                                                           vespaServices,
-                                                          getMetricsConsumers());
+                                                          getMetricsConsumers(),
+                                                          getMetricsSnapshots(metricsManager));
         testDriver = new RequestHandlerTestDriver(handler);
         valuesResponse = testDriver.sendRequest(VALUES_URI).readAll();
     }
@@ -0,0 +1,116 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.metricsproxy.metric.model;
+
+import ai.vespa.metricsproxy.http.application.ClusterIdDimensionProcessor;
+import ai.vespa.metricsproxy.http.application.Node;
+import ai.vespa.metricsproxy.http.application.PublicDimensionsProcessor;
+import ai.vespa.metricsproxy.http.application.ServiceIdDimensionProcessor;
+import ai.vespa.metricsproxy.metric.model.processing.MetricsProcessor;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static ai.vespa.metricsproxy.metric.model.DimensionId.toDimensionId;
+import static ai.vespa.metricsproxy.metric.model.MetricId.toMetricId;
+import static ai.vespa.metricsproxy.metric.model.ServiceId.toServiceId;
+import static ai.vespa.metricsproxy.metric.model.json.GenericJsonUtil.toGenericApplicationJson;
+import static ai.vespa.metricsproxy.metric.model.json.GenericJsonUtil.toGenericApplicationModel;
+import static ai.vespa.metricsproxy.metric.model.json.GenericJsonUtil.toGenericJson;
+import static ai.vespa.metricsproxy.metric.model.json.GenericJsonUtil.toGenericJsonModel;
+import static ai.vespa.metricsproxy.metric.model.processing.DimensionsProcessor.applyProcessors;
+import static ai.vespa.metricsproxy.metric.model.prometheus.PrometheusUtil.toPrometheusModel;
+
+/**
+ * Renders a snapshot of synthetic metrics as metrics/v1, metrics/v2 and prometheus, both through the json models
+ * with a builder per packet, and through a {@link MetricsTable}, and prints the time and bytes allocated per render.
+ * Run with the number of metric series as argument, e.g., 50000.
+ */
+public class MetricsTableBenchmark {
+
+    private static final int metricsPerPacket = 20;
+    private static final int runs = 20;
+
+    private final List<MetricsPacket> snapshot;
+    private final Node node = new Node("role", "hostname", 0, "");
+
+    public MetricsTableBenchmark(int seriesCount) {
+        this.snapshot = createSnapshot(seriesCount);
+    }
+
+    public void benchmark() {
+        run("metrics/v1, model", () -> toGenericJsonModel(snapshot).serialize());
+        run("metrics/v1, table", () -> toGenericJson(MetricsTable.of(snapshot)));
+        run("metrics/v2, model", () -> toGenericApplicationModel(Map.of(node, processAndBuild(snapshot))).serialize());
+        run("metrics/v2, table", () -> toGenericApplicationJson(applyProcessors(MetricsTable.of(snapshot),
+                                                                                new ServiceIdDimensionProcessor(),
+                                                                                new ClusterIdDimensionProcessor(),
+                                                                                new PublicDimensionsProcessor(10)),
+                                                                node));
+        run("prometheus, table", () -> toPrometheusModel(MetricsTable.of(snapshot)).serialize());
+    }
+
+    private static void run(String name, Supplier<String> renderer) {
+        for (int i = 0; i < runs; i++) renderer.get(); // Warmup
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long length = 0;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < runs; i++)
+            length += renderer.get().length();
+        long time = System.nanoTime() - startTime;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-18s %6d ms, %6d MB allocated, %6d kB rendered%n",
+                          name, time / runs / 1_000_000, allocated / runs >> 20, length / runs >> 10);
+    }
+
+    /** Processes copies of the packets, as the metrics/v2 handler did before rendering from a table */
+    private static List<MetricsPacket> processAndBuild(List<MetricsPacket> packets) {
+        MetricsProcessor[] processors = { new ServiceIdDimensionProcessor(),
+                                          new ClusterIdDimensionProcessor(),
+                                          new PublicDimensionsProcessor(10) };
+        List<MetricsPacket> processed = new ArrayList<>(packets.size());
+        for (MetricsPacket packet : packets) {
+            MetricsPacket.Builder builder = new MetricsPacket.Builder(packet.service)
+                    .statusCode(packet.statusCode)
+                    .statusMessage(packet.statusMessage)
+                    .timestamp(packet.timestamp)
+                    .putDimensions(packet.dimensions())
+                    .addConsumers(packet.consumers());
+            packet.metrics().forEach(builder::putMetric);
+            MetricsProcessor.applyProcessors(builder, processors);
+            processed.add(builder.build());
+        }
+        return processed;
+    }
+
+    /** Creates packets for a number of services, which each have a few distinct sets of dimensions */
+    private static List<MetricsPacket> createSnapshot(int seriesCount) {
+        List<MetricsPacket> packets = new ArrayList<>();
+        for (int packet = 0; packet * metricsPerPacket < seriesCount; packet++) {
+            int service = packet / 10;
+            MetricsPacket.Builder builder = new MetricsPacket.Builder(toServiceId("service" + service % 8))
+                    .timestamp(1234567890L)
+                    .putDimension(toDimensionId("instance"), "instance" + service)
+                    .putDimension(toDimensionId("clustertype"), "content")
+                    .putDimension(toDimensionId("clusterid"), "cluster" + service % 3)
+                    .putDimension(toDimensionId("documenttype"), "doctype" + packet % 5)
+                    .putDimension(toDimensionId("internal"), "value" + packet % 10);
+            for (int metric = 0; metric < metricsPerPacket; metric++)
+                builder.putMetric(toMetricId("content.proton.metric" + (packet % 10) + "_" + metric + ".average"),
+                                  metric % 2 == 0 ? (Number) (long) (packet * metric) : (Number) (packet * 0.37 + metric));
+            packets.add(builder.build());
+        }
+        return packets;
+    }
+
+    public static void main(String[] args) {
+        int seriesCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        new MetricsTableBenchmark(seriesCount).benchmark();
+    }
+
+}
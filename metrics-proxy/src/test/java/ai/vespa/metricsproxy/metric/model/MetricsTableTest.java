@@ -0,0 +1,96 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.metricsproxy.metric.model;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static ai.vespa.metricsproxy.metric.model.DimensionId.toDimensionId;
+import static ai.vespa.metricsproxy.metric.model.MetricId.toMetricId;
+import static ai.vespa.metricsproxy.metric.model.ServiceId.toServiceId;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class MetricsTableTest {
+
+    private static final DimensionId dim1 = toDimensionId("dim1");
+    private static final DimensionId dim2 = toDimensionId("dim2");
+
+    @Test
+    public void packets_are_stored_with_interned_metric_ids_and_dimensions() {
+        MetricsTable table = MetricsTable.of(List.of(packet("service-a", 1, "x", "y", "cpu", 1.5, "mem", 2),
+                                                     packet("service-b", 2, "x", "y", "cpu", 3),
+                                                     packet("service-a", 3, "x", "z"),
+                                                     packet("service-a", 4, "x", "y", "mem", 4L)));
+
+        assertEquals(4, table.packetCount());
+        assertEquals(2, table.metricIdCount());
+        assertEquals(2, table.dimensionSetCount());
+        assertEquals(table.dimensionSetOf(0), table.dimensionSetOf(1));
+        assertEquals(table.dimensionSetOf(0), table.dimensionSetOf(3));
+        assertNotEquals(table.dimensionSetOf(0), table.dimensionSetOf(2));
+        assertEquals(Map.of(dim1, "x", dim2, "z"), table.dimensions(2));
+
+        assertEquals(toServiceId("service-b"), table.service(1));
+        assertEquals(2000, table.timestamp(1));
+        assertEquals(0, table.statusCode(1));
+        assertEquals(1, table.statusCode(2));
+        assertEquals("status 2", table.statusMessage(1));
+
+        assertEquals(0, table.metricsStart(0));
+        assertEquals(2, table.metricsEnd(0));
+        assertEquals(toMetricId("cpu"), table.metricId(0));
+        assertEquals(1.5, table.value(0), 0);
+        assertEquals(toMetricId("mem"), table.metricId(1));
+        assertEquals(2.0, table.value(1), 0);
+        assertEquals(table.metricIdOf(0), table.metricIdOf(2));
+        assertEquals(table.metricsStart(2), table.metricsEnd(2));
+        assertEquals(4.0, table.value(table.metricsStart(3)), 0);
+
+        assertArrayEquals(new int[][] { { 0, 2, 3 }, { 1 } }, table.packetsByService());
+    }
+
+    @Test
+    public void dimensions_are_processed_once_per_distinct_set_and_merged_when_equal() {
+        MetricsTable table = MetricsTable.of(List.of(packet("service-a", 1, "x", "y", "cpu", 1),
+                                                     packet("service-a", 2, "x", "z", "cpu", 2),
+                                                     packet("service-a", 3, "x", "y", "cpu", 3)));
+        int[] processed = new int[1];
+        table.processDimensions(dimensions -> {
+            processed[0]++;
+            dimensions.remove(dim2);
+        });
+
+        assertEquals(2, processed[0]);
+        assertEquals(1, table.dimensionSetCount());
+        for (int packet = 0; packet < table.packetCount(); packet++)
+            assertEquals(Map.of(dim1, "x"), table.dimensions(packet));
+    }
+
+    @Test
+    public void dimension_sets_with_different_order_are_kept_apart() {
+        MetricsPacket reversed = new MetricsPacket.Builder(toServiceId("service-a"))
+                .putDimension(dim2, "y")
+                .putDimension(dim1, "x")
+                .build();
+        MetricsTable table = MetricsTable.of(List.of(packet("service-a", 1, "x", "y"), reversed));
+
+        assertEquals(2, table.dimensionSetCount());
+        assertEquals(List.of(dim2, dim1), List.copyOf(table.dimensions(1).keySet()));
+    }
+
+    private static MetricsPacket packet(String service, int seconds, String value1, String value2, Object... metrics) {
+        MetricsPacket.Builder builder = new MetricsPacket.Builder(toServiceId(service))
+                .statusCode(seconds % 2)
+                .statusMessage("status " + seconds)
+                .timestamp(seconds * 1000L)
+                .putDimension(dim1, value1)
+                .putDimension(dim2, value2);
+        for (int i = 0; i < metrics.length; i += 2)
+            builder.putMetric(toMetricId((String) metrics[i]), (Number) metrics[i + 1]);
+        return builder.build();
+    }
+
+}
@@ -1,13 +1,16 @@
 // Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.metricsproxy.metric.model.json;
 
+import ai.vespa.metricsproxy.http.application.Node;
 import ai.vespa.metricsproxy.metric.model.MetricsPacket;
+import ai.vespa.metricsproxy.metric.model.MetricsTable;
 import ai.vespa.metricsproxy.metric.model.StatusCode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import static ai.vespa.metricsproxy.TestUtil.getFileContents;
 import static ai.vespa.metricsproxy.metric.ExternalMetrics.VESPA_NODE_SERVICE_ID;
@@ -130,6 +133,21 @@ public class GenericJsonModelTest {
         assertThatSerializedModelEqualsTestFile(modelFromPackets, TEST_FILE);
     }
 
+    @Test
+    public void metrics_table_is_rendered_like_the_model_of_the_same_packets() throws IOException {
+        List<MetricsPacket> metricsPackets = GenericJsonUtil.toMetricsPackets(genericJsonModelFromTestFile(TEST_FILE)).stream()
+                .map(MetricsPacket.Builder::build)
+                .collect(toList());
+        MetricsTable table = MetricsTable.of(metricsPackets);
+
+        assertEquals(GenericJsonUtil.toGenericJsonModel(metricsPackets).serialize(),
+                     GenericJsonUtil.toGenericJson(table));
+
+        Node node = new Node("my-role", "my-hostname", 0, "");
+        assertEquals(GenericJsonUtil.toGenericApplicationModel(Map.of(node, metricsPackets)).serialize(),
+                     GenericJsonUtil.toGenericApplicationJson(table, node));
+    }
+
     private void assertThatSerializedModelEqualsTestFile(GenericJsonModel modelFromPackets, String testFile) {
         String serialized = modelFromPackets.serialize();
         String trimmed = serialized.trim().replaceAll("\\s+", "");
@@ -149,6 +167,9 @@ public class GenericJsonModelTest {
         assertEquals("7.1", JacksonUtil.format(7.1));
         assertEquals("-7", JacksonUtil.format(-7D));
         assertEquals("-7.1", JacksonUtil.format(-7.1));
+        assertEquals("0", JacksonUtil.format(0D));
+        assertEquals("-0", JacksonUtil.format(-0D));
+        assertEquals("123456789012345", JacksonUtil.format(123456789012345D));
     }
 
     @Test
@@ -87,14 +87,30 @@ public class BertBaseEmbedder implements Embedder {
 
     @Override
     public Tensor embed(String text, Context context, TensorType type) {
+        validateType(type);
+        List<Integer> tokens = embedWithSeperatorTokens(text, context, maxTokens);
+        return embedTokens(tokens, type);
+    }
+
+    /** Embeds all the given texts in a single model evaluation, padding the token sequences to the longest one */
+    @Override
+    public List<Tensor> embed(List<String> texts, Context context, TensorType type) {
+        validateType(type);
+        if (texts.size() == 1) return List.of(embed(texts.get(0), context, type));
+
+        List<List<Integer>> batch = new ArrayList<>(texts.size());
+        for (String text : texts)
+            batch.add(embedWithSeperatorTokens(text, context, maxTokens));
+        return embedTokenBatch(batch, type);
+    }
+
+    private void validateType(TensorType type) {
         if (type.dimensions().size() != 1) {
             throw new IllegalArgumentException("Error in embedding to type '" + type + "': should only have one dimension.");
         }
         if (!type.dimensions().get(0).isIndexed()) {
             throw new IllegalArgumentException("Error in embedding to type '" + type + "': dimension should be indexed.");
         }
-        List<Integer> tokens = embedWithSeperatorTokens(text, context, maxTokens);
-        return embedTokens(tokens, type);
     }
 
     Tensor embedTokens(List<Integer> tokens, TensorType type) {
@@ -125,6 +141,44 @@ public class BertBaseEmbedder implements Embedder {
         return builder.build();
     }
 
+    List<Tensor> embedTokenBatch(List<List<Integer>> batch, TensorType type) {
+        if (batch.isEmpty()) return List.of();
+
+        Tensor inputSequence = createBatchTensorRepresentation(batch);
+        Tensor attentionMask = createAttentionMask(inputSequence);
+        Tensor tokenTypeIds = createTokenTypeIds(inputSequence);
+
+        Map<String, Tensor> inputs = Map.of(inputIdsName, inputSequence,
+                                            attentionMaskName, attentionMask,
+                                            tokenTypeIdsName, tokenTypeIds);
+        Map<String, Tensor> outputs = evaluator.evaluate(inputs);
+
+        Tensor tokenEmbeddings = outputs.get(outputName);
+
+        List<Tensor> embeddings = new ArrayList<>(batch.size());
+        if (poolingStrategy.equals("mean")) {  // average over the tokens which are not padding
+            Tensor summedEmbeddings = tokenEmbeddings.join(attentionMask, (x, y) -> x * y).sum("d1");
+            Tensor summedAttentionMask = attentionMask.sum("d1");
+            Tensor averaged = summedEmbeddings.join(summedAttentionMask, (x, y) -> x / y);
+            for (int b = 0; b < batch.size(); b++) {
+                Tensor.Builder builder = Tensor.Builder.of(type);
+                for (int i = 0; i < type.dimensions().get(0).size().get(); i++) {
+                    builder.cell(averaged.get(TensorAddress.of(b,i)), i);
+                }
+                embeddings.add(builder.build());
+            }
+        } else {  // CLS - use first token
+            for (int b = 0; b < batch.size(); b++) {
+                Tensor.Builder builder = Tensor.Builder.of(type);
+                for (int i = 0; i < type.dimensions().get(0).size().get(); i++) {
+                    builder.cell(tokenEmbeddings.get(TensorAddress.of(b,0,i)), i);
+                }
+                embeddings.add(builder.build());
+            }
+        }
+        return embeddings;
+    }
+
     private List<Integer> embedWithSeperatorTokens(String text, Context context, int maxLength) {
         List<Integer> tokens = new ArrayList<>();
         tokens.add(TOKEN_CLS);
@@ -147,6 +201,23 @@ public class BertBaseEmbedder implements Embedder {
         return builder.build();
     }
 
+    /** Returns a d0 (batch) x d1 (token) tensor where sequences shorter than the longest are padded with 0 */
+    private IndexedTensor createBatchTensorRepresentation(List<List<Integer>> batch)  {
+        int maxSize = 0;
+        for (List<Integer> input : batch)
+            maxSize = Math.max(maxSize, input.size());
+        TensorType type = new TensorType.Builder(TensorType.Value.FLOAT).indexed("d0", batch.size())
+                                                                        .indexed("d1", maxSize).build();
+        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type);
+        for (int b = 0; b < batch.size(); ++b) {
+            List<Integer> input = batch.get(b);
+            for (int i = 0; i < maxSize; ++i) {
+                builder.cell(i < input.size() ? input.get(i) : 0, b, i);
+            }
+        }
+        return builder.build();
+    }
+
     private static Tensor createAttentionMask(Tensor d)  {
         return d.map((x) -> x > 0 ? 1:0);
     }
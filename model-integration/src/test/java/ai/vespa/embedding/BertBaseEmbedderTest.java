@@ -12,20 +12,19 @@ import org.junit.Test;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 
 public class BertBaseEmbedderTest {
 
+    private static final String vocabPath = "src/test/models/onnx/transformer/dummy_vocab.txt";
+    private static final String modelPath = "src/test/models/onnx/transformer/dummy_transformer.onnx";
+
     @Test
     public void testEmbedder() {
-        String vocabPath = "src/test/models/onnx/transformer/dummy_vocab.txt";
-        String modelPath = "src/test/models/onnx/transformer/dummy_transformer.onnx";
         assumeTrue(OnnxEvaluator.isRuntimeAvailable(modelPath));
 
-        BertBaseEmbedderConfig.Builder builder = new BertBaseEmbedderConfig.Builder();
-        builder.tokenizerVocab(ModelReference.valueOf(vocabPath));
-        builder.transformerModel(ModelReference.valueOf(modelPath));
-        BertBaseEmbedder embedder = new BertBaseEmbedder(builder.build());
+        BertBaseEmbedder embedder = createEmbedder(BertBaseEmbedderConfig.PoolingStrategy.Enum.mean);
 
         TensorType destType = TensorType.fromSpec("tensor<float>(x[7])");
         List<Integer> tokens = List.of(1,2,3,4,5);  // use random tokens instead of invoking the tokenizer
@@ -35,4 +34,35 @@ public class BertBaseEmbedderTest {
         assertEquals(embedding, expected);
     }
 
+    @Test
+    public void testBatchEmbedding() {
+        assumeTrue(OnnxEvaluator.isRuntimeAvailable(modelPath));
+
+        assertBatchEmbeddedAsIfAlone(createEmbedder(BertBaseEmbedderConfig.PoolingStrategy.Enum.mean));
+        assertBatchEmbeddedAsIfAlone(createEmbedder(BertBaseEmbedderConfig.PoolingStrategy.Enum.cls));
+    }
+
+    /** Padding and its attention mask must not change the embedding of the shorter sequences of a batch */
+    private static void assertBatchEmbeddedAsIfAlone(BertBaseEmbedder embedder) {
+        TensorType destType = TensorType.fromSpec("tensor<float>(x[7])");
+        List<Integer> longer = List.of(1,2,3,4,5);
+        List<Integer> shorter = List.of(1,2,3);
+        List<Tensor> embeddings = embedder.embedTokenBatch(List.of(longer, shorter), destType);
+        assertEquals(2, embeddings.size());
+        assertEqualWithinTolerance(embedder.embedTokens(longer, destType), embeddings.get(0));
+        assertEqualWithinTolerance(embedder.embedTokens(shorter, destType), embeddings.get(1));
+    }
+
+    private static void assertEqualWithinTolerance(Tensor expected, Tensor actual) {
+        assertTrue("Expected " + expected + " but got " + actual, Tensor.equals(expected, actual));
+    }
+
+    private static BertBaseEmbedder createEmbedder(BertBaseEmbedderConfig.PoolingStrategy.Enum poolingStrategy) {
+        BertBaseEmbedderConfig.Builder builder = new BertBaseEmbedderConfig.Builder();
+        builder.tokenizerVocab(ModelReference.valueOf(vocabPath));
+        builder.transformerModel(ModelReference.valueOf(modelPath));
+        builder.poolingStrategy(poolingStrategy);
+        return new BertBaseEmbedder(builder.build());
+    }
+
 }
@@ -8,15 +8,20 @@ import com.yahoo.config.provision.ClusterResources;
 import com.yahoo.config.provision.ClusterSpec;
 import com.yahoo.config.provision.NodeResources;
 import com.yahoo.config.provision.NodeType;
+import com.yahoo.vespa.hosted.provision.node.Allocation;
 import com.yahoo.vespa.hosted.provision.node.ClusterId;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -25,18 +30,43 @@ import static java.util.stream.Collectors.collectingAndThen;
 /**
  * A filterable node list. The result of a filter operation is immutable.
  *
+ * Filters by hostname, parent hostname, state, node type, owner and cluster are resolved through indexes of the
+ * list they are first applied to, when the same kind of filter is applied to that list, or subsets of it, more
+ * than once. Subsets returned by such filters keep referring to these indexes, so chains of them are resolved
+ * by intersecting positions in the indexed list.
+ *
  * @author bratseth
  * @author mpolden
  */
 public class NodeList extends AbstractFilteringList<Node, NodeList> {
 
+    private static final int[] noPositions = new int[0];
+
+    /** The list this is a subset of, in the same order, and which holds the indexes, or this if it is not a subset */
+    private final NodeList root;
+
+    /** The positions in root of the nodes of this, or null if this is the root */
+    private final int[] positions;
+
+    private volatile Indexes indexes = null;
+
     protected NodeList(List<Node> nodes, boolean negate) {
         super(nodes, negate, NodeList::new);
+        this.root = this;
+        this.positions = null;
+    }
+
+    private NodeList(NodeList root, int[] positions) {
+        super(select(root.asList(), positions), false, NodeList::new);
+        this.root = root;
+        this.positions = positions;
     }
 
     /** Returns the node with the given hostname from this list, or empty if it is not present  */
     public Optional<Node> node(String hostname) {
-        return matching(node -> node.hostname().equals(hostname)).first();
+        int[] matches = isNegated() ? null : positionsOf(indexes -> indexes.hostname, List.of(hostname));
+        if (matches == null) return matching(node -> node.hostname().equals(hostname)).first();
+        return matches.length == 0 ? Optional.empty() : Optional.of(root.asList().get(matches[0]));
     }
 
     /** Returns the subset of nodes which are retired */
@@ -142,12 +172,14 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
 
     /** Returns the subset of nodes assigned to the given cluster */
     public NodeList cluster(ClusterSpec.Id cluster) {
-        return matching(node -> node.allocation().isPresent() && node.allocation().get().membership().cluster().id().equals(cluster));
+        return indexed(indexes -> indexes.cluster, List.of(cluster),
+                       node -> node.allocation().isPresent() && node.allocation().get().membership().cluster().id().equals(cluster));
     }
 
     /** Returns the subset of nodes owned by the given application */
     public NodeList owner(ApplicationId application) {
-        return matching(node -> node.allocation().map(a -> a.owner().equals(application)).orElse(false));
+        return indexed(indexes -> indexes.owner, List.of(application),
+                       node -> node.allocation().map(a -> a.owner().equals(application)).orElse(false));
     }
 
     /** Returns the subset of nodes allocated to a tester instance */
@@ -158,10 +190,10 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
     /** Returns the subset of nodes matching any of the given node type(s) */
     public NodeList nodeType(NodeType first, NodeType... rest) {
         if (rest.length == 0) {
-            return matching(node -> node.type() == first);
+            return indexed(indexes -> indexes.type, List.of(first), node -> node.type() == first);
         }
         EnumSet<NodeType> nodeTypes = EnumSet.of(first, rest);
-        return matching(node -> nodeTypes.contains(node.type()));
+        return indexed(indexes -> indexes.type, nodeTypes, node -> nodeTypes.contains(node.type()));
     }
 
     /** Returns the subset of nodes of the host type */
@@ -176,7 +208,7 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
 
     /** Returns the child nodes of the given parent node */
     public NodeList childrenOf(String hostname) {
-        return matching(node -> node.hasParent(hostname));
+        return indexed(indexes -> indexes.parentHostname, List.of(hostname), node -> node.hasParent(hostname));
     }
 
     public NodeList childrenOf(Node parent) {
@@ -186,14 +218,14 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
     /** Returns the subset of nodes that are in any of the given state(s) */
     public NodeList state(Node.State first, Node.State... rest) {
         if (rest.length == 0) {
-            return matching(node -> node.state() == first);
+            return indexed(indexes -> indexes.state, List.of(first), node -> node.state() == first);
         }
         return state(EnumSet.of(first, rest));
     }
 
     /** Returns the subset of nodes that are in any of the given state(s) */
     public NodeList state(Set<Node.State> nodeStates) {
-        return matching(node -> nodeStates.contains(node.state()));
+        return indexed(indexes -> indexes.state, nodeStates, node -> nodeStates.contains(node.state()));
     }
 
     /** Returns the subset of nodes which have a record of being down */
@@ -221,9 +253,12 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
 
     /** Returns the parent node of the given child node */
     public Optional<Node> parentOf(Node child) {
-        return child.parentHostname()
-                    .flatMap(parentHostname -> stream().filter(node -> node.hostname().equals(parentHostname))
-                                                       .findFirst());
+        if (child.parentHostname().isEmpty()) return Optional.empty();
+
+        String parentHostname = child.parentHostname().get();
+        int[] matches = positionsOf(indexes -> indexes.hostname, List.of(parentHostname));
+        if (matches == null) return stream().filter(node -> node.hostname().equals(parentHostname)).findFirst();
+        return matches.length == 0 ? Optional.empty() : Optional.of(root.asList().get(matches[0]));
     }
 
     /** Returns the hostnames of nodes in this */
@@ -305,6 +340,130 @@ public class NodeList extends AbstractFilteringList<Node, NodeList> {
             throw new IllegalStateException("Nodes belong to multiple clusters");
     }
 
+    /**
+     * Returns the subset of nodes which have any of the given keys in the selected index of the root of this,
+     * or, if that index is not yet built, or this is negated, the subset matching the given condition.
+     */
+    private <K> NodeList indexed(Function<Indexes, Index<K>> index, Collection<K> keys, Predicate<Node> condition) {
+        int[] matches = isNegated() ? null : positionsOf(index, keys);
+        return matches == null ? matching(condition) : new NodeList(root, matches);
+    }
+
+    /** Returns the positions in root of the nodes of this which have any of the given keys, or null if the index is not built */
+    private <K> int[] positionsOf(Function<Indexes, Index<K>> index, Collection<K> keys) {
+        int[] matches = index.apply(root.indexes()).positionsOf(root.asList(), keys);
+        if (matches == null || positions == null) return matches;
+        return intersection(positions, matches);
+    }
+
+    private Indexes indexes() {
+        if (indexes == null) indexes = new Indexes();
+        return indexes;
+    }
+
+    private static List<Node> select(List<Node> nodes, int[] positions) {
+        Node[] selected = new Node[positions.length];
+        for (int i = 0; i < positions.length; i++)
+            selected[i] = nodes.get(positions[i]);
+        return Arrays.asList(selected);
+    }
+
+    /** Returns the values present in both the given sorted arrays, by searching the larger for each value of the smaller */
+    private static int[] intersection(int[] a, int[] b) {
+        if (a.length > b.length) return intersection(b, a);
+
+        int[] result = new int[a.length];
+        int size = 0;
+        int low = 0;
+        for (int i = 0; i < a.length && low < b.length; i++) {
+            int found = Arrays.binarySearch(b, low, b.length, a[i]);
+            if (found >= 0) {
+                result[size++] = a[i];
+                low = found + 1;
+            }
+            else {
+                low = -found - 1;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /** The indexes of a list, which are each built when they are used the second time */
+    private static class Indexes {
+
+        private final Index<String> hostname = new Index<>(Node::hostname);
+        private final Index<String> parentHostname = new Index<>(node -> node.parentHostname().orElse(null));
+        private final Index<Node.State> state = new Index<>(Node::state);
+        private final Index<NodeType> type = new Index<>(Node::type);
+        private final Index<ApplicationId> owner = new Index<>(node -> node.allocation().map(Allocation::owner).orElse(null));
+        private final Index<ClusterSpec.Id> cluster = new Index<>(node -> node.allocation()
+                                                                              .map(allocation -> allocation.membership().cluster().id())
+                                                                              .orElse(null));
+
+    }
+
+    /**
+     * The sorted positions of the nodes of a list by some key. This is built only when it is used the second time,
+     * as a single lookup is cheaper as a scan. Concurrent use may build it more than once, which is harmless.
+     */
+    private static class Index<K> {
+
+        private final Function<Node, K> keyOf;
+        private volatile boolean used = false;
+        private volatile Map<K, int[]> positions = null;
+
+        Index(Function<Node, K> keyOf) {
+            this.keyOf = keyOf;
+        }
+
+        /** Returns the positions of the given nodes which have any of the given keys, or null if this is not yet built */
+        int[] positionsOf(List<Node> nodes, Collection<K> keys) {
+            Map<K, int[]> positions = this.positions;
+            if (positions == null) {
+                if ( ! used) {
+                    used = true;
+                    return null;
+                }
+                this.positions = positions = build(nodes);
+            }
+            if (keys.size() == 1) return positions.getOrDefault(keys.iterator().next(), noPositions);
+
+            // Each node has at most one key, so the positions of different keys are disjoint
+            int size = 0;
+            for (K key : keys)
+                size += positions.getOrDefault(key, noPositions).length;
+            int[] union = new int[size];
+            size = 0;
+            for (K key : keys) {
+                int[] matches = positions.getOrDefault(key, noPositions);
+                System.arraycopy(matches, 0, union, size, matches.length);
+                size += matches.length;
+            }
+            Arrays.sort(union);
+            return union;
+        }
+
+        private Map<K, int[]> build(List<Node> nodes) {
+            Map<K, int[]> counts = new HashMap<>();
+            for (Node node : nodes) {
+                K key = keyOf.apply(node);
+                if (key != null) counts.computeIfAbsent(key, __ -> new int[1])[0]++;
+            }
+
+            Map<K, int[]> positions = new HashMap<>(counts.size() * 2);
+            counts.forEach((key, count) -> {
+                positions.put(key, new int[count[0]]);
+                count[0] = 0;
+            });
+            for (int i = 0; i < nodes.size(); i++) {
+                K key = keyOf.apply(nodes.get(i));
+                if (key != null) positions.get(key)[counts.get(key)[0]++] = i;
+            }
+            return positions;
+        }
+
+    }
+
     /** Returns the nodes of this as a stream */
     public Stream<Node> stream() { return asList().stream(); }
 
@@ -10,6 +10,7 @@ import com.yahoo.vespa.curator.Curator;
 import com.yahoo.vespa.curator.Lock;
 import com.yahoo.vespa.curator.recipes.CuratorCounter;
 import com.yahoo.vespa.curator.transaction.CuratorTransaction;
+import org.apache.zookeeper.data.Stat;
 
 import java.time.Duration;
 import java.util.Arrays;
@@ -107,6 +108,8 @@ public class CuratorDatabase {
 
     Optional<byte[]> getData(Path path) { return getSession().getData(path); }
 
+    Optional<VersionedData> getVersionedData(Path path) { return getSession().getVersionedData(path); }
+
     /** Invalidates the current cache if outdated. */
     Session getSession() {
         if (changeGenerationCounter.get() != cache.get().generation)
@@ -143,7 +146,7 @@ public class CuratorDatabase {
         // over time by multiple threads. Growing is the only operation permitted by this.
         // The content of the map is immutable.
         private final Map<Path, List<String>> children = new ConcurrentHashMap<>();
-        private final Map<Path, Optional<byte[]>> data = new ConcurrentHashMap<>();
+        private final Map<Path, Optional<VersionedData>> data = new ConcurrentHashMap<>();
 
         private final AbstractCache.SimpleStatsCounter stats = new AbstractCache.SimpleStatsCounter();
 
@@ -160,7 +163,12 @@ public class CuratorDatabase {
 
         @Override
         public Optional<byte[]> getData(Path path) {
-            return get(data, path, () -> curator.getData(path)).map(data -> Arrays.copyOf(data, data.length));
+            return getVersionedData(path).map(data -> Arrays.copyOf(data.bytes(), data.bytes().length));
+        }
+
+        @Override
+        public Optional<VersionedData> getVersionedData(Path path) {
+            return get(data, path, () -> readVersionedData(curator, path));
         }
 
         private <T> T get(Map<Path, T> values, Path path, Supplier<T> loader) {
@@ -192,6 +200,14 @@ public class CuratorDatabase {
         @Override
         public Optional<byte[]> getData(Path path) { return curator.getData(path); }
 
+        @Override
+        public Optional<VersionedData> getVersionedData(Path path) { return readVersionedData(curator, path); }
+
+    }
+
+    private static Optional<VersionedData> readVersionedData(Curator curator, Path path) {
+        Stat stat = new Stat();
+        return curator.getData(path, stat).map(bytes -> new VersionedData(bytes, stat.getMzxid()));
     }
 
     interface Session {
@@ -206,6 +222,17 @@ public class CuratorDatabase {
          */
         Optional<byte[]> getData(Path path);
 
+        /**
+         * Returns the content of this child, which must not be modified, and the id of the last modification of it.
+         */
+        Optional<VersionedData> getVersionedData(Path path);
+
     }
 
+    /**
+     * The content of a path, and the ZooKeeper transaction id which last modified it. The transaction id is
+     * unique to this content at this path, also when the path is deleted and created again, which the version is not.
+     */
+    record VersionedData(byte[] bytes, long modified) { }
+
 }
@@ -1,6 +1,9 @@
 // Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.hosted.provision.persistence;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.yahoo.component.Version;
 import com.yahoo.concurrent.UncheckedTimeoutException;
 import com.yahoo.config.provision.ApplicationId;
@@ -18,6 +21,9 @@ import com.yahoo.vespa.curator.Lock;
 import com.yahoo.vespa.curator.recipes.CuratorCounter;
 import com.yahoo.vespa.curator.transaction.CuratorOperations;
 import com.yahoo.vespa.curator.transaction.CuratorTransaction;
+import com.yahoo.vespa.flags.BooleanFlag;
+import com.yahoo.vespa.flags.FlagSource;
+import com.yahoo.vespa.flags.PermanentFlags;
 import com.yahoo.vespa.hosted.provision.Node;
 import com.yahoo.vespa.hosted.provision.applications.Application;
 import com.yahoo.vespa.hosted.provision.lb.LoadBalancer;
@@ -36,6 +42,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Level;
@@ -76,12 +83,22 @@ public class CuratorDatabaseClient {
     private final CuratorDatabase db;
     private final Clock clock;
     private final CuratorCounter provisionIndexCounter;
+    private final BooleanFlag binaryNodeData;
 
-    public CuratorDatabaseClient(NodeFlavors flavors, Curator curator, Clock clock, boolean useCache, long nodeCacheSize) {
-        this.nodeSerializer = new NodeSerializer(flavors, nodeCacheSize);
+    // A cache of deserialized Node objects, keyed on the path and the last modification of the node data.
+    //
+    // Deserializing a Node is expensive, and happens frequently. Node data which has already been deserialized
+    // is returned from this cache instead, without reading through the data to decide whether it has changed.
+    private final Cache<NodeKey, Node> nodeCache;
+
+    public CuratorDatabaseClient(NodeFlavors flavors, Curator curator, Clock clock, boolean useCache, long nodeCacheSize,
+                                 FlagSource flagSource) {
+        this.nodeSerializer = new NodeSerializer(flavors);
         this.db = new CuratorDatabase(curator, root, useCache);
         this.clock = clock;
         this.provisionIndexCounter = new CuratorCounter(curator, root.append("provisionIndexCounter"));
+        this.binaryNodeData = PermanentFlags.BINARY_NODE_DATA.bindTo(flagSource);
+        this.nodeCache = CacheBuilder.newBuilder().maximumSize(nodeCacheSize).recordStats().build();
         initZK();
     }
 
@@ -111,7 +128,7 @@ public class CuratorDatabaseClient {
                 throw new IllegalArgumentException(node + " is not in the " + expectedState + " state");
 
             node = node.with(node.history().recordStateTransition(null, expectedState, agent, clock.instant()));
-            curatorTransaction.add(CuratorOperations.create(toPath(node).getAbsolute(), nodeSerializer.toJson(node)));
+            curatorTransaction.add(CuratorOperations.create(toPath(node).getAbsolute(), serialize(node)));
         }
 
         for (Node node : nodes)
@@ -224,7 +241,7 @@ public class CuratorDatabaseClient {
     }
 
     private void writeNode(Node.State toState, CuratorTransaction curatorTransaction, Node node, Node newNode) {
-        byte[] nodeData = nodeSerializer.toJson(newNode);
+        byte[] nodeData = serialize(newNode);
         String currentNodePath = toPath(node).getAbsolute();
         String newNodePath = toPath(toState, newNode.hostname()).getAbsolute();
         if (newNodePath.equals(currentNodePath)) {
@@ -235,6 +252,10 @@ public class CuratorDatabaseClient {
         }
     }
 
+    private byte[] serialize(Node node) {
+        return binaryNodeData.value() ? nodeSerializer.toBinary(node) : nodeSerializer.toJson(node);
+    }
+
     private Status newNodeStatus(Node node, Node.State toState) {
         if (node.state() != Node.State.failed && toState == Node.State.failed) return node.status().withIncreasedFailCount();
         if (node.state() == Node.State.failed && toState == Node.State.active) return node.status().withDecreasedFailCount(); // fail undo
@@ -269,13 +290,22 @@ public class CuratorDatabaseClient {
         if (states.length == 0)
             states = Node.State.values();
         for (Node.State state : states) {
-            Optional<byte[]> nodeData = session.getData(toPath(state, hostname));
+            Path path = toPath(state, hostname);
+            Optional<CuratorDatabase.VersionedData> nodeData = session.getVersionedData(path);
             if (nodeData.isPresent())
-                return nodeData.map((data) -> nodeSerializer.fromJson(state, data));
+                return Optional.of(deserialize(path, state, nodeData.get()));
         }
         return Optional.empty();
     }
 
+    private Node deserialize(Path path, Node.State state, CuratorDatabase.VersionedData data) {
+        try {
+            return nodeCache.get(new NodeKey(path, data.modified()), () -> nodeSerializer.fromData(state, data.bytes()));
+        } catch (ExecutionException e) {
+            throw new UncheckedExecutionException(e);
+        }
+    }
+
     /** 
      * Returns a particular node, or empty if this noe is not in any of the given states.
      * If no states are given this returns the node if it is present in any state.
@@ -533,8 +563,9 @@ public class CuratorDatabaseClient {
         return db.cacheStats();
     }
 
-    public CacheStats nodeSerializerCacheStats() {
-        return nodeSerializer.cacheStats();
+    public CacheStats nodeCacheStats() {
+        var stats = nodeCache.stats();
+        return new CacheStats(stats.hitRate(), stats.evictionCount(), nodeCache.size());
     }
 
     private <T> Optional<T> read(Path path, Function<byte[], T> mapper) {
@@ -546,4 +577,7 @@ public class CuratorDatabaseClient {
                                             : CuratorOperations.create(path.getAbsolute(), data);
     }
 
+    /** The path is needed along with the modification, as all paths written in a transaction share its id */
+    private record NodeKey(Path path, long modified) { }
+
 }
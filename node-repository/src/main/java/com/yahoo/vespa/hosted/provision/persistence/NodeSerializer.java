@@ -1,11 +1,7 @@
 // Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.hosted.provision.persistence;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.hash.Hashing;
-import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.yahoo.component.Version;
 import com.yahoo.config.provision.ApplicationId;
 import com.yahoo.config.provision.ApplicationName;
@@ -22,6 +18,7 @@ import com.yahoo.config.provision.TenantName;
 import com.yahoo.config.provision.host.FlavorOverrides;
 import com.yahoo.config.provision.serialization.NetworkPortsSerializer;
 import com.yahoo.slime.ArrayTraverser;
+import com.yahoo.slime.BinaryFormat;
 import com.yahoo.slime.Cursor;
 import com.yahoo.slime.Inspector;
 import com.yahoo.slime.Slime;
@@ -39,18 +36,16 @@ import com.yahoo.vespa.hosted.provision.node.Status;
 import com.yahoo.vespa.hosted.provision.node.TrustStoreItem;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 /**
- * Serializes a node to/from JSON.
+ * Serializes a node to/from JSON, or the binary slime format.
  * Instances of this are multithread safe and can be reused
  *
  * @author bratseth
@@ -132,17 +127,13 @@ public class NodeSerializer {
     private static final String fingerprintKey = "fingerprint";
     private static final String expiresKey = "expires";
 
-    // A cache of deserialized Node objects. The cache is keyed on the hash of serialized node data.
-    //
-    // Deserializing a Node from slime is expensive, and happens frequently. Node instances that have already been
-    // deserialized are returned from this cache instead of being deserialized again.
-    private final Cache<Long, Node> cache;
+    // Prefixes node data in the binary slime format, as this byte never starts JSON
+    private static final byte binaryFormatMarker = 0;
 
     // ---------------- Serialization ----------------------------------------------------
 
-    public NodeSerializer(NodeFlavors flavors, long cacheSize) {
+    public NodeSerializer(NodeFlavors flavors) {
         this.flavors = flavors;
-        this.cache = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
     }
 
     public byte[] toJson(Node node) {
@@ -156,10 +147,15 @@ public class NodeSerializer {
         }
     }
 
-    /** Returns cache statistics for this serializer */
-    public CacheStats cacheStats() {
-        var stats = cache.stats();
-        return new CacheStats(stats.hitRate(), stats.evictionCount(), cache.size());
+    /** Returns the node in the binary slime format, which is more compact, and faster to read, than JSON */
+    public byte[] toBinary(Node node) {
+        Slime slime = new Slime();
+        toSlime(node, slime.setObject());
+        byte[] binary = BinaryFormat.encode(slime);
+        byte[] data = new byte[binary.length + 1];
+        data[0] = binaryFormatMarker;
+        System.arraycopy(binary, 0, data, 1, binary.length);
+        return data;
     }
 
     private void toSlime(Node node, Cursor object) {
@@ -261,15 +257,15 @@ public class NodeSerializer {
     // ---------------- Deserialization --------------------------------------------------
 
     public Node fromJson(Node.State state, byte[] data) {
-        long key = Hashing.sipHash24().newHasher()
-                          .putString(state.name(), StandardCharsets.UTF_8)
-                          .putBytes(data).hash()
-                          .asLong();
-        try {
-            return cache.get(key, () -> nodeFromSlime(state, SlimeUtils.jsonToSlime(data).get()));
-        } catch (ExecutionException e) {
-            throw new UncheckedExecutionException(e);
-        }
+        return nodeFromSlime(state, SlimeUtils.jsonToSlime(data).get());
+    }
+
+    /** Reads a node written by either {@link #toBinary(Node)} or {@link #toJson(Node)} */
+    public Node fromData(Node.State state, byte[] data) {
+        if (data.length > 0 && data[0] == binaryFormatMarker)
+            return nodeFromSlime(state, BinaryFormat.decode(data, 1, data.length - 1).get());
+
+        return fromJson(state, data);
     }
 
     private Node nodeFromSlime(Node.State state, Inspector object) {
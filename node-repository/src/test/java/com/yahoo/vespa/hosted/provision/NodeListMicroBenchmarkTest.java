@@ -1,6 +1,10 @@
 // Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.hosted.provision;
 
+import com.yahoo.component.Vtag;
+import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.config.provision.ClusterMembership;
+import com.yahoo.config.provision.ClusterSpec;
 import com.yahoo.config.provision.Flavor;
 import com.yahoo.config.provision.NodeFlavors;
 import com.yahoo.config.provision.NodeResources;
@@ -21,6 +25,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -36,7 +41,7 @@ public class NodeListMicroBenchmarkTest {
     @Ignore
     @Test
     public void testChildrenOf() {
-        List<Node> nodes = createHosts();
+        List<Node> nodes = createHosts(hostCount);
 
         List<Node> childNodes = nodes.stream().map(host -> createNodes(host.hostname())).flatMap(Collection::stream).collect(Collectors.toList());
         nodes.addAll(childNodes);
@@ -61,7 +66,57 @@ public class NodeListMicroBenchmarkTest {
         System.out.println("Calling NodeList.childrenOf took " + duration + " (" + duration.toNanos() / iterations / 1000 + " microseconds per invocation)");
     }
 
-    private List<Node> createHosts() {
+    @Ignore
+    @Test
+    public void testMaintainerQueries() {
+        List<Node> nodes = createHosts(5000);
+        ApplicationId[] applications = new ApplicationId[100];
+        for (int i = 0; i < applications.length; i++)
+            applications[i] = ApplicationId.from("tenant" + i, "application" + i, "default");
+        int index = 0;
+        for (Node host : List.copyOf(nodes)) {
+            for (Node node : createNodes(host.hostname())) {
+                ClusterMembership membership = ClusterMembership.from("container/c" + (index % 3) + "/0/" + index,
+                                                                      Vtag.currentVersion, Optional.empty());
+                nodes.add(node.allocate(applications[index++ % applications.length], membership, resources0, Instant.EPOCH));
+            }
+        }
+        List<Node> snapshot = List.copyOf(nodes);
+
+        // Warmup for stable results.
+        for (int i = 0; i < 3; i++) {
+            runMaintainerQueries(snapshot, applications, false);
+            runMaintainerQueries(snapshot, applications, true);
+        }
+
+        for (boolean reuseList : List.of(false, true)) {
+            Instant start = Instant.now();
+            runMaintainerQueries(snapshot, applications, reuseList);
+            Duration duration = Duration.between(start, Instant.now());
+            System.out.println("Maintainer queries on " + snapshot.size() + " nodes, " +
+                               (reuseList ? "with indexes of a single list" : "scanning a new list per query") +
+                               ", took " + duration.toMillis() + " ms");
+        }
+    }
+
+    /** Runs queries like those of maintainers, either all on the same list, or each on a new list, which is then scanned */
+    private int runMaintainerQueries(List<Node> snapshot, ApplicationId[] applications, boolean reuseList) {
+        NodeList shared = NodeList.copyOf(snapshot);
+        Supplier<NodeList> list = reuseList ? () -> shared : () -> NodeList.copyOf(snapshot);
+        int count = 0;
+        for (ApplicationId application : applications) {
+            count += list.get().owner(application).state(Node.State.reserved).cluster(ClusterSpec.Id.from("c0")).size();
+            count += list.get().owner(application).nodeType(NodeType.tenant).not().retired().size();
+        }
+        for (Node host : list.get().nodeType(NodeType.host).first(1000))
+            count += list.get().childrenOf(host).size();
+        for (Node child : list.get().nodeType(NodeType.tenant).first(1000))
+            count += list.get().parentOf(child).isPresent() ? 1 : 0;
+        count += list.get().parentsOf(list.get().owner(applications[0])).size();
+        return count;
+    }
+
+    private List<Node> createHosts(int hostCount) {
         List<Node> hosts = new ArrayList<>();
         for (int i = 0; i < hostCount; i++) {
             hosts.add(Node.create("host" + i, IP.Config.of(Set.of("::1"), createIps(), List.of()),
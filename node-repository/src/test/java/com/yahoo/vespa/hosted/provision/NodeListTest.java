@@ -0,0 +1,111 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision;
+
+import com.yahoo.component.Vtag;
+import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.config.provision.ClusterMembership;
+import com.yahoo.config.provision.ClusterSpec;
+import com.yahoo.config.provision.Flavor;
+import com.yahoo.config.provision.NodeResources;
+import com.yahoo.config.provision.NodeType;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that filters which are resolved through indexes return the same as filtering by scanning.
+ */
+public class NodeListTest {
+
+    private static final NodeResources resources = new NodeResources(1, 4, 10, 1);
+    private static final ApplicationId app1 = ApplicationId.from("t1", "a1", "i1");
+    private static final ApplicationId app2 = ApplicationId.from("t2", "a2", "i2");
+
+    private final List<Node> nodes = createNodes();
+
+    @Test
+    public void indexed_filters_match_scanning_filters() {
+        NodeList list = NodeList.copyOf(nodes);
+        for (int run = 0; run < 3; run++) { // The first run scans, and the following resolve through indexes
+            assertFilter(list, l -> l.node("host3").map(NodeList::of).orElse(NodeList.of()), node -> node.hostname().equals("host3"));
+            assertFilter(list, l -> l.node("nonexistent").map(NodeList::of).orElse(NodeList.of()), node -> false);
+            assertFilter(list, l -> l.childrenOf("host3"), node -> node.hasParent("host3"));
+            assertFilter(list, l -> l.state(Node.State.active), node -> node.state() == Node.State.active);
+            assertFilter(list, l -> l.state(Node.State.active, Node.State.failed),
+                         node -> EnumSet.of(Node.State.active, Node.State.failed).contains(node.state()));
+            assertFilter(list, l -> l.nodeType(NodeType.host), node -> node.type() == NodeType.host);
+            assertFilter(list, l -> l.owner(app1), node -> node.allocation().map(a -> a.owner().equals(app1)).orElse(false));
+            assertFilter(list, l -> l.cluster(ClusterSpec.Id.from("c1")),
+                         node -> node.allocation().map(a -> a.membership().cluster().id().value().equals("c1")).orElse(false));
+        }
+    }
+
+    @Test
+    public void chained_and_negated_indexed_filters_match_scanning_filters() {
+        NodeList list = NodeList.copyOf(nodes);
+        for (int run = 0; run < 3; run++) {
+            assertFilter(list, l -> l.owner(app2).state(Node.State.active).cluster(ClusterSpec.Id.from("c0")),
+                         node -> node.allocation().map(a -> a.owner().equals(app2)
+                                                            && a.membership().cluster().id().value().equals("c0")).orElse(false)
+                                 && node.state() == Node.State.active);
+            assertFilter(list, l -> l.state(Node.State.active).not().owner(app1).childrenOf("host4"),
+                         node -> node.state() == Node.State.active && node.hasParent("host4")
+                                 && ! node.allocation().map(a -> a.owner().equals(app1)).orElse(false));
+            assertFilter(list, l -> l.not().state(Node.State.active), node -> node.state() != Node.State.active);
+            assertFilter(list, l -> l.nodeType(NodeType.tenant).matching(node -> node.hostname().endsWith("1")).owner(app1),
+                         node -> node.type() == NodeType.tenant && node.hostname().endsWith("1")
+                                 && node.allocation().map(a -> a.owner().equals(app1)).orElse(false));
+        }
+    }
+
+    @Test
+    public void parents_are_found_in_any_subset() {
+        NodeList list = NodeList.copyOf(nodes);
+        NodeList children = list.nodeType(NodeType.tenant);
+        for (int run = 0; run < 3; run++) {
+            for (Node child : children)
+                assertEquals(child.parentHostname(), list.parentOf(child).map(Node::hostname));
+            assertEquals(children.mapToList(child -> list.stream().filter(node -> child.hasParent(node.hostname())).findFirst().get()),
+                         list.parentsOf(children).asList());
+            NodeList activeHosts = list.state(Node.State.active);
+            for (Node child : children)
+                assertEquals(child.parentHostname().filter(parent -> activeHosts.node(parent).isPresent()),
+                             activeHosts.parentOf(child).map(Node::hostname));
+            assertEquals(Optional.empty(), list.parentOf(list.first().get()));
+        }
+    }
+
+    private static void assertFilter(NodeList list, Function<NodeList, NodeList> filter, Predicate<Node> condition) {
+        assertEquals(list.stream().filter(condition).toList(), filter.apply(list).asList());
+    }
+
+    private static List<Node> createNodes() {
+        List<Node> nodes = new ArrayList<>();
+        Node.State[] states = { Node.State.active, Node.State.ready, Node.State.failed, Node.State.parked };
+        for (int host = 0; host < 10; host++) {
+            nodes.add(Node.create("host" + host, "host" + host, new Flavor(resources), states[host % 2], NodeType.host).build());
+            for (int child = 0; child < 5; child++) {
+                int index = host * 5 + child;
+                Node node = Node.create("node" + index, "node" + index, new Flavor(resources), states[index % states.length], NodeType.tenant)
+                                .parentHostname("host" + host)
+                                .build();
+                if (index % 3 != 2) {
+                    ClusterMembership membership = ClusterMembership.from("container/c" + (index % 2) + "/0/" + index,
+                                                                          Vtag.currentVersion, Optional.empty());
+                    node = node.allocate(index % 3 == 0 ? app1 : app2, membership, resources, Instant.EPOCH);
+                }
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+}
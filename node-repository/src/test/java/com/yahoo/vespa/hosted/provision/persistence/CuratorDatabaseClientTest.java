@@ -6,16 +6,25 @@ import com.yahoo.config.provision.ApplicationName;
 import com.yahoo.config.provision.InstanceName;
 import com.yahoo.config.provision.NodeType;
 import com.yahoo.config.provision.TenantName;
+import com.yahoo.path.Path;
 import com.yahoo.vespa.curator.Curator;
 import com.yahoo.vespa.curator.mock.MockCurator;
+import com.yahoo.vespa.flags.InMemoryFlagSource;
+import com.yahoo.vespa.flags.PermanentFlags;
 import com.yahoo.vespa.hosted.provision.Node;
+import com.yahoo.vespa.hosted.provision.node.Agent;
 import com.yahoo.vespa.hosted.provision.provisioning.FlavorConfigBuilder;
 import org.junit.Test;
 
 import java.time.Clock;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author mpolden
@@ -23,8 +32,9 @@ import static org.junit.Assert.assertEquals;
 public class CuratorDatabaseClientTest {
 
     private final Curator curator = new MockCurator();
+    private final InMemoryFlagSource flagSource = new InMemoryFlagSource();
     private final CuratorDatabaseClient zkClient = new CuratorDatabaseClient(
-            FlavorConfigBuilder.createDummies("default"), curator, Clock.systemUTC(), true, 1000);
+            FlavorConfigBuilder.createDummies("default"), curator, Clock.systemUTC(), true, 1000, flagSource);
 
     @Test
     public void can_read_stored_host_information() throws Exception {
@@ -36,6 +46,42 @@ public class CuratorDatabaseClientTest {
         assertEquals(NodeType.host, allocatedNodes.get(0).type());
     }
 
+    @Test
+    public void nodes_are_deserialized_once_per_modification() {
+        zkClient.addNodesInState(List.of(createNode("host1")), Node.State.provisioned, Agent.system);
+        Node node = zkClient.readNode("host1").get();
+        assertSame(node, zkClient.readNode("host1").get());
+
+        Node ready = zkClient.writeTo(Node.State.ready, node, Agent.system, Optional.empty());
+        Node read = zkClient.readNode("host1").get();
+        assertNotSame(node, read);
+        assertEquals(Node.State.ready, read.state());
+        assertSame(read, zkClient.readNode("host1").get());
+
+        zkClient.writeTo(List.of(ready.withWantToRetire(true, Agent.system, Instant.EPOCH)),
+                         Agent.system, Optional.empty());
+        Node retiring = zkClient.readNode("host1").get();
+        assertNotSame(read, retiring);
+        assertTrue(retiring.status().wantToRetire());
+
+        zkClient.writeTo(Node.State.provisioned, retiring, Agent.system, Optional.empty());
+        zkClient.writeTo(Node.State.ready, zkClient.readNode("host1").get(), Agent.system, Optional.empty());
+        assertEquals(Node.State.ready, zkClient.readNode("host1").get().state());
+        assertTrue(zkClient.readNode("host1").get().status().wantToRetire()); // Not the cached node from before the move
+    }
+
+    @Test
+    public void nodes_are_written_in_binary_format_when_enabled() {
+        zkClient.addNodesInState(List.of(createNode("host1")), Node.State.provisioned, Agent.system);
+        flagSource.withBooleanFlag(PermanentFlags.BINARY_NODE_DATA.id(), true);
+        zkClient.addNodesInState(List.of(createNode("host2")), Node.State.provisioned, Agent.system);
+
+        assertEquals('{', curator.getData(Path.fromString("/provision/v1/provisioned/host1")).get()[0]);
+        assertEquals(0, curator.getData(Path.fromString("/provision/v1/provisioned/host2")).get()[0]);
+        assertEquals(List.of("host1", "host2"),
+                     zkClient.readNodes(Node.State.provisioned).stream().map(Node::hostname).sorted().toList());
+    }
+
     @Test
     public void locks_can_be_acquired_and_released() {
         ApplicationId app = ApplicationId.from(TenantName.from("testTenant"), ApplicationName.from("testApp"), InstanceName.from("testInstance"));
@@ -54,4 +100,9 @@ public class CuratorDatabaseClientTest {
 
     }
 
+    private static Node createNode(String hostname) {
+        return Node.create(hostname, hostname, FlavorConfigBuilder.createDummies("default").getFlavorOrThrow("default"),
+                           Node.State.provisioned, NodeType.host).build();
+    }
+
  }
@@ -60,7 +60,7 @@ import static org.junit.Assert.assertTrue;
 public class NodeSerializerTest {
 
     private final NodeFlavors nodeFlavors = FlavorConfigBuilder.createDummies("default", "large", "ugccloud-container", "arm64");
-    private final NodeSerializer nodeSerializer = new NodeSerializer(nodeFlavors, 1000);
+    private final NodeSerializer nodeSerializer = new NodeSerializer(nodeFlavors);
     private final ManualClock clock = new ManualClock();
 
     @Test
@@ -501,6 +501,23 @@ public class NodeSerializerTest {
         assertEquals(account, node.cloudAccount().get());
     }
 
+    @Test
+    public void binary_serialization() {
+        Node node = createNode().allocate(ApplicationId.from("myTenant", "myApplication", "myInstance"),
+                                          ClusterMembership.from("content/myId/0/0/stateful", Vtag.currentVersion, Optional.empty()),
+                                          new NodeResources(1, 2, 3, 4),
+                                          Instant.ofEpochMilli(1))
+                                .with(new Reports().withReport(Report.basicReport("id", Report.Type.HARD_FAIL, Instant.ofEpochMilli(3), "description")));
+        byte[] json = nodeSerializer.toJson(node);
+        byte[] binary = nodeSerializer.toBinary(node);
+        assertTrue(binary.length < json.length);
+
+        Node copy = nodeSerializer.fromData(State.active, binary);
+        assertEquals(State.active, copy.state());
+        assertEquals(new String(nodeSerializer.toJson(nodeSerializer.fromData(State.active, json))),
+                     new String(nodeSerializer.toJson(copy)));
+    }
+
     private byte[] createNodeJson(String hostname, String... ipAddress) {
         String ipAddressJsonPart = "";
         if (ipAddress.length > 0) {
@@ -11,6 +11,10 @@ import com.yahoo.search.predicate.serialization.SerializationHelper;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
@@ -39,6 +43,7 @@ import java.util.stream.Stream;
 public class PredicateIndex {
 
     private static final int SERIALIZATION_FORMAT_VERSION = 3;
+    private static final int MAPPABLE_SERIALIZATION_FORMAT_VERSION = 4;
 
     private final PredicateRangeTermExpander expander;
     private final int[] internalToExternalIdMapping;
@@ -98,6 +103,24 @@ public class PredicateIndex {
 
     public void writeToOutputStream(DataOutputStream out) throws IOException {
         out.writeInt(SERIALIZATION_FORMAT_VERSION);
+        writeCommonSections(out);
+        intervalStore.writeToOutputStream(out);
+        conjunctionIndex.writeToOutputStream(out);
+    }
+
+    /**
+     * Writes this index in a format which can be loaded using {@link #fromMappedFile(Path)}.
+     * The interval store is written last, in a flat layout which is searched directly from the mapped file.
+     * The other sections are written as by {@link #writeToOutputStream}, and are copied to the heap when loaded.
+     */
+    public void writeMappableToOutputStream(DataOutputStream out) throws IOException {
+        out.writeInt(MAPPABLE_SERIALIZATION_FORMAT_VERSION);
+        writeCommonSections(out);
+        conjunctionIndex.writeToOutputStream(out);
+        intervalStore.writeMappableToOutputStream(out);
+    }
+
+    private void writeCommonSections(DataOutputStream out) throws IOException {
         config.writeToOutputStream(out);
         SerializationHelper.writeIntArray(internalToExternalIdMapping, out);
         SerializationHelper.writeByteArray(minFeatureIndex, out);
@@ -107,8 +130,6 @@ public class PredicateIndex {
         intervalIndex.writeToOutputStream(out);
         boundsIndex.writeToOutputStream(out);
         conjunctionIntervalIndex.writeToOutputStream(out);
-        intervalStore.writeToOutputStream(out);
-        conjunctionIndex.writeToOutputStream(out);
     }
 
     public static PredicateIndex fromInputStream(DataInputStream in) throws IOException {
@@ -143,6 +164,56 @@ public class PredicateIndex {
         );
     }
 
+    /**
+     * Loads an index written by {@link #writeMappableToOutputStream} by memory mapping the given file.
+     *
+     * Only the interval store is searched directly from the mapped file, such that its pages are shared
+     * by all processes mapping the file. The dictionaries and posting lists are copied from the mapping
+     * onto the heap, in bulk, as the posting lists are searched as int arrays. Loading is therefore still
+     * linear in the size of those sections, and they are not shared between processes.
+     *
+     * The sections preceding the interval store, and the interval store itself, must each be less than 2 GB.
+     */
+    public static PredicateIndex fromMappedFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+            int version = buffer.getInt();
+            if (version != MAPPABLE_SERIALIZATION_FORMAT_VERSION) {
+                throw new IllegalArgumentException(String.format(
+                        "Invalid serialization format version. Expected %d, was %d.", MAPPABLE_SERIALIZATION_FORMAT_VERSION, version));
+            }
+            Config config = Config.fromByteBuffer(buffer);
+            int[] internalToExternalIdMapping = SerializationHelper.readIntArray(buffer);
+            byte[] minFeatureIndex = SerializationHelper.readByteArray(buffer);
+            short[] intervalEnds = SerializationHelper.readShortArray(buffer);
+            int highestIntervalEnd = buffer.getInt();
+            int[] zeroConstraintDocuments = SerializationHelper.readIntArray(buffer);
+            SimpleIndex intervalIndex = SimpleIndex.fromByteBuffer(buffer);
+            SimpleIndex boundsIndex = SimpleIndex.fromByteBuffer(buffer);
+            SimpleIndex conjunctionIntervalIndex = SimpleIndex.fromByteBuffer(buffer);
+            ConjunctionIndex conjunctionIndex = ConjunctionIndex.fromByteBuffer(buffer);
+
+            // The mapping stays valid after the channel is closed
+            long intervalStoreStart = buffer.position();
+            ByteBuffer intervalStoreBuffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                                                         intervalStoreStart, channel.size() - intervalStoreStart);
+            PredicateIntervalStore intervalStore = PredicateIntervalStore.fromMappedBuffer(intervalStoreBuffer);
+            return new PredicateIndex(
+                    config,
+                    internalToExternalIdMapping,
+                    minFeatureIndex,
+                    intervalEnds,
+                    highestIntervalEnd,
+                    intervalIndex,
+                    boundsIndex,
+                    conjunctionIntervalIndex,
+                    intervalStore,
+                    conjunctionIndex,
+                    zeroConstraintDocuments
+            );
+        }
+    }
+
     @Beta
     public class Searcher {
         private final byte[] nPostingListsForDocument;
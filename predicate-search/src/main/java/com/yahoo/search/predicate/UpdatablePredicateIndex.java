@@ -0,0 +1,363 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate;
+
+import com.yahoo.api.annotations.Beta;
+import com.yahoo.document.predicate.Predicate;
+import org.eclipse.collections.api.set.primitive.IntSet;
+import org.eclipse.collections.impl.set.mutable.primitive.IntHashSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A {@link PredicateIndex} which supports adding and removing documents while it is being searched.
+ * <p>
+ * The index consists of an immutable main index and a few small delta indexes containing the documents
+ * changed since the main index was built. Each update is added as a delta index of its own, and delta indexes
+ * of similar size are combined, like a binary counter, so an update costs amortized O(log n) documents indexed,
+ * where n is the number of changed documents. Documents removed or replaced by a newer delta index are filtered
+ * out of the hits of the main index and of older delta indexes. Once the number of changed documents reaches the
+ * merge threshold, a new main index containing all documents is built in the background.
+ * </p><p>
+ * The main index and delta indexes are published together as an immutable snapshot, so searching never blocks
+ * on updates. Hits are returned in document id order. As with {@link PredicateIndex}, each thread
+ * <strong>must</strong> use its own {@link Searcher}. Updates are serialized.
+ * </p><p>
+ * Note that this keeps the {@link Predicate} of every document in memory, as the main index must be rebuilt from them.
+ * </p>
+ */
+@Beta
+public class UpdatablePredicateIndex implements AutoCloseable {
+
+    /** The default number of changed documents which triggers building a new main index */
+    public static final int DEFAULT_MERGE_THRESHOLD = 1000;
+
+    private final Config config;
+    private final int mergeThreshold;
+    private final Object monitor = new Object();
+    private final Object mergeMonitor = new Object();
+    private final AtomicBoolean mergeScheduled = new AtomicBoolean(false);
+    private final ExecutorService mergeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "predicate-index-merger");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<Snapshot> snapshot;
+
+    // All current documents
+    private final Map<Integer, Predicate> documents = new HashMap<>();
+    // Documents changed since the main index was built, where null is a removed document
+    private Map<Integer, Predicate> changes = new LinkedHashMap<>();
+    // Documents changed since an ongoing merge started, or null if no merge is ongoing
+    private Map<Integer, Predicate> changesDuringMerge = null;
+    // The delta indexes of the changes, oldest and largest first
+    private final List<Delta> deltas = new ArrayList<>();
+
+    public UpdatablePredicateIndex(Config config) {
+        this(config, DEFAULT_MERGE_THRESHOLD);
+    }
+
+    /**
+     * Creates an empty updatable index.
+     *
+     * @param config configuration of the indexes
+     * @param mergeThreshold the number of changed documents which triggers building a new main index
+     */
+    public UpdatablePredicateIndex(Config config, int mergeThreshold) {
+        if (mergeThreshold < 1)
+            throw new IllegalArgumentException("Merge threshold must be positive, was " + mergeThreshold);
+        this.config = config;
+        this.mergeThreshold = mergeThreshold;
+        PredicateIndex empty = new PredicateIndexBuilder(config).build();
+        this.snapshot = new AtomicReference<>(new Snapshot(empty, List.of()));
+    }
+
+    /**
+     * Indexes a predicate with the given id, replacing any predicate previously indexed with this id.
+     *
+     * @param docId     a 32-bit document id, returned in the Hit objects when the predicate matches
+     * @param predicate the predicate to index
+     */
+    public void indexDocument(int docId, Predicate predicate) {
+        if (predicate == null) throw new NullPointerException("Predicate cannot be null");
+        synchronized (monitor) {
+            documents.put(docId, predicate);
+            registerChange(docId, predicate);
+        }
+        mergeIfNeeded();
+    }
+
+    /**
+     * Removes the predicate with the given id from the index. This is a no-op if the id is not indexed.
+     *
+     * @param docId the id of the document to remove
+     */
+    public void removeDocument(int docId) {
+        synchronized (monitor) {
+            if (documents.remove(docId) == null) return;
+            registerChange(docId, null);
+        }
+        mergeIfNeeded();
+    }
+
+    /** Returns the number of documents in this index */
+    public int documentCount() {
+        synchronized (monitor) {
+            return documents.size();
+        }
+    }
+
+    /** Returns the number of documents changed since the main index was last built */
+    public int pendingChangeCount() {
+        synchronized (monitor) {
+            return changes.size();
+        }
+    }
+
+    /**
+     * Builds a new main index containing all current documents, replacing the delta indexes.
+     * This is done in the background when the merge threshold is reached, but may also be invoked
+     * explicitly, e.g. after an initial bulk load. Blocks until the merge is complete.
+     */
+    public void merge() {
+        synchronized (mergeMonitor) {
+            Map<Integer, Predicate> toIndex;
+            synchronized (monitor) {
+                if (changes.isEmpty()) return;
+                toIndex = new HashMap<>(documents);
+                changesDuringMerge = new LinkedHashMap<>();
+            }
+            PredicateIndex main = buildIndex(toIndex);
+            main.rebuildPostingListCache();
+            synchronized (monitor) {
+                changes = changesDuringMerge;
+                changesDuringMerge = null;
+                deltas.clear();
+                if ( ! changes.isEmpty())
+                    deltas.add(new Delta(new TreeMap<>(changes)));
+                publish(main);
+            }
+        }
+    }
+
+    /** Rebuilds the posting list cache of the main index. Refer to {@link PredicateIndex#rebuildPostingListCache()} */
+    public void rebuildPostingListCache() {
+        snapshot.get().main.rebuildPostingListCache();
+    }
+
+    /** Creates a new searcher. */
+    public Searcher searcher() {
+        return new Searcher();
+    }
+
+    @Override
+    public void close() {
+        mergeExecutor.shutdown();
+        try {
+            if ( ! mergeExecutor.awaitTermination(1, TimeUnit.MINUTES))
+                throw new IllegalStateException("Timed out waiting for index merge to complete");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void registerChange(int docId, Predicate predicate) {
+        changes.put(docId, predicate);
+        if (changesDuringMerge != null)
+            changesDuringMerge.put(docId, predicate);
+
+        TreeMap<Integer, Predicate> combined = new TreeMap<>();
+        combined.put(docId, predicate);
+        while ( ! deltas.isEmpty() && deltas.get(deltas.size() - 1).changes.size() <= combined.size()) {
+            TreeMap<Integer, Predicate> older = new TreeMap<>(deltas.remove(deltas.size() - 1).changes);
+            older.putAll(combined);
+            combined = older;
+        }
+        deltas.add(new Delta(combined));
+        publish(snapshot.get().main);
+    }
+
+    /** Publishes the current delta indexes together with the given main index */
+    private void publish(PredicateIndex main) {
+        snapshot.set(new Snapshot(main, List.copyOf(deltas)));
+    }
+
+    /** Builds an index of the given documents, in id order, so that its hits are ordered by id */
+    private PredicateIndex buildIndex(Map<Integer, Predicate> documents) {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(config);
+        documents.keySet().stream().sorted().forEach(docId -> builder.indexDocument(docId, documents.get(docId)));
+        return builder.build();
+    }
+
+    private void mergeIfNeeded() {
+        if (pendingChangeCount() < mergeThreshold) return;
+        if (mergeExecutor.isShutdown()) return;
+        if ( ! mergeScheduled.compareAndSet(false, true)) return;
+        try {
+            mergeExecutor.execute(() -> {
+                try {
+                    merge();
+                } finally {
+                    mergeScheduled.set(false);
+                    mergeIfNeeded(); // Changes which arrived during the merge may already exceed the threshold
+                }
+            });
+        } catch (RejectedExecutionException e) { // Closed concurrently
+            mergeScheduled.set(false);
+        }
+    }
+
+    /** An index of documents changed since the main index was built */
+    private class Delta {
+
+        /** The changed documents, where null is a removed document */
+        final SortedMap<Integer, Predicate> changes;
+        /** Ids of the changed documents, which hide these documents in the main index and older delta indexes */
+        final IntSet ids;
+        final PredicateIndex index;
+
+        Delta(SortedMap<Integer, Predicate> changes) {
+            this.changes = changes;
+            IntHashSet ids = new IntHashSet(changes.size());
+            Map<Integer, Predicate> documents = new HashMap<>();
+            changes.forEach((docId, predicate) -> {
+                ids.add(docId);
+                if (predicate != null)
+                    documents.put(docId, predicate);
+            });
+            this.ids = ids.toImmutable();
+            this.index = buildIndex(documents);
+        }
+
+    }
+
+    /** An immutable view of the index */
+    private static class Snapshot {
+
+        final PredicateIndex main;
+        /** The delta indexes, oldest first */
+        final List<Delta> deltas;
+
+        Snapshot(PredicateIndex main, List<Delta> deltas) {
+            this.main = main;
+            this.deltas = deltas;
+        }
+
+    }
+
+    /**
+     * Searches the latest snapshot of the index at the time of each search.
+     * Not thread-safe, but never blocks on updates of the index.
+     */
+    @Beta
+    public class Searcher {
+
+        private Snapshot current;
+        private PredicateIndex.Searcher mainSearcher;
+        private Map<PredicateIndex, PredicateIndex.Searcher> deltaSearchers = new IdentityHashMap<>();
+
+        private Searcher() { }
+
+        /**
+         * Retrieves a stream of hits for the given query, ordered by document id.
+         *
+         * @param query Specifies the boolean variables that are true.
+         * @return A stream of hits.
+         */
+        public Stream<Hit> search(PredicateQuery query) {
+            Snapshot latest = snapshot.get();
+            if (latest != current) {
+                if (current == null || current.main != latest.main)
+                    mainSearcher = latest.main.searcher();
+                Map<PredicateIndex, PredicateIndex.Searcher> searchers = new IdentityHashMap<>();
+                for (Delta delta : latest.deltas) {
+                    PredicateIndex.Searcher searcher = deltaSearchers.get(delta.index);
+                    searchers.put(delta.index, searcher != null ? searcher : delta.index.searcher());
+                }
+                deltaSearchers = searchers;
+                current = latest;
+            }
+            List<Delta> deltas = current.deltas;
+            if (deltas.isEmpty())
+                return mainSearcher.search(query);
+
+            List<Iterator<Hit>> sources = new ArrayList<>(deltas.size() + 1);
+            sources.add(withoutHidden(mainSearcher.search(query), deltas).iterator());
+            for (int i = 0; i < deltas.size(); i++) {
+                Stream<Hit> hits = deltaSearchers.get(deltas.get(i).index).search(query);
+                sources.add(withoutHidden(hits, deltas.subList(i + 1, deltas.size())).iterator());
+            }
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new MergingIterator(sources),
+                                                                            Spliterator.ORDERED | Spliterator.NONNULL),
+                                        false);
+        }
+
+        /** Returns the given hits, without those of documents changed in any of the given newer deltas */
+        private Stream<Hit> withoutHidden(Stream<Hit> hits, List<Delta> newer) {
+            if (newer.isEmpty()) return hits;
+            return hits.filter(hit -> {
+                for (Delta delta : newer)
+                    if (delta.ids.contains(hit.getDocId())) return false;
+                return true;
+            });
+        }
+
+    }
+
+    /** Merges iterators of hits ordered by document id, where each document is in at most one of them */
+    private static class MergingIterator implements Iterator<Hit> {
+
+        private final List<Iterator<Hit>> sources;
+        private final Hit[] heads;
+
+        MergingIterator(List<Iterator<Hit>> sources) {
+            this.sources = sources;
+            this.heads = new Hit[sources.size()];
+            for (int i = 0; i < heads.length; i++)
+                advance(i);
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (Hit head : heads)
+                if (head != null) return true;
+            return false;
+        }
+
+        @Override
+        public Hit next() {
+            int smallest = -1;
+            for (int i = 0; i < heads.length; i++)
+                if (heads[i] != null && (smallest == -1 || heads[i].getDocId() < heads[smallest].getDocId()))
+                    smallest = i;
+            if (smallest == -1) throw new NoSuchElementException();
+            Hit next = heads[smallest];
+            advance(smallest);
+            return next;
+        }
+
+        private void advance(int source) {
+            heads[source] = sources.get(source).hasNext() ? sources.get(source).next() : null;
+        }
+
+    }
+
+}
@@ -4,10 +4,13 @@ package com.yahoo.search.predicate.benchmarks;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.Iterators;
+import com.yahoo.document.predicate.Predicate;
 import com.yahoo.search.predicate.Config;
+import com.yahoo.search.predicate.Hit;
 import com.yahoo.search.predicate.PredicateIndex;
 import com.yahoo.search.predicate.PredicateIndexBuilder;
 import com.yahoo.search.predicate.PredicateQuery;
+import com.yahoo.search.predicate.UpdatablePredicateIndex;
 import com.yahoo.search.predicate.serialization.PredicateQuerySerializer;
 import com.yahoo.search.predicate.utils.VespaFeedParser;
 import com.yahoo.search.predicate.utils.VespaQueryParser;
@@ -24,6 +27,7 @@ import java.io.DataOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -38,8 +42,13 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static com.yahoo.search.predicate.benchmarks.PredicateIndexBenchmark.BenchmarkArguments.Algorithm;
 import static com.yahoo.search.predicate.benchmarks.PredicateIndexBenchmark.BenchmarkArguments.Format;
@@ -66,12 +75,16 @@ public class PredicateIndexBenchmark {
                 .setArity(args.arity)
                 .setUseConjunctionAlgorithm(args.algorithm == Algorithm.CONJUNCTION)
                 .build();
-        PredicateIndex index = getIndex(args, config);
-        if (args.indexOutputFile != null) {
-            writeIndexToFile(index, args.indexOutputFile);
-        }
-        if (args.queryFile != null) {
-            runQueries(args, index);
+        if (args.updatesPerSecond > 0) {
+            runQueriesUnderUpdateLoad(args, config);
+        } else {
+            PredicateIndex index = getIndex(args, config);
+            if (args.indexOutputFile != null) {
+                writeIndexToFile(index, args.indexOutputFile, args.mappedIndex);
+            }
+            if (args.queryFile != null) {
+                runQueries(args, index);
+            }
         }
         output.put("Total time", System.currentTimeMillis() - start);
         output.put("Timestamp", new Date().toString());
@@ -87,6 +100,10 @@ public class PredicateIndexBenchmark {
             System.err.println("Provide either a feed file or index file.");
             return Optional.empty();
         }
+        if (args.updatesPerSecond > 0 && (args.feedFile == null || args.queryFile == null)) {
+            System.err.println("Updating the index while searching requires both a feed file and a query file.");
+            return Optional.empty();
+        }
         return Optional.of(args);
     }
 
@@ -106,6 +123,12 @@ public class PredicateIndexBenchmark {
             output.put("Time prepare index", System.currentTimeMillis() - start);
             return index;
         } else {
+            if (args.mappedIndex) {
+                long start = System.currentTimeMillis();
+                PredicateIndex index = PredicateIndex.fromMappedFile(Paths.get(args.indexFile));
+                output.put("Time map index", System.currentTimeMillis() - start);
+                return index;
+            }
             try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args.indexFile)))) {
                 long start = System.currentTimeMillis();
                 PredicateIndex index = PredicateIndex.fromInputStream(in);
@@ -115,10 +138,13 @@ public class PredicateIndexBenchmark {
         }
     }
 
-    private static void writeIndexToFile(PredicateIndex index, String indexOutputFile) throws IOException {
+    private static void writeIndexToFile(PredicateIndex index, String indexOutputFile, boolean mappable) throws IOException {
         try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexOutputFile)))) {
             long start = System.currentTimeMillis();
-            index.writeToOutputStream(out);
+            if (mappable)
+                index.writeMappableToOutputStream(out);
+            else
+                index.writeToOutputStream(out);
             output.put("Time write index", System.currentTimeMillis() - start);
         }
     }
@@ -136,6 +162,8 @@ public class PredicateIndexBenchmark {
         output.put("Index file", args.indexFile);
         output.put("Query format", args.format);
         output.put("Warmup", args.warmup);
+        output.put("Updates per second", args.updatesPerSecond);
+        output.put("Mapped index format", args.mappedIndex);
     }
 
     private static void runQueries(BenchmarkArguments args, PredicateIndex index) throws IOException {
@@ -148,6 +176,42 @@ public class PredicateIndexBenchmark {
         searchIndex(queries, index, args.nThreads, args.runtime);
     }
 
+    /**
+     * Searches an {@link UpdatablePredicateIndex} while another thread re-indexes random documents from
+     * the feed at the given rate, to measure search throughput under update load.
+     */
+    private static void runQueriesUnderUpdateLoad(BenchmarkArguments args, Config config) throws IOException {
+        List<Predicate> predicates = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        VespaFeedParser.parseDocuments(args.feedFile, args.maxDocuments, predicates::add);
+        output.put("Indexed document count", predicates.size());
+
+        try (UpdatablePredicateIndex index = new UpdatablePredicateIndex(config)) {
+            for (int i = 0; i < predicates.size(); i++) {
+                index.indexDocument(i + 1, predicates.get(i));
+            }
+            index.merge();
+            output.put("Time indexing documents", System.currentTimeMillis() - start);
+
+            List<PredicateQuery> queries = parseQueries(args.queryFile, args.maxQueries, args.format);
+            AtomicLong updateCount = new AtomicLong();
+            ScheduledExecutorService updater = Executors.newSingleThreadScheduledExecutor();
+            Random random = new Random(42);
+            long periodMicros = Math.max(1, 1_000_000L / args.updatesPerSecond);
+            updater.scheduleAtFixedRate(() -> {
+                int docIndex = random.nextInt(predicates.size());
+                index.indexDocument(docIndex + 1, predicates.get(docIndex));
+                updateCount.incrementAndGet();
+            }, 0, periodMicros, TimeUnit.MICROSECONDS);
+
+            long warmup = warmup(queries, () -> index.searcher()::search, args.nThreads, args.warmup);
+            output.put("Time warmup", warmup);
+            searchIndex(queries, () -> index.searcher()::search, args.nThreads, args.runtime);
+            updater.shutdownNow();
+            output.put("Updates performed", updateCount.get());
+        }
+    }
+
     private static void rebuildPostingListCache(PredicateIndex index) {
         long start = System.currentTimeMillis();
         index.rebuildPostingListCache();
@@ -165,12 +229,17 @@ public class PredicateIndexBenchmark {
     }
 
     private static long warmup(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int warmup) {
+        return warmup(queries, () -> index.searcher()::search, nThreads, warmup);
+    }
+
+    private static long warmup(List<PredicateQuery> queries, Supplier<Function<PredicateQuery, Stream<Hit>>> searchers,
+                               int nThreads, int warmup) {
         ExecutorService executor = Executors.newFixedThreadPool(nThreads);
         Random random = new Random(42);
         for (int i = 0; i < nThreads; i++) {
             List<PredicateQuery> shuffledQueries = new ArrayList<>(queries);
             Collections.shuffle(shuffledQueries, random);
-            executor.submit(new QueryRunner(shuffledQueries, index.searcher()));
+            executor.submit(new QueryRunner(shuffledQueries, searchers.get()));
         }
         long start = System.currentTimeMillis();
         waitAndShutdown(warmup, executor);
@@ -178,13 +247,18 @@ public class PredicateIndexBenchmark {
     }
 
     private static void searchIndex(List<PredicateQuery> queries, PredicateIndex index, int nThreads, int runtime) {
+        searchIndex(queries, () -> index.searcher()::search, nThreads, runtime);
+    }
+
+    private static void searchIndex(List<PredicateQuery> queries, Supplier<Function<PredicateQuery, Stream<Hit>>> searchers,
+                                    int nThreads, int runtime) {
         ExecutorService executor = Executors.newFixedThreadPool(nThreads);
         Random random = new Random(42);
         List<QueryRunner> runners = new ArrayList<>();
         for (int i = 0; i < nThreads; i++) {
             List<PredicateQuery> shuffledQueries = new ArrayList<>(queries);
             Collections.shuffle(shuffledQueries, random);
-            runners.add(new QueryRunner(shuffledQueries, index.searcher()));
+            runners.add(new QueryRunner(shuffledQueries, searchers.get()));
         }
         long start = System.currentTimeMillis();
         List<Future<ResultMetrics>> futureResults = runners.stream().map(executor::submit).collect(toList());
@@ -217,9 +291,9 @@ public class PredicateIndexBenchmark {
 
     private static class QueryRunner implements Callable<ResultMetrics> {
         private final List<PredicateQuery> queries;
-        private final PredicateIndex.Searcher searcher;
+        private final Function<PredicateQuery, Stream<Hit>> searcher;
 
-        public QueryRunner(List<PredicateQuery> queries, PredicateIndex.Searcher seacher) {
+        public QueryRunner(List<PredicateQuery> queries, Function<PredicateQuery, Stream<Hit>> seacher) {
             this.queries = queries;
             this.searcher = seacher;
         }
@@ -230,7 +304,7 @@ public class PredicateIndexBenchmark {
             ResultMetrics result = new ResultMetrics();
             while (!Thread.interrupted()) {
                 long start = System.nanoTime();
-                long hits = searcher.search(iterator.next()).count();
+                long hits = searcher.apply(iterator.next()).count();
                 double latencyMilliseconds = (System.nanoTime() - start) / 1_000_000d;
                 result.registerResult(hits, latencyMilliseconds);
             }
@@ -275,6 +349,11 @@ public class PredicateIndexBenchmark {
         @Option(name = {"-w", "--warmup"}, description = "Warmup in seconds.")
         public int warmup = 30;
 
+        @Option(name = {"-u", "--updates-per-second"},
+                description = "Re-index this many random documents from the feed file per second while searching, " +
+                              "using an updatable index")
+        public int updatesPerSecond = 0;
+
         @Option(name = {"-qf", "--query-format"},
         description = "Query format. Valid formats are either 'VESPA' (obsolete query property format) or 'JSON'.")
         public Format format = Format.VESPA;
@@ -288,6 +367,10 @@ public class PredicateIndexBenchmark {
         @Option(name = {"-wi", "--write-index"}, description = "Serialize index to the given file")
         public String indexOutputFile;
 
+        @Option(name = {"-mi", "--mapped-index"},
+                description = "Read and write index files in the format where the interval store is memory mapped when loaded")
+        public boolean mappedIndex = false;
+
         @Option(name = {"-quf", "--query-file"}, description = "File path to a query file")
         public String queryFile;
 
@@ -12,6 +12,7 @@ public class BoundsPostingList extends MultiIntervalPostingList {
     private final int valueDiff;
     private final IntervalWithBounds intervalWithBounds = new IntervalWithBounds();
     private final PredicateIntervalStore store;
+    private final PredicateIntervalStore.Intervals intervals = new PredicateIntervalStore.Intervals();
     private int currentInterval;
 
     /**
@@ -25,7 +26,8 @@ public class BoundsPostingList extends MultiIntervalPostingList {
 
     @Override
     protected boolean prepareIntervals(int dataRef) {
-        intervalWithBounds.setIntervalArray(store.get(dataRef), 0);
+        store.get(dataRef, intervals);
+        intervalWithBounds.setIntervalArray(intervals.array(), 0, intervals.length());
         return nextInterval();
     }
 
@@ -7,6 +7,8 @@ import com.yahoo.search.predicate.serialization.SerializationHelper;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -14,28 +16,113 @@ import java.util.List;
 import java.util.Map;
 
 /**
+ * Stores the interval lists referenced by the postings of a predicate index.
+ * The lists are either held on the heap, or read directly from a (memory mapped) buffer
+ * in the layout written by {@link #writeMappableToOutputStream}.
+ *
  * @author bjorncs
  */
 public class PredicateIntervalStore {
 
+    // Heap representation, or null if backed by a buffer
     private final int[][] intervalsList;
+    // Buffer representation: the intervals of ref i are data[offsets[i], offsets[i + 1])
+    private final IntBuffer offsets;
+    private final IntBuffer data;
 
     public PredicateIntervalStore(int[][] intervalsList) {
         this.intervalsList = intervalsList;
+        this.offsets = null;
+        this.data = null;
     }
 
+    private PredicateIntervalStore(IntBuffer offsets, IntBuffer data) {
+        this.intervalsList = null;
+        this.offsets = offsets;
+        this.data = data;
+    }
+
+    /**
+     * Returns the intervals for the given reference. For a buffer backed store this returns
+     * a new array copied from the buffer, otherwise the stored array which must not be modified.
+     * Searching uses {@link #get(int, Intervals)} instead, which does not allocate.
+     */
     public int[] get(int intervalRef) {
-        assert intervalRef < intervalsList.length;
-        return intervalsList[intervalRef];
+        if (intervalsList != null) {
+            assert intervalRef < intervalsList.length;
+            return intervalsList[intervalRef];
+        }
+        int begin = offsets.get(intervalRef);
+        int[] intervals = new int[offsets.get(intervalRef + 1) - begin];
+        data.get(begin, intervals);
+        return intervals;
+    }
+
+    /**
+     * Reads the intervals for the given reference into the given reusable view, without allocating.
+     * For a heap backed store the view refers to the stored array, otherwise the intervals are copied into
+     * the scratch array of the view, which is only grown when too small. This is used on the search path.
+     */
+    public void get(int intervalRef, Intervals intervals) {
+        if (intervalsList != null) {
+            assert intervalRef < intervalsList.length;
+            intervals.array = intervalsList[intervalRef];
+            intervals.length = intervals.array.length;
+            return;
+        }
+        int begin = offsets.get(intervalRef);
+        int length = offsets.get(intervalRef + 1) - begin;
+        if (intervals.scratch.length < length)
+            intervals.scratch = new int[Math.max(length, 2 * intervals.scratch.length)];
+        data.get(begin, intervals.scratch, 0, length);
+        intervals.array = intervals.scratch;
+        intervals.length = length;
+    }
+
+    public int size() {
+        return intervalsList != null ? intervalsList.length : offsets.limit() - 1;
     }
 
     public void writeToOutputStream(DataOutputStream out) throws IOException {
-        out.writeInt(intervalsList.length);
-        for (int[] intervals : intervalsList) {
-            SerializationHelper.writeIntArray(intervals, out);
+        int size = size();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            SerializationHelper.writeIntArray(get(i), out);
+        }
+    }
+
+    /**
+     * Writes this in a flat layout which can be searched directly from a memory mapped file:
+     * the number of offsets, the offset of each interval list into the data and the end offset,
+     * followed by the number of intervals and all intervals.
+     */
+    public void writeMappableToOutputStream(DataOutputStream out) throws IOException {
+        int size = size();
+        out.writeInt(size + 1);
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            out.writeInt(offset);
+            offset += get(i).length;
+        }
+        out.writeInt(offset);
+        out.writeInt(offset);
+        for (int i = 0; i < size; i++) {
+            for (int interval : get(i)) {
+                out.writeInt(interval);
+            }
         }
     }
 
+    /**
+     * Creates a store reading directly from the given buffer, positioned at data written by
+     * {@link #writeMappableToOutputStream}. The data is not copied, and the buffer is advanced past it.
+     */
+    public static PredicateIntervalStore fromMappedBuffer(ByteBuffer buffer) {
+        IntBuffer offsets = SerializationHelper.intBufferView(buffer);
+        IntBuffer data = SerializationHelper.intBufferView(buffer);
+        return new PredicateIntervalStore(offsets, data);
+    }
+
     public static PredicateIntervalStore fromInputStream(DataInputStream in) throws IOException {
         int length = in.readInt();
         int[][] intervalsList = new int[length][];
@@ -45,6 +132,22 @@ public class PredicateIntervalStore {
         return new PredicateIntervalStore(intervalsList);
     }
 
+    /**
+     * The intervals of one reference, as the first {@link #length()} entries of {@link #array()}.
+     * The array must not be modified. Not thread-safe; each posting list owns its own instance.
+     */
+    public static class Intervals {
+
+        private int[] scratch = new int[8];
+        private int[] array = scratch;
+        private int length = 0;
+
+        public int[] array() { return array; }
+        public int length() { return length; }
+        public int get(int index) { return array[index]; }
+
+    }
+
     public static class Builder {
         private final List<int[]> intervalsListBuilder = new ArrayList<>();
         private final Map<Entry, Integer> intervalsListIndexes = new HashMap<>();
@@ -8,7 +8,6 @@ import com.yahoo.search.predicate.utils.PrimitiveArraySorter;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -22,6 +21,10 @@ import java.util.stream.StreamSupport;
  */
 public class PredicateSearch {
 
+    // The stream collects hits in blocks, starting small such that short-circuiting consumers do little extra work
+    private static final int MIN_HIT_BLOCK_SIZE = 8;
+    private static final int MAX_HIT_BLOCK_SIZE = 128;
+
     private final PostingList[] postingLists;
     private final byte[] nPostingListsForDocument;
     private final byte[] minFeatureIndex;
@@ -84,17 +87,66 @@ public class PredicateSearch {
         return StreamSupport.stream(new PredicateSpliterator(), false);
     }
 
+    /**
+     * Finds the next hits, starting at the given document id, until the given arrays are full.
+     *
+     * @param fromDocId the lowest document id to consider
+     * @param hitDocIds receives the document ids of the hits
+     * @param hitSubqueries receives the subquery bitmaps of the hits
+     * @return the number of hits found, which is less than the array length only if there are no more hits
+     */
+    public int nextHits(int fromDocId, int[] hitDocIds, long[] hitSubqueries) {
+        return nextHits(fromDocId, hitDocIds, hitSubqueries, Math.min(hitDocIds.length, hitSubqueries.length));
+    }
+
+    private int nextHits(int fromDocId, int[] hitDocIds, long[] hitSubqueries, int maxHits) {
+        int nHits = 0;
+        int docId = fromDocId;
+        while (nHits < maxHits && nPostingLists > 0) {
+            int hit = seek(docId);
+            if (hit == -1) break;
+            hitDocIds[nHits] = hit;
+            hitSubqueries[nHits] = subqueryMarkers[Short.toUnsignedInt(intervalEnds[hit])];
+            ++nHits;
+            docId = hit + 1;
+        }
+        return nHits;
+    }
+
     private class PredicateSpliterator implements java.util.Spliterator<Hit> {
-        private int lastHit = -1;
+        private final int[] hitDocIds = new int[MAX_HIT_BLOCK_SIZE];
+        private final long[] hitSubqueries = new long[MAX_HIT_BLOCK_SIZE];
+        private int blockSize = MIN_HIT_BLOCK_SIZE;
+        private int nHits = 0;
+        private int nextHit = 0;
+        private boolean exhausted = false;
 
         @Override
         public boolean tryAdvance(Consumer<? super Hit> action) {
-            Optional<Hit> optionalHit = seek(lastHit + 1);
-            optionalHit.ifPresent(hit -> {
-                lastHit = hit.getDocId();
-                action.accept(hit);
-            });
-            return optionalHit.isPresent();
+            if (nextHit == nHits && ! fillBlock()) return false;
+            action.accept(new Hit(hitDocIds[nextHit], hitSubqueries[nextHit]));
+            ++nextHit;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Hit> action) {
+            do {
+                for (; nextHit < nHits; ++nextHit) {
+                    action.accept(new Hit(hitDocIds[nextHit], hitSubqueries[nextHit]));
+                }
+            } while (fillBlock());
+        }
+
+        /** Collects the next block of hits. Returns false if there are no more hits. */
+        private boolean fillBlock() {
+            if (exhausted) return false;
+            int fromDocId = nHits == 0 ? 0 : hitDocIds[nHits - 1] + 1;
+            nHits = nextHits(fromDocId, hitDocIds, hitSubqueries, blockSize);
+            nextHit = 0;
+            exhausted = nHits < blockSize;
+            blockSize = Math.min(blockSize * 2, MAX_HIT_BLOCK_SIZE);
+            return nHits > 0;
         }
 
         @Override
@@ -118,7 +170,8 @@ public class PredicateSearch {
         }
     }
 
-    private Optional<Hit> seek(int docId) {
+    /** Returns the first matching document id from the given id, or -1 if there are no more hits */
+    private int seek(int docId) {
         boolean skippedToEnd = skipMinFeature(docId);
         while (nPostingLists > 0 && !skippedToEnd) {
             int docId0 = docIds[sortedIndexes[0]];
@@ -129,13 +182,13 @@ public class PredicateSearch {
                 int docIdK = docIds[sortedIndexes[k]];
                 if (docId0 == docIdK) {
                     if (evaluateHit(docId0, k, intervalEnd)) {
-                        return Optional.of(new Hit(docId0, subqueryMarkers[intervalEnd]));
+                        return docId0;
                     }
                 }
             }
             skippedToEnd = skipMinFeature(docId0 + 1);
         }
-        return Optional.empty();
+        return -1;
     }
 
     private boolean skipMinFeature(int docId) {
@@ -2,6 +2,7 @@
 package com.yahoo.search.predicate.index;
 
 import com.yahoo.search.predicate.SubqueryBitmap;
+import com.yahoo.search.predicate.utils.PostingListSearch;
 
 /**
  * Wraps an int stream of document ids into a PostingList.
@@ -26,14 +27,20 @@ public class ZeroConstraintPostingList implements PostingList {
 
     @Override
     public boolean nextDocument(int docId) {
-        int currentDocId = this.currentDocId;
-        while (currentIndex < length && currentDocId <= docId) {
-            currentDocId = docIds[currentIndex++];
+        if (currentDocId > docId) {
+            return true;
         }
-        if (currentDocId <= docId) {
+        if (currentIndex == length) {
             return false;
         }
-        this.currentDocId = currentDocId;
+        // Zero constraint lists are often long and dense, so skip ahead by search rather than by scanning
+        int index = PostingListSearch.interpolationSearch(docIds, currentIndex, length, docId);
+        if (index == length) {
+            currentIndex = length;
+            return false;
+        }
+        this.currentDocId = docIds[index];
+        this.currentIndex = index + 1;
         return true;
     }
 
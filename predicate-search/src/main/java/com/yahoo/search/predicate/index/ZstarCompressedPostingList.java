@@ -15,7 +15,7 @@ import com.yahoo.search.predicate.SubqueryBitmap;
 public class ZstarCompressedPostingList extends MultiIntervalPostingList {
 
     private final PredicateIntervalStore store;
-    private int[] currentIntervals;
+    private final PredicateIntervalStore.Intervals currentIntervals = new PredicateIntervalStore.Intervals();
     private int currentIntervalIndex;
     private int prevInterval;
     private int currentInterval;
@@ -31,7 +31,7 @@ public class ZstarCompressedPostingList extends MultiIntervalPostingList {
 
     @Override
     protected boolean prepareIntervals(int dataRef) {
-        currentIntervals = store.get(dataRef);
+        store.get(dataRef, currentIntervals);
         currentIntervalIndex = 0;
         return nextInterval();
     }
@@ -39,8 +39,8 @@ public class ZstarCompressedPostingList extends MultiIntervalPostingList {
     @Override
     public boolean nextInterval() {
         int nextInterval = -1;
-        if (currentIntervalIndex < currentIntervals.length) {
-            nextInterval = currentIntervals[currentIntervalIndex];
+        if (currentIntervalIndex < currentIntervals.length()) {
+            nextInterval = currentIntervals.get(currentIntervalIndex);
         }
         if (prevInterval != 0) {
             if (Interval.isZStar2Interval(nextInterval)) {
@@ -16,6 +16,7 @@ import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -69,6 +70,20 @@ public class ConjunctionIndex {
         return new ConjunctionIndex(kIndex, zList, idMapping);
     }
 
+    /** Reads an index written by {@link #writeToOutputStream} from the given buffer, copying all posting lists to the heap */
+    public static ConjunctionIndex fromByteBuffer(ByteBuffer buffer) {
+        int[] zList = SerializationHelper.readIntArray(buffer);
+        long[] idMapping = SerializationHelper.readLongArray(buffer);
+        int kIndexSize = buffer.getInt();
+        IntObjectHashMap<FeatureIndex> kIndex = new IntObjectHashMap<>(kIndexSize);
+        for (int i = 0; i < kIndexSize; i++) {
+            int key = buffer.getInt();
+            kIndex.put(key, FeatureIndex.fromByteBuffer(buffer));
+        }
+        kIndex.compact();
+        return new ConjunctionIndex(kIndex, zList, idMapping);
+    }
+
     public static class FeatureIndex {
         // Maps a feature id to conjunction id
         private final LongObjectMap<int[]> map;
@@ -99,6 +114,17 @@ public class ConjunctionIndex {
             map.compact();
             return new FeatureIndex(map);
         }
+
+        public static FeatureIndex fromByteBuffer(ByteBuffer buffer) {
+            int mapSize = buffer.getInt();
+            LongObjectHashMap<int[]> map = new LongObjectHashMap<>(mapSize);
+            for (int i = 0; i < mapSize; i++) {
+                long key = buffer.getLong();
+                map.put(key, SerializationHelper.readIntArray(buffer));
+            }
+            map.compact();
+            return new FeatureIndex(map);
+        }
     }
 
     public class Searcher {
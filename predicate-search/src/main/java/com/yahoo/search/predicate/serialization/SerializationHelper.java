@@ -6,9 +6,13 @@ import com.yahoo.search.predicate.PredicateIndex;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 
 /**
  * Misc utility functions to help serialization of {@link PredicateIndex}.
+ * The methods reading arrays from a {@link ByteBuffer} read the same format as the corresponding
+ * {@link DataInputStream} methods, but copy each array in bulk, except {@link #intBufferView}, which does not copy.
  *
  * @author bjorncs
  */
@@ -78,4 +82,46 @@ public class SerializationHelper {
         return array;
     }
 
+    public static int[] readIntArray(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        int[] array = new int[length];
+        buffer.asIntBuffer().get(array);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+        return array;
+    }
+
+    public static byte[] readByteArray(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] array = new byte[length];
+        buffer.get(array);
+        return array;
+    }
+
+    public static long[] readLongArray(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        long[] array = new long[length];
+        buffer.asLongBuffer().get(array);
+        buffer.position(buffer.position() + length * Long.BYTES);
+        return array;
+    }
+
+    public static short[] readShortArray(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        short[] array = new short[length];
+        buffer.asShortBuffer().get(array);
+        buffer.position(buffer.position() + length * Short.BYTES);
+        return array;
+    }
+
+    /**
+     * Returns a view of the length prefixed int array at the current position of the given buffer,
+     * without copying it, and advances the buffer past the array.
+     */
+    public static IntBuffer intBufferView(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        IntBuffer view = buffer.slice().order(buffer.order()).asIntBuffer().limit(length);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+        return view;
+    }
+
 }
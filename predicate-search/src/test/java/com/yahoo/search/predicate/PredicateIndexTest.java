@@ -3,11 +3,17 @@ package com.yahoo.search.predicate;
 
 import com.yahoo.document.predicate.Predicate;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static com.yahoo.search.predicate.serialization.SerializationTestHelper.assertSerializationDeserializationMatches;
 import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
@@ -138,4 +144,37 @@ public class PredicateIndexTest {
         assertSerializationDeserializationMatches(
                 index, PredicateIndex::writeToOutputStream, PredicateIndex::fromInputStream);
     }
+
+    @Test
+    void require_that_mapped_index_retains_data_and_can_search(@TempDir Path tempDir) throws IOException {
+        PredicateIndexBuilder builder = new PredicateIndexBuilder(10);
+        builder.indexDocument(1, Predicate.fromString("country in ['no', 'se'] and gender in ['male']"));
+        builder.indexDocument(2, Predicate.fromString("gender in ['female'] and age in [20..40]"));
+        builder.indexDocument(3, Predicate.fromString("country not in ['se']"));
+        builder.indexDocument(0x3fffffe, Predicate.fromString("country in ['no'] and gender in ['female']"));
+        PredicateIndex index = builder.build();
+
+        Path file = tempDir.resolve("index.mapped");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            index.writeMappableToOutputStream(out);
+        }
+        PredicateIndex mapped = PredicateIndex.fromMappedFile(file);
+        assertArrayEquals(serialize(index), serialize(mapped));
+
+        PredicateQuery query = new PredicateQuery();
+        query.addFeature("country", "no");
+        query.addFeature("gender", "female");
+        query.addRangeFeature("age", 36);
+        assertEquals(index.searcher().search(query).collect(toList()), mapped.searcher().search(query).collect(toList()));
+        assertEquals("[2, 3, 67108862]", mapped.searcher().search(query).collect(toList()).toString());
+    }
+
+    private static byte[] serialize(PredicateIndex index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        index.writeToOutputStream(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
 }
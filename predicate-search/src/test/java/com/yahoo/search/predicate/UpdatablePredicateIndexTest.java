@@ -0,0 +1,108 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.predicate;
+
+import com.yahoo.document.predicate.Predicate;
+import org.junit.jupiter.api.Test;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class UpdatablePredicateIndexTest {
+
+    @Test
+    void requireThatDocumentsCanBeAddedAndRemovedWhileSearching() {
+        try (UpdatablePredicateIndex index = new UpdatablePredicateIndex(new Config.Builder().setArity(10).build(), 100)) {
+            UpdatablePredicateIndex.Searcher searcher = index.searcher();
+            PredicateQuery query = new PredicateQuery();
+            query.addFeature("country", "no");
+            query.addFeature("gender", "male");
+            assertEquals("[]", search(searcher, query));
+
+            index.indexDocument(1, Predicate.fromString("country in ['no', 'se'] and gender in ['male']"));
+            index.indexDocument(2, Predicate.fromString("country in ['no'] and gender in ['female']"));
+            assertEquals("[1]", search(searcher, query));
+
+            index.indexDocument(2, Predicate.fromString("country in ['no']"));
+            assertEquals("[1, 2]", search(searcher, query));
+
+            index.removeDocument(1);
+            assertEquals("[2]", search(searcher, query));
+            assertEquals(1, index.documentCount());
+        }
+    }
+
+    @Test
+    void requireThatMergeKeepsDocumentsSearchable() {
+        try (UpdatablePredicateIndex index = new UpdatablePredicateIndex(new Config.Builder().setArity(10).build(), 100)) {
+            UpdatablePredicateIndex.Searcher searcher = index.searcher();
+            PredicateQuery query = new PredicateQuery();
+            query.addFeature("country", "no");
+
+            index.indexDocument(1, Predicate.fromString("country in ['no']"));
+            index.indexDocument(2, Predicate.fromString("country in ['se']"));
+            index.indexDocument(3, Predicate.fromString("country in ['no']"));
+            assertEquals(3, index.pendingChangeCount());
+            index.merge();
+            assertEquals(0, index.pendingChangeCount());
+            assertEquals("[1, 3]", search(searcher, query));
+
+            // Changes to documents in the main index hide them until the next merge
+            index.removeDocument(1);
+            index.indexDocument(2, Predicate.fromString("country in ['no']"));
+            index.indexDocument(3, Predicate.fromString("country in ['se']"));
+            assertEquals("[2]", search(searcher, query));
+            index.merge();
+            assertEquals("[2]", search(searcher, query));
+            assertEquals(2, index.documentCount());
+        }
+    }
+
+    @Test
+    void requireThatMergeIsTriggeredByThreshold() throws InterruptedException {
+        try (UpdatablePredicateIndex index = new UpdatablePredicateIndex(new Config.Builder().setArity(10).build(), 10)) {
+            UpdatablePredicateIndex.Searcher searcher = index.searcher();
+            PredicateQuery query = new PredicateQuery();
+            query.addFeature("country", "no");
+            for (int i = 0; i < 10; i++)
+                index.indexDocument(i, Predicate.fromString("country in ['no']"));
+            long deadline = System.currentTimeMillis() + 60_000;
+            while (index.pendingChangeCount() > 0) {
+                if (System.currentTimeMillis() > deadline)
+                    fail("Merge was not triggered, " + index.pendingChangeCount() + " pending changes");
+                Thread.sleep(1);
+            }
+            assertEquals(10, searcher.search(query).count());
+        }
+    }
+
+    @Test
+    void requireThatHitsAreOrderedByDocumentId() {
+        try (UpdatablePredicateIndex index = new UpdatablePredicateIndex(new Config.Builder().setArity(10).build(), 1000)) {
+            UpdatablePredicateIndex.Searcher searcher = index.searcher();
+            PredicateQuery query = new PredicateQuery();
+            query.addFeature("country", "no");
+            for (int i : new int[] { 9, 3, 7, 1 })
+                index.indexDocument(i, Predicate.fromString("country in ['no']"));
+            index.merge();
+            for (int i : new int[] { 8, 2, 6, 4, 5 })
+                index.indexDocument(i, Predicate.fromString("country in ['no']"));
+            index.indexDocument(3, Predicate.fromString("country in ['se']"));
+            index.removeDocument(6);
+            index.indexDocument(7, Predicate.fromString("country in ['no', 'se']"));
+            assertEquals("[1, 2, 4, 5, 7, 8, 9]", searcher.search(query).collect(toList()).toString());
+        }
+    }
+
+    @Test
+    void requireThatMergeThresholdMustBePositive() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new UpdatablePredicateIndex(new Config.Builder().build(), 0));
+    }
+
+    private static String search(UpdatablePredicateIndex.Searcher searcher, PredicateQuery query) {
+        return searcher.search(query).sorted().collect(toList()).toString();
+    }
+
+}
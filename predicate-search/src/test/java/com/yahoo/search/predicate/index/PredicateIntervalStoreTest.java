@@ -4,7 +4,10 @@ package com.yahoo.search.predicate.index;
 import com.google.common.primitives.Ints;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -57,6 +60,37 @@ public class PredicateIntervalStoreTest {
                 store, PredicateIntervalStore::writeToOutputStream, PredicateIntervalStore::fromInputStream);
     }
 
+    @Test
+    void requireThatMappableLayoutCanBeReadFromBuffer() throws IOException {
+        PredicateIntervalStore.Builder builder = new PredicateIntervalStore.Builder();
+        int ref1 = builder.insert(Arrays.asList(0x00010001, 0x00020002));
+        int ref2 = builder.insert(Arrays.asList(0x0001ffff));
+        int ref3 = builder.insert(Arrays.asList(0x0fffffff, 0x00020002, 0x00030003));
+        PredicateIntervalStore store = builder.build();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        store.writeMappableToOutputStream(out);
+        out.flush();
+        PredicateIntervalStore mapped = PredicateIntervalStore.fromMappedBuffer(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertEquals(3, mapped.size());
+        assertArrayEquals(store.get(ref1), mapped.get(ref1));
+        assertArrayEquals(store.get(ref2), mapped.get(ref2));
+        assertArrayEquals(store.get(ref3), mapped.get(ref3));
+        assertSerializationDeserializationMatches(
+                mapped, PredicateIntervalStore::writeToOutputStream, PredicateIntervalStore::fromInputStream);
+
+        PredicateIntervalStore.Intervals intervals = new PredicateIntervalStore.Intervals();
+        for (int ref : new int[] { ref3, ref2, ref1 }) {
+            mapped.get(ref, intervals);
+            assertArrayEquals(store.get(ref), Arrays.copyOf(intervals.array(), intervals.length()));
+        }
+        int[] scratch = intervals.array();
+        mapped.get(ref3, intervals);
+        assertSame(scratch, intervals.array());
+    }
+
     @Test
     void requireThatEqualIntervalListsReturnsSameReference() {
         PredicateIntervalStore.Builder builder = new PredicateIntervalStore.Builder();
@@ -206,6 +206,35 @@ public class PredicateSearchTest {
         assertEquals(Arrays.asList(new Hit(0)).toString(), search.stream().collect(toList()).toString());
     }
 
+    @Test
+    void requireThatHitsSpanningSeveralBlocksAreAllReturned() {
+        int nDocuments = 1000;
+        List<SimplePostingList.Entry> entries = new ArrayList<>();
+        List<Hit> expected = new ArrayList<>();
+        for (int docId = 0; docId < nDocuments; docId++) {
+            // Every third document has an incomplete interval
+            entries.add(entry(docId, docId % 3 == 0 ? 0x00010042 : 0x000100ff));
+            if (docId % 3 != 0) expected.add(new Hit(docId));
+        }
+        byte[] minFeatures = new byte[nDocuments];
+        Arrays.fill(minFeatures, (byte) 1);
+        SimplePostingList.Entry[] entryArray = entries.toArray(new SimplePostingList.Entry[0]);
+
+        PredicateSearch search = createPredicateSearch(minFeatures, postingList(SubqueryBitmap.ALL_SUBQUERIES, entryArray));
+        assertEquals(expected, search.stream().collect(toList()));
+
+        search = createPredicateSearch(minFeatures, postingList(SubqueryBitmap.ALL_SUBQUERIES, entryArray));
+        assertEquals(expected.subList(0, 10), search.stream().limit(10).collect(toList()));
+
+        search = createPredicateSearch(minFeatures, postingList(SubqueryBitmap.ALL_SUBQUERIES, entryArray));
+        int[] hitDocIds = new int[100];
+        long[] hitSubqueries = new long[100];
+        assertEquals(100, search.nextHits(0, hitDocIds, hitSubqueries));
+        assertEquals(1, hitDocIds[0]);
+        assertEquals(SubqueryBitmap.ALL_SUBQUERIES, hitSubqueries[0]);
+        assertEquals(expected.get(99).getDocId(), hitDocIds[99]);
+    }
+
     private static PredicateSearch createPredicateSearch(byte[] minFeatures, PostingList... postingLists) {
         byte[] nPostingListsForDocument = new byte[minFeatures.length];
         short[] intervalEnds = new short[minFeatures.length];
@@ -31,4 +31,20 @@ public class ZeroConstraintPostingListTest {
 
         assertFalse(postingList.nextDocument(8));
     }
+
+    @Test
+    void requireThatPostingListCanSkipAhead() {
+        int[] docIds = new int[100000];
+        for (int i = 0; i < docIds.length; i++) {
+            docIds[i] = 2 * i;
+        }
+        ZeroConstraintPostingList postingList = new ZeroConstraintPostingList(docIds);
+        assertTrue(postingList.nextDocument(5));
+        assertEquals(6, postingList.getDocId());
+        assertTrue(postingList.nextDocument(150001));
+        assertEquals(150002, postingList.getDocId());
+        assertTrue(postingList.nextDocument(199997));
+        assertEquals(199998, postingList.getDocId());
+        assertFalse(postingList.nextDocument(199998));
+    }
 }
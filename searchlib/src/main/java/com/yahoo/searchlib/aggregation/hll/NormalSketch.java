@@ -79,6 +79,17 @@ public class NormalSketch extends Sketch<NormalSketch>  {
         data[hash & bucketMask] = (byte) Math.max(newValue, existingValue);
     }
 
+    /**
+     * Aggregates the hash values of a sparse sketch.
+     *
+     * @param sparse Sparse sketch
+     */
+    public void aggregate(SparseSketch sparse) {
+        for (int i = 0, size = sparse.size(); i < size; i++) {
+            aggregate(sparse.get(i));
+        }
+    }
+
     /**
      * Serializes the Sketch.
      *
@@ -32,7 +32,7 @@ public class SketchMerger {
         dest.merge(other);
         if (dest.size() > HyperLogLog.SPARSE_SKETCH_CONVERSION_THRESHOLD) {
             NormalSketch newSketch = new NormalSketch();
-            newSketch.aggregate(dest.data());
+            newSketch.aggregate(dest);
             return newSketch;
         }
         return dest;
@@ -44,9 +44,7 @@ public class SketchMerger {
     }
 
     private NormalSketch mergeNormalWithSparse(NormalSketch dest, SparseSketch other) {
-        NormalSketch newSketch = new NormalSketch();
-        newSketch.aggregate(other.data());
-        dest.merge(newSketch);
+        dest.aggregate(other);
         return dest;
     }
 
@@ -4,16 +4,50 @@ package com.yahoo.searchlib.aggregation.hll;
 import com.yahoo.vespa.objects.Deserializer;
 import com.yahoo.vespa.objects.Serializer;
 
+import java.util.Arrays;
 import java.util.HashSet;
 
+/**
+ * Sketch holding the distinct hash values, used by HyperLogLog until it becomes larger than
+ * {@link HyperLogLog#SPARSE_SKETCH_CONVERSION_THRESHOLD}. The values are kept sorted in a primitive array,
+ * so sketches are merged in place and (de)serialized without boxing.
+ */
 public class SparseSketch extends Sketch<SparseSketch> {
 
     public static final int classId = registerClass(0x4000 + 171, SparseSketch.class);
-    private final HashSet<Integer> values = new HashSet<>();
 
+    private static final int[] empty = new int[0];
+
+    /** The distinct hash values of this, sorted ascending, in the first 'size' entries */
+    private int[] values = empty;
+    private int size = 0;
+
+    /**
+     * Merges the hash values of the other sketch into this. No memory is allocated if this has room for the union.
+     *
+     * @param other Other sketch
+     */
     @Override
     public void merge(SparseSketch other) {
-        values.addAll(other.values);
+        if (other == this || other.size == 0) return;
+        int end = size + other.size;
+        ensureCapacity(end);
+
+        // Merge from the end, so that no value in this is overwritten before it is read
+        int i = size - 1, j = other.size - 1, k = end;
+        while (j >= 0) {
+            int value = other.values[j];
+            if (i >= 0 && values[i] >= value) {
+                if (values[i] == value) j--;
+                values[--k] = values[i--];
+            } else {
+                values[--k] = value;
+                j--;
+            }
+        }
+        // Values up to i are in place, and the merged values after them start at k, after one gap per duplicate
+        System.arraycopy(values, k, values, i + 1, end - k);
+        size = i + 1 + end - k;
     }
 
     /**
@@ -35,7 +69,19 @@ public class SparseSketch extends Sketch<SparseSketch> {
      */
     @Override
     public void aggregate(int hash) {
-        values.add(hash);
+        int index = Arrays.binarySearch(values, 0, size, hash);
+        if (index >= 0) return;
+
+        int insertionPoint = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(values, insertionPoint, values, insertionPoint + 1, size - insertionPoint);
+        values[insertionPoint] = hash;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (values.length >= capacity) return;
+        values = Arrays.copyOf(values, Math.max(capacity, Math.max(8, values.length * 2)));
     }
 
     /**
@@ -50,19 +96,25 @@ public class SparseSketch extends Sketch<SparseSketch> {
     @Override
     protected void onSerialize(Serializer buf) {
         super.onSerialize(buf);
-        buf.putInt(null, values.size());
-        for (int value : values) {
-            buf.putInt(null, value);
+        buf.putInt(null, size);
+        for (int i = 0; i < size; i++) {
+            buf.putInt(null, values[i]);
         }
     }
 
     @Override
     protected void onDeserialize(Deserializer buf) {
         super.onDeserialize(buf);
-        values.clear();
         int nElements = buf.getInt(null);
+        values = nElements == 0 ? empty : new int[nElements];
         for (int i = 0; i < nElements; i++) {
-            values.add(buf.getInt(null));
+            values[i] = buf.getInt(null);
+        }
+        Arrays.sort(values); // Other writers may not keep the values sorted
+        size = 0;
+        for (int i = 0; i < nElements; i++) {
+            if (size == 0 || values[size - 1] != values[i])
+                values[size++] = values[i];
         }
     }
 
@@ -71,12 +123,29 @@ public class SparseSketch extends Sketch<SparseSketch> {
         return classId;
     }
 
+    @Override
+    public SparseSketch clone() {
+        SparseSketch clone = (SparseSketch)super.clone();
+        clone.values = size == 0 ? empty : Arrays.copyOf(values, size);
+        return clone;
+    }
+
+    /** Returns the hash value at the given index, where hash values are sorted ascending */
+    int get(int index) {
+        return values[index];
+    }
+
+    /** Returns a copy of the hash values of this */
     public HashSet<Integer> data() {
-        return values;
+        HashSet<Integer> data = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            data.add(values[i]);
+        }
+        return data;
     }
 
     public int size() {
-        return values.size();
+        return size;
     }
 
     @Override
@@ -86,20 +155,24 @@ public class SparseSketch extends Sketch<SparseSketch> {
 
         SparseSketch sketch = (SparseSketch) o;
 
-        if (!values.equals(sketch.values)) return false;
+        if (!Arrays.equals(values, 0, size, sketch.values, 0, sketch.size)) return false;
 
         return true;
     }
 
     @Override
     public int hashCode() {
-        return values.hashCode();
+        int hashCode = 0;
+        for (int i = 0; i < size; i++) {
+            hashCode += values[i];
+        }
+        return hashCode;
     }
 
     @Override
     public String toString() {
         return "SparseSketch{" +
-                "values=" + values +
+                "values=" + Arrays.toString(Arrays.copyOf(values, size)) +
                 '}';
     }
 }
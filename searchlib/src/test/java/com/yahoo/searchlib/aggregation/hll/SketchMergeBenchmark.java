@@ -0,0 +1,73 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.aggregation.hll;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This benchmark merges the unique count sketches of many groups from many content nodes,
+ * as the container does when merging grouping results, and reports the time and memory allocated per merge.
+ */
+public class SketchMergeBenchmark {
+
+    private static final int NODES = 50;
+    private static final int GROUPS = 10_000;
+    private static final int ITERATIONS = 10;
+
+    private static final Random random = new Random(424242);
+    private static final SketchMerger merger = new SketchMerger();
+
+    public static void main(String[] args) {
+        System.out.println("Unique values per group; Nanoseconds per merge; Bytes allocated per merge");
+        for (int uniqueValues = 1; uniqueValues <= 4096; uniqueValues *= 4) {
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) // warmup
+                mergeAll(createNodeResults(uniqueValues));
+
+            long nanos = 0, bytes = 0;
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                List<Sketch<?>[]> results = createNodeResults(uniqueValues);
+                long startBytes = allocatedBytes();
+                long startTime = System.nanoTime();
+                mergeAll(results);
+                nanos += System.nanoTime() - startTime;
+                bytes += allocatedBytes() - startBytes;
+            }
+            long merges = (long) ITERATIONS * GROUPS * (NODES - 1);
+            System.out.printf("%d; %d; %d\n", uniqueValues, nanos / merges, bytes / merges);
+        }
+    }
+
+    /** Merges the sketch of each group from every node into the sketch of that group from the first node */
+    private static void mergeAll(List<Sketch<?>[]> results) {
+        Sketch<?>[] merged = results.get(0);
+        for (int node = 1; node < NODES; node++) {
+            Sketch<?>[] result = results.get(node);
+            for (int group = 0; group < GROUPS; group++)
+                merged[group] = merger.merge(merged[group], result[group]);
+        }
+    }
+
+    /** Returns the sketches of all groups from each node, where each group has about the given number of unique values */
+    private static List<Sketch<?>[]> createNodeResults(int uniqueValues) {
+        List<Sketch<?>[]> results = new ArrayList<>(NODES);
+        for (int node = 0; node < NODES; node++) {
+            Sketch<?>[] sketches = new Sketch<?>[GROUPS];
+            for (int group = 0; group < GROUPS; group++) {
+                SparseSketch sparse = new SparseSketch();
+                for (int i = 0; i < Math.max(1, uniqueValues / NODES); i++)
+                    sparse.aggregate(random.nextInt(uniqueValues) * 0x9E3779B9);
+                sketches[group] = sparse;
+            }
+            results.add(sketches);
+        }
+        return results;
+    }
+
+    @SuppressWarnings("removal")
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+}
@@ -5,6 +5,8 @@ import com.yahoo.vespa.objects.BufferSerializer;
 import org.junit.Test;
 
 import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -31,6 +33,58 @@ public class SparseSketchTest {
     }
 
 
+    @Test
+    public void requireThatMergeDoesSetUnionOfOverlappingSketches() {
+        Random random = new Random(42);
+        for (int run = 0; run < 100; run++) {
+            SparseSketch s1 = new SparseSketch();
+            SparseSketch s2 = new SparseSketch();
+            Set<Integer> expected = new HashSet<>();
+            for (int i = random.nextInt(50); i > 0; i--) {
+                int value = random.nextInt(100) - 50;
+                s1.aggregate(value);
+                expected.add(value);
+            }
+            for (int i = random.nextInt(50); i > 0; i--) {
+                int value = random.nextInt(100) - 50;
+                s2.aggregate(value);
+                expected.add(value);
+            }
+
+            s1.merge(s2);
+
+            assertEquals(expected, s1.data());
+            assertEquals(expected.size(), s1.size());
+            for (int i = 1; i < s1.size(); i++)
+                assertTrue(s1.get(i - 1) < s1.get(i));
+        }
+    }
+
+    @Test
+    public void requireThatClonesAreIndependent() {
+        SparseSketch original = SketchUtils.createSparseSketch(1, 3);
+        SparseSketch clone = original.clone();
+        clone.aggregate(2);
+        original.merge(SketchUtils.createSparseSketch(0));
+
+        SketchUtils.assertSparseSketchContains(original, 0, 1, 3);
+        SketchUtils.assertSparseSketchContains(clone, 1, 2, 3);
+    }
+
+    @Test
+    public void requireThatUnsortedSerializedValuesAreDeserialized() {
+        BufferSerializer unsorted = new BufferSerializer();
+        unsorted.putInt(null, 4);
+        for (int value : new int[] { 9001, 42, 1337, 42 })
+            unsorted.putInt(null, value);
+        unsorted.flip();
+
+        SparseSketch sketch = new SparseSketch();
+        sketch.deserialize(unsorted);
+
+        SketchUtils.assertSparseSketchContains(sketch, 42, 1337, 9001);
+    }
+
     @Test
     public void requireThatSerializationRetainAllData() {
         SparseSketch from = new SparseSketch();
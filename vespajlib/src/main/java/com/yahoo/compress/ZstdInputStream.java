@@ -0,0 +1,150 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.compress;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming decompression of a sequence of Zstd frames, such as those written by {@link ZstdOutputStream}.
+ * As frames are independent, the stream may start at any frame boundary in the underlying input.
+ *
+ * The frame boundaries are found by reading the frame and block headers, and each frame is then decompressed
+ * as a whole, so memory use is bounded by the size of the largest frame, not by the size of the input.
+ * Skippable frames are skipped.
+ */
+public class ZstdInputStream extends InputStream {
+
+    private static final int MAGIC = 0xFD2FB528;
+    private static final int SKIPPABLE_MAGIC_MASK = 0xFFFFFFF0;
+    private static final int SKIPPABLE_MAGIC = 0x184D2A50;
+    private static final int MAX_BLOCK_SIZE = 128 * 1024;
+
+    private final ZstdCompressor decompressor = new ZstdCompressor();
+    private final InputStream in;
+    private final byte[] single = new byte[1];
+    private byte[] frame = new byte[1024];
+    private byte[] output = new byte[0];
+    private int outputPosition = 0;
+    private int outputLimit = 0;
+    private boolean isClosed = false;
+
+    public ZstdInputStream(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        throwIfClosed();
+        if (len == 0) return 0;
+        while (outputPosition == outputLimit)
+            if ( ! readFrame()) return -1;
+
+        int length = Math.min(len, outputLimit - outputPosition);
+        System.arraycopy(output, outputPosition, b, off, length);
+        outputPosition += length;
+        return length;
+    }
+
+    @Override
+    public int available() throws IOException {
+        throwIfClosed();
+        return outputLimit - outputPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed) return;
+        isClosed = true;
+        in.close();
+    }
+
+    /** Reads and decompresses the next frame, and returns whether there was one. */
+    private boolean readFrame() throws IOException {
+        int length = 0;
+        int first = in.read();
+        if (first == -1) return false;
+        frame[length++] = (byte) first;
+        length = readFully(length, 3);
+        int magic = intAt(0);
+        if ((magic & SKIPPABLE_MAGIC_MASK) == SKIPPABLE_MAGIC) {
+            length = readFully(length, 4);
+            skipFully(intAt(4) & 0xffffffffL);
+            return true;
+        }
+        if (magic != MAGIC)
+            throw new IOException("Invalid zstd frame magic number " + Integer.toHexString(magic));
+
+        length = readFully(length, 1);
+        int descriptor = frame[4] & 0xff;
+        boolean singleSegment = (descriptor & 0x20) != 0;
+        boolean hasChecksum = (descriptor & 0x04) != 0;
+        int dictionaryIdSize = new int[] { 0, 1, 2, 4 }[descriptor & 0x03];
+        int contentSizeSize = new int[] { singleSegment ? 1 : 0, 2, 4, 8 }[descriptor >>> 6];
+        length = readFully(length, (singleSegment ? 0 : 1) + dictionaryIdSize + contentSizeSize);
+
+        long maxDecompressedSize = 0;
+        boolean lastBlock;
+        do {
+            int headerOffset = length;
+            length = readFully(length, 3);
+            int header = (frame[headerOffset] & 0xff) | (frame[headerOffset + 1] & 0xff) << 8 | (frame[headerOffset + 2] & 0xff) << 16;
+            lastBlock = (header & 1) != 0;
+            int blockSize = header >>> 3;
+            switch ((header >>> 1) & 0x03) {
+                case 0: length = readFully(length, blockSize); maxDecompressedSize += blockSize; break;
+                case 1: length = readFully(length, 1); maxDecompressedSize += blockSize; break;
+                case 2: length = readFully(length, blockSize); maxDecompressedSize += MAX_BLOCK_SIZE; break;
+                default: throw new IOException("Invalid zstd block type in frame");
+            }
+        } while ( ! lastBlock);
+        if (hasChecksum)
+            length = readFully(length, 4);
+
+        long contentSize = ZstdCompressor.getDecompressedLength(frame, 0, length);
+        int outputSize = (int) Math.min(contentSize >= 0 ? contentSize : maxDecompressedSize, Integer.MAX_VALUE - 8);
+        if (output.length < outputSize)
+            output = new byte[outputSize];
+        outputPosition = 0;
+        outputLimit = decompressor.decompress(frame, 0, length, output, 0, output.length);
+        return true;
+    }
+
+    /** Reads exactly the given number of bytes into the frame buffer at the given offset, and returns the new length. */
+    private int readFully(int offset, int count) throws IOException {
+        if (frame.length < offset + count)
+            frame = Arrays.copyOf(frame, Math.max(offset + count, 2 * frame.length));
+        for (int read = 0; read < count; ) {
+            int n = in.read(frame, offset + read, count - read);
+            if (n == -1) throw new EOFException("Unexpected end of zstd frame");
+            read += n;
+        }
+        return offset + count;
+    }
+
+    private void skipFully(long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() == -1) throw new EOFException("Unexpected end of skippable zstd frame");
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    private int intAt(int offset) {
+        return (frame[offset] & 0xff) | (frame[offset + 1] & 0xff) << 8 | (frame[offset + 2] & 0xff) << 16 | (frame[offset + 3] & 0xff) << 24;
+    }
+
+    private void throwIfClosed() throws IOException {
+        if (isClosed) throw new IOException("Input stream is already closed");
+    }
+
+}
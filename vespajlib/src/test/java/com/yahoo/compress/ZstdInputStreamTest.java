@@ -0,0 +1,76 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.compress;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ZstdInputStreamTest {
+
+    @Test
+    void input_stream_decompresses_sequence_of_frames() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            builder.append("The quick brown fox jumps over the lazy dog ").append(random.nextInt(1000)).append('\n');
+        }
+        byte[] inputData = builder.toString().getBytes();
+        for (int frameSize : new int[] { 12, 8192, 1 << 20 }) {
+            byte[] compressed = compress(inputData, frameSize);
+            try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(compressed))) {
+                assertArrayEquals(inputData, in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void input_stream_decompresses_incompressible_data() throws IOException {
+        byte[] inputData = new byte[300_000];
+        new Random(2).nextBytes(inputData);
+        try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(compress(inputData, 200_000)))) {
+            assertArrayEquals(inputData, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void skippable_frames_are_skipped() throws IOException {
+        byte[] inputData = "The quick brown fox jumps over the lazy dog".getBytes();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        data.write(new byte[] { 0x50, 0x2a, 0x4d, 0x18, 3, 0, 0, 0, 1, 2, 3 });
+        data.write(compress(inputData, 8192));
+        try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(data.toByteArray()))) {
+            assertEquals('T', in.read());
+            byte[] rest = in.readAllBytes();
+            assertArrayEquals(Arrays.copyOfRange(inputData, 1, inputData.length), rest);
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void truncated_frame_fails() {
+        byte[] compressed = compress("The quick brown fox jumps over the lazy dog".getBytes(), 8192);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length - 2);
+        assertThrows(EOFException.class, () -> new ZstdInputStream(new ByteArrayInputStream(truncated)).readAllBytes());
+    }
+
+    private static byte[] compress(byte[] data, int frameSize) {
+        ByteArrayOutputStream arrayOut = new ByteArrayOutputStream();
+        try (ZstdOutputStream zstdOut = new ZstdOutputStream(arrayOut, frameSize)) {
+            zstdOut.write(data);
+        }
+        catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return arrayOut.toByteArray();
+    }
+
+}
@@ -0,0 +1,307 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes log records to a log target from a dedicated thread.
+ * <p>
+ * Records are handed over through a bounded lock-free ring buffer, so publishing threads never
+ * contend on a lock or format anything. The writer thread drains the buffer in batches,
+ * formatting each record into a reusable builder and encoding it into a reusable byte buffer,
+ * and opens the target once per batch, which keeps log rotation working as for synchronous logging.
+ * When the buffer is full, records are either dropped and counted, or the publishing thread
+ * waits for room, depending on the {@link OverflowPolicy}.
+ * <p>
+ * Should only be used internally in the log library
+ */
+class AsyncLogWriter {
+
+    /** What to do with records published while the buffer is full */
+    enum OverflowPolicy {
+
+        /** Discard the record, and count it as dropped */
+        DROP,
+
+        /** Wait until there is room for the record */
+        BLOCK;
+
+        static OverflowPolicy fromString(String policy) {
+            for (OverflowPolicy value : values())
+                if (value.name().equalsIgnoreCase(policy)) return value;
+            throw new IllegalArgumentException("Unknown log overflow policy '" + policy + "', must be 'drop' or 'block'");
+        }
+
+    }
+
+    private static final long idleWaitNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long blockedWaitNanos = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final LogTarget logTarget;
+    private final VespaFormatter formatter;
+    private final OverflowPolicy overflowPolicy;
+    private final RingBuffer<LogRecord> buffer;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+
+    private volatile boolean closed = false;
+    private volatile boolean writerIdle = false;
+    /** The number of records taken from the buffer and written to the target */
+    private volatile long written = 0;
+
+    // Owned by the writer thread
+    private final StringBuilder text = new StringBuilder(1024);
+    private final CharsetEncoder encoder = UTF_8.newEncoder()
+                                                .onMalformedInput(CodingErrorAction.REPLACE)
+                                                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(1 << 16);
+    private long droppedReported = 0;
+
+    AsyncLogWriter(LogTarget logTarget, VespaFormatter formatter, int bufferSize, OverflowPolicy overflowPolicy) {
+        this.logTarget = logTarget;
+        this.formatter = formatter;
+        this.overflowPolicy = overflowPolicy;
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.writer = new Thread(this::run, "vespa-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Hands the given record over to the writer thread, or drops it if the buffer is full and the policy is to drop */
+    void publish(LogRecord record) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        while ( ! buffer.offer(record)) {
+            if (overflowPolicy == OverflowPolicy.DROP || closed) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(blockedWaitNanos);
+        }
+        if (writerIdle)
+            LockSupport.unpark(writer);
+    }
+
+    /** Returns the number of records dropped because the buffer was full, since this was created */
+    long droppedCount() {
+        return dropped.sum();
+    }
+
+    /** Waits until all records published before this call are written, or the given timeout elapses */
+    void flush(long timeout, TimeUnit unit) {
+        long target = buffer.offered();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (written < target && writer.isAlive() && System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(blockedWaitNanos);
+        }
+    }
+
+    /** Writes all buffered records and stops the writer thread. Records published after this are dropped. */
+    void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            LogRecord record = buffer.poll();
+            if (record != null) {
+                writeBatch(record);
+            }
+            else if (closed) {
+                if ((record = buffer.poll()) == null) return;
+                writeBatch(record);
+            }
+            else {
+                writerIdle = true;
+                if (buffer.isEmpty() && ! closed)
+                    LockSupport.parkNanos(idleWaitNanos);
+                writerIdle = false;
+            }
+        }
+    }
+
+    /** Writes the given record and all records in the buffer, up to the size of the buffer */
+    private void writeBatch(LogRecord first) {
+        OutputStream out = open();
+        try {
+            bytes.clear();
+            int count = 1;
+            for (LogRecord record = first; record != null; record = count++ < buffer.capacity() ? buffer.poll() : null)
+                write(record, out);
+            reportDropped(out);
+            drain(out);
+            out.flush();
+        }
+        catch (IOException | RuntimeException e) {
+            LogRecord r = new LogRecord(Level.SEVERE, "Unable to write log");
+            r.setThrown(e);
+            emergencyLog(r);
+        }
+        finally {
+            close(out);
+            written = buffer.polled();
+        }
+    }
+
+    /** Formats and encodes the given record into the byte buffer, writing the buffer to the output whenever it fills up */
+    private void write(LogRecord record, OutputStream out) throws IOException {
+        text.setLength(0);
+        formatter.format(record, text);
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (encoder.encode(chars, bytes, true).isOverflow())
+            drain(out);
+        while (encoder.flush(bytes).isOverflow())
+            drain(out);
+        if (text.length() > 1 << 16) { // Don't keep a huge builder around after logging e.g. a very long stack trace
+            text.setLength(0);
+            text.trimToSize();
+            text.ensureCapacity(1024);
+        }
+    }
+
+    private void drain(OutputStream out) throws IOException {
+        out.write(bytes.array(), 0, bytes.position());
+        bytes.clear();
+    }
+
+    /** Writes a warning about records dropped since the last report, if any */
+    private void reportDropped(OutputStream out) throws IOException {
+        long droppedTotal = dropped.sum();
+        if (droppedTotal == droppedReported) return;
+
+        LogRecord report = new LogRecord(Level.WARNING, "Dropped " + (droppedTotal - droppedReported) +
+                                                        " log messages since the log buffer was full");
+        report.setLoggerName(VespaLogHandler.class.getName());
+        droppedReported = droppedTotal;
+        write(report, out);
+    }
+
+    private OutputStream open() {
+        try {
+            return logTarget.open();
+        }
+        catch (RuntimeException e) {
+            LogRecord r = new LogRecord(Level.SEVERE, "Unable to open file target");
+            r.setThrown(e);
+            emergencyLog(r);
+            return new UncloseableOutputStream(System.err);
+        }
+    }
+
+    private void close(OutputStream out) {
+        try {
+            if (out instanceof UncloseableOutputStream) return;
+            logTarget.close();
+        }
+        catch (RuntimeException e) {
+            LogRecord r = new LogRecord(Level.WARNING, "Unable to close log");
+            r.setThrown(e);
+            emergencyLog(r);
+        }
+    }
+
+    private void emergencyLog(LogRecord record) {
+        record.setLoggerName(VespaLogHandler.class.getName());
+        System.err.print(formatter.format(record));
+    }
+
+    /**
+     * A bounded, lock-free, multi-producer single-consumer ring buffer, where each slot carries a sequence
+     * number telling whether it is ready to be written or read in the current lap.
+     */
+    static class RingBuffer<T> {
+
+        private final Object[] items;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head = 0;
+
+        RingBuffer(int minCapacity) {
+            if (minCapacity < 1 || minCapacity > 1 << 30)
+                throw new IllegalArgumentException("Log buffer size must be between 1 and 2^30, was " + minCapacity);
+            // At least 2, as sequence numbers of written and free slots are otherwise indistinguishable
+            int capacity = Math.max(2, Integer.highestOneBit(minCapacity));
+            if (capacity < minCapacity) capacity <<= 1;
+            this.items = new Object[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            for (int i = 0; i < capacity; i++)
+                sequences.set(i, i);
+            this.mask = capacity - 1;
+        }
+
+        /** Adds the given item, or returns false if the buffer is full. May be called from any thread. */
+        boolean offer(T item) {
+            long position = tail.get();
+            while (true) {
+                int index = (int) (position & mask);
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        items[index] = item;
+                        sequences.set(index, position + 1); // Publishes the item to the consumer
+                        return true;
+                    }
+                    position = tail.get();
+                }
+                else if (difference < 0) {
+                    return false; // The consumer has not yet taken the item from the previous lap
+                }
+                else {
+                    position = tail.get(); // Another producer claimed this slot
+                }
+            }
+        }
+
+        /** Removes and returns the next item, or null if there is none. Must only be called from a single thread. */
+        @SuppressWarnings("unchecked")
+        T poll() {
+            long position = head;
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) return null;
+            T item = (T) items[index];
+            items[index] = null;
+            sequences.set(index, position + items.length); // Frees the slot for the next lap
+            head = position + 1;
+            return item;
+        }
+
+        boolean isEmpty() { return head == tail.get(); }
+
+        int capacity() { return items.length; }
+
+        /** Returns the number of items ever added, including those being added right now */
+        long offered() { return tail.get(); }
+
+        /** Returns the number of items ever removed */
+        long polled() { return head; }
+
+    }
+
+}
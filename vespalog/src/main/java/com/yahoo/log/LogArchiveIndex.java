@@ -0,0 +1,147 @@
+// Copyright Yahoo. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * A sidecar index of a compressed log archive file, stored next to it with the suffix {@value #suffix}.
+ * <p>
+ * The compressed file is a sequence of independently compressed frames, and the index holds, for each frame
+ * which starts at a line boundary, its offset in the compressed file and the highest timestamp of any log line
+ * in the frames up to the next indexed frame. This lets readers start decompressing at the first frame which
+ * may contain entries at or after some point in time, instead of at the start of the file.
+ */
+public class LogArchiveIndex {
+
+    public static final String suffix = ".index";
+
+    private static final int magic = 0x56494458; // "VIDX"
+    private static final int version = 1;
+
+    private final long[] offsets;
+    private final double[] maxTimestamps;
+
+    private LogArchiveIndex(long[] offsets, double[] maxTimestamps) {
+        this.offsets = offsets;
+        this.maxTimestamps = maxTimestamps;
+    }
+
+    /** Returns the number of indexed frames */
+    public int size() { return offsets.length; }
+
+    /**
+     * Returns the offset in the compressed file of the first frame which may contain entries with
+     * a timestamp at or after the given one, in seconds since epoch, or -1 if there is no such frame.
+     */
+    public long offsetOf(double fromSeconds) {
+        for (int i = 0; i < offsets.length; i++)
+            if (maxTimestamps[i] >= fromSeconds) return offsets[i];
+        return -1;
+    }
+
+    /** Returns the path of the index for the given log file */
+    public static Path pathOf(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + suffix);
+    }
+
+    /** Returns whether the given path is that of a log archive index */
+    public static boolean isIndex(Path path) {
+        return path.getFileName().toString().endsWith(suffix);
+    }
+
+    /** Reads the index of the given log file, if it has a valid one */
+    public static Optional<LogArchiveIndex> readFor(Path logFile) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(pathOf(logFile))))) {
+            if (in.readInt() != magic || in.readInt() != version) return Optional.empty();
+            int size = in.readInt();
+            long[] offsets = new long[size];
+            double[] maxTimestamps = new double[size];
+            for (int i = 0; i < size; i++) {
+                offsets[i] = in.readLong();
+                maxTimestamps[i] = in.readDouble();
+            }
+            return Optional.of(new LogArchiveIndex(offsets, maxTimestamps));
+        }
+        catch (IOException e) { // Missing, truncated or corrupt, and readers should then read the whole log file
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the timestamp, in seconds since epoch, of the Vespa log line in the given range of the
+     * given array, or NaN if it does not start with a valid timestamp.
+     */
+    public static double timestampOf(byte[] line, int start, int end) {
+        long seconds = 0;
+        int i = start;
+        for (; i < end && line[i] >= '0' && line[i] <= '9'; i++)
+            seconds = seconds * 10 + (line[i] - '0');
+        if (i == start) return Double.NaN;
+
+        double fraction = 0;
+        if (i < end && line[i] == '.') {
+            double scale = 0.1;
+            for (i++; i < end && line[i] >= '0' && line[i] <= '9'; i++, scale /= 10)
+                fraction += (line[i] - '0') * scale;
+        }
+        if (i < end && line[i] != '\t') return Double.NaN;
+        return seconds + fraction;
+    }
+
+    /** Builds an index while a log file is compressed, one frame at a time */
+    public static class Builder {
+
+        private long[] offsets = new long[16];
+        private double[] maxTimestamps = new double[16];
+        private int size = 0;
+
+        /** Adds a frame starting at a line boundary, with the highest timestamp of the lines up to the next added frame */
+        public Builder add(long offset, double maxTimestamp) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                maxTimestamps = Arrays.copyOf(maxTimestamps, size * 2);
+            }
+            offsets[size] = offset;
+            maxTimestamps[size] = maxTimestamp;
+            size++;
+            return this;
+        }
+
+        /** Atomically writes this as the index of the given log file */
+        public void writeFor(Path logFile) {
+            Path index = pathOf(logFile);
+            Path tmp = index.resolveSibling("." + index.getFileName() + ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(magic);
+                    out.writeInt(version);
+                    out.writeInt(size);
+                    for (int i = 0; i < size; i++) {
+                        out.writeLong(offsets[i]);
+                        out.writeDouble(maxTimestamps[i]);
+                    }
+                }
+                Files.move(tmp, index, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Failed writing log archive index " + index, e);
+            }
+        }
+
+        public LogArchiveIndex build() {
+            return new LogArchiveIndex(Arrays.copyOf(offsets, size), Arrays.copyOf(maxTimestamps, size));
+        }
+
+    }
+
+}
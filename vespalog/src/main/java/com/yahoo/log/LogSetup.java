@@ -24,6 +24,9 @@ public class LogSetup {
 
     private static final Timer taskRunner = new Timer(true);
 
+    private static final int defaultAsyncBufferSize = 8192;
+    private static final AsyncLogWriter.OverflowPolicy defaultAsyncOverflowPolicy = AsyncLogWriter.OverflowPolicy.BLOCK;
+
     static Timer getTaskRunner() { return taskRunner; }
 
     /** The log handler used by this */
@@ -67,10 +70,21 @@ public class LogSetup {
      * <br>
      * System.setProperty("vespa.log.control.file", "my.logcontrol")
      * <br>
+     * System.setProperty("vespa.log.async", "true")
+     * <br>
+     * System.setProperty("vespa.log.async.buffer.size", "8192")
+     * <br>
+     * System.setProperty("vespa.log.async.overflow", "block")
+     * <br>
      * vespa.log.control.file is used if it's set, otherwise it's
      * vespa.log.control.dir + "/" + vespa.service.name + ".logcontrol"
      * if both of those variables are set, otherwise there will be no
      * runtime log control.
+     * <br>
+     * If vespa.log.async is "true", log records are written by a dedicated
+     * thread, through a buffer holding vespa.log.async.buffer.size records,
+     * and vespa.log.async.overflow decides whether records are dropped
+     * ("drop") or logging threads wait ("block") when the buffer is full.
      *
      * @param programName the name of the program that is running;
      * this is added as a prefix to the logger name to form the
@@ -90,6 +104,9 @@ public class LogSetup {
         String logService = System.getProperty("vespa.service.name");
         String logControlDir  = System.getProperty("vespa.log.control.dir");
         String logControlFile = System.getProperty("vespa.log.control.file");
+        String logAsync = System.getProperty("vespa.log.async");
+        String logAsyncBufferSize = System.getProperty("vespa.log.async.buffer.size");
+        String logAsyncOverflow = System.getProperty("vespa.log.async.overflow");
         if (programName == null || programName.equals("")) {
             throw new RuntimeException("invalid programName: " + programName);
         }
@@ -100,6 +117,9 @@ public class LogSetup {
         if (logControlDir == null)  logControlDir = System.getenv("VESPA_LOG_CONTROL_DIR");
         if (logControlFile == null) logControlFile = System.getenv("VESPA_LOG_CONTROL_FILE");
         if (logLevel == null)       logLevel = System.getenv("VESPA_LOG_LEVEL");
+        if (logAsync == null)       logAsync = System.getenv("VESPA_LOG_ASYNC");
+        if (logAsyncBufferSize == null) logAsyncBufferSize = System.getenv("VESPA_LOG_ASYNC_BUFFER_SIZE");
+        if (logAsyncOverflow == null)   logAsyncOverflow = System.getenv("VESPA_LOG_ASYNC_OVERFLOW");
 
         // then hardcoded defaults
         if (logTarget == null) logTarget = "fd:2";
@@ -121,13 +141,40 @@ public class LogSetup {
         System.setProperty("vespa.service.name", logService);
         System.setProperty("vespa.program.name", programName);
 
+        boolean async = Boolean.parseBoolean(logAsync);
         try {
-            initInternal(logTarget, logService, logControlFile, programName, logLevel);
+            initInternal(logTarget, logService, logControlFile, programName, logLevel,
+                         async ? asyncBufferSize(logAsyncBufferSize) : 0,
+                         async ? asyncOverflowPolicy(logAsyncOverflow) : defaultAsyncOverflowPolicy);
         } catch (FileNotFoundException e) {
             throw new RuntimeException("Unable to initialize logging", e);
         }
     }
 
+    /** Returns the given async log buffer size, or the default if it is not set or invalid */
+    static int asyncBufferSize(String size) {
+        if (size == null) return defaultAsyncBufferSize;
+        try {
+            int value = Integer.parseInt(size.trim());
+            if (value >= 1 && value <= 1 << 30) return value;
+        } catch (NumberFormatException e) {
+            // Warned below
+        }
+        System.err.println("WARNING: Invalid async log buffer size '" + size + "', using " + defaultAsyncBufferSize);
+        return defaultAsyncBufferSize;
+    }
+
+    /** Returns the given async log overflow policy, or the default if it is not set or invalid */
+    static AsyncLogWriter.OverflowPolicy asyncOverflowPolicy(String policy) {
+        if (policy == null) return defaultAsyncOverflowPolicy;
+        try {
+            return AsyncLogWriter.OverflowPolicy.fromString(policy.trim());
+        } catch (IllegalArgumentException e) {
+            System.err.println("WARNING: " + e.getMessage() + ", using '" + defaultAsyncOverflowPolicy.name().toLowerCase() + "'");
+            return defaultAsyncOverflowPolicy;
+        }
+    }
+
     private static LogTarget getLogTargetFromString(String target) throws FileNotFoundException {
         if ("fd:2".equals(target)) {
             return new StderrLogTarget();
@@ -143,7 +190,9 @@ public class LogSetup {
                                      String service,
                                      String logCtlFn,
                                      String app,
-                                     String lev) throws FileNotFoundException {
+                                     String lev,
+                                     int asyncBufferSize,
+                                     AsyncLogWriter.OverflowPolicy overflowPolicy) throws FileNotFoundException {
         clearHandlers();
 
         if (app != null && app.length() > 64) app = app.substring(0, 63);
@@ -153,7 +202,8 @@ public class LogSetup {
             Logger.getLogger("").removeHandler(logHandler);
         }
         Logger.getLogger("").setLevel(Level.ALL);
-        logHandler = new VespaLogHandler(getLogTargetFromString(target), new VespaLevelControllerRepo(logCtlFn, lev, app), service, app);
+        logHandler = new VespaLogHandler(getLogTargetFromString(target), new VespaLevelControllerRepo(logCtlFn, lev, app), service, app,
+                                         asyncBufferSize, overflowPolicy);
         String zookeeperLogFile = System.getProperty("zookeeper_log_file_prefix");
         if (zookeeperLogFile != null) {
             zooKeeperFilter = new ZooKeeperFilter(zookeeperLogFile);
@@ -166,6 +216,11 @@ public class LogSetup {
         return logHandler;
     }
 
+    /** Returns the number of log messages dropped since logging was set up, because the asynchronous log buffer was full */
+    public static long getDroppedLogMessageCount() {
+        return logHandler == null ? 0 : logHandler.droppedRecordCount();
+    }
+
     /** perform cleanup */
     public static void cleanup() {
          if (zooKeeperFilter != null)
@@ -22,6 +22,16 @@ class UncloseableOutputStream extends OutputStream {
         out.write(b);
     }
 
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
     @Override
     public void close() {
         // ignore
@@ -90,10 +90,15 @@ class VespaFormatter extends SimpleFormatter {
         return s;
     }
 
-    @SuppressWarnings("deprecation")
     public String format(LogRecord r) {
         StringBuilder sbuf = new StringBuilder(300); // initial guess
+        format(r, sbuf);
+        return sbuf.toString();
+    }
 
+    /** Appends the given record in the Vespa log format, including the terminating newline, to the given builder */
+    @SuppressWarnings("deprecation")
+    void format(LogRecord r, StringBuilder sbuf) {
         String levelName = LogLevel.getVespaLogLevel(r.getLevel()).toString().toLowerCase();
 
         String component = r.getLoggerName();
@@ -131,7 +136,6 @@ class VespaFormatter extends SimpleFormatter {
         appendException(r.getThrown(), sbuf);
 
         sbuf.append("\n");
-        return sbuf.toString();
     }
 
     private void appendException(Throwable throwable, StringBuilder builder) {
@@ -2,6 +2,7 @@
 package com.yahoo.log;
 
 import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.StreamHandler;
@@ -18,6 +19,7 @@ class VespaLogHandler extends StreamHandler {
     private final String appPrefix;
     private final LevelControllerRepo repo;
     private final RejectFilter logRejectFilter;
+    private final AsyncLogWriter asyncWriter;
 
     /**
      * Construct handler which logs to specified logTarget.  The logTarget
@@ -34,30 +36,53 @@ class VespaLogHandler extends StreamHandler {
      */
     VespaLogHandler(LogTarget logTarget,
                     LevelControllerRepo levelControllerRepo, String serviceName, String applicationPrefix) {
+        this(logTarget, levelControllerRepo, serviceName, applicationPrefix, 0, AsyncLogWriter.OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Construct handler which logs to specified logTarget, asynchronously if asyncBufferSize is positive.
+     * Asynchronous logging hands records over to a dedicated writer thread through a buffer of (at least)
+     * the given size, and either drops records or blocks when it is full, as given by the overflow policy.
+     * Records are formatted on the writer thread, so log message parameters should not be modified after logging.
+     */
+    VespaLogHandler(LogTarget logTarget, LevelControllerRepo levelControllerRepo, String serviceName, String applicationPrefix,
+                    int asyncBufferSize, AsyncLogWriter.OverflowPolicy overflowPolicy) {
         this.logTarget = logTarget;
         this.serviceName = serviceName;
         this.appPrefix = applicationPrefix;
         this.repo = levelControllerRepo;
         this.logRejectFilter = RejectFilter.createDefaultRejectFilter();
         initialize();
+        this.asyncWriter = asyncBufferSize > 0
+                           ? new AsyncLogWriter(logTarget, (VespaFormatter) getFormatter(), asyncBufferSize, overflowPolicy)
+                           : null;
     }
 
     /**
      * Publish a log record into the Vespa log target.
      */
-    public synchronized void publish(LogRecord record) {
-        Level level = record.getLevel();
-        String component = record.getLoggerName();
+    @Override
+    public void publish(LogRecord record) {
+        if ( ! shouldLog(record)) return;
 
-        LevelController ctrl = getLevelControl(component);
-        if (!ctrl.shouldLog(level)) {
-            return;
+        if (asyncWriter != null) {
+            if (isLoggable(record))
+                asyncWriter.publish(record);
         }
+        else {
+            publishSynchronously(record);
+        }
+    }
 
-        if (logRejectFilter.shouldReject(record.getMessage())) {
-            return;
+    private boolean shouldLog(LogRecord record) {
+        LevelController ctrl = getLevelControl(record.getLoggerName());
+        if (!ctrl.shouldLog(record.getLevel())) {
+            return false;
         }
+        return ! logRejectFilter.shouldReject(record.getMessage());
+    }
 
+    private synchronized void publishSynchronously(LogRecord record) {
         try {
             // provokes rotation of target
             setOutputStream(logTarget.open());
@@ -72,6 +97,27 @@ class VespaLogHandler extends StreamHandler {
         closeFileTarget();
     }
 
+    /** Returns the number of records dropped because the asynchronous log buffer was full */
+    long droppedRecordCount() {
+        return asyncWriter == null ? 0 : asyncWriter.droppedCount();
+    }
+
+    /** Waits for pending asynchronous writes, if any, before flushing the output stream */
+    @Override
+    public void flush() {
+        if (asyncWriter != null)
+            asyncWriter.flush(10, TimeUnit.SECONDS);
+        super.flush();
+    }
+
+    /** Writes all pending asynchronous records, if any, before closing the output stream */
+    @Override
+    public void close() {
+        if (asyncWriter != null)
+            asyncWriter.close();
+        super.close();
+    }
+
     LevelController getLevelControl(String component) {
         return repo.getLevelController(component);
     }
@@ -129,6 +175,8 @@ class VespaLogHandler extends StreamHandler {
     }
 
     public void cleanup() {
+        if (asyncWriter != null)
+            asyncWriter.close();
         repo.close();
     }
 }
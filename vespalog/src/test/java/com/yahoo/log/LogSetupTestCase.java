@@ -137,6 +137,17 @@ public class LogSetupTestCase {
         assertEquals(zookeeperLogRecordString, lines[0]);
     }
 
+    @Test
+    public void testInvalidAsyncSettingsFallBackToDefaults() {
+        assertEquals(8192, LogSetup.asyncBufferSize(null));
+        assertEquals(1024, LogSetup.asyncBufferSize(" 1024"));
+        assertEquals(8192, LogSetup.asyncBufferSize("lots"));
+        assertEquals(8192, LogSetup.asyncBufferSize("0"));
+        assertEquals(AsyncLogWriter.OverflowPolicy.BLOCK, LogSetup.asyncOverflowPolicy(null));
+        assertEquals(AsyncLogWriter.OverflowPolicy.DROP, LogSetup.asyncOverflowPolicy("Drop"));
+        assertEquals(AsyncLogWriter.OverflowPolicy.BLOCK, LogSetup.asyncOverflowPolicy("discard"));
+    }
+
     private void setupAndCheckLevels(String levelString, String expectedOnOffString, Level shouldLog, Level shouldNotLog) {
         try {
             if (levelString != null) {
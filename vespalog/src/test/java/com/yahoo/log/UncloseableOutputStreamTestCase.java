@@ -20,6 +20,16 @@ public class UncloseableOutputStreamTestCase {
         Mockito.verify(out).write(69);
     }
 
+    @Test
+    public void requireThatBulkWriteAndFlushAreProxied() throws IOException {
+        OutputStream out = Mockito.mock(OutputStream.class);
+        byte[] bytes = new byte[] { 1, 2, 3 };
+        new UncloseableOutputStream(out).write(bytes, 1, 2);
+        new UncloseableOutputStream(out).flush();
+        Mockito.verify(out).write(bytes, 1, 2);
+        Mockito.verify(out).flush();
+    }
+
     @Test
     public void requireThatCloseIsIgnored() {
         OutputStream out = Mockito.mock(OutputStream.class);
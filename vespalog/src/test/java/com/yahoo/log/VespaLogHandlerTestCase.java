@@ -16,9 +16,11 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -199,6 +201,52 @@ public class VespaLogHandlerTestCase {
         assertEquals(record2String, lines[3]);
     }
 
+    @Test
+    public void testAsyncLogging() {
+        MockLevelController ctl = new MockLevelController();
+        ctl.setShouldLog(Level.WARNING);
+        MockLogTarget target = new MockLogTarget();
+        VespaLogHandler h = new VespaLogHandler(target, new MockLevelControllerRepo(ctl), "my-test-config-id", "TST",
+                                                16, AsyncLogWriter.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 100; i++) {
+            h.publish(record1);
+            h.publish(record3);
+        }
+        h.flush();
+        String[] lines = target.getLines();
+        assertEquals(100, lines.length);
+        for (String line : lines)
+            assertEquals(record3String, line);
+
+        h.publish(record4);
+        h.close();
+        assertEquals(101, target.getLines().length);
+        assertEquals(0, h.droppedRecordCount());
+    }
+
+    @Test
+    public void testAsyncLoggingDropsAndCountsRecordsWhenBufferIsFull() throws InterruptedException {
+        MockLevelController ctl = new MockLevelController();
+        ctl.setShouldLog(Level.WARNING);
+        BlockingLogTarget target = new BlockingLogTarget();
+        VespaLogHandler h = new VespaLogHandler(target, new MockLevelControllerRepo(ctl), "my-test-config-id", "TST",
+                                                2, AsyncLogWriter.OverflowPolicy.DROP);
+        target.blocking = true;
+        h.publish(record3); // Taken by the writer, which then waits to open the target
+        target.opened.await();
+        h.publish(record3);
+        h.publish(record3); // Fills the buffer
+        h.publish(record3); // Dropped
+        assertEquals(1, h.droppedRecordCount());
+
+        target.release.countDown();
+        h.close();
+        String[] lines = target.getLines();
+        assertEquals(4, lines.length);
+        assertEquals(3, Arrays.stream(lines).filter(record3String::equals).count());
+        assertTrue(Arrays.stream(lines).anyMatch(line -> line.endsWith("\twarning\tDropped 1 log messages since the log buffer was full")));
+    }
+
     /**
      * Make sure rotation works
      */
@@ -416,6 +464,25 @@ public class VespaLogHandlerTestCase {
         }
     }
 
+    private static class BlockingLogTarget extends MockLogTarget {
+
+        final CountDownLatch opened = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean blocking = false;
+
+        @Override
+        public OutputStream open() {
+            if ( ! blocking) return super.open();
+            opened.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return super.open();
+        }
+    }
+
     private static class MockLogTarget implements LogTarget {
         private final ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
@@ -290,6 +290,22 @@ public class Curator extends AbstractComponent implements VespaCurator, AutoClos
         }
     }
 
+    /**
+     * Returns the data at the given path, like {@link #getData(Path)}, and stores the stat data of the node
+     * in the given stat. The stat is left untouched if the path does not exist.
+     */
+    public Optional<byte[]> getData(Path path, Stat stat) {
+        try {
+            return Optional.of(framework().getData().storingStatIn(stat).forPath(path.getAbsolute()));
+        }
+        catch (KeeperException.NoNodeException e) {
+            return Optional.empty();
+        }
+        catch (Exception e) {
+            throw new RuntimeException("Could not get data at " + path.getAbsolute(), e);
+        }
+    }
+
     /**
      * Returns the stat data at the given path.
      * Empty is returned if the path does not exist.
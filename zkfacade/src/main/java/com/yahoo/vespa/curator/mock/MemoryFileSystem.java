@@ -17,6 +17,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A simple in-memory "file system" useful for Curator caching/mocking.
@@ -108,6 +109,9 @@ class MemoryFileSystem extends FileSystem {
      */
     public static class Node implements Cloneable {
 
+        /** Emulates the ZooKeeper transaction id, which orders all modifications in the file system */
+        private static final AtomicLong lastModification = new AtomicLong(0);
+
         /** The parent of this node, or null if this is the root */
         private final Node parent;
 
@@ -119,6 +123,9 @@ class MemoryFileSystem extends FileSystem {
 
         private final AtomicInteger version = new AtomicInteger(0);
 
+        /** The id of the last modification of this node, which is unique to each creation and change of content */
+        private volatile long modified = lastModification.incrementAndGet();
+
         private Map<String, Node> children = Collections.synchronizedMap(new LinkedHashMap<>());
 
         private Node(Node parent, String name) {
@@ -138,10 +145,14 @@ class MemoryFileSystem extends FileSystem {
         public void setContent(byte[] content) {
             this.content = Arrays.copyOf(content, content.length);
             this.version.incrementAndGet();
+            this.modified = lastModification.incrementAndGet();
         }
 
         public int version() { return version.get(); }
 
+        /** Returns the id of the last modification of this node, like the mzxid of a ZooKeeper node */
+        public long modified() { return modified; }
+
         /**
          * Returns the node given by the path.
          *
@@ -1041,6 +1041,7 @@ public class MockCuratorFramework implements CuratorFramework  {
                 MemoryFileSystem.Node node = getNode(path, fileSystem.root());
                 Stat stat = new Stat();
                 stat.setVersion(node.version());
+                stat.setMzxid(node.modified());
                 return stat;
             }
             catch (KeeperException.NoNodeException e) {
@@ -1137,7 +1138,30 @@ public class MockCuratorFramework implements CuratorFramework  {
 
         @Override
         public WatchPathable<byte[]> storingStatIn(Stat stat) {
-            throw new UnsupportedOperationException("Not implemented in MockCurator");
+            return new WatchPathable<>() {
+                @Override
+                public byte[] forPath(String path) throws Exception {
+                    MemoryFileSystem.Node node = getNode(path, fileSystem.root());
+                    stat.setVersion(node.version());
+                    stat.setMzxid(node.modified());
+                    return node.getContent();
+                }
+
+                @Override
+                public Pathable<byte[]> watched() {
+                    throw new UnsupportedOperationException("Not implemented in MockCurator");
+                }
+
+                @Override
+                public Pathable<byte[]> usingWatcher(Watcher watcher) {
+                    throw new UnsupportedOperationException("Not implemented in MockCurator");
+                }
+
+                @Override
+                public Pathable<byte[]> usingWatcher(CuratorWatcher curatorWatcher) {
+                    throw new UnsupportedOperationException("Not implemented in MockCurator");
+                }
+            };
         }
     }
 